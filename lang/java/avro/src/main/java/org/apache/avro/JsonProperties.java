@@ -17,23 +17,18 @@
  */
 package org.apache.avro;
 
-import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.ConcurrentMap;
 
 import java.io.IOException;
 
 import org.apache.avro.util.internal.Accessor;
 import org.apache.avro.util.internal.Accessor.JsonPropertiesAccessor;
-import org.apache.avro.reflect.MapEntry;
 import org.apache.avro.util.internal.JacksonUtils;
 
 import com.fasterxml.jackson.core.JsonGenerator;
@@ -137,65 +132,28 @@ public abstract class JsonProperties {
   /** A value representing a JSON <code>null</code>. */
   public static final Null NULL_VALUE = new Null();
 
-  // use a ConcurrentHashMap for speed and thread safety, but keep a Queue of the
-  // entries to maintain order
-  // the queue is always updated after the main map and is thus is potentially a
-  // subset of the map.
-  // By making props private, we can control access and only implement/override
-  // the methods
-  // we need. We don't ever remove anything so we don't need to implement the
-  // clear/remove functionality.
-  // Also, we only ever ADD to the collection, never changing a value, so
-  // putWithAbsent is the
-  // only modifier
-  private ConcurrentMap<String, JsonNode> props = new ConcurrentHashMap<String, JsonNode>() {
-    private static final long serialVersionUID = 1L;
-    private Queue<MapEntry<String, JsonNode>> propOrder = new ConcurrentLinkedQueue<>();
-
-    @Override
-    public JsonNode putIfAbsent(String key, JsonNode value) {
-      JsonNode r = super.putIfAbsent(key, value);
-      if (r == null) {
-        propOrder.add(new MapEntry<>(key, value));
-      }
-      return r;
-    }
+  private static final Object[] NO_PROPS = new Object[0];
 
-    @Override
-    public JsonNode put(String key, JsonNode value) {
-      return putIfAbsent(key, value);
-    }
+  // the number of properties above which they are looked up in an index
+  private static final int INDEXED = 8;
 
-    @Override
-    public Set<Map.Entry<String, JsonNode>> entrySet() {
-      return new AbstractSet<Map.Entry<String, JsonNode>>() {
-        @Override
-        public Iterator<Map.Entry<String, JsonNode>> iterator() {
-          return new Iterator<Map.Entry<String, JsonNode>>() {
-            Iterator<MapEntry<String, JsonNode>> it = propOrder.iterator();
-
-            @Override
-            public boolean hasNext() {
-              return it.hasNext();
-            }
-
-            @Override
-            public java.util.Map.Entry<String, JsonNode> next() {
-              return it.next();
-            }
-          };
-        }
-
-        @Override
-        public int size() {
-          return propOrder.size();
-        }
-      };
-    }
-  };
+  // the names and values of the properties in alternation, in the order they
+  // were added, in the first 2 * propCount slots. Properties are never changed
+  // nor removed, so readers go without locks: a writer, which holds the lock of
+  // this object, fills a spare slot, growing the array by half when there is
+  // none, before it publishes the new count. Objects without properties, like
+  // most schemas and fields, share the empty array.
+  private volatile Object[] props = NO_PROPS;
+  private volatile int propCount;
+
+  // the property values by name, once there are more than INDEXED
+  private volatile Map<String, JsonNode> propIndex;
 
   private Set<String> reserved;
 
+  // set once the object is shared, after which it must not change
+  private volatile boolean frozen = false;
+
   JsonProperties(Set<String> reserved) {
     this.reserved = reserved;
   }
@@ -212,7 +170,7 @@ public abstract class JsonProperties {
       } else {
         json = JacksonUtils.toJsonNode(v);
       }
-      props.put(a.getKey(), json);
+      putIfAbsent(a.getKey(), json);
     }
   }
 
@@ -230,7 +188,15 @@ public abstract class JsonProperties {
    * if there is no property with that name.
    */
   private JsonNode getJsonProp(String name) {
-    return props.get(name);
+    Map<String, JsonNode> index = propIndex;
+    if (index != null)
+      return index.get(name);
+    int end = 2 * propCount; // read before the array, which holds at least as many
+    Object[] props = this.props;
+    for (int i = 0; i < end; i += 2)
+      if (props[i].equals(name))
+        return (JsonNode) props[i + 1];
+    return null;
   }
 
   /**
@@ -238,7 +204,7 @@ public abstract class JsonProperties {
    * if there is no property with that name.
    */
   public Object getObjectProp(String name) {
-    return JacksonUtils.toObject(props.get(name));
+    return JacksonUtils.toObject(getJsonProp(name));
   }
 
   /**
@@ -263,8 +229,7 @@ public abstract class JsonProperties {
   }
 
   public void putAll(JsonProperties np) {
-    for (Map.Entry<? extends String, ? extends JsonNode> e : np.props.entrySet())
-      addProp(e.getKey(), e.getValue());
+    addAllProps(np);
   }
 
   /**
@@ -277,13 +242,14 @@ public abstract class JsonProperties {
    * @param value The value for the property to add
    */
   private void addProp(String name, JsonNode value) {
+    checkNotFrozen();
     if (reserved.contains(name))
       throw new AvroRuntimeException("Can't set reserved property: " + name);
 
     if (value == null)
       throw new AvroRuntimeException("Can't set a property to null: " + name);
 
-    JsonNode old = props.putIfAbsent(name, value);
+    JsonNode old = putIfAbsent(name, value);
     if (old != null && !old.equals(value)) {
       throw new AvroRuntimeException("Can't overwrite property: " + name);
     }
@@ -295,33 +261,99 @@ public abstract class JsonProperties {
    * @see #getObjectProps()
    */
   public void addAllProps(JsonProperties properties) {
-    for (Entry<String, JsonNode> entry : properties.props.entrySet())
-      addProp(entry.getKey(), entry.getValue());
+    int end = 2 * properties.propCount;
+    Object[] props = properties.props;
+    for (int i = 0; i < end; i += 2)
+      addProp((String) props[i], (JsonNode) props[i + 1]);
+  }
+
+  /**
+   * Adds a property unless one of the same name exists, and returns the value of
+   * that one, or null.
+   */
+  private synchronized JsonNode putIfAbsent(String name, JsonNode value) {
+    JsonNode old = getJsonProp(name);
+    if (old != null)
+      return old;
+    int count = propCount;
+    Object[] props = this.props;
+    if (2 * count == props.length) // full
+      props = Arrays.copyOf(props, 2 * (count + (count >> 1) + 1));
+    props[2 * count] = name;
+    props[2 * count + 1] = value;
+    Map<String, JsonNode> index = propIndex;
+    if (index != null) {
+      index.put(name, value);
+    } else if (count == INDEXED) {
+      index = new ConcurrentHashMap<>();
+      for (int i = 0; i <= 2 * count; i += 2)
+        index.put((String) props[i], (JsonNode) props[i + 1]);
+      propIndex = index;
+    }
+    this.props = props;
+    propCount = count + 1;
+    return null;
   }
 
   /** Return the defined properties as an unmodifiable Map. */
   public Map<String, Object> getObjectProps() {
+    int end = 2 * propCount;
+    Object[] props = this.props;
     Map<String, Object> result = new LinkedHashMap<>();
-    for (Map.Entry<String, JsonNode> e : props.entrySet())
-      result.put(e.getKey(), JacksonUtils.toObject(e.getValue()));
+    for (int i = 0; i < end; i += 2)
+      result.put((String) props[i], JacksonUtils.toObject((JsonNode) props[i + 1]));
     return Collections.unmodifiableMap(result);
   }
 
   void writeProps(JsonGenerator gen) throws IOException {
-    for (Map.Entry<String, JsonNode> e : props.entrySet())
-      gen.writeObjectField(e.getKey(), e.getValue());
+    int end = 2 * propCount;
+    Object[] props = this.props;
+    for (int i = 0; i < end; i += 2)
+      gen.writeObjectField((String) props[i], props[i + 1]);
   }
 
   int propsHashCode() {
-    return props.hashCode();
+    // as that of a map of the properties
+    int end = 2 * propCount;
+    Object[] props = this.props;
+    int hashCode = 0;
+    for (int i = 0; i < end; i += 2)
+      hashCode += props[i].hashCode() ^ props[i + 1].hashCode();
+    return hashCode;
   }
 
   boolean propsEqual(JsonProperties np) {
-    return props.equals(np.props);
+    // regardless of the order of the properties, as maps of them
+    int count = propCount;
+    Object[] props = this.props;
+    if (count != np.propCount)
+      return false;
+    for (int i = 0; i < 2 * count; i += 2)
+      if (!props[i + 1].equals(np.getJsonProp((String) props[i])))
+        return false;
+    return true;
+  }
+
+  /** Makes this object unchangeable, see {@link #checkNotFrozen()}. */
+  void freeze() {
+    frozen = true;
+  }
+
+  boolean isFrozen() {
+    return frozen;
+  }
+
+  /**
+   * Throws if this object was frozen, as are the schemas shared by interning
+   * parsers.
+   */
+  void checkNotFrozen() {
+    if (frozen)
+      throw new AvroRuntimeException("Can't change an interned schema: " + this);
   }
 
   public boolean hasProps() {
-    return !props.isEmpty();
+    return propCount != 0;
   }
 
 }
@@ -21,16 +21,23 @@ import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.DoubleNode;
 import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
 import java.io.StringWriter;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -46,6 +53,8 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.avro.util.WeakIdentityHashMap;
 import org.apache.avro.util.internal.Accessor;
 import org.apache.avro.util.internal.Accessor.FieldAccessor;
 import org.apache.avro.util.internal.JacksonUtils;
@@ -171,6 +180,9 @@ public abstract class Schema extends JsonProperties implements Serializable {
 
   int hashCode = NO_HASHCODE;
 
+  // computed once the schema is complete; properties are not part of it
+  private volatile SchemaNormalization.ParsingForm parsingForm;
+
   @Override
   public void addProp(String name, String value) {
     super.addProp(name, value);
@@ -188,6 +200,7 @@ public abstract class Schema extends JsonProperties implements Serializable {
   }
 
   void setLogicalType(LogicalType logicalType) {
+    checkNotFrozen();
     this.logicalType = logicalType;
   }
 
@@ -341,7 +354,10 @@ public abstract class Schema extends JsonProperties implements Serializable {
     throw new AvroRuntimeException("Not a named type: " + this);
   }
 
-  /** If this is a record, enum or fixed, return its aliases, if any. */
+  /**
+   * If this is a record, enum or fixed, return the full names of its aliases, as
+   * an unmodifiable set.
+   */
   public Set<String> getAliases() {
     throw new AvroRuntimeException("Not a named type: " + this);
   }
@@ -382,6 +398,43 @@ public abstract class Schema extends JsonProperties implements Serializable {
     return toString(false);
   }
 
+  /**
+   * Returns the Parsing Canonical Form of this schema, as defined by the Avro
+   * spec. It is computed once and kept, as are the fingerprints of
+   * {@link #getParsingFingerprint64()} and
+   * {@link #getParsingFingerprint(String)}.
+   */
+  public String getParsingForm() {
+    return parsingForm().form;
+  }
+
+  /**
+   * Returns the 64-bit Rabin fingerprint of the Parsing Canonical Form of this
+   * schema, as {@link SchemaNormalization#parsingFingerprint64(Schema)}.
+   */
+  public long getParsingFingerprint64() {
+    return parsingForm().fingerprint64;
+  }
+
+  /**
+   * Returns the fingerprint of the Parsing Canonical Form of this schema computed
+   * with the named algorithm, as
+   * {@link SchemaNormalization#parsingFingerprint(String, Schema)}. Fingerprints
+   * with the recommended algorithms, <tt>CRC-64-AVRO</tt>, <tt>MD5</tt> and
+   * <tt>SHA-256</tt>, are kept.
+   */
+  public byte[] getParsingFingerprint(String fpName) throws NoSuchAlgorithmException {
+    return parsingForm().fingerprint(fpName);
+  }
+
+  private SchemaNormalization.ParsingForm parsingForm() {
+    SchemaNormalization.ParsingForm form = parsingForm;
+    if (form == null) {
+      parsingForm = form = new SchemaNormalization.ParsingForm(this);
+    }
+    return form;
+  }
+
   /**
    * Render this as <a href="https://json.org/">JSON</a>.
    *
@@ -637,6 +690,7 @@ public abstract class Schema extends JsonProperties implements Serializable {
     }
 
     public void addAlias(String alias) {
+      checkNotFrozen();
       if (aliases == null)
         this.aliases = new LinkedHashSet<>();
       aliases.add(alias);
@@ -700,8 +754,8 @@ public abstract class Schema extends JsonProperties implements Serializable {
       }
       if ("".equals(space))
         space = null;
-      this.space = space;
-      this.full = (this.space == null) ? this.name : this.space + "." + this.name;
+      this.space = compact(space);
+      this.full = (this.space == null) ? this.name : compact(this.space + "." + this.name);
     }
 
     @Override
@@ -742,7 +796,7 @@ public abstract class Schema extends JsonProperties implements Serializable {
 
   private static abstract class NamedSchema extends Schema {
     final Name name;
-    final String doc;
+    String doc; // set once the fields of a streamed record are read
     Set<Name> aliases;
 
     public NamedSchema(Type type, Name name, String doc) {
@@ -781,6 +835,7 @@ public abstract class Schema extends JsonProperties implements Serializable {
 
     @Override
     public void addAlias(String name, String space) {
+      checkNotFrozen();
       if (aliases == null)
         this.aliases = new LinkedHashSet<>();
       if (space == null)
@@ -790,11 +845,12 @@ public abstract class Schema extends JsonProperties implements Serializable {
 
     @Override
     public Set<String> getAliases() {
+      if (aliases == null || aliases.isEmpty())
+        return Collections.emptySet(); // shared, as most schemas have none
       Set<String> result = new LinkedHashSet<>();
-      if (aliases != null)
-        for (Name alias : aliases)
-          result.add(alias.full);
-      return result;
+      for (Name alias : aliases)
+        result.add(alias.full);
+      return Collections.unmodifiableSet(result);
     }
 
     public boolean writeNameRef(Names names, JsonGenerator gen) throws IOException {
@@ -858,12 +914,13 @@ public abstract class Schema extends JsonProperties implements Serializable {
   }
 
   private static final ThreadLocal<Set> SEEN_EQUALS = ThreadLocal.withInitial(HashSet::new);
-  private static final ThreadLocal<Map> SEEN_HASHCODE = ThreadLocal.withInitial(IdentityHashMap::new);
+  private static final ThreadLocal<Map> SEEN_HASHCODE = ThreadLocal.withInitial(HashMap::new);
 
   @SuppressWarnings(value = "unchecked")
   private static class RecordSchema extends NamedSchema {
     private List<Field> fields;
-    private Map<String, Field> fieldMap;
+    // the fields by name, in an open-addressing hash table of a power of two size
+    private Field[] fieldTable;
     private final boolean isError;
 
     public RecordSchema(Name name, String doc, boolean isError) {
@@ -884,9 +941,20 @@ public abstract class Schema extends JsonProperties implements Serializable {
 
     @Override
     public Field getField(String fieldname) {
-      if (fieldMap == null)
+      if (fieldTable == null)
         throw new AvroRuntimeException("Schema fields not set yet");
-      return fieldMap.get(fieldname);
+      if (fieldname == null)
+        return null;
+      int mask = fieldTable.length - 1;
+      for (int i = spread(fieldname.hashCode()) & mask;; i = (i + 1) & mask) {
+        Field f = fieldTable[i];
+        if (f == null || f.name.equals(fieldname))
+          return f;
+      }
+    }
+
+    private static int spread(int hashCode) {
+      return hashCode ^ (hashCode >>> 16);
     }
 
     @Override
@@ -902,20 +970,26 @@ public abstract class Schema extends JsonProperties implements Serializable {
         throw new AvroRuntimeException("Fields are already set");
       }
       int i = 0;
-      fieldMap = new HashMap<>(Math.multiplyExact(2, fields.size()));
+      // at most half full
+      Field[] table = new Field[Integer.highestOneBit(Math.multiplyExact(4, fields.size()) | 1)];
+      int mask = table.length - 1;
       LockableArrayList<Field> ff = new LockableArrayList<>(fields.size());
       for (Field f : fields) {
         if (f.position != -1) {
           throw new AvroRuntimeException("Field already used: " + f);
         }
         f.position = i++;
-        final Field existingField = fieldMap.put(f.name(), f);
-        if (existingField != null) {
-          throw new AvroRuntimeException(
-              String.format("Duplicate field %s in record %s: %s and %s.", f.name(), name, f, existingField));
+        int slot = spread(f.name().hashCode()) & mask;
+        for (; table[slot] != null; slot = (slot + 1) & mask) {
+          if (table[slot].name.equals(f.name())) {
+            throw new AvroRuntimeException(
+                String.format("Duplicate field %s in record %s: %s and %s.", f.name(), name, f, table[slot]));
+          }
         }
+        table[slot] = f;
         ff.add(f);
       }
+      this.fieldTable = table;
       this.fields = ff.lock();
       this.hashCode = NO_HASHCODE;
     }
@@ -950,11 +1024,14 @@ public abstract class Schema extends JsonProperties implements Serializable {
     @Override
     int computeHash() {
       Map seen = SEEN_HASHCODE.get();
-      if (seen.containsKey(this))
+      // named records are seen by name, so that equal copies of a recursive
+      // record, as the IDL parser makes, hash alike
+      Object key = name.full != null ? name.full : new SeenPair(this, this);
+      if (seen.containsKey(key))
         return 0; // prevent stack overflow
       boolean first = seen.isEmpty();
       try {
-        seen.put(this, this);
+        seen.put(key, this);
         return super.computeHash() + fields.hashCode();
       } finally {
         if (first)
@@ -1334,11 +1411,19 @@ public abstract class Schema extends JsonProperties implements Serializable {
    * A parser for JSON-format schemas. Each named schema parsed with a parser is
    * added to the names known to the parser so that subsequently parsed schemas
    * may refer to it by name.
+   * <p/>
+   * With {@link #setIntern(boolean) interning}, schemas whose JSON, including
+   * docs and properties, matches one that was parsed before are returned as the
+   * same instance, so that caches keyed by schema identity, like those of the
+   * datum readers, are shared by them.
    */
   public static class Parser {
     private Names names = new Names();
     private boolean validate = true;
     private boolean validateDefaults = true;
+    private boolean intern = false;
+    private boolean streaming = false;
+    private boolean compact = false;
 
     /**
      * Adds the provided types to the set of defined, named types known to this
@@ -1350,6 +1435,16 @@ public abstract class Schema extends JsonProperties implements Serializable {
       return this;
     }
 
+    /**
+     * Adds the provided types to the set of defined, named types known to this
+     * parser.
+     */
+    public Parser addTypes(Iterable<Schema> types) {
+      for (Schema s : types)
+        names.add(s);
+      return this;
+    }
+
     /** Returns the set of defined, named types known to this parser. */
     public Map<String, Schema> getTypes() {
       Map<String, Schema> result = new LinkedHashMap<>();
@@ -1380,12 +1475,66 @@ public abstract class Schema extends JsonProperties implements Serializable {
       return this.validateDefaults;
     }
 
+    /**
+     * Enable or disable interning: when enabled, a parsed schema whose JSON matches
+     * that of a schema parsed before by any interning parser is replaced by the
+     * earlier instance, as long as that is in use. Interned schemas are shared, so
+     * they are frozen: changing them, their fields, or the schemas they refer to,
+     * e.g. by {@link Schema#addProp(String, Object)}, throws an
+     * {@link AvroRuntimeException}. The named schemas of an interned schema take
+     * the place of those that were parsed in the names known to this parser.
+     * Disabled by default.
+     */
+    public Parser setIntern(boolean intern) {
+      this.intern = intern;
+      return this;
+    }
+
+    /** True iff parsed schemas are interned. */
+    public boolean getIntern() {
+      return this.intern;
+    }
+
+    /**
+     * Enable or disable streaming: when enabled, schemas are built while their JSON
+     * is read, instead of from a tree of the whole document that is read first,
+     * which takes less time and memory for large schemas. The keys of an object may
+     * come in any order, except that the type, name and namespace of a record may
+     * not follow its fields to change them, which is an error. Disabled by default.
+     */
+    public Parser setStreaming(boolean streaming) {
+      this.streaming = streaming;
+      return this;
+    }
+
+    /** True iff schemas are built while their JSON is read. */
+    public boolean getStreaming() {
+      return this.streaming;
+    }
+
+    /**
+     * Enable or disable compact schemas: when enabled, the names and namespaces of
+     * parsed schemas and fields, and the property values other than arrays and
+     * objects, are shared with those of other compact schemas that are equal, to
+     * save memory when many schemas are held, at some cost in parsing time.
+     * Disabled by default.
+     */
+    public Parser setCompact(boolean compact) {
+      this.compact = compact;
+      return this;
+    }
+
+    /** True iff parsed schemas share equal names and property values. */
+    public boolean getCompact() {
+      return this.compact;
+    }
+
     /**
      * Parse a schema from the provided file. If named, the schema is added to the
      * names known to this parser.
      */
     public Schema parse(File file) throws IOException {
-      return parse(FACTORY.createParser(file));
+      return parse(FACTORY.createParser(file), streaming);
     }
 
     /**
@@ -1393,7 +1542,7 @@ public abstract class Schema extends JsonProperties implements Serializable {
      * names known to this parser. The input stream stays open after the parsing.
      */
     public Schema parse(InputStream in) throws IOException {
-      return parse(FACTORY.createParser(in).disable(JsonParser.Feature.AUTO_CLOSE_SOURCE));
+      return parse(FACTORY.createParser(in).disable(JsonParser.Feature.AUTO_CLOSE_SOURCE), streaming);
     }
 
     /** Read a schema from one or more json strings */
@@ -1410,26 +1559,54 @@ public abstract class Schema extends JsonProperties implements Serializable {
      */
     public Schema parse(String s) {
       try {
-        return parse(FACTORY.createParser(s));
+        return parse(FACTORY.createParser(s), streaming);
       } catch (IOException e) {
         throw new SchemaParseException(e);
       }
     }
 
-    private Schema parse(JsonParser parser) throws IOException {
+    /**
+     * Parses a schema from a tree of the JSON or, if <tt>stream</tt>, while reading
+     * it.
+     */
+    private Schema parse(JsonParser parser, boolean stream) throws IOException {
       boolean saved = validateNames.get();
       boolean savedValidateDefaults = VALIDATE_DEFAULTS.get();
+      boolean savedCompact = COMPACT.get();
+      int known = names.size();
       try {
         validateNames.set(validate);
         VALIDATE_DEFAULTS.set(validateDefaults);
-        return Schema.parse(MAPPER.readTree(parser), names);
+        COMPACT.set(compact);
+        Schema schema = stream ? new StreamParser(parser, names).parse() : Schema.parse(MAPPER.readTree(parser), names);
+        return intern ? intern(schema, known) : schema;
       } catch (JsonParseException e) {
         throw new SchemaParseException(e);
       } finally {
         parser.close();
         validateNames.set(saved);
         VALIDATE_DEFAULTS.set(savedValidateDefaults);
+        COMPACT.set(savedCompact);
+      }
+    }
+
+    /**
+     * Interns a parsed schema, and puts its named schemas in the place of those
+     * parsed, which were added to the names known after the first <tt>known</tt>.
+     */
+    private Schema intern(Schema schema, int known) {
+      Schema interned = Interned.intern(schema);
+      if (interned != schema) {
+        Map<Name, Schema> named = new HashMap<>();
+        Interned.collectNamed(interned, named);
+        int i = 0;
+        for (Map.Entry<Name, Schema> entry : names.entrySet()) {
+          Schema replacement = i++ >= known ? named.get(entry.getKey()) : null;
+          if (replacement != null)
+            entry.setValue(replacement);
+        }
       }
+      return interned;
     }
   }
 
@@ -1496,6 +1673,99 @@ public abstract class Schema extends JsonProperties implements Serializable {
     PRIMITIVES.put("null", Type.NULL);
   }
 
+  /**
+   * The schemas returned by interning parsers, keyed by the fingerprint of their
+   * JSON and held weakly.
+   */
+  private static final class Interned extends WeakReference<Schema> {
+    private static final Map<Long, Interned> SCHEMAS = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<Schema> COLLECTED = new ReferenceQueue<>();
+
+    private final long fingerprint;
+    private final String json;
+
+    private Interned(Schema schema, long fingerprint, String json) {
+      super(schema, COLLECTED);
+      this.fingerprint = fingerprint;
+      this.json = json;
+    }
+
+    static Schema intern(Schema schema) {
+      Reference<? extends Schema> collected;
+      while ((collected = COLLECTED.poll()) != null) {
+        Interned interned = (Interned) collected;
+        SCHEMAS.remove(interned.fingerprint, interned);
+      }
+      String json = schema.toString();
+      long fingerprint = SchemaNormalization.fingerprint64(json.getBytes(StandardCharsets.UTF_8));
+      Schema[] result = { schema };
+      SCHEMAS.compute(fingerprint, (key, interned) -> {
+        Schema earlier = interned == null ? null : interned.get();
+        if (earlier == null) {
+          freeze(schema); // before it is shared
+          return new Interned(schema, fingerprint, json);
+        }
+        if (interned.json.equals(json)) {
+          result[0] = earlier;
+        } // else a fingerprint collision: the schema is not interned
+        return interned;
+      });
+      return result[0];
+    }
+
+    /** Freezes a schema, its fields and the schemas it refers to. */
+    private static void freeze(Schema schema) {
+      if (schema.isFrozen())
+        return;
+      schema.freeze(); // before visiting the schemas it refers to, which may be itself
+      switch (schema.getType()) {
+      case RECORD:
+        for (Field field : schema.getFields()) {
+          field.freeze();
+          freeze(field.schema());
+        }
+        break;
+      case ARRAY:
+        freeze(schema.getElementType());
+        break;
+      case MAP:
+        freeze(schema.getValueType());
+        break;
+      case UNION:
+        for (Schema type : schema.getTypes())
+          freeze(type);
+        break;
+      default:
+      }
+    }
+
+    /** Adds the named schemas that a schema is or refers to. */
+    static void collectNamed(Schema schema, Map<Name, Schema> named) {
+      switch (schema.getType()) {
+      case RECORD:
+        if (named.putIfAbsent(((NamedSchema) schema).name, schema) == null)
+          for (Field field : schema.getFields())
+            collectNamed(field.schema(), named);
+        break;
+      case ENUM:
+      case FIXED:
+        named.putIfAbsent(((NamedSchema) schema).name, schema);
+        break;
+      case ARRAY:
+        collectNamed(schema.getElementType(), named);
+        break;
+      case MAP:
+        collectNamed(schema.getValueType(), named);
+        break;
+      case UNION:
+        for (Schema type : schema.getTypes())
+          collectNamed(type, named);
+        break;
+      default:
+      }
+    }
+  }
+
   static class Names extends LinkedHashMap<Name, Schema> {
     private static final long serialVersionUID = 1L;
     private String space; // default namespace
@@ -1547,6 +1817,7 @@ public abstract class Schema extends JsonProperties implements Serializable {
   private static ThreadLocal<Boolean> validateNames = ThreadLocal.withInitial(() -> true);
 
   private static String validateName(String name) {
+    name = compact(name);
     if (!validateNames.get())
       return name; // not validating names
     int length = name.length();
@@ -1563,6 +1834,71 @@ public abstract class Schema extends JsonProperties implements Serializable {
     return name;
   }
 
+  private static final ThreadLocal<Boolean> COMPACT = ThreadLocal.withInitial(() -> false);
+
+  /** Returns the given string or, when compact, the shared string equal to it. */
+  private static String compact(String s) {
+    return s != null && COMPACT.get() ? s.intern() : s;
+  }
+
+  /**
+   * Returns the given property value or, when compact and it is not an array or
+   * object, a shared value equal to it.
+   */
+  private static JsonNode compact(JsonNode value) {
+    if (!COMPACT.get() || !value.isValueNode())
+      return value;
+    return SharedValue.share(value);
+  }
+
+  /**
+   * A scalar property value of compact schemas, held weakly so that it is dropped
+   * once no schema has it.
+   */
+  private static final class SharedValue extends WeakReference<JsonNode> {
+    private static final Map<SharedValue, SharedValue> VALUES = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<JsonNode> COLLECTED = new ReferenceQueue<>();
+
+    private final int hashCode;
+
+    private SharedValue(JsonNode value) {
+      super(value, COLLECTED);
+      this.hashCode = value.hashCode();
+    }
+
+    /** Returns the shared value equal to the given one, which it may become. */
+    static JsonNode share(JsonNode value) {
+      Reference<? extends JsonNode> collected;
+      while ((collected = COLLECTED.poll()) != null)
+        VALUES.remove(collected, collected);
+      SharedValue added = new SharedValue(value);
+      for (;;) {
+        SharedValue shared = VALUES.putIfAbsent(added, added);
+        if (shared == null)
+          return value;
+        JsonNode earlier = shared.get();
+        if (earlier != null)
+          return earlier;
+        VALUES.remove(shared, shared); // collected meanwhile
+      }
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o)
+        return true;
+      if (!(o instanceof SharedValue) || hashCode != ((SharedValue) o).hashCode)
+        return false;
+      JsonNode value = get(); // a collected value equals only itself
+      return value != null && value.equals(((SharedValue) o).get());
+    }
+  }
+
   private static final ThreadLocal<Boolean> VALIDATE_DEFAULTS = ThreadLocal.withInitial(() -> true);
 
   private static JsonNode validateDefault(String fieldName, Schema schema, JsonNode defaultValue) {
@@ -1633,125 +1969,261 @@ public abstract class Schema extends JsonProperties implements Serializable {
         throw new SchemaParseException("Undefined name: " + schema);
       return result;
     } else if (schema.isObject()) {
-      Schema result;
-      String type = getRequiredText(schema, "type", "No type");
-      Name name = null;
-      String savedSpace = names.space();
-      String doc = null;
-      if (type.equals("record") || type.equals("error") || type.equals("enum") || type.equals("fixed")) {
-        String space = getOptionalText(schema, "namespace");
-        doc = getOptionalText(schema, "doc");
-        if (space == null)
-          space = names.space();
-        name = new Name(getRequiredText(schema, "name", "No name in schema"), space);
-        names.space(name.space); // set default namespace
-      }
-      if (PRIMITIVES.containsKey(type)) { // primitive
-        result = create(PRIMITIVES.get(type));
-      } else if (type.equals("record") || type.equals("error")) { // record
-        List<Field> fields = new ArrayList<>();
-        result = new RecordSchema(name, doc, type.equals("error"));
-        if (name != null)
-          names.add(result);
-        JsonNode fieldsNode = schema.get("fields");
-        if (fieldsNode == null || !fieldsNode.isArray())
-          throw new SchemaParseException("Record has no fields: " + schema);
-        for (JsonNode field : fieldsNode) {
-          String fieldName = getRequiredText(field, "name", "No field name");
-          String fieldDoc = getOptionalText(field, "doc");
-          JsonNode fieldTypeNode = field.get("type");
-          if (fieldTypeNode == null)
-            throw new SchemaParseException("No field type: " + field);
-          if (fieldTypeNode.isTextual() && names.get(fieldTypeNode.textValue()) == null)
-            throw new SchemaParseException(fieldTypeNode + " is not a defined name." + " The type of the \"" + fieldName
-                + "\" field must be" + " a defined name or a {\"type\": ...} expression.");
-          Schema fieldSchema = parse(fieldTypeNode, names);
-          Field.Order order = Field.Order.ASCENDING;
-          JsonNode orderNode = field.get("order");
-          if (orderNode != null)
-            order = Field.Order.valueOf(orderNode.textValue().toUpperCase(Locale.ENGLISH));
-          JsonNode defaultValue = field.get("default");
-          if (defaultValue != null
-              && (Type.FLOAT.equals(fieldSchema.getType()) || Type.DOUBLE.equals(fieldSchema.getType()))
-              && defaultValue.isTextual())
-            defaultValue = new DoubleNode(Double.valueOf(defaultValue.textValue()));
-          Field f = new Field(fieldName, fieldSchema, fieldDoc, defaultValue, true, order);
-          Iterator<String> i = field.fieldNames();
-          while (i.hasNext()) { // add field props
-            String prop = i.next();
-            if (!FIELD_RESERVED.contains(prop))
-              f.addProp(prop, field.get(prop));
-          }
-          f.aliases = parseAliases(field);
-          fields.add(f);
-        }
-        result.setFields(fields);
-      } else if (type.equals("enum")) { // enum
-        JsonNode symbolsNode = schema.get("symbols");
-        if (symbolsNode == null || !symbolsNode.isArray())
-          throw new SchemaParseException("Enum has no symbols: " + schema);
-        LockableArrayList<String> symbols = new LockableArrayList<>(symbolsNode.size());
-        for (JsonNode n : symbolsNode)
-          symbols.add(n.textValue());
-        JsonNode enumDefault = schema.get("default");
-        String defaultSymbol = null;
-        if (enumDefault != null)
-          defaultSymbol = enumDefault.textValue();
-        result = new EnumSchema(name, doc, symbols, defaultSymbol);
-        if (name != null)
-          names.add(result);
-      } else if (type.equals("array")) { // array
+      return parseObject(schema, null, null, names, names.space());
+    } else if (schema.isArray()) { // union
+      LockableArrayList<Schema> types = new LockableArrayList<>(schema.size());
+      for (JsonNode typeNode : schema)
+        types.add(parse(typeNode, names));
+      return new UnionSchema(types);
+    } else {
+      throw new SchemaParseException("Schema not yet supported: " + schema);
+    }
+  }
+
+  /**
+   * Builds the schema of a JSON object and adds its properties and aliases. The
+   * schemas nested in it are parsed from the object, unless already given: a
+   * record whose fields are set, or the items or values of an array or map.
+   * <tt>savedSpace</tt> is the namespace around the object, restored at the end.
+   */
+  private static Schema parseObject(JsonNode schema, Schema record, Schema nested, Names names, String savedSpace) {
+    Schema result;
+    String type = getRequiredText(schema, "type", "No type");
+    if (record != null) { // fields already read
+      result = record;
+    } else if (PRIMITIVES.containsKey(type)) { // primitive
+      result = create(PRIMITIVES.get(type));
+    } else if (type.equals("record") || type.equals("error")) { // record
+      result = parseRecord(schema, type, names);
+      JsonNode fieldsNode = schema.get("fields");
+      if (fieldsNode == null || !fieldsNode.isArray())
+        throw new SchemaParseException("Record has no fields: " + schema);
+      List<Field> fields = new ArrayList<>();
+      for (JsonNode field : fieldsNode)
+        fields.add(parseField(field, parseFieldType(field, names)));
+      result.setFields(fields);
+    } else if (type.equals("enum")) { // enum
+      Name name = parseName(schema, names.space());
+      names.space(name.space); // set default namespace
+      JsonNode symbolsNode = schema.get("symbols");
+      if (symbolsNode == null || !symbolsNode.isArray())
+        throw new SchemaParseException("Enum has no symbols: " + schema);
+      LockableArrayList<String> symbols = new LockableArrayList<>(symbolsNode.size());
+      for (JsonNode n : symbolsNode)
+        symbols.add(n.textValue());
+      JsonNode enumDefault = schema.get("default");
+      String defaultSymbol = null;
+      if (enumDefault != null)
+        defaultSymbol = enumDefault.textValue();
+      result = new EnumSchema(name, getOptionalText(schema, "doc"), symbols, defaultSymbol);
+      names.add(result);
+    } else if (type.equals("array")) { // array
+      if (nested == null) {
         JsonNode itemsNode = schema.get("items");
         if (itemsNode == null)
           throw new SchemaParseException("Array has no items type: " + schema);
-        result = new ArraySchema(parse(itemsNode, names));
-      } else if (type.equals("map")) { // map
+        nested = parse(itemsNode, names);
+      }
+      result = new ArraySchema(nested);
+    } else if (type.equals("map")) { // map
+      if (nested == null) {
         JsonNode valuesNode = schema.get("values");
         if (valuesNode == null)
           throw new SchemaParseException("Map has no values type: " + schema);
-        result = new MapSchema(parse(valuesNode, names));
-      } else if (type.equals("fixed")) { // fixed
-        JsonNode sizeNode = schema.get("size");
-        if (sizeNode == null || !sizeNode.isInt())
-          throw new SchemaParseException("Invalid or no size: " + schema);
-        result = new FixedSchema(name, doc, sizeNode.intValue());
-        if (name != null)
-          names.add(result);
-      } else { // For unions with self reference
-        Name nameFromType = new Name(type, names.space);
-        if (names.containsKey(nameFromType)) {
-          return names.get(nameFromType);
-        }
-        throw new SchemaParseException("Type not supported: " + type);
+        nested = parse(valuesNode, names);
+      }
+      result = new MapSchema(nested);
+    } else if (type.equals("fixed")) { // fixed
+      Name name = parseName(schema, names.space());
+      names.space(name.space); // set default namespace
+      JsonNode sizeNode = schema.get("size");
+      if (sizeNode == null || !sizeNode.isInt())
+        throw new SchemaParseException("Invalid or no size: " + schema);
+      result = new FixedSchema(name, getOptionalText(schema, "doc"), sizeNode.intValue());
+      names.add(result);
+    } else { // For unions with self reference
+      Name nameFromType = new Name(type, names.space);
+      if (names.containsKey(nameFromType)) {
+        return names.get(nameFromType);
+      }
+      throw new SchemaParseException("Type not supported: " + type);
+    }
+    Iterator<String> i = schema.fieldNames();
+
+    Set reserved = SCHEMA_RESERVED;
+    if (type.equals("enum")) {
+      reserved = ENUM_RESERVED;
+    }
+    while (i.hasNext()) { // add properties
+      String prop = i.next();
+      if (!reserved.contains(prop)) // ignore reserved
+        result.addProp(prop, compact(schema.get(prop)));
+    }
+    // parse logical type if present
+    result.logicalType = LogicalTypes.fromSchemaIgnoreInvalid(result);
+    names.space(savedSpace); // restore space
+    if (result instanceof NamedSchema) {
+      Set<String> aliases = parseAliases(schema);
+      if (aliases != null) // add aliases
+        for (String alias : aliases)
+          result.addAlias(alias);
+    }
+    return result;
+  }
+
+  /** Returns the name of a named schema, in <tt>space</tt> unless it has one. */
+  private static Name parseName(JsonNode schema, String space) {
+    String namespace = getOptionalText(schema, "namespace");
+    return new Name(getRequiredText(schema, "name", "No name in schema"), namespace != null ? namespace : space);
+  }
+
+  /**
+   * Creates a record without its fields and adds it to the names, which then
+   * default to its namespace, so that its fields may refer to it.
+   */
+  private static Schema parseRecord(JsonNode schema, String type, Names names) {
+    Name name = parseName(schema, names.space());
+    names.space(name.space); // set default namespace
+    Schema result = new RecordSchema(name, getOptionalText(schema, "doc"), type.equals("error"));
+    names.add(result);
+    return result;
+  }
+
+  /** Parses the type of a field. */
+  private static Schema parseFieldType(JsonNode field, Names names) {
+    String fieldName = getRequiredText(field, "name", "No field name");
+    JsonNode fieldTypeNode = field.get("type");
+    if (fieldTypeNode == null)
+      throw new SchemaParseException("No field type: " + field);
+    if (fieldTypeNode.isTextual() && names.get(fieldTypeNode.textValue()) == null)
+      throw new SchemaParseException(fieldTypeNode + " is not a defined name." + " The type of the \"" + fieldName
+          + "\" field must be" + " a defined name or a {\"type\": ...} expression.");
+    return parse(fieldTypeNode, names);
+  }
+
+  /** Builds a field of the given schema from the rest of its JSON object. */
+  private static Field parseField(JsonNode field, Schema fieldSchema) {
+    String fieldName = getRequiredText(field, "name", "No field name");
+    String fieldDoc = getOptionalText(field, "doc");
+    Field.Order order = Field.Order.ASCENDING;
+    JsonNode orderNode = field.get("order");
+    if (orderNode != null)
+      order = Field.Order.valueOf(orderNode.textValue().toUpperCase(Locale.ENGLISH));
+    JsonNode defaultValue = field.get("default");
+    if (defaultValue != null && (Type.FLOAT.equals(fieldSchema.getType()) || Type.DOUBLE.equals(fieldSchema.getType()))
+        && defaultValue.isTextual())
+      defaultValue = new DoubleNode(Double.valueOf(defaultValue.textValue()));
+    Field f = new Field(fieldName, fieldSchema, fieldDoc, defaultValue, true, order);
+    Iterator<String> i = field.fieldNames();
+    while (i.hasNext()) { // add field props
+      String prop = i.next();
+      if (!FIELD_RESERVED.contains(prop))
+        f.addProp(prop, compact(field.get(prop)));
+    }
+    f.aliases = parseAliases(field);
+    return f;
+  }
+
+  /**
+   * Builds schemas while reading the tokens of their JSON, instead of from a tree
+   * of the whole document as {@link #parse(JsonNode, Names)} does. The keys of
+   * each object other than nested schemas are collected as (small) trees, from
+   * which the schema is then built as a tree would be. A nested schema is built
+   * as it is read once the keys that say what it is in have been read, i.e. the
+   * type, and for the fields of a record also its name; otherwise it is kept as a
+   * tree until the end of its object. The namespace and name of a record may thus
+   * not follow its fields to change them.
+   */
+  private static final class StreamParser {
+    private final JsonParser in;
+    private final Names names;
+
+    StreamParser(JsonParser in, Names names) {
+      this.in = in;
+      this.names = names;
+    }
+
+    /** Parses the first JSON value of the input. */
+    Schema parse() throws IOException {
+      in.nextToken();
+      return parseValue();
+    }
+
+    /** Parses the JSON value at the current token. */
+    private Schema parseValue() throws IOException {
+      JsonToken token = in.currentToken();
+      if (token == JsonToken.START_OBJECT) {
+        return parseObject();
+      } else if (token == JsonToken.START_ARRAY) { // union
+        LockableArrayList<Schema> types = new LockableArrayList<>();
+        while (in.nextToken() != JsonToken.END_ARRAY)
+          types.add(parseValue());
+        return new UnionSchema(types);
       }
-      Iterator<String> i = schema.fieldNames();
+      return Schema.parse(tree(), names);
+    }
 
-      Set reserved = SCHEMA_RESERVED;
-      if (type.equals("enum")) {
-        reserved = ENUM_RESERVED;
+    private Schema parseObject() throws IOException {
+      String savedSpace = names.space();
+      ObjectNode schema = MAPPER.createObjectNode();
+      Schema record = null; // once its fields are read
+      Schema nested = null; // items or values
+      while (in.nextToken() == JsonToken.FIELD_NAME) {
+        String key = in.getCurrentName();
+        JsonToken token = in.nextToken();
+        String type = getOptionalText(schema, "type");
+        if (key.equals("fields") && record == null && token == JsonToken.START_ARRAY
+            && ("record".equals(type) || "error".equals(type)) && schema.has("name")) {
+          record = parseRecord(schema, type, names);
+          List<Field> fields = new ArrayList<>();
+          while (in.nextToken() != JsonToken.END_ARRAY)
+            fields.add(parseField());
+          record.setFields(fields);
+        } else if ((key.equals("items") && "array".equals(type)) || (key.equals("values") && "map".equals(type))) {
+          schema.remove(key);
+          nested = parseValue();
+        } else {
+          schema.set(key, tree());
+          if (record != null && (key.equals("type") || key.equals("name") || key.equals("namespace"))) {
+            String recordType = record.isError() ? "error" : "record";
+            if (!(recordType.equals(getOptionalText(schema, "type"))
+                && parseName(schema, savedSpace).equals(((NamedSchema) record).name)))
+              throw new SchemaParseException("The " + key + " of a record must precede its fields: " + schema);
+          }
+          if (key.equals("items") || key.equals("values"))
+            nested = null;
+        }
       }
-      while (i.hasNext()) { // add properties
-        String prop = i.next();
-        if (!reserved.contains(prop)) // ignore reserved
-          result.addProp(prop, schema.get(prop));
+      if (record != null) // the doc may follow the fields
+        ((NamedSchema) record).doc = getOptionalText(schema, "doc");
+      return Schema.parseObject(schema, record, nested, names, savedSpace);
+    }
+
+    private Field parseField() throws IOException {
+      if (in.currentToken() != JsonToken.START_OBJECT) {
+        JsonNode field = tree();
+        return Schema.parseField(field, parseFieldType(field, names));
       }
-      // parse logical type if present
-      result.logicalType = LogicalTypes.fromSchemaIgnoreInvalid(result);
-      names.space(savedSpace); // restore space
-      if (result instanceof NamedSchema) {
-        Set<String> aliases = parseAliases(schema);
-        if (aliases != null) // add aliases
-          for (String alias : aliases)
-            result.addAlias(alias);
+      ObjectNode field = MAPPER.createObjectNode();
+      Schema fieldSchema = null;
+      while (in.nextToken() == JsonToken.FIELD_NAME) {
+        String key = in.getCurrentName();
+        JsonToken token = in.nextToken();
+        if (key.equals("type") && token != JsonToken.VALUE_STRING) {
+          field.remove(key);
+          fieldSchema = parseValue();
+        } else {
+          field.set(key, tree());
+          if (key.equals("type")) // a name, checked once the field's is known
+            fieldSchema = null;
+        }
       }
-      return result;
-    } else if (schema.isArray()) { // union
-      LockableArrayList<Schema> types = new LockableArrayList<>(schema.size());
-      for (JsonNode typeNode : schema)
-        types.add(parse(typeNode, names));
-      return new UnionSchema(types);
-    } else {
-      throw new SchemaParseException("Schema not yet supported: " + schema);
+      return Schema.parseField(field, fieldSchema != null ? fieldSchema : parseFieldType(field, names));
+    }
+
+    /** Reads the JSON value at the current token as a tree. */
+    private JsonNode tree() throws IOException {
+      return MAPPER.readTree(in);
     }
   }
 
@@ -1812,9 +2284,35 @@ public abstract class Schema extends JsonProperties implements Serializable {
    * permits reading records, enums and fixed schemas whose names have changed,
    * and records whose field names have changed. The returned schema always
    * contains the same data elements in the same order, but with possibly
-   * different names.
+   * different names. Parts of the writer's schema that no alias applies to are
+   * kept as they are; if none applies, the writer's schema is returned.
+   * <p/>
+   * Results are cached per pair of schema instances, so aliases added to either
+   * schema after it was passed here are not applied.
    */
   public static Schema applyAliases(Schema writer, Schema reader) {
+    Object cached;
+    synchronized (ALIASED) {
+      Map<Schema, Object> writers = ALIASED.get(reader);
+      cached = writers == null ? null : writers.get(writer);
+    }
+    if (cached != null) {
+      return cached == UNALIASED ? writer : (Schema) cached;
+    }
+    Schema result = computeAliases(writer, reader);
+    synchronized (ALIASED) {
+      // the writer is not held by its own entry, so that the entry can be dropped
+      ALIASED.computeIfAbsent(reader, k -> new WeakIdentityHashMap<>()).put(writer,
+          result == writer ? UNALIASED : result);
+    }
+    return result;
+  }
+
+  // reader -> writer -> writer with the reader's aliases applied, or UNALIASED
+  private static final Map<Schema, Map<Schema, Object>> ALIASED = new WeakIdentityHashMap<>();
+  private static final Object UNALIASED = new Object();
+
+  private static Schema computeAliases(Schema writer, Schema reader) {
     if (writer.equals(reader))
       return writer; // same schema
 
@@ -1827,12 +2325,76 @@ public abstract class Schema extends JsonProperties implements Serializable {
     if (aliases.size() == 0 && fieldAliases.size() == 0)
       return writer; // no aliases
 
+    Set<Schema> aliased = aliasedSchemas(writer, aliases, fieldAliases);
+    if (aliased.isEmpty())
+      return writer; // no alias applies
+
     seen.clear();
-    return applyAliases(writer, seen, aliases, fieldAliases);
+    return applyAliases(writer, seen, aliases, fieldAliases, aliased);
   }
 
-  private static Schema applyAliases(Schema s, Map<Schema, Schema> seen, Map<Name, Name> aliases,
+  /**
+   * Returns the parts of a writer's schema that are changed by aliases: the ones
+   * renamed, the records with a field renamed, and the ones that contain those.
+   */
+  private static Set<Schema> aliasedSchemas(Schema writer, Map<Name, Name> aliases,
       Map<Name, Map<String, String>> fieldAliases) {
+    Map<Schema, List<Schema>> parents = new IdentityHashMap<>();
+    List<Schema> renamed = new ArrayList<>();
+    collectParents(writer, null, parents, renamed, aliases, fieldAliases);
+    Set<Schema> aliased = Collections.newSetFromMap(new IdentityHashMap<>());
+    while (!renamed.isEmpty()) {
+      Schema s = renamed.remove(renamed.size() - 1);
+      if (aliased.add(s))
+        renamed.addAll(parents.get(s));
+    }
+    return aliased;
+  }
+
+  private static void collectParents(Schema s, Schema parent, Map<Schema, List<Schema>> parents, List<Schema> renamed,
+      Map<Name, Name> aliases, Map<Name, Map<String, String>> fieldAliases) {
+    List<Schema> sParents = parents.get(s);
+    boolean seen = sParents != null;
+    if (!seen) {
+      sParents = new ArrayList<>(1);
+      parents.put(s, sParents);
+    }
+    if (parent != null)
+      sParents.add(parent);
+    if (seen)
+      return; // break loops
+
+    Name name = s instanceof NamedSchema ? ((NamedSchema) s).name : null;
+    if (aliases.containsKey(name))
+      renamed.add(s);
+    switch (s.getType()) {
+    case RECORD:
+      Name recordName = aliases.getOrDefault(name, name);
+      for (Field f : s.getFields()) {
+        if (!getFieldAlias(recordName, f.name, fieldAliases).equals(f.name))
+          renamed.add(s);
+        collectParents(f.schema, s, parents, renamed, aliases, fieldAliases);
+      }
+      break;
+    case ARRAY:
+      collectParents(s.getElementType(), s, parents, renamed, aliases, fieldAliases);
+      break;
+    case MAP:
+      collectParents(s.getValueType(), s, parents, renamed, aliases, fieldAliases);
+      break;
+    case UNION:
+      for (Schema branch : s.getTypes())
+        collectParents(branch, s, parents, renamed, aliases, fieldAliases);
+      break;
+    default:
+      // NO-OP
+    }
+  }
+
+  private static Schema applyAliases(Schema s, Map<Schema, Schema> seen, Map<Name, Name> aliases,
+      Map<Name, Map<String, String>> fieldAliases, Set<Schema> aliased) {
+    if (!aliased.contains(s))
+      return s;
 
     Name name = s instanceof NamedSchema ? ((NamedSchema) s).name : null;
     Schema result = s;
@@ -1846,7 +2408,7 @@ public abstract class Schema extends JsonProperties implements Serializable {
       seen.put(s, result);
       List<Field> newFields = new ArrayList<>();
       for (Field f : s.getFields()) {
-        Schema fSchema = applyAliases(f.schema, seen, aliases, fieldAliases);
+        Schema fSchema = applyAliases(f.schema, seen, aliases, fieldAliases, aliased);
         String fName = getFieldAlias(name, f.name, fieldAliases);
         Field newF = new Field(fName, fSchema, f.doc, f.defaultValue, true, f.order);
         newF.putAll(f); // copy props
@@ -1859,19 +2421,19 @@ public abstract class Schema extends JsonProperties implements Serializable {
         result = Schema.createEnum(aliases.get(name).full, s.getDoc(), null, s.getEnumSymbols(), s.getEnumDefault());
       break;
     case ARRAY:
-      Schema e = applyAliases(s.getElementType(), seen, aliases, fieldAliases);
+      Schema e = applyAliases(s.getElementType(), seen, aliases, fieldAliases, aliased);
       if (!e.equals(s.getElementType()))
         result = Schema.createArray(e);
       break;
     case MAP:
-      Schema v = applyAliases(s.getValueType(), seen, aliases, fieldAliases);
+      Schema v = applyAliases(s.getValueType(), seen, aliases, fieldAliases, aliased);
       if (!v.equals(s.getValueType()))
         result = Schema.createMap(v);
       break;
     case UNION:
       List<Schema> types = new ArrayList<>();
       for (Schema branch : s.getTypes())
-        types.add(applyAliases(branch, seen, aliases, fieldAliases));
+        types.add(applyAliases(branch, seen, aliases, fieldAliases, aliased));
       result = Schema.createUnion(types);
       break;
     case FIXED:
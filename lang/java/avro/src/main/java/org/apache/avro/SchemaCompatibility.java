@@ -23,11 +23,15 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.apache.avro.Schema.Field;
 import org.apache.avro.Schema.Type;
 import org.slf4j.Logger;
@@ -58,9 +62,13 @@ public class SchemaCompatibility {
    * @return a result object identifying any compatibility errors.
    */
   public static SchemaPairCompatibility checkReaderWriterCompatibility(final Schema reader, final Schema writer) {
-    final SchemaCompatibilityResult compatibility = new ReaderWriterCompatibilityChecker().getCompatibility(reader,
+    final SchemaCompatibilityResult compatibility = new ReaderWriterCompatibilityChecker(null).getCompatibility(reader,
         writer);
+    return pairCompatibility(compatibility, reader, writer);
+  }
 
+  private static SchemaPairCompatibility pairCompatibility(final SchemaCompatibilityResult compatibility,
+      final Schema reader, final Schema writer) {
     final String message;
     switch (compatibility.getCompatibility()) {
     case INCOMPATIBLE: {
@@ -138,6 +146,128 @@ public class SchemaCompatibility {
     }
   }
 
+  /**
+   * Checks the compatibility of schemas like
+   * {@link SchemaCompatibility#checkReaderWriterCompatibility(Schema, Schema)},
+   * and remembers the results for the pairs of schemas and sub-schemas checked,
+   * so that later checks of schemas that share parts with earlier ones, like a
+   * new version of a schema checked against the earlier versions, skip those
+   * parts. Pairs are told apart by the identity of their schemas, as within a
+   * single check; equal schemas parsed separately share results only if they are
+   * {@link Schema.Parser#setIntern(boolean) interned}.
+   *
+   * <p>
+   * Schemas must not be changed once checked. Results taken from the memo may
+   * have their location within a union relative to the union, as other results
+   * do. A memo keeps the results of at most a given number of pairs, evicting the
+   * least recently used ones, and keeps their schemas in use. Instances are
+   * thread-safe.
+   * </p>
+   */
+  public static final class Memo {
+    /** The number of pairs whose results a memo keeps by default. */
+    public static final int DEFAULT_SIZE = 10000;
+
+    private final Map<ReaderWriter, Result> mResults;
+
+    /** Creates a memo of the results of up to {@value #DEFAULT_SIZE} pairs. */
+    public Memo() {
+      this(DEFAULT_SIZE);
+    }
+
+    /** Creates a memo of the results of up to the given number of pairs. */
+    public Memo(final int maxPairs) {
+      mResults = Collections.synchronizedMap(new LinkedHashMap<ReaderWriter, Result>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<ReaderWriter, Result> eldest) {
+          return size() > maxPairs;
+        }
+      });
+    }
+
+    /**
+     * Validates that the provided reader schema can be used to decode avro data
+     * written with the provided writer schema.
+     *
+     * @param reader schema to check.
+     * @param writer schema to check.
+     * @return a result object identifying any compatibility errors.
+     */
+    public SchemaPairCompatibility checkReaderWriterCompatibility(final Schema reader, final Schema writer) {
+      return pairCompatibility(new ReaderWriterCompatibilityChecker(this).getCompatibility(reader, writer), reader,
+          writer);
+    }
+
+    /**
+     * Checks that the provided reader schema can decode data written with each of
+     * the writer schemas.
+     *
+     * @param reader   schema to check.
+     * @param writers  schemas to check against, e.g. the earlier versions of the
+     *                 reader schema.
+     * @param parallel whether to check the writer schemas in parallel, in the
+     *                 common fork-join pool.
+     * @return the result for each writer schema, in order.
+     */
+    public List<SchemaPairCompatibility> checkReaderAgainstWriters(final Schema reader, final List<Schema> writers,
+        final boolean parallel) {
+      return checkAll(writers, parallel, writer -> checkReaderWriterCompatibility(reader, writer));
+    }
+
+    /**
+     * Checks that data written with the provided writer schema can be decoded with
+     * each of the reader schemas.
+     *
+     * @param writer   schema to check.
+     * @param readers  schemas to check against.
+     * @param parallel whether to check the reader schemas in parallel, in the
+     *                 common fork-join pool.
+     * @return the result for each reader schema, in order.
+     */
+    public List<SchemaPairCompatibility> checkWriterAgainstReaders(final Schema writer, final List<Schema> readers,
+        final boolean parallel) {
+      return checkAll(readers, parallel, reader -> checkReaderWriterCompatibility(reader, writer));
+    }
+
+    private static List<SchemaPairCompatibility> checkAll(final List<Schema> schemas, final boolean parallel,
+        final Function<Schema, SchemaPairCompatibility> check) {
+      Stream<Schema> stream = parallel ? schemas.parallelStream() : schemas.stream();
+      return stream.map(check).collect(Collectors.toList());
+    }
+
+    /** Returns the number of reader/writer pairs with a result in this memo. */
+    public int size() {
+      return mResults.size();
+    }
+
+    /** Forgets all results. */
+    public void clear() {
+      mResults.clear();
+    }
+
+    /** Returns the result of the pair, or null if there is none. */
+    private Result get(final ReaderWriter pair) {
+      return mResults.get(pair);
+    }
+
+    private void put(final ReaderWriter pair, final Result result) {
+      mResults.putIfAbsent(pair, result);
+    }
+
+    /** A result, and the location it was calculated for. */
+    private static final class Result {
+      private final SchemaCompatibilityResult mResult;
+      private final List<String> mLocation;
+
+      Result(final SchemaCompatibilityResult result, final List<String> location) {
+        mResult = result;
+        mLocation = location;
+      }
+    }
+  }
+
   /**
    * Reader/writer schema pair that can be used as a key in a hash map.
    *
@@ -183,6 +313,28 @@ public class SchemaCompatibility {
     }
   }
 
+  /**
+   * The pair in progress with the lowest depth that a result relied on being
+   * compatible.
+   */
+  private static final class Assumption {
+    private final int mDepth;
+    private final ReaderWriter mPair;
+
+    Assumption(final int depth, final List<ReaderWriter> stack) {
+      mDepth = depth;
+      mPair = depth > 0 ? stack.get(depth - 1) : null;
+    }
+
+    /**
+     * Returns the depth of the pair while it is still in progress, or 0 once it is
+     * done, as the result relied on it without knowing its outcome.
+     */
+    int lowestDepth(final List<ReaderWriter> stack) {
+      return mPair != null && mDepth <= stack.size() && stack.get(mDepth - 1) == mPair ? mDepth : 0;
+    }
+  }
+
   /**
    * Determines the compatibility of a reader/writer schema pair.
    *
@@ -193,6 +345,23 @@ public class SchemaCompatibility {
   private static final class ReaderWriterCompatibilityChecker {
     private static final String ROOT_REFERENCE_TOKEN = "";
     private final Map<ReaderWriter, SchemaCompatibilityResult> mMemoizeMap = new HashMap<>();
+    // the depth at which each pair in progress is being calculated
+    private final Map<ReaderWriter, Integer> mInProgress = new HashMap<>();
+    // the pairs in progress, by depth
+    private final List<ReaderWriter> mStack = new ArrayList<>();
+    // for the pairs whose result relied on a pair in progress, that pair
+    private final Map<ReaderWriter, Assumption> mAssumed = new HashMap<>();
+    private final Memo mMemo;
+    private int mDepth = 0;
+    // the lowest depth of a pair in progress that the current calculation relied on
+    private int mLowestAssumed = Integer.MAX_VALUE;
+
+    /**
+     * @param memo The memo to share results with across checks, or null.
+     */
+    ReaderWriterCompatibilityChecker(final Memo memo) {
+      mMemo = memo;
+    }
 
     /**
      * Reports the compatibility of a reader/writer schema pair.
@@ -235,7 +404,18 @@ public class SchemaCompatibility {
           // Break the recursion here.
           // schemas are compatible unless proven incompatible:
           result = SchemaCompatibilityResult.compatible();
+          if (mMemo != null) {
+            mLowestAssumed = Math.min(mLowestAssumed, mInProgress.get(pair));
+          }
+        } else if (mMemo != null) {
+          // the result may rely on a pair in progress, as much as when calculated
+          Assumption assumption = mAssumed.get(pair);
+          if (assumption != null) {
+            mLowestAssumed = Math.min(mLowestAssumed, assumption.lowestDepth(mStack));
+          }
         }
+      } else if (mMemo != null) {
+        result = calculateWithMemo(pair, location);
       } else {
         // Mark this reader/writer pair as "in progress":
         mMemoizeMap.put(pair, SchemaCompatibilityResult.recursionInProgress());
@@ -246,6 +426,38 @@ public class SchemaCompatibility {
       return result;
     }
 
+    /**
+     * Looks the compatibility of a reader/writer schema pair up in the shared memo,
+     * or calculates it and adds it to the memo, with the location of the pair.
+     */
+    private SchemaCompatibilityResult calculateWithMemo(final ReaderWriter pair, final Deque<String> location) {
+      final Memo.Result memoized = mMemo.get(pair);
+      SchemaCompatibilityResult result;
+      if (memoized != null) {
+        result = relocated(memoized.mResult, memoized.mLocation, asList(location));
+        mMemoizeMap.put(pair, result);
+        return result;
+      }
+      mMemoizeMap.put(pair, SchemaCompatibilityResult.recursionInProgress());
+      mInProgress.put(pair, ++mDepth);
+      mStack.add(pair);
+      final int savedLowestAssumed = mLowestAssumed;
+      mLowestAssumed = Integer.MAX_VALUE;
+      result = calculateCompatibility(pair.mReader, pair.mWriter, location);
+      mMemoizeMap.put(pair, result);
+      mInProgress.remove(pair);
+      mStack.remove(mStack.size() - 1);
+      // a result that relied on an enclosing pair being compatible is not final
+      if (mLowestAssumed >= mDepth) {
+        mMemo.put(pair, new Memo.Result(result, asList(location)));
+      } else {
+        mAssumed.put(pair, new Assumption(mLowestAssumed, mStack));
+      }
+      mLowestAssumed = Math.min(savedLowestAssumed, mLowestAssumed);
+      mDepth--;
+      return result;
+    }
+
     /**
      * Calculates the compatibility of a reader/writer schema pair.
      *
@@ -888,6 +1100,30 @@ public class SchemaCompatibility {
     return Objects.equals(obj1, obj2);
   }
 
+  /**
+   * Returns the result with the locations of its incompatibilities that start
+   * with the <tt>from</tt> location moved to start with the <tt>to</tt> location
+   * instead.
+   */
+  private static SchemaCompatibilityResult relocated(final SchemaCompatibilityResult result, final List<String> from,
+      final List<String> to) {
+    if (result.getIncompatibilities().isEmpty() || from.equals(to)) {
+      return result;
+    }
+    final List<Incompatibility> incompatibilities = new ArrayList<>();
+    for (Incompatibility incompatibility : result.getIncompatibilities()) {
+      List<String> location = incompatibility.mLocation;
+      if (location.size() >= from.size() && location.subList(0, from.size()).equals(from)) {
+        List<String> moved = new ArrayList<>(to);
+        moved.addAll(location.subList(from.size(), location.size()));
+        location = Collections.unmodifiableList(moved);
+      }
+      incompatibilities.add(new Incompatibility(incompatibility.mType, incompatibility.mReaderFragment,
+          incompatibility.mWriterFragment, incompatibility.mMessage, location));
+    }
+    return new SchemaCompatibilityResult(result.getCompatibility(), incompatibilities);
+  }
+
   private static List<String> asList(Deque<String> deque) {
     List<String> list = new ArrayList<>(deque);
     Collections.reverse(list);
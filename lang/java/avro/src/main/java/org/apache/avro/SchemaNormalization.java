@@ -35,9 +35,15 @@ public class SchemaNormalization {
   }
 
   /**
-   * Returns "Parsing Canonical Form" of a schema as defined by Avro spec.
+   * Returns "Parsing Canonical Form" of a schema as defined by Avro spec. The
+   * form is computed once per schema instance, see
+   * {@link Schema#getParsingForm()}.
    */
   public static String toParsingForm(Schema s) {
+    return s.getParsingForm();
+  }
+
+  static String buildParsingForm(Schema s) {
     try {
       Map<String, String> env = new HashMap<>();
       return build(env, s, new StringBuilder()).toString();
@@ -92,7 +98,7 @@ public class SchemaNormalization {
    * supplied schema.
    */
   public static byte[] parsingFingerprint(String fpName, Schema s) throws NoSuchAlgorithmException {
-    return fingerprint(fpName, toParsingForm(s).getBytes(StandardCharsets.UTF_8));
+    return s.getParsingFingerprint(fpName);
   }
 
   /**
@@ -100,7 +106,7 @@ public class SchemaNormalization {
    * supplied schema.
    */
   public static long parsingFingerprint64(Schema s) {
-    return fingerprint64(toParsingForm(s).getBytes(StandardCharsets.UTF_8));
+    return s.getParsingFingerprint64();
   }
 
   private static Appendable build(Map<String, String> env, Schema s, Appendable o) throws IOException {
@@ -168,6 +174,55 @@ public class SchemaNormalization {
     }
   }
 
+  /**
+   * The parsing canonical form of a schema, and its fingerprints with the
+   * recommended algorithms, each computed when first needed.
+   */
+  static final class ParsingForm {
+    final String form;
+    final long fingerprint64;
+    private volatile byte[] md5;
+    private volatile byte[] sha256;
+
+    ParsingForm(Schema s) {
+      this.form = buildParsingForm(s);
+      this.fingerprint64 = fingerprint64(form.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Returns a fingerprint as {@link #fingerprint}, in an array of its own. */
+    byte[] fingerprint(String fpName) throws NoSuchAlgorithmException {
+      byte[] result;
+      switch (fpName) {
+      case "CRC-64-AVRO":
+        result = new byte[8];
+        long fp = fingerprint64;
+        for (int i = 0; i < 8; i++) {
+          result[i] = (byte) fp;
+          fp >>= 8;
+        }
+        return result;
+      case "MD5":
+        result = md5;
+        if (result == null) {
+          md5 = result = compute(fpName);
+        }
+        return result.clone();
+      case "SHA-256":
+        result = sha256;
+        if (result == null) {
+          sha256 = result = compute(fpName);
+        }
+        return result.clone();
+      default:
+        return compute(fpName);
+      }
+    }
+
+    private byte[] compute(String fpName) throws NoSuchAlgorithmException {
+      return SchemaNormalization.fingerprint(fpName, form.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
   final static long EMPTY64 = 0xc15d213aa4d7a795L;
 
   /* An inner class ensures that FP_TABLE initialized only when needed. */
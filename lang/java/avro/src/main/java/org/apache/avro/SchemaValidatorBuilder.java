@@ -25,6 +25,7 @@ package org.apache.avro;
  */
 public final class SchemaValidatorBuilder {
   private SchemaValidationStrategy strategy;
+  private SchemaCompatibility.Memo memo;
 
   public SchemaValidatorBuilder strategy(SchemaValidationStrategy strategy) {
     this.strategy = strategy;
@@ -58,14 +59,40 @@ public final class SchemaValidatorBuilder {
     return this;
   }
 
+  /**
+   * Check the schemas of the built-in strategies with
+   * {@link SchemaCompatibility.Memo#checkReaderWriterCompatibility(Schema, Schema)},
+   * sharing its results between validations, e.g. of a new schema against all the
+   * existing ones, which are checked again for every new schema. The checks then
+   * follow the rules of {@link SchemaCompatibility}, which also compare the names
+   * of named schemas.
+   */
+  public SchemaValidatorBuilder memo(SchemaCompatibility.Memo memo) {
+    this.memo = memo;
+    return this;
+  }
+
   public SchemaValidator validateLatest() {
     valid();
-    return new ValidateLatest(strategy);
+    return new ValidateLatest(memoized(strategy));
   }
 
   public SchemaValidator validateAll() {
     valid();
-    return new ValidateAll(strategy);
+    return new ValidateAll(memoized(strategy));
+  }
+
+  private SchemaValidationStrategy memoized(SchemaValidationStrategy strategy) {
+    if (memo == null) {
+      return strategy;
+    } else if (strategy instanceof ValidateCanRead) {
+      return new ValidateCanRead(memo);
+    } else if (strategy instanceof ValidateCanBeRead) {
+      return new ValidateCanBeRead(memo);
+    } else if (strategy instanceof ValidateMutualRead) {
+      return new ValidateMutualRead(memo);
+    }
+    return strategy;
   }
 
   private void valid() {
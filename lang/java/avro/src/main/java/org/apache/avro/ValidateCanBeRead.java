@@ -25,6 +25,16 @@ package org.apache.avro;
  *
  */
 class ValidateCanBeRead implements SchemaValidationStrategy {
+  private final SchemaCompatibility.Memo memo;
+
+  ValidateCanBeRead() {
+    this(null);
+  }
+
+  /** Checks the schemas with a memo, if not null. */
+  ValidateCanBeRead(SchemaCompatibility.Memo memo) {
+    this.memo = memo;
+  }
 
   /**
    * Validate that data written with first schema provided can be read using the
@@ -35,7 +45,7 @@ class ValidateCanBeRead implements SchemaValidationStrategy {
    */
   @Override
   public void validate(Schema toValidate, Schema existing) throws SchemaValidationException {
-    ValidateMutualRead.canRead(toValidate, existing);
+    ValidateMutualRead.canRead(toValidate, existing, memo);
   }
 
 }
@@ -25,6 +25,16 @@ package org.apache.avro;
  *
  */
 class ValidateCanRead implements SchemaValidationStrategy {
+  private final SchemaCompatibility.Memo memo;
+
+  ValidateCanRead() {
+    this(null);
+  }
+
+  /** Checks the schemas with a memo, if not null. */
+  ValidateCanRead(SchemaCompatibility.Memo memo) {
+    this.memo = memo;
+  }
 
   /**
    * Validate that the first schema provided can be used to read data written with
@@ -35,7 +45,7 @@ class ValidateCanRead implements SchemaValidationStrategy {
    */
   @Override
   public void validate(Schema toValidate, Schema existing) throws SchemaValidationException {
-    ValidateMutualRead.canRead(existing, toValidate);
+    ValidateMutualRead.canRead(existing, toValidate, memo);
   }
 
 }
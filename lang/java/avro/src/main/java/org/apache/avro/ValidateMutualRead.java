@@ -20,6 +20,7 @@ package org.apache.avro;
 
 import java.io.IOException;
 
+import org.apache.avro.SchemaCompatibility.SchemaCompatibilityType;
 import org.apache.avro.io.parsing.ResolvingGrammarGenerator;
 import org.apache.avro.io.parsing.Symbol;
 
@@ -30,6 +31,16 @@ import org.apache.avro.io.parsing.Symbol;
  *
  */
 class ValidateMutualRead implements SchemaValidationStrategy {
+  private final SchemaCompatibility.Memo memo;
+
+  ValidateMutualRead() {
+    this(null);
+  }
+
+  /** Checks the schemas with a memo, see {@link #canRead}. */
+  ValidateMutualRead(SchemaCompatibility.Memo memo) {
+    this.memo = memo;
+  }
 
   /**
    * Validate that the schemas provided can mutually read data written by each
@@ -39,8 +50,8 @@ class ValidateMutualRead implements SchemaValidationStrategy {
    */
   @Override
   public void validate(Schema toValidate, Schema existing) throws SchemaValidationException {
-    canRead(toValidate, existing);
-    canRead(existing, toValidate);
+    canRead(toValidate, existing, memo);
+    canRead(existing, toValidate, memo);
   }
 
   /**
@@ -55,6 +66,22 @@ class ValidateMutualRead implements SchemaValidationStrategy {
    *                                   <b>writtenWith<b/>
    */
   static void canRead(Schema writtenWith, Schema readUsing) throws SchemaValidationException {
+    canRead(writtenWith, readUsing, null);
+  }
+
+  /**
+   * As {@link #canRead(Schema, Schema)}, checking the schemas with
+   * {@link SchemaCompatibility.Memo#checkReaderWriterCompatibility(Schema, Schema)}
+   * if the memo is not null.
+   */
+  static void canRead(Schema writtenWith, Schema readUsing, SchemaCompatibility.Memo memo)
+      throws SchemaValidationException {
+    if (memo != null) {
+      if (memo.checkReaderWriterCompatibility(readUsing, writtenWith).getType() != SchemaCompatibilityType.COMPATIBLE) {
+        throw new SchemaValidationException(readUsing, writtenWith);
+      }
+      return;
+    }
     boolean error;
     try {
       error = Symbol.hasErrors(new ResolvingGrammarGenerator().generate(writtenWith, readUsing));
@@ -17,9 +17,9 @@
  */
 package org.apache.avro.file;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
 
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
@@ -58,8 +58,7 @@ public class BZip2Codec extends Codec {
 
   @Override
   public ByteBuffer decompress(ByteBuffer compressedData) throws IOException {
-    ByteArrayInputStream bais = new ByteArrayInputStream(compressedData.array(), computeOffset(compressedData),
-        compressedData.remaining());
+    InputStream bais = inputStream(compressedData);
     try (BZip2CompressorInputStream inputStream = new BZip2CompressorInputStream(bais)) {
       ByteArrayOutputStream baos = new ByteArrayOutputStream();
 
@@ -72,6 +71,11 @@ public class BZip2Codec extends Codec {
     }
   }
 
+  @Override
+  boolean decompressesDirectBuffers() {
+    return true;
+  }
+
   @Override
   public int hashCode() {
     return getName().hashCode();
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.file;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+
+/**
+ * The positions of the blocks of a file, and the number of entries before each.
+ * <p/>
+ * {@link DataFileWriter} may store it at the end of a file, in two blocks
+ * without entries, which readers skip. The first holds the index: the number of
+ * blocks, then the distance of each from the previous one and its number of
+ * entries, as longs. The second, the tail, holds {@link #MAGIC} then the
+ * position of the first as 8 big-endian bytes. Both are compressed with the
+ * codec of the file. The tail is found by the synchronization marker that
+ * precedes it, within {@link #TAIL_SEARCH} bytes of the end of the file.
+ */
+final class BlockIndex {
+  static final byte[] MAGIC = new byte[] { 'I', 'd', 'x', 1 };
+  static final int TAIL_SEARCH = 1024;
+
+  private long[] positions = new long[16];
+  private long[] counts = new long[17]; // entries before each block, and in all
+  private int size;
+
+  /** Adds a block, after all the others. */
+  void add(long position, long entries) {
+    if (size == positions.length) {
+      positions = Arrays.copyOf(positions, size * 2);
+      counts = Arrays.copyOf(counts, size * 2 + 1);
+    }
+    positions[size] = position;
+    counts[size + 1] = counts[size] + entries;
+    size++;
+  }
+
+  /** Returns the number of entries in all the blocks. */
+  long getRecordCount() {
+    return counts[size];
+  }
+
+  /** Returns the number of blocks. */
+  int size() {
+    return size;
+  }
+
+  /** Returns the position of a block. */
+  long getPosition(int block) {
+    return positions[block];
+  }
+
+  /**
+   * Returns the number of entries before a block, or in all of them for the
+   * number of blocks.
+   */
+  long getFirstRecord(int block) {
+    return counts[block];
+  }
+
+  /** Returns the block holding an entry, by binary search. */
+  int getBlock(long record) {
+    int block = Arrays.binarySearch(counts, 0, size + 1, record);
+    if (block < 0) {
+      return -block - 2;
+    }
+    while (block < size - 1 && counts[block + 1] == record) {
+      block++; // skip empty blocks
+    }
+    return block;
+  }
+
+  /** Returns the first block at or after a position, or the number of blocks. */
+  int getFirstBlockAt(long position) {
+    int block = Arrays.binarySearch(positions, 0, size, position);
+    return block < 0 ? -block - 1 : block;
+  }
+
+  /** Returns the content of the index block. */
+  ByteBuffer toIndexBlock() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(size * 6 + 8);
+    BinaryEncoder encoder = EncoderFactory.get().directBinaryEncoder(out, null);
+    encoder.writeLong(size);
+    for (int i = 0; i < size; i++) {
+      encoder.writeLong(positions[i] - (i == 0 ? 0 : positions[i - 1]));
+      encoder.writeLong(counts[i + 1] - counts[i]);
+    }
+    encoder.flush();
+    return ByteBuffer.wrap(out.toByteArray());
+  }
+
+  /** Reads the content of an index block. */
+  static BlockIndex fromIndexBlock(ByteBuffer data) throws IOException {
+    BinaryDecoder decoder = DecoderFactory.get().binaryDecoder(data, null);
+    BlockIndex index = new BlockIndex();
+    long position = 0;
+    for (long i = decoder.readLong(); i > 0; i--) {
+      position += decoder.readLong();
+      index.add(position, decoder.readLong());
+    }
+    if (!decoder.isEnd()) {
+      throw new IOException("Invalid block index");
+    }
+    return index;
+  }
+
+  /** Returns the content of the tail block, for an index at a position. */
+  static ByteBuffer toTailBlock(long indexPosition) {
+    ByteBuffer tail = ByteBuffer.allocate(MAGIC.length + 8);
+    tail.put(MAGIC).putLong(indexPosition);
+    return ByteBuffer.wrap(tail.array());
+  }
+
+  /**
+   * Returns the position of the index in the content of a tail block, or -1 if it
+   * is not one.
+   */
+  static long fromTailBlock(ByteBuffer data) {
+    if (data.remaining() != MAGIC.length + 8) {
+      return -1;
+    }
+    byte[] magic = new byte[MAGIC.length];
+    data.duplicate().get(magic);
+    return Arrays.equals(MAGIC, magic) ? data.getLong(data.position() + MAGIC.length) : -1;
+  }
+}
@@ -17,8 +17,14 @@
  */
 package org.apache.avro.file;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.util.Collections;
+
+import org.apache.avro.util.ByteBufferInputStream;
 
 /**
  * Interface for Avro-supported compression codecs for data files.
@@ -61,4 +67,37 @@ public abstract class Codec {
   protected static int computeOffset(ByteBuffer data) {
     return data.arrayOffset() + data.position();
   }
+
+  /**
+   * Returns true if {@link #decompress(ByteBuffer)} reads buffers that have no
+   * accessible array, such as those of a {@link SeekableMappedFileInput}.
+   */
+  boolean decompressesDirectBuffers() {
+    return false;
+  }
+
+  /**
+   * Returns a stream of the remaining bytes of a buffer, without copying them.
+   */
+  static InputStream inputStream(ByteBuffer data) {
+    if (data.hasArray()) {
+      return new ByteArrayInputStream(data.array(), computeOffset(data), data.remaining());
+    }
+    return new ByteBufferInputStream(Collections.singletonList(data.duplicate()));
+  }
+
+  /** Writes the remaining bytes of a buffer, leaving its position unchanged. */
+  static void writeTo(ByteBuffer data, OutputStream out) throws IOException {
+    if (data.hasArray()) {
+      out.write(data.array(), computeOffset(data), data.remaining());
+      return;
+    }
+    ByteBuffer source = data.duplicate();
+    byte[] chunk = new byte[Math.min(source.remaining(), 8192)];
+    while (source.hasRemaining()) {
+      int n = Math.min(source.remaining(), chunk.length);
+      source.get(chunk, 0, n);
+      out.write(chunk, 0, n);
+    }
+  }
 }
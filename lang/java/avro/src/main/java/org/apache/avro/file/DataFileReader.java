@@ -20,9 +20,16 @@ package org.apache.avro.file;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.File;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.apache.avro.InvalidAvroMagicException;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.io.BinaryDecoder;
 import org.apache.avro.io.DecoderFactory;
 import org.apache.commons.compress.utils.IOUtils;
 import org.apache.avro.io.DatumReader;
@@ -35,9 +42,64 @@ import static org.apache.avro.file.DataFileConstants.MAGIC;
  * @see DataFileWriter
  */
 public class DataFileReader<D> extends DataFileStream<D> implements FileReader<D> {
+  private static final long DEFAULT_MIN_SPLIT_SIZE = 16L * DataFileConstants.DEFAULT_SYNC_INTERVAL;
+
   private SeekableInputStream sin;
   private long blockStart;
   private int[] partialMatchTable;
+  private BlockIndex blockIndex;
+  private long blockIndexPosition = -2; // -1 if there is none
+
+  /** Opens inputs of the same file, one for each part read in parallel. */
+  public interface InputOpener {
+    SeekableInput open() throws IOException;
+  }
+
+  /**
+   * Returns a stream of the datums in a file, see
+   * {@link #stream(InputOpener, Supplier, boolean)}.
+   */
+  public static <D> Stream<D> stream(File file, Supplier<? extends DatumReader<D>> readers, boolean parallel)
+      throws IOException {
+    return stream(() -> new SeekableFileInput(file), readers, parallel);
+  }
+
+  /**
+   * Returns a stream of the datums in a file. A parallel stream splits the file
+   * into byte ranges, each read from its own input and with its own datum reader,
+   * see {@link #spliterator(InputOpener, Supplier, long)}.
+   * <p/>
+   * Closing the stream closes the inputs of the ranges that were not read to
+   * their end, e.g. by a short-circuiting operation; use it in a
+   * try-with-resources statement.
+   *
+   * @param inputs   opens an input of the file, as many times as it is split
+   * @param readers  supplies a new datum reader for each input
+   * @param parallel whether to return a parallel stream
+   */
+  public static <D> Stream<D> stream(InputOpener inputs, Supplier<? extends DatumReader<D>> readers, boolean parallel)
+      throws IOException {
+    DataFileSpliterator<D> spliterator = DataFileSpliterator.open(inputs, readers, DEFAULT_MIN_SPLIT_SIZE);
+    return StreamSupport.stream(spliterator, parallel).onClose(spliterator::closeAll);
+  }
+
+  /**
+   * Returns a spliterator over the datums in a file, e.g. to read it in a
+   * {@link java.util.concurrent.ForkJoinPool}. It is split into byte ranges of at
+   * least <i>minSplitSize</i> bytes, each holding the blocks whose
+   * synchronization marker starts in it, as {@link #sync(long)} and
+   * {@link #pastSync(long)} do. The header of the file is read here, and each
+   * range opens its own input and positions it when it is first read, and closes
+   * it at its end.
+   *
+   * @param inputs       opens an input of the file, as many times as it is split
+   * @param readers      supplies a new datum reader for each input
+   * @param minSplitSize the number of bytes under which ranges are not split
+   */
+  public static <D> Spliterator<D> spliterator(InputOpener inputs, Supplier<? extends DatumReader<D>> readers,
+      long minSplitSize) throws IOException {
+    return DataFileSpliterator.open(inputs, readers, minSplitSize);
+  }
 
   /** Open a reader for a file. */
   public static <D> FileReader<D> openReader(File file, DatumReader<D> reader) throws IOException {
@@ -153,6 +215,7 @@ public class DataFileReader<D> extends DataFileStream<D> implements FileReader<D
    * not saved while writing a file, use {@link #sync(long)} instead.
    */
   public void seek(long position) throws IOException {
+    stopReadAhead();
     sin.seek(position);
     vin = DecoderFactory.get().binaryDecoder(this.sin, vin);
     datumIn = null;
@@ -160,6 +223,179 @@ public class DataFileReader<D> extends DataFileStream<D> implements FileReader<D
     blockStart = position;
   }
 
+  /**
+   * Returns the number of entries in the file. This reads the block index stored
+   * by {@link DataFileWriter#setBlockIndex(boolean)}, or, in files without one,
+   * the header of every block. This may not be called while blocks are read
+   * ahead, see {@link #setReadAhead(java.util.concurrent.Executor, int)}.
+   */
+  public long getRecordCount() throws IOException {
+    return getBlockIndex().getRecordCount();
+  }
+
+  /**
+   * Move to an entry, by its number from the start of the file, so that it is
+   * returned by the next call to {@link #next()}. The block holding it is found
+   * in the index of blocks, see {@link #getRecordCount()}, and the entries before
+   * it in the block are skipped.
+   *
+   * @param record the number of the entry, from 0 to {@link #getRecordCount()},
+   *               which moves to the end of the file
+   */
+  public void seekToRecord(long record) throws IOException {
+    stopReadAhead();
+    BlockIndex index = getBlockIndex();
+    if (record < 0 || record > index.getRecordCount()) {
+      throw new IllegalArgumentException("Invalid record: " + record);
+    }
+    if (record == index.getRecordCount()) {
+      seek(sin.length());
+      return;
+    }
+    int block = index.getBlock(record);
+    seek(index.getPosition(block));
+    long skip = record - index.getFirstRecord(block);
+    if (skip > 0 && hasNext()) {
+      for (; skip > 0; skip--) {
+        GenericDatumReader.skip(getSchema(), datumIn);
+        blockRemaining--;
+      }
+    }
+  }
+
+  /** Returns the index of the blocks, read once. */
+  BlockIndex getBlockIndex() throws IOException {
+    if (blockIndex == null) {
+      long indexPosition = getBlockIndexPosition();
+      long position = sin.tell();
+      try {
+        blockIndex = indexPosition >= 0 ? readIndexBlock(indexPosition) : scanBlocks();
+      } finally {
+        sin.seek(position);
+      }
+    }
+    return blockIndex;
+  }
+
+  /**
+   * Returns the position of the index written at the end of the file, which is
+   * also the end of its data, or -1 if there is none.
+   */
+  long getBlockIndexPosition() throws IOException {
+    if (blockIndexPosition == -2) {
+      if (isReadingAhead()) {
+        throw new IllegalStateException("Blocks are being read ahead");
+      }
+      long position = sin.tell();
+      try {
+        blockIndexPosition = findBlockIndex();
+      } finally {
+        sin.seek(position);
+      }
+    }
+    return blockIndexPosition;
+  }
+
+  /**
+   * Finds the tail block at the end of the file, and returns the position of the
+   * index it points to, or -1 if there is none. See {@link BlockIndex} for their
+   * format.
+   */
+  private long findBlockIndex() throws IOException {
+    long length = sin.length();
+    byte[] tail = new byte[(int) Math.min(length, BlockIndex.TAIL_SEARCH)];
+    sin.seek(length - tail.length);
+    for (int n = 0; n < tail.length;) {
+      int read = sin.read(tail, n, tail.length - n);
+      if (read < 0) {
+        return -1;
+      }
+      n += read;
+    }
+    byte[] sync = getHeader().sync;
+    int end = tail.length - SYNC_SIZE; // the tail block is followed by a sync
+    if (end < 0 || !syncAt(tail, end, sync)) {
+      return -1;
+    }
+    for (int start = end - SYNC_SIZE; start >= 0; start--) {
+      if (syncAt(tail, start, sync)) {
+        long indexPosition;
+        try {
+          BinaryDecoder in = DecoderFactory.get().binaryDecoder(tail, start + SYNC_SIZE, end - start - SYNC_SIZE, null);
+          if (in.readLong() != 0 || in.readLong() != in.inputStream().available()) {
+            return -1;
+          }
+          ByteBuffer data = ByteBuffer.wrap(tail, end - in.inputStream().available(), in.inputStream().available());
+          indexPosition = BlockIndex.fromTailBlock(resolveCodec().decompress(data));
+        } catch (IOException | RuntimeException e) {
+          return -1; // the last block is not a tail
+        }
+        if (indexPosition >= length - tail.length + start) {
+          throw new IOException("Invalid block index position: " + indexPosition);
+        }
+        return indexPosition;
+      }
+    }
+    return -1;
+  }
+
+  private static boolean syncAt(byte[] bytes, int offset, byte[] sync) {
+    for (int i = 0; i < SYNC_SIZE; i++) {
+      if (bytes[offset + i] != sync[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private BlockIndex readIndexBlock(long position) throws IOException {
+    sin.seek(position);
+    BinaryDecoder in = DecoderFactory.get().binaryDecoder(sin, null);
+    long size = in.readLong() == 0 ? in.readLong() : -1;
+    if (size < 0 || size > Integer.MAX_VALUE) {
+      throw new IOException("Invalid block index");
+    }
+    byte[] data = new byte[(int) size];
+    in.readFixed(data);
+    byte[] sync = new byte[SYNC_SIZE];
+    in.readFixed(sync);
+    if (!Arrays.equals(sync, getHeader().sync)) {
+      throw new IOException("Invalid block index");
+    }
+    return BlockIndex.fromIndexBlock(resolveCodec().decompress(ByteBuffer.wrap(data)));
+  }
+
+  /**
+   * Builds the index of a file without one, reading the header of every block.
+   */
+  private BlockIndex scanBlocks() throws IOException {
+    sin.seek(0);
+    BinaryDecoder in = DecoderFactory.get().binaryDecoder(sin, null);
+    in.skipFixed(MAGIC.length);
+    for (long l = in.readMapStart(); l != 0; l = in.mapNext()) {
+      for (long i = 0; i < l; i++) {
+        in.skipString();
+        in.skipBytes();
+      }
+    }
+    in.skipFixed(SYNC_SIZE);
+    BlockIndex index = new BlockIndex();
+    while (!in.isEnd()) {
+      long position = sin.tell() - in.inputStream().available();
+      long entries = in.readLong();
+      long size = in.readLong();
+      if (entries < 0 || size < 0) {
+        throw new IOException("Invalid block at " + position);
+      }
+      if (entries > 0) {
+        index.add(position, entries);
+      }
+      sin.seek(sin.tell() - in.inputStream().available() + size + SYNC_SIZE); // skip the data
+      in = DecoderFactory.get().binaryDecoder(sin, in);
+    }
+    return index;
+  }
+
   /**
    * Move to the next synchronization point after a position. To process a range
    * of file entires, call this with the starting position, then check
@@ -229,7 +465,23 @@ public class DataFileReader<D> extends DataFileStream<D> implements FileReader<D
 
   @Override
   protected void blockFinished() throws IOException {
-    blockStart = sin.tell() - vin.inputStream().available();
+    blockStart = blockEnd();
+  }
+
+  @Override
+  ByteBuffer mappedBlock(int size) throws IOException {
+    ByteBuffer mapped = sin.in instanceof SeekableMappedFileInput
+        ? ((SeekableMappedFileInput) sin.in).slice(inputPosition(), size)
+        : null;
+    if (mapped != null) {
+      vin.skipFixed(size);
+    }
+    return mapped;
+  }
+
+  @Override
+  long inputPosition() throws IOException {
+    return sin.tell() - vin.inputStream().available();
   }
 
   /** Return the last synchronization point before our current position. */
@@ -299,10 +551,10 @@ public class DataFileReader<D> extends DataFileStream<D> implements FileReader<D
       long length = in.length();
       long remaining = length - position;
       if (remaining > skip) {
-        in.seek(skip);
+        in.seek(position + skip);
         return in.tell() - position;
       } else {
-        in.seek(remaining);
+        in.seek(length);
         return in.tell() - position;
       }
     }
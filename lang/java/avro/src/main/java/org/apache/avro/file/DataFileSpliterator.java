@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.file;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.file.DataFileStream.Header;
+import org.apache.avro.io.DatumReader;
+
+/**
+ * Splits a file written by {@link DataFileWriter} into byte ranges, each read
+ * from its own input by its own {@link DataFileReader}. A range holds the
+ * blocks whose synchronization marker starts in it, as with
+ * {@link DataFileReader#sync(long)} and {@link DataFileReader#pastSync(long)}.
+ * The number of entries in a range is counted with the block index of the file,
+ * if it has one, see {@link DataFileWriter#setBlockIndex(boolean)}, and is
+ * otherwise estimated from the entries and size of the first block.
+ *
+ * @see DataFileReader#spliterator(DataFileReader.InputOpener, Supplier, long)
+ */
+final class DataFileSpliterator<D> implements Spliterator<D> {
+  private final DataFileReader.InputOpener inputs;
+  private final Supplier<? extends DatumReader<D>> readers;
+  private final Header header;
+  private final long minSplitSize;
+  private final Queue<DataFileReader<D>> open; // shared by all the splits
+  private final BlockIndex index; // null if the file has none
+  private final double entriesPerByte; // in the first block, NaN if unknown
+
+  private long start;
+  private final long end;
+  private DataFileReader<D> reader;
+  private long advanced; // the entries read
+  private boolean done;
+
+  private DataFileSpliterator(DataFileReader.InputOpener inputs, Supplier<? extends DatumReader<D>> readers,
+      Header header, long minSplitSize, Queue<DataFileReader<D>> open, BlockIndex index, double entriesPerByte,
+      long start, long end) {
+    this.inputs = inputs;
+    this.readers = readers;
+    this.header = header;
+    this.minSplitSize = minSplitSize;
+    this.open = open;
+    this.index = index;
+    this.entriesPerByte = entriesPerByte;
+    this.start = start;
+    this.end = end;
+  }
+
+  /** Reads the header of a file, and returns a spliterator over all of it. */
+  static <D> DataFileSpliterator<D> open(DataFileReader.InputOpener inputs, Supplier<? extends DatumReader<D>> readers,
+      long minSplitSize) throws IOException {
+    if (minSplitSize < 1) {
+      throw new IllegalArgumentException("Invalid minSplitSize value: " + minSplitSize);
+    }
+    SeekableInput in = inputs.open();
+    try (DataFileReader<D> reader = new DataFileReader<>(in, readers.get(), true)) {
+      BlockIndex index = null;
+      double entriesPerByte = Double.NaN;
+      if (reader.getBlockIndexPosition() >= 0) {
+        index = reader.getBlockIndex();
+      } else if (!reader.hasNextBlock()) {
+        entriesPerByte = 0; // no blocks
+      } else if (reader.getBlockCount() > 0) {
+        entriesPerByte = (double) reader.getBlockCount() / (reader.getBlockSize() + DataFileConstants.SYNC_SIZE);
+      }
+      return new DataFileSpliterator<>(inputs, readers, reader.getHeader(), minSplitSize, new ConcurrentLinkedQueue<>(),
+          index, entriesPerByte, 0, in.length());
+    }
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super D> action) {
+    try {
+      if (done) {
+        return false;
+      }
+      if (reader == null) {
+        openReader();
+      }
+      if (reader.hasNext() && !reader.pastSync(end)) {
+        action.accept(reader.next());
+        advanced++;
+        return true;
+      }
+      closeReader();
+      return false;
+    } catch (IOException e) {
+      throw new AvroRuntimeException(e);
+    }
+  }
+
+  @Override
+  public void forEachRemaining(Consumer<? super D> action) {
+    try {
+      if (done) {
+        return;
+      }
+      if (reader == null) {
+        openReader();
+      }
+      while (reader.hasNext() && !reader.pastSync(end)) {
+        action.accept(reader.next());
+      }
+      closeReader();
+    } catch (IOException e) {
+      throw new AvroRuntimeException(e);
+    }
+  }
+
+  private void openReader() throws IOException {
+    SeekableInput in = inputs.open();
+    try {
+      in.seek(start);
+      reader = DataFileReader.openReader(in, readers.get(), header, true);
+    } catch (IOException | RuntimeException e) {
+      in.close();
+      throw e;
+    }
+    open.add(reader);
+  }
+
+  private void closeReader() throws IOException {
+    done = true;
+    if (reader != null) {
+      open.remove(reader);
+      reader.close();
+      reader = null;
+    }
+  }
+
+  /** Closes the inputs of all the splits that were not read to their end. */
+  void closeAll() {
+    IOException failure = null;
+    for (DataFileReader<D> r; (r = open.poll()) != null;) {
+      try {
+        r.close();
+      } catch (IOException e) {
+        failure = e;
+      }
+    }
+    if (failure != null) {
+      throw new AvroRuntimeException(failure);
+    }
+  }
+
+  @Override
+  public Spliterator<D> trySplit() {
+    if (reader != null || done || end - start < 2 * minSplitSize) {
+      return null;
+    }
+    long middle = start + (end - start) / 2;
+    Spliterator<D> prefix = new DataFileSpliterator<>(inputs, readers, header, minSplitSize, open, index,
+        entriesPerByte, start, middle);
+    start = middle;
+    return prefix;
+  }
+
+  /**
+   * Returns the number of entries left, counted with the block index, or
+   * estimated from the size of the range, or {@link Long#MAX_VALUE} if the first
+   * block of a file without an index has no entries.
+   */
+  @Override
+  public long estimateSize() {
+    if (done) {
+      return 0;
+    }
+    long entries;
+    if (index != null) {
+      // the blocks that follow a synchronization marker in the range
+      int first = index.getFirstBlockAt(start + DataFileConstants.SYNC_SIZE);
+      int last = index.getFirstBlockAt(end + DataFileConstants.SYNC_SIZE);
+      entries = index.getFirstRecord(last) - index.getFirstRecord(first);
+    } else if (Double.isNaN(entriesPerByte)) {
+      return Long.MAX_VALUE;
+    } else {
+      entries = (long) Math.ceil((end - start) * entriesPerByte);
+    }
+    return Math.max(0, entries - advanced);
+  }
+
+  @Override
+  public int characteristics() {
+    return ORDERED;
+  }
+}
@@ -23,6 +23,7 @@ import java.io.InputStream;
 import java.io.Closeable;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.Arrays;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -31,6 +32,9 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 import org.apache.avro.AvroRuntimeException;
 import org.apache.avro.InvalidAvroMagicException;
@@ -79,6 +83,16 @@ public class DataFileStream<D> implements Iterator<D>, Iterable<D>, Closeable {
   long blockRemaining; // # entries remaining in block
   byte[] syncBuffer = new byte[DataFileConstants.SYNC_SIZE];
   private Codec codec;
+  private boolean borrowedReads = false;
+
+  private Executor readAheadExecutor;
+  private int readAheadBlocks;
+  private final ArrayDeque<CompletableFuture<ReadAheadBlock>> readAhead = new ArrayDeque<>();
+  private CompletableFuture<ReadAheadBlock> lastRead; // of the last block requested
+  private boolean readAheadDone;
+  private Throwable readAheadFailure; // thrown again until repositioned
+  private ReadAheadBlock readAheadCurrent;
+  private final ArrayDeque<ReadAheadBlock> freeReadAheadBlocks = new ArrayDeque<>();
 
   /**
    * Construct a reader for an input stream. For file-based input, use
@@ -185,6 +199,59 @@ public class DataFileStream<D> implements Iterator<D>, Iterable<D>, Closeable {
     return Long.parseLong(getMetaString(key));
   }
 
+  /**
+   * Expert: enables or disables borrowed reads of strings and bytes, see
+   * {@link BinaryDecoder#setBorrowedReads(boolean)}. When enabled,
+   * {@link org.apache.avro.util.Utf8} and {@link ByteBuffer} values in the datums
+   * returned refer to the current block's buffer rather than to copies of it.
+   * They remain valid until the next block is loaded, that is until
+   * {@link #hasNext()} or {@link #next()} is called after the last datum of the
+   * block has been read, or until the reader is repositioned. Values that must
+   * outlive their block have to be copied.
+   * <p/>
+   * Only datum readers that read strings as {@link Utf8} benefit from this.
+   */
+  public void setBorrowedReads(boolean borrowedReads) {
+    this.borrowedReads = borrowedReads;
+    if (datumIn != null) {
+      datumIn.setBorrowedReads(borrowedReads);
+    }
+  }
+
+  /**
+   * Configures this stream to read and decompress blocks in the given executor
+   * ahead of those being read, so that reading the input, decompressing blocks
+   * and decoding datums overlap. Blocks are read from the input one at a time and
+   * in order, while as many as <i>maxBlocks</i> may be decompressed at once.
+   * <p/>
+   * At most <i>maxBlocks</i> blocks are read ahead, besides the current one. Each
+   * of them takes a buffer for its compressed bytes, which is reused, another for
+   * its decompressed bytes, and an instance of the codec. Errors while reading a
+   * block are thrown when it is reached, and again by later calls until a
+   * {@link DataFileReader} is positioned anew. While reading ahead, the input is
+   * positioned past the current block; {@link DataFileReader#previousSync()} and
+   * {@link DataFileReader#pastSync(long)} still refer to the current block.
+   * <p/>
+   * May not be reset once blocks are read ahead, as those would be lost, unless a
+   * {@link DataFileReader} is positioned anew with
+   * {@link DataFileReader#seek(long)} or {@link DataFileReader#sync(long)}.
+   *
+   * @param executor  the executor that reads blocks, or null to read them when
+   *                  they are reached
+   * @param maxBlocks the number of blocks read ahead
+   * @throws IllegalStateException if blocks are read ahead
+   */
+  public void setReadAhead(Executor executor, int maxBlocks) {
+    if (maxBlocks < 1) {
+      throw new IllegalArgumentException("Invalid maxBlocks value: " + maxBlocks);
+    }
+    if (isReadingAhead() || readAheadCurrent != null) {
+      throw new IllegalStateException("Blocks are already read ahead");
+    }
+    this.readAheadExecutor = executor;
+    this.readAheadBlocks = maxBlocks;
+  }
+
   /**
    * Returns an iterator over entries in this file. Note that this iterator is
    * shared with other users of the file: it does not contain a separate pointer
@@ -203,18 +270,16 @@ public class DataFileStream<D> implements Iterator<D>, Iterable<D>, Closeable {
     try {
       if (blockRemaining == 0) {
         // check that the previous block was finished
-        if (null != datumIn) {
+        if (null != datumIn && blockCount != 0) {
           boolean atEnd = datumIn.isEnd();
           if (!atEnd) {
             throw new IOException("Block read partially, the data may be corrupt");
           }
         }
-        if (hasNextBlock()) {
-          block = nextRawBlock(block);
-          block.decompressUsing(codec);
-          blockBuffer = block.getAsByteBuffer();
-          datumIn = DecoderFactory.get().binaryDecoder(blockBuffer.array(),
-              blockBuffer.arrayOffset() + blockBuffer.position(), blockBuffer.remaining(), datumIn);
+        // blocks without entries, such as those of the block index written by
+        // DataFileWriter, are skipped
+        while (loadNextBlock() && blockRemaining == 0) {
+          blockFinished();
         }
       }
       return blockRemaining != 0;
@@ -225,6 +290,30 @@ public class DataFileStream<D> implements Iterator<D>, Iterable<D>, Closeable {
     }
   }
 
+  /** Loads the next block, returning false at the end of the input. */
+  private boolean loadNextBlock() throws IOException {
+    if (readAheadExecutor != null) {
+      if (!nextReadAheadBlock()) {
+        return false;
+      }
+      blockBuffer = readAheadCurrent.block.getAsByteBuffer();
+      datumIn = DecoderFactory.get().binaryDecoder(blockBuffer.array(),
+          blockBuffer.arrayOffset() + blockBuffer.position(), blockBuffer.remaining(), datumIn);
+    } else if (!hasNextBlock()) {
+      return false;
+    } else if (nextMappedBlock()) {
+      datumIn = DecoderFactory.get().binaryDecoder(blockBuffer, datumIn);
+    } else {
+      block = nextRawBlock(block);
+      block.decompressUsing(codec);
+      blockBuffer = block.getAsByteBuffer();
+      datumIn = DecoderFactory.get().binaryDecoder(blockBuffer.array(),
+          blockBuffer.arrayOffset() + blockBuffer.position(), blockBuffer.remaining(), datumIn);
+    }
+    datumIn.setBorrowedReads(borrowedReads);
+    return true;
+  }
+
   /**
    * Read the next datum in the file.
    *
@@ -281,6 +370,9 @@ public class DataFileStream<D> implements Iterator<D>, Iterable<D>, Closeable {
   }
 
   boolean hasNextBlock() {
+    if (isReadingAhead()) {
+      throw new IllegalStateException("Blocks are being read ahead");
+    }
     try {
       if (availableBlock)
         return true;
@@ -320,6 +412,199 @@ public class DataFileStream<D> implements Iterator<D>, Iterable<D>, Closeable {
     return reuse;
   }
 
+  /**
+   * Takes the next block as a slice of the input if it is mapped into memory,
+   * decompressing it from the slice, or, without a codec, leaving it to be
+   * decoded through the decoder's buffer. Returns false if it is not mapped.
+   */
+  private boolean nextMappedBlock() throws IOException {
+    if (!codec.decompressesDirectBuffers()) {
+      return false;
+    }
+    ByteBuffer mapped = mappedBlock((int) blockSize);
+    if (mapped == null) {
+      return false;
+    }
+    vin.readFixed(syncBuffer);
+    availableBlock = false;
+    if (!Arrays.equals(syncBuffer, header.sync))
+      throw new IOException("Invalid sync!");
+    blockBuffer = codec.decompress(mapped);
+    return true;
+  }
+
+  /**
+   * Returns the next <i>size</i> bytes of the input, skipping them, if the input
+   * is mapped into memory. Otherwise returns null, leaving the input unchanged.
+   */
+  ByteBuffer mappedBlock(int size) throws IOException {
+    return null;
+  }
+
+  /**
+   * Makes the next block read ahead the current one, requesting more to keep
+   * reading ahead. Returns false at the end of the input.
+   */
+  private boolean nextReadAheadBlock() throws IOException {
+    if (readAheadCurrent != null) {
+      freeReadAheadBlocks.add(readAheadCurrent);
+      readAheadCurrent = null;
+    }
+    if (readAhead.isEmpty() && lastRead == null) {
+      startReadAhead();
+    }
+    if (readAheadFailure != null) {
+      throwReadAheadFailure();
+    }
+    if (readAheadDone) {
+      return false;
+    }
+    ReadAheadBlock next;
+    try {
+      next = readAhead.poll().join();
+    } catch (CompletionException e) {
+      readAheadDone = true;
+      readAheadFailure = e.getCause() != null ? e.getCause() : e;
+      throwReadAheadFailure();
+      return false;
+    }
+    if (next == null) {
+      readAheadDone = true;
+      return false;
+    }
+    requestReadAhead();
+    readAheadCurrent = next;
+    blockCount = blockRemaining = next.numEntries;
+    blockSize = next.blockSize;
+    return true;
+  }
+
+  private void throwReadAheadFailure() throws IOException {
+    if (readAheadFailure instanceof IOException) {
+      throw (IOException) readAheadFailure;
+    } else if (readAheadFailure instanceof RuntimeException) {
+      throw (RuntimeException) readAheadFailure;
+    } else if (readAheadFailure instanceof Error) {
+      throw (Error) readAheadFailure;
+    }
+    throw new IOException(readAheadFailure);
+  }
+
+  private void startReadAhead() {
+    ReadAheadBlock first = newReadAheadBlock();
+    if (availableBlock) {
+      // the header of the first block was read
+      first.numEntries = blockCount;
+      first.blockSize = (int) blockSize;
+      first.headerRead = true;
+      availableBlock = false;
+      blockRemaining = 0;
+    }
+    lastRead = CompletableFuture.supplyAsync(() -> readAheadRaw(first), readAheadExecutor);
+    readAhead.add(decompressAsync(lastRead));
+    requestReadAhead();
+  }
+
+  private void requestReadAhead() {
+    while (!readAheadDone && readAhead.size() < readAheadBlocks) {
+      ReadAheadBlock next = newReadAheadBlock();
+      // blocks are read in order, once the previous one was
+      lastRead = lastRead.thenApplyAsync(previous -> previous == null ? null : readAheadRaw(next), readAheadExecutor);
+      readAhead.add(decompressAsync(lastRead));
+    }
+  }
+
+  private CompletableFuture<ReadAheadBlock> decompressAsync(CompletableFuture<ReadAheadBlock> read) {
+    return read.thenApplyAsync(raw -> {
+      if (raw != null) {
+        try {
+          raw.decompress();
+        } catch (IOException e) {
+          throw new CompletionException(e);
+        }
+      }
+      return raw;
+    }, readAheadExecutor);
+  }
+
+  private ReadAheadBlock newReadAheadBlock() {
+    return freeReadAheadBlocks.isEmpty() ? new ReadAheadBlock(resolveCodec()) : freeReadAheadBlocks.poll();
+  }
+
+  /** Reads the next block from the input, or returns null at its end. */
+  private ReadAheadBlock readAheadRaw(ReadAheadBlock raw) {
+    try {
+      if (!raw.headerRead) {
+        if (vin.isEnd()) {
+          return null;
+        }
+        raw.numEntries = vin.readLong();
+        long size = vin.readLong();
+        if (size > Integer.MAX_VALUE || size < 0) {
+          throw new IOException("Block size invalid or too large for this " + "implementation: " + size);
+        }
+        raw.blockSize = (int) size;
+      }
+      raw.headerRead = false;
+      if (raw.data.length < raw.blockSize) {
+        raw.data = new byte[raw.blockSize];
+      }
+      vin.readFixed(raw.data, 0, raw.blockSize);
+      vin.readFixed(raw.sync);
+      if (!Arrays.equals(raw.sync, header.sync))
+        throw new IOException("Invalid sync!");
+      raw.end = inputPosition();
+      return raw;
+    } catch (EOFException e) { // at EOF
+      return null;
+    } catch (IOException e) {
+      throw new CompletionException(e);
+    }
+  }
+
+  /** Returns true if blocks are being read ahead from the input. */
+  boolean isReadingAhead() {
+    return !readAhead.isEmpty();
+  }
+
+  /**
+   * Stops reading ahead, waiting for the blocks being read. Those read are
+   * dropped, the input is positioned after the last of them.
+   */
+  void stopReadAhead() {
+    for (CompletableFuture<ReadAheadBlock> pending : readAhead) {
+      try {
+        ReadAheadBlock dropped = pending.join();
+        if (dropped != null) {
+          freeReadAheadBlocks.add(dropped);
+        }
+      } catch (CompletionException e) {
+        // thrown when the block is reached, which it no longer is
+      }
+    }
+    readAhead.clear();
+    lastRead = null;
+    readAheadDone = false;
+    readAheadFailure = null;
+    if (readAheadCurrent != null) {
+      freeReadAheadBlocks.add(readAheadCurrent);
+      readAheadCurrent = null;
+    }
+  }
+
+  /**
+   * Returns the position in the input after the current block, or -1 if it is not
+   * known.
+   */
+  long blockEnd() throws IOException {
+    return readAheadCurrent != null ? readAheadCurrent.end : inputPosition();
+  }
+
+  /** Returns the position of {@link #vin} in the input, or -1 if not known. */
+  long inputPosition() throws IOException {
+    return -1;
+  }
+
   /** Not supported. */
   @Override
   public void remove() {
@@ -329,9 +614,31 @@ public class DataFileStream<D> implements Iterator<D>, Iterable<D>, Closeable {
   /** Close this reader. */
   @Override
   public void close() throws IOException {
+    stopReadAhead();
     vin.inputStream().close();
   }
 
+  /** A block read ahead, with the buffers and codec it reuses. */
+  private static class ReadAheadBlock {
+    private final Codec codec;
+    private final byte[] sync = new byte[DataFileConstants.SYNC_SIZE];
+    private byte[] data = new byte[0];
+    private long numEntries;
+    private int blockSize;
+    private boolean headerRead;
+    private DataBlock block;
+    private long end;
+
+    ReadAheadBlock(Codec codec) {
+      this.codec = codec;
+    }
+
+    void decompress() throws IOException {
+      block = new DataBlock(ByteBuffer.wrap(data, 0, blockSize), numEntries);
+      block.decompressUsing(codec);
+    }
+  }
+
   static class DataBlock {
     private byte[] data;
     private long numEntries;
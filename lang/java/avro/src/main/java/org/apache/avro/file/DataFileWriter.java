@@ -31,9 +31,14 @@ import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.avro.AvroRuntimeException;
 import org.apache.avro.Schema;
@@ -75,8 +80,18 @@ public class DataFileWriter<D> implements Closeable, Flushable {
 
   private boolean isOpen;
   private Codec codec;
+  private CodecFactory codecFactory = CodecFactory.nullCodec();
+
+  private Executor compressionExecutor;
+  private int maxInFlightBlocks;
+  private final ArrayDeque<PendingBlock> pendingBlocks = new ArrayDeque<>();
+  private final ArrayDeque<NonCopyingByteArrayOutputStream> freeBuffers = new ArrayDeque<>();
+  private final ArrayDeque<Codec> freeCodecs = new ArrayDeque<>();
 
   private boolean flushOnEveryBlock = true;
+  private boolean blockedCollections = false;
+  private boolean writeBlockIndex = false;
+  private BlockIndex blockIndex;
 
   /** Construct a writer, not yet open. */
   public DataFileWriter(DatumWriter<D> dout) {
@@ -99,6 +114,7 @@ public class DataFileWriter<D> implements Closeable, Flushable {
    */
   public DataFileWriter<D> setCodec(CodecFactory c) {
     assertNotOpen();
+    this.codecFactory = c;
     this.codec = c.createInstance();
     setMetaInternal(DataFileConstants.CODEC, codec.getName());
     return this;
@@ -129,6 +145,93 @@ public class DataFileWriter<D> implements Closeable, Flushable {
     return this;
   }
 
+  /**
+   * Configures this writer to write arrays and maps as blocks prefixed with their
+   * size in bytes, as {@link org.apache.avro.io.BlockingBinaryEncoder} does.
+   * Readers then skip these collections without decoding their items, e.g. when
+   * their schema drops the fields holding them. Other readers are unaffected, as
+   * both encodings are valid. May not be reset after writes have begun.
+   * <p/>
+   * Collections are buffered until they are complete, in blocks of at most
+   * {@link EncoderFactory#configureBlockSize(int) the default block size}; a
+   * single item larger than that is written without a byte count.
+   *
+   * @param blockedCollections whether to write the size of each block of items
+   * @return this DataFileWriter
+   */
+  public DataFileWriter<D> setBlockedCollections(boolean blockedCollections) {
+    assertNotOpen();
+    this.blockedCollections = blockedCollections;
+    return this;
+  }
+
+  /**
+   * @return true if this writer prefixes blocks of array and map items with their
+   *         size in bytes, see {@link #setBlockedCollections(boolean)}.
+   */
+  public boolean isBlockedCollections() {
+    return blockedCollections;
+  }
+
+  /**
+   * Configures this writer to store an index of its blocks at the end of the file
+   * when it is closed, with which {@link DataFileReader#getRecordCount()} and
+   * {@link DataFileReader#seekToRecord(long)} need not read every block. May not
+   * be reset after writes have begun.
+   * <p/>
+   * The index is stored at the end of the file, in blocks without entries.
+   * Readers skip them, and those of releases without this option end their
+   * iteration there, after all the entries. Appending to a file, see
+   * {@link #appendTo(File)}, leaves its index in place, and with this option,
+   * adds the blocks of the file to the new one.
+   *
+   * @param blockIndex whether to store an index of the blocks
+   * @return this DataFileWriter
+   */
+  public DataFileWriter<D> setBlockIndex(boolean blockIndex) {
+    assertNotOpen();
+    this.writeBlockIndex = blockIndex;
+    return this;
+  }
+
+  /**
+   * @return true if this writer stores an index of its blocks, see
+   *         {@link #setBlockIndex(boolean)}.
+   */
+  public boolean isBlockIndex() {
+    return writeBlockIndex;
+  }
+
+  /**
+   * Configures this writer to compress blocks in the given executor, so that
+   * appending continues while the blocks filled so far are compressed. Blocks are
+   * written in the order they were filled, each followed by its synchronization
+   * marker, so the file is the same as without an executor. May not be reset
+   * after writes have begun.
+   * <p/>
+   * At most <i>maxInFlightBlocks</i> blocks are buffered or being compressed at
+   * once: when that many are, appending waits for the oldest to be written. Each
+   * of them takes a buffer of about the {@link #setSyncInterval(int) sync
+   * interval} and an instance of the codec. Errors while compressing a block are
+   * thrown when it is written, by the call that appended to or synced this
+   * writer. A block that the executor rejects is dropped, and the call that
+   * filled it throws an IOException.
+   *
+   * @param executor          the executor that compresses blocks, or null to
+   *                          compress them when they are written
+   * @param maxInFlightBlocks the number of blocks that may be compressed at once
+   * @return this DataFileWriter
+   */
+  public DataFileWriter<D> setCompressionExecutor(Executor executor, int maxInFlightBlocks) {
+    assertNotOpen();
+    if (maxInFlightBlocks < 1) {
+      throw new IllegalArgumentException("Invalid maxInFlightBlocks value: " + maxInFlightBlocks);
+    }
+    this.compressionExecutor = executor;
+    this.maxInFlightBlocks = maxInFlightBlocks;
+    return this;
+  }
+
   /** Open a new file for data matching a schema with a random sync. */
   public DataFileWriter<D> create(Schema schema, File file) throws IOException {
     SyncableFileOutputStream sfos = new SyncableFileOutputStream(file);
@@ -173,6 +276,9 @@ public class DataFileWriter<D> implements Closeable, Flushable {
     vout.writeMapEnd();
     vout.writeFixed(this.sync); // write initial sync
     vout.flush(); // vout may be buffered, flush before writing to out
+    if (writeBlockIndex) {
+      blockIndex = new BlockIndex();
+    }
     return this;
   }
 
@@ -198,7 +304,13 @@ public class DataFileWriter<D> implements Closeable, Flushable {
     return this.flushOnEveryBlock;
   }
 
-  /** Open a writer appending to an existing file. */
+  /**
+   * Open a writer appending to an existing file. The file is only appended to: if
+   * it has a block index, see {@link #setBlockIndex(boolean)}, the blocks without
+   * entries that hold it are left before the appended ones. Readers skip them, so
+   * they read all the entries; but readers of releases without block indexes end
+   * their iteration there, before the appended entries.
+   */
   public DataFileWriter<D> appendTo(File file) throws IOException {
     try (SeekableInput input = new SeekableFileInput(file)) {
       OutputStream output = new SyncableFileOutputStream(file, true);
@@ -210,8 +322,9 @@ public class DataFileWriter<D> implements Closeable, Flushable {
 
   /**
    * Open a writer appending to an existing file. <strong>Since 1.9.0 this method
-   * does not close in.</strong>
-   * 
+   * does not close in.</strong> A block index at the end of the file is left in
+   * place, as by {@link #appendTo(File)}.
+   *
    * @param in  reading the existing file.
    * @param out positioned at the end of the existing file.
    */
@@ -224,12 +337,17 @@ public class DataFileWriter<D> implements Closeable, Flushable {
     byte[] codecBytes = this.meta.get(DataFileConstants.CODEC);
     if (codecBytes != null) {
       String strCodec = new String(codecBytes, StandardCharsets.UTF_8);
-      this.codec = CodecFactory.fromString(strCodec).createInstance();
+      this.codecFactory = CodecFactory.fromString(strCodec);
     } else {
-      this.codec = CodecFactory.nullCodec().createInstance();
+      this.codecFactory = CodecFactory.nullCodec();
+    }
+    this.codec = codecFactory.createInstance();
+    if (writeBlockIndex) {
+      blockIndex = reader.getBlockIndex();
     }
 
     init(out);
+    this.out.position = in.length(); // so that positions are in the whole file
 
     return this;
   }
@@ -240,14 +358,19 @@ public class DataFileWriter<D> implements Closeable, Flushable {
     EncoderFactory efactory = new EncoderFactory();
     this.vout = efactory.binaryEncoder(out, null);
     dout.setSchema(schema);
-    buffer = new NonCopyingByteArrayOutputStream(Math.min((int) (syncInterval * 1.25), Integer.MAX_VALUE / 2 - 1));
-    this.bufOut = efactory.binaryEncoder(buffer, null);
+    buffer = newBuffer();
+    this.bufOut = blockedCollections ? efactory.blockingBinaryEncoder(buffer, null)
+        : efactory.binaryEncoder(buffer, null);
     if (this.codec == null) {
       this.codec = CodecFactory.nullCodec().createInstance();
     }
     this.isOpen = true;
   }
 
+  private NonCopyingByteArrayOutputStream newBuffer() {
+    return new NonCopyingByteArrayOutputStream(Math.min((int) (syncInterval * 1.25), Integer.MAX_VALUE / 2 - 1));
+  }
+
   private static byte[] generateSync() {
     try {
       MessageDigest digester = MessageDigest.getInstance("MD5");
@@ -328,6 +451,10 @@ public class DataFileWriter<D> implements Closeable, Flushable {
     byte[] data = buffer.toByteArray();
     buffer.reset();
     buffer.write(data, 0, size);
+    if (blockedCollections) {
+      // the encoder may have been left inside a collection
+      bufOut = EncoderFactory.get().blockingBinaryEncoder(buffer, bufOut);
+    }
   }
 
   /**
@@ -379,33 +506,40 @@ public class DataFileWriter<D> implements Closeable, Flushable {
     }
     // flush anything written so far
     writeBlock();
+    writePendingBlocks(0);
     Codec otherCodec = otherFile.resolveCodec();
     DataBlock nextBlockRaw = null;
     if (codec.equals(otherCodec) && !recompress) {
       // copy raw bytes
       while (otherFile.hasNextBlock()) {
         nextBlockRaw = otherFile.nextRawBlock(nextBlockRaw);
-        nextBlockRaw.writeBlockTo(vout, sync);
+        if (nextBlockRaw.getNumEntries() != 0) { // e.g. a block index
+          writeDataBlock(nextBlockRaw);
+        }
       }
     } else {
       while (otherFile.hasNextBlock()) {
         nextBlockRaw = otherFile.nextRawBlock(nextBlockRaw);
-        nextBlockRaw.decompressUsing(otherCodec);
-        nextBlockRaw.compressUsing(codec);
-        nextBlockRaw.writeBlockTo(vout, sync);
+        if (nextBlockRaw.getNumEntries() != 0) {
+          nextBlockRaw.decompressUsing(otherCodec);
+          nextBlockRaw.compressUsing(codec);
+          writeDataBlock(nextBlockRaw);
+        }
       }
     }
   }
 
   private void writeBlock() throws IOException {
-    if (blockCount > 0) {
+    if (blockCount > 0 && compressionExecutor != null) {
+      compressBlock();
+    } else if (blockCount > 0) {
       try {
         bufOut.flush();
         ByteBuffer uncompressed = buffer.getByteArrayAsByteBuffer();
         DataBlock block = new DataBlock(uncompressed, blockCount);
         block.setFlushOnWrite(flushOnEveryBlock);
         block.compressUsing(codec);
-        block.writeBlockTo(vout, sync);
+        writeDataBlock(block);
       } finally {
         buffer.reset();
         blockCount = 0;
@@ -413,6 +547,115 @@ public class DataFileWriter<D> implements Closeable, Flushable {
     }
   }
 
+  /** Writes a block of entries and its sync marker, adding it to the index. */
+  private void writeDataBlock(DataBlock block) throws IOException {
+    if (blockIndex != null) {
+      blockIndex.add(out.tell() + vout.bytesBuffered(), block.getNumEntries());
+    }
+    block.writeBlockTo(vout, sync);
+  }
+
+  /**
+   * Writes the block index and the tail pointing to it, see {@link BlockIndex}.
+   */
+  private void writeBlockIndex() throws IOException {
+    long position = out.tell() + vout.bytesBuffered();
+    DataBlock index = new DataBlock(blockIndex.toIndexBlock(), 0);
+    index.compressUsing(codec);
+    index.writeBlockTo(vout, sync);
+    DataBlock tail = new DataBlock(BlockIndex.toTailBlock(position), 0);
+    tail.compressUsing(codec);
+    tail.writeBlockTo(vout, sync);
+    vout.flush();
+  }
+
+  /**
+   * Hands the current block to the compression executor, and continues appending
+   * to another buffer. Writes the blocks that are compressed, waiting for the
+   * oldest one if too many are in flight.
+   */
+  private void compressBlock() throws IOException {
+    bufOut.flush();
+    DataBlock block = new DataBlock(buffer.getByteArrayAsByteBuffer(), blockCount);
+    block.setFlushOnWrite(flushOnEveryBlock);
+    Codec blockCodec = freeCodecs.isEmpty() ? codecFactory.createInstance() : freeCodecs.poll();
+    CompletableFuture<Void> compressed;
+    try {
+      compressed = CompletableFuture.runAsync(() -> {
+        try {
+          block.compressUsing(blockCodec);
+        } catch (IOException e) {
+          throw new CompletionException(e);
+        }
+      }, compressionExecutor);
+    } catch (RejectedExecutionException e) {
+      // the block is dropped, as one that fails to compress without an executor
+      freeCodecs.add(blockCodec);
+      buffer.reset();
+      blockCount = 0;
+      throw new IOException("Compression of a block rejected by the executor", e);
+    }
+    pendingBlocks.add(new PendingBlock(block, buffer, blockCodec, compressed));
+
+    buffer = freeBuffers.isEmpty() ? newBuffer() : freeBuffers.poll();
+    EncoderFactory efactory = EncoderFactory.get();
+    bufOut = blockedCollections ? efactory.blockingBinaryEncoder(buffer, bufOut)
+        : efactory.binaryEncoder(buffer, bufOut);
+    blockCount = 0;
+
+    while (!pendingBlocks.isEmpty() && pendingBlocks.peek().compressed.isDone()) {
+      writePendingBlock();
+    }
+    writePendingBlocks(maxInFlightBlocks - 1);
+  }
+
+  /**
+   * Writes the oldest compressed blocks until at most the given number remain.
+   */
+  private void writePendingBlocks(int remaining) throws IOException {
+    while (pendingBlocks.size() > remaining) {
+      writePendingBlock();
+    }
+  }
+
+  private void writePendingBlock() throws IOException {
+    PendingBlock pending = pendingBlocks.poll();
+    try {
+      pending.compressed.join();
+      writeDataBlock(pending.block);
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw e;
+    } finally {
+      pending.buffer.reset();
+      freeBuffers.add(pending.buffer);
+      freeCodecs.add(pending.codec);
+    }
+  }
+
+  /** A block handed to the compression executor, not yet written. */
+  private static class PendingBlock {
+    private final DataBlock block;
+    private final NonCopyingByteArrayOutputStream buffer;
+    private final Codec codec;
+    private final CompletableFuture<Void> compressed;
+
+    PendingBlock(DataBlock block, NonCopyingByteArrayOutputStream buffer, Codec codec,
+        CompletableFuture<Void> compressed) {
+      this.block = block;
+      this.buffer = buffer;
+      this.codec = codec;
+      this.compressed = compressed;
+    }
+  }
+
   /**
    * Return the current position as a value that may be passed to
    * {@link DataFileReader#seek(long)}. Forces the end of the current block,
@@ -426,6 +669,7 @@ public class DataFileWriter<D> implements Closeable, Flushable {
   public long sync() throws IOException {
     assertOpen();
     writeBlock();
+    writePendingBlocks(0);
     return out.tell();
   }
 
@@ -458,6 +702,9 @@ public class DataFileWriter<D> implements Closeable, Flushable {
   public void close() throws IOException {
     if (isOpen) {
       flush();
+      if (blockIndex != null) {
+        writeBlockIndex();
+      }
       out.close();
       isOpen = false;
     }
@@ -78,7 +78,7 @@ public class DeflateCodec extends Codec {
   public ByteBuffer decompress(ByteBuffer data) throws IOException {
     ByteArrayOutputStream baos = getOutputBuffer(data.remaining());
     try (OutputStream outputStream = new InflaterOutputStream(baos, getInflater())) {
-      outputStream.write(data.array(), computeOffset(data), data.remaining());
+      writeTo(data, outputStream);
     }
     return ByteBuffer.wrap(baos.toByteArray());
   }
@@ -110,6 +110,11 @@ public class DeflateCodec extends Codec {
     return outputBuffer;
   }
 
+  @Override
+  boolean decompressesDirectBuffers() {
+    return true;
+  }
+
   @Override
   public int hashCode() {
     return nowrap ? 0 : 1;
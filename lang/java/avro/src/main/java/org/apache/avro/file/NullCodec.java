@@ -57,6 +57,11 @@ final class NullCodec extends Codec {
     return (other != null && other.getClass() == getClass());
   }
 
+  @Override
+  boolean decompressesDirectBuffers() {
+    return true;
+  }
+
   @Override
   public int hashCode() {
     return 2;
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A {@link SeekableInput} that maps a file into memory. Files are mapped in
+ * chunks of at most 1 GiB, so that files larger than 2 GiB may be read.
+ * <p/>
+ * {@link DataFileReader} takes the blocks of a mapped file as slices of the
+ * mapping, instead of reading each into a heap array of its size. Those of
+ * files written without a codec are decoded from the slice, through the small
+ * buffer that the decoder refills from it, as from a stream; this is not
+ * zero-copy, as every byte is still copied once, but no block-sized array is
+ * allocated or filled. Those of compressed files are decompressed from the
+ * slice. Blocks that span two chunks, and those compressed by codecs that only
+ * read from the heap, are read into a heap array as from any other input.
+ * <p/>
+ * The mapping is released when it is garbage collected, not when this input is
+ * closed. The file must not be truncated while it is mapped.
+ */
+public class SeekableMappedFileInput implements SeekableInput {
+  static final int CHUNK_SIZE = 1 << 30;
+
+  private final FileChannel channel;
+  private final MappedByteBuffer[] chunks;
+  private final int chunkSize;
+  private final long length;
+  private long position;
+
+  /** Maps a file into memory. */
+  public SeekableMappedFileInput(File file) throws IOException {
+    this(FileChannel.open(file.toPath(), StandardOpenOption.READ));
+  }
+
+  /**
+   * Maps the content of a channel into memory. The channel is closed with this
+   * input.
+   */
+  public SeekableMappedFileInput(FileChannel channel) throws IOException {
+    this(channel, CHUNK_SIZE);
+  }
+
+  SeekableMappedFileInput(FileChannel channel, int chunkSize) throws IOException {
+    this.channel = channel;
+    this.chunkSize = chunkSize;
+    try {
+      this.length = channel.size();
+      this.chunks = new MappedByteBuffer[(int) ((length + chunkSize - 1) / chunkSize)];
+      for (int i = 0; i < chunks.length; i++) {
+        long start = (long) i * chunkSize;
+        chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(chunkSize, length - start));
+      }
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  @Override
+  public void seek(long p) throws IOException {
+    if (p < 0 || p > length) {
+      throw new IOException("Illegal seek: " + p);
+    }
+    position = p;
+  }
+
+  @Override
+  public long tell() throws IOException {
+    return position;
+  }
+
+  @Override
+  public long length() throws IOException {
+    return length;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (position >= length) {
+      return len == 0 ? 0 : -1;
+    }
+    len = (int) Math.min(len, length - position);
+    for (int done = 0; done < len;) {
+      ByteBuffer chunk = chunks[(int) (position / chunkSize)].duplicate();
+      ((Buffer) chunk).position((int) (position % chunkSize));
+      int n = Math.min(len - done, chunk.remaining());
+      chunk.get(b, off + done, n);
+      done += n;
+      position += n;
+    }
+    return len;
+  }
+
+  /**
+   * Returns a read-only buffer of the given bytes of the mapping, or null if they
+   * span two chunks. The position of this input is unchanged.
+   */
+  ByteBuffer slice(long start, int size) {
+    int chunk = (int) (start / chunkSize);
+    int offset = (int) (start % chunkSize);
+    if (chunk >= chunks.length || size > chunks[chunk].capacity() - offset) {
+      return null;
+    }
+    ByteBuffer slice = chunks[chunk].asReadOnlyBuffer();
+    ((Buffer) slice).position(offset);
+    ((Buffer) slice).limit(offset + size);
+    return slice.slice();
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
@@ -17,7 +17,6 @@
  */
 package org.apache.avro.file;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -69,7 +68,7 @@ public class XZCodec extends Codec {
   @Override
   public ByteBuffer decompress(ByteBuffer data) throws IOException {
     ByteArrayOutputStream baos = getOutputBuffer(data.remaining());
-    InputStream bytesIn = new ByteArrayInputStream(data.array(), computeOffset(data), data.remaining());
+    InputStream bytesIn = inputStream(data);
 
     try (InputStream ios = new XZCompressorInputStream(bytesIn)) {
       IOUtils.copy(ios, baos);
@@ -86,6 +85,11 @@ public class XZCodec extends Codec {
     return outputBuffer;
   }
 
+  @Override
+  boolean decompressesDirectBuffers() {
+    return true;
+  }
+
   @Override
   public int hashCode() {
     return compressionLevel;
@@ -17,7 +17,6 @@
  */
 package org.apache.avro.file;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -73,8 +72,7 @@ public class ZstandardCodec extends Codec {
   @Override
   public ByteBuffer decompress(ByteBuffer compressedData) throws IOException {
     ByteArrayOutputStream baos = getOutputBuffer(compressedData.remaining());
-    InputStream bytesIn = new ByteArrayInputStream(compressedData.array(), computeOffset(compressedData),
-        compressedData.remaining());
+    InputStream bytesIn = inputStream(compressedData);
     try (InputStream ios = ZstandardLoader.input(bytesIn)) {
       IOUtils.copy(ios, baos);
     }
@@ -90,6 +88,11 @@ public class ZstandardCodec extends Codec {
     return outputBuffer;
   }
 
+  @Override
+  boolean decompressesDirectBuffers() {
+    return true;
+  }
+
   @Override
   public int hashCode() {
     return getName().hashCode();
@@ -53,6 +53,7 @@ import org.apache.avro.io.DatumWriter;
 import org.apache.avro.io.DecoderFactory;
 import org.apache.avro.io.EncoderFactory;
 import org.apache.avro.io.FastReaderBuilder;
+import org.apache.avro.io.FastWriterBuilder;
 import org.apache.avro.util.Utf8;
 import org.apache.avro.util.internal.Accessor;
 
@@ -132,6 +133,8 @@ public class GenericData {
       conversionsByClass.put(type, conversions);
     }
     conversions.put(conversion.getLogicalTypeName(), conversion);
+    // conversions take part in resolving unions
+    this.unionBranches = newUnionBranches();
   }
 
   /**
@@ -199,6 +202,26 @@ public class GenericData {
     return this.fastReaderBuilder;
   }
 
+  public static final String FAST_WRITER_PROP = "org.apache.avro.fastwrite";
+  private boolean fastWriterEnabled = "true".equalsIgnoreCase(System.getProperty(FAST_WRITER_PROP));
+  private FastWriterBuilder fastWriterBuilder = null;
+
+  public GenericData setFastWriterEnabled(boolean flag) {
+    this.fastWriterEnabled = flag;
+    return this;
+  }
+
+  public boolean isFastWriterEnabled() {
+    return fastWriterEnabled && FastWriterBuilder.isSupportedData(this);
+  }
+
+  public FastWriterBuilder getFastWriterBuilder() {
+    if (fastWriterBuilder == null) {
+      fastWriterBuilder = new FastWriterBuilder(this);
+    }
+    return this.fastWriterBuilder;
+  }
+
   /**
    * Default implementation of {@link GenericRecord}. Note that this
    * implementation does not fill in default values for fields if they are not
@@ -291,30 +314,20 @@ public class GenericData {
     }
   }
 
-  /** Default implementation of an array. */
-  @SuppressWarnings(value = "unchecked")
-  public static class Array<T> extends AbstractList<T> implements GenericArray<T>, Comparable<GenericArray<T>> {
-    private static final Object[] EMPTY = new Object[0];
+  /**
+   * Base class of the {@link GenericArray} implementations, which keep their
+   * elements in an array that grows as needed and is kept across {@link #reset()}
+   * for reuse.
+   */
+  public static abstract class AbstractArray<T> extends AbstractList<T>
+      implements GenericArray<T>, Comparable<GenericArray<T>> {
     private final Schema schema;
-    private int size;
-    private Object[] elements = EMPTY;
+    protected int size = 0;
 
-    public Array(int capacity, Schema schema) {
+    public AbstractArray(Schema schema) {
       if (schema == null || !Type.ARRAY.equals(schema.getType()))
         throw new AvroRuntimeException("Not an array schema: " + schema);
       this.schema = schema;
-      if (capacity != 0)
-        elements = new Object[capacity];
-    }
-
-    public Array(Schema schema, Collection<T> c) {
-      if (schema == null || !Type.ARRAY.equals(schema.getType()))
-        throw new AvroRuntimeException("Not an array schema: " + schema);
-      this.schema = schema;
-      if (c != null) {
-        elements = new Object[c.size()];
-        addAll(c);
-      }
     }
 
     @Override
@@ -328,14 +341,86 @@ public class GenericData {
     }
 
     @Override
-    public void clear() {
-      // Let GC do its work
-      Arrays.fill(elements, 0, size, null);
+    public void reset() {
       size = 0;
     }
 
     @Override
-    public void reset() {
+    public Iterator<T> iterator() {
+      return new Iterator<T>() {
+        private int position = 0;
+
+        @Override
+        public boolean hasNext() {
+          return position < size;
+        }
+
+        @Override
+        public T next() {
+          return get(position++);
+        }
+
+        @Override
+        public void remove() {
+          throw new UnsupportedOperationException();
+        }
+      };
+    }
+
+    @Override
+    public int compareTo(GenericArray<T> that) {
+      return GenericData.get().compare(this, that, this.getSchema());
+    }
+
+    @Override
+    public void reverse() {
+      int left = 0;
+      int right = size - 1;
+
+      while (left < right) {
+        this.swap(left, right);
+
+        left++;
+        right--;
+      }
+    }
+
+    /** Swaps the elements at the two positions. */
+    protected abstract void swap(int index1, int index2);
+
+    /**
+     * Computes the capacity to grow to when an element is added to a full array:
+     * 1.5x + 1, or more if a larger minimum is asked for.
+     */
+    protected static int newCapacity(int capacity, int minimum) {
+      return Math.max(capacity + (capacity >> 1) + 1, minimum);
+    }
+  }
+
+  /** Default implementation of an array. */
+  @SuppressWarnings(value = "unchecked")
+  public static class Array<T> extends AbstractArray<T> {
+    private static final Object[] EMPTY = new Object[0];
+    private Object[] elements = EMPTY;
+
+    public Array(int capacity, Schema schema) {
+      super(schema);
+      if (capacity != 0)
+        elements = new Object[capacity];
+    }
+
+    public Array(Schema schema, Collection<T> c) {
+      super(schema);
+      if (c != null) {
+        elements = new Object[c.size()];
+        addAll(c);
+      }
+    }
+
+    @Override
+    public void clear() {
+      // Let GC do its work
+      Arrays.fill(elements, 0, size, null);
       size = 0;
     }
 
@@ -381,9 +466,7 @@ public class GenericData {
         throw new IndexOutOfBoundsException("Index " + location + " out of bounds.");
       }
       if (size == elements.length) {
-        // Increase size by 1.5x + 1
-        final int newSize = size + (size >> 1) + 1;
-        elements = Arrays.copyOf(elements, newSize);
+        elements = Arrays.copyOf(elements, newCapacity(size, 0));
       }
       System.arraycopy(elements, location, elements, location + 1, size - location);
       elements[location] = o;
@@ -416,23 +499,10 @@ public class GenericData {
     }
 
     @Override
-    public int compareTo(GenericArray<T> that) {
-      return GenericData.get().compare(this, that, this.getSchema());
-    }
-
-    @Override
-    public void reverse() {
-      int left = 0;
-      int right = elements.length - 1;
-
-      while (left < right) {
-        Object tmp = elements[left];
-        elements[left] = elements[right];
-        elements[right] = tmp;
-
-        left++;
-        right--;
-      }
+    protected void swap(int index1, int index2) {
+      Object tmp = elements[index1];
+      elements[index1] = elements[index2];
+      elements[index2] = tmp;
     }
   }
 
@@ -851,6 +921,19 @@ public class GenericData {
    * {@link Schema#getIndexNamed(String)} and {@link #getSchemaName(Object)}.
    */
   public int resolveUnion(Schema union, Object datum) {
+    UnionBranches branches = datum == null ? null : unionBranches.get(datum.getClass());
+    if (branches == null) {
+      return resolveUnionBranch(union, datum);
+    }
+    int index = branches.get(union);
+    if (index < 0) {
+      index = resolveUnionBranch(union, datum);
+      branches.put(union, index);
+    }
+    return index;
+  }
+
+  private int resolveUnionBranch(Schema union, Object datum) {
     // if there is a logical type that works, use it first
     // this allows logical type concrete classes to overlap with supported ones
     // for example, a conversion could return a map
@@ -877,6 +960,79 @@ public class GenericData {
     throw new UnresolvedUnionException(union, datum);
   }
 
+  /**
+   * Called by {@link #resolveUnion(Schema,Object)} to decide whether the branch
+   * found for a datum may be reused for any other instance of its class. By
+   * default, this is the case for the classes of strings, bytes, numbers,
+   * booleans, arrays and maps, but not for records, enums and fixed values, which
+   * carry their own schema. Must be overridden by subclasses that resolve
+   * instances of the same class to different branches. Only called when
+   * {@link #cachesUnionBranches()} is true.
+   */
+  protected boolean isUnionBranchCacheable(Class<?> c) {
+    if (IndexedRecord.class.isAssignableFrom(c) || GenericEnumSymbol.class.isAssignableFrom(c)
+        || GenericFixed.class.isAssignableFrom(c))
+      return false;
+    return CharSequence.class.isAssignableFrom(c) || ByteBuffer.class.isAssignableFrom(c)
+        || Collection.class.isAssignableFrom(c) || Map.class.isAssignableFrom(c) || c == Integer.class
+        || c == Long.class || c == Float.class || c == Double.class || c == Boolean.class;
+  }
+
+  /**
+   * Whether {@link #resolveUnion(Schema,Object)} may cache the branches it finds,
+   * as decided per class by {@link #isUnionBranchCacheable(Class)}. A subclass
+   * may resolve unions in ways the cache does not know of, e.g. by overriding
+   * {@link #getSchemaName(Object)}, so this is true only for this class itself.
+   * Subclasses whose unions resolve by the class of the datum may override this
+   * to return true.
+   */
+  protected boolean cachesUnionBranches() {
+    return getClass() == GenericData.class;
+  }
+
+  // the branches resolved by the class of the datum, for the classes whose
+  // branch may be cached; replaced when a conversion is added
+  private volatile ClassValue<UnionBranches> unionBranches = newUnionBranches();
+
+  private ClassValue<UnionBranches> newUnionBranches() {
+    return new ClassValue<UnionBranches>() {
+      @Override
+      protected UnionBranches computeValue(Class<?> type) {
+        return cachesUnionBranches() && isUnionBranchCacheable(type) ? new UnionBranches() : null;
+      }
+    };
+  }
+
+  /**
+   * The branches resolved for the instances of a class, by union schema. This is
+   * a small direct-mapped cache where a union replaces any other found in its
+   * slot, so that it does not grow with the number of schemas. Entries are
+   * immutable, which makes races between threads harmless.
+   */
+  private static final class UnionBranches {
+    private static final int SIZE = 16;
+    private final UnionBranch[] entries = new UnionBranch[SIZE];
+
+    int get(Schema union) {
+      UnionBranch entry = entries[System.identityHashCode(union) & (SIZE - 1)];
+      return entry != null && entry.union == union ? entry.index : -1;
+    }
+
+    void put(Schema union, int index) {
+      entries[System.identityHashCode(union) & (SIZE - 1)] = new UnionBranch(union, index);
+    }
+  }
+
+  private static final class UnionBranch {
+    final Schema union;
+    final int index;
+
+    UnionBranch(Schema union, int index) {
+      this.union = union;
+      this.index = index;
+    }
+  }
+
   /**
    * Return the schema full name for a datum. Called by
    * {@link #resolveUnion(Schema,Object)}.
@@ -1363,18 +1519,41 @@ public class GenericData {
 
   /*
    * Called to create new array instances. Subclasses may override to use a
-   * different array implementation. By default, this returns a {@link
-   * GenericData.Array}.
+   * different array implementation. By default, this returns one of the {@link
+   * PrimitivesArrays} for arrays of ints, longs, floats, doubles and booleans
+   * without a logical type conversion, and a {@link GenericData.Array} otherwise.
    */
   public Object newArray(Object old, int size, Schema schema) {
+    if (old instanceof PrimitivesArrays.PrimitiveArray
+        && (((GenericArray<?>) old).getSchema().getElementType().getType() != schema.getElementType().getType()
+            || getConversionFor(schema.getElementType().getLogicalType()) != null)) {
+      old = null; // cannot hold the elements of this schema
+    }
     if (old instanceof GenericArray) {
       ((GenericArray<?>) old).reset();
       return old;
     } else if (old instanceof Collection) {
       ((Collection<?>) old).clear();
       return old;
-    } else
-      return new GenericData.Array<Object>(size, schema);
+    }
+    Schema elementType = schema.getElementType();
+    if (getConversionFor(elementType.getLogicalType()) == null) {
+      switch (elementType.getType()) {
+      case INT:
+        return new PrimitivesArrays.IntArray(size, schema);
+      case LONG:
+        return new PrimitivesArrays.LongArray(size, schema);
+      case FLOAT:
+        return new PrimitivesArrays.FloatArray(size, schema);
+      case DOUBLE:
+        return new PrimitivesArrays.DoubleArray(size, schema);
+      case BOOLEAN:
+        return new PrimitivesArrays.BooleanArray(size, schema);
+      default:
+        break;
+      }
+    }
+    return new GenericData.Array<Object>(size, schema);
   }
 
   /**
@@ -32,9 +32,11 @@ import org.apache.avro.Conversions;
 import org.apache.avro.LogicalType;
 import org.apache.avro.Schema;
 import org.apache.avro.Schema.Field;
+import org.apache.avro.io.BinaryData;
 import org.apache.avro.io.DatumReader;
 import org.apache.avro.io.Decoder;
-import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.FastReaderBuilder;
+import org.apache.avro.io.ResolverCache;
 import org.apache.avro.io.ResolvingDecoder;
 import org.apache.avro.util.Utf8;
 import org.apache.avro.util.WeakIdentityHashMap;
@@ -45,6 +47,7 @@ public class GenericDatumReader<D> implements DatumReader<D> {
   private Schema actual;
   private Schema expected;
   private DatumReader<D> fastDatumReader = null;
+  private RecordArena arena = null;
 
   private ResolvingDecoder creatorResolver = null;
   private final Thread creator;
@@ -105,13 +108,29 @@ public class GenericDatumReader<D> implements DatumReader<D> {
     creatorResolver = null;
   }
 
+  /**
+   * Sets the arena that recycles the values this reader no longer needs, or null
+   * for none, see {@link RecordArena}, which also describes the lifetime of the
+   * data read.
+   */
+  public void setArena(RecordArena arena) {
+    this.arena = arena;
+    this.fastDatumReader = null;
+  }
+
+  /** Returns the arena set with {@link #setArena(RecordArena)}, if any. */
+  public RecordArena getArena() {
+    return arena;
+  }
+
   private static final ThreadLocal<Map<Schema, Map<Schema, ResolvingDecoder>>> RESOLVER_CACHE = ThreadLocal
       .withInitial(WeakIdentityHashMap::new);
 
   /**
    * Gets a resolving decoder for use by this GenericDatumReader. Unstable API.
    * Currently uses a thread local cache to prevent constructing the resolvers too
-   * often, because that is very expensive.
+   * often, because that is very expensive, backed by the {@link ResolverCache}
+   * shared by all threads.
    */
   protected final ResolvingDecoder getResolver(Schema actual, Schema expected) throws IOException {
     Thread currThread = Thread.currentThread();
@@ -127,7 +146,7 @@ public class GenericDatumReader<D> implements DatumReader<D> {
     }
     resolver = cache.get(expected);
     if (resolver == null) {
-      resolver = DecoderFactory.get().resolvingDecoder(Schema.applyAliases(actual, expected), expected, null);
+      resolver = ResolverCache.get().resolvingDecoder(actual, expected, null);
       cache.put(expected, resolver);
     }
 
@@ -143,7 +162,11 @@ public class GenericDatumReader<D> implements DatumReader<D> {
   public D read(D reuse, Decoder in) throws IOException {
     if (data.isFastReaderEnabled()) {
       if (this.fastDatumReader == null) {
-        this.fastDatumReader = data.getFastReaderBuilder().createDatumReader(actual, expected);
+        FastReaderBuilder builder = data.getFastReaderBuilder();
+        if (arena != null) {
+          builder = builder.forArena(arena);
+        }
+        this.fastDatumReader = builder.createDatumReader(actual, expected);
       }
       return fastDatumReader.read(reuse, in);
     }
@@ -174,6 +197,23 @@ public class GenericDatumReader<D> implements DatumReader<D> {
   }
 
   protected Object readWithoutConversion(Object old, Schema expected, ResolvingDecoder in) throws IOException {
+    if (arena == null || expected.getType() == Schema.Type.UNION) {
+      return readValue(old, expected, in);
+    }
+    // the value in old's place is either reused or given to the arena
+    Object reuse = old;
+    if (!RecordArena.fits(old, expected)) {
+      arena.release(old);
+      reuse = arena.take(expected);
+    }
+    Object datum = readValue(reuse, expected, in);
+    if (reuse != null && datum != reuse) {
+      arena.release(reuse);
+    }
+    return datum;
+  }
+
+  private Object readValue(Object old, Schema expected, ResolvingDecoder in) throws IOException {
     switch (expected.getType()) {
     case RECORD:
       return readRecord(old, expected, in);
@@ -293,6 +333,10 @@ public class GenericDatumReader<D> implements DatumReader<D> {
             addToArray(array, base + i,
                 readWithConversion(peekArray(array), expectedType, logicalType, conversion, in));
           }
+        } else if (isPrimitiveArrayOf(array, expectedType)) {
+          ((PrimitivesArrays.PrimitiveArray<?>) array).readItems(in, l);
+        } else if (isBulkType(expectedType.getType())) {
+          readBulkItems(array, base, l, expectedType.getType(), in);
         } else {
           for (long i = 0; i < l; i++) {
             addToArray(array, base + i, readWithoutConversion(peekArray(array), expectedType, in));
@@ -306,8 +350,69 @@ public class GenericDatumReader<D> implements DatumReader<D> {
     }
   }
 
+  private boolean isPrimitiveArrayOf(Object array, Schema expectedType) {
+    return array instanceof PrimitivesArrays.PrimitiveArray
+        && ((GenericArray<?>) array).getSchema().getElementType().getType() == expectedType.getType()
+        && readsPrimitiveArraysDirectly();
+  }
+
+  /**
+   * Whether primitive arrays may be filled directly by the decoder, without
+   * calling {@link #readWithoutConversion}, {@link #readInt} or
+   * {@link #addToArray} for each item. True only for this class itself, so that
+   * subclasses overriding these hooks keep seeing every item. Subclasses that do
+   * not need the hooks called for primitive arrays may override this to return
+   * true.
+   */
+  protected boolean readsPrimitiveArraysDirectly() {
+    return getClass() == GenericDatumReader.class;
+  }
+
+  // ints are left out as they go through the readInt hook
+  private static boolean isBulkType(Schema.Type type) {
+    return type == Schema.Type.LONG || type == Schema.Type.FLOAT || type == Schema.Type.DOUBLE;
+  }
+
+  private static final int BULK_CHUNK_SIZE = 512;
+
+  /**
+   * Reads a block of <tt>l</tt> items of an array of longs, floats or doubles
+   * with the decoder's bulk methods, and adds them with {@link #addToArray}.
+   */
+  private void readBulkItems(Object array, long base, long l, Schema.Type type, ResolvingDecoder in)
+      throws IOException {
+    int chunk = (int) Math.min(l, BULK_CHUNK_SIZE);
+    long[] longs = type == Schema.Type.LONG ? new long[chunk] : null;
+    float[] floats = type == Schema.Type.FLOAT ? new float[chunk] : null;
+    double[] doubles = type == Schema.Type.DOUBLE ? new double[chunk] : null;
+    for (long i = 0; i < l;) {
+      int n = (int) Math.min(chunk, l - i);
+      switch (type) {
+      case LONG:
+        in.readLongs(longs, 0, n);
+        for (int j = 0; j < n; j++) {
+          addToArray(array, base + i + j, longs[j]);
+        }
+        break;
+      case FLOAT:
+        in.readFloats(floats, 0, n);
+        for (int j = 0; j < n; j++) {
+          addToArray(array, base + i + j, floats[j]);
+        }
+        break;
+      default:
+        in.readDoubles(doubles, 0, n);
+        for (int j = 0; j < n; j++) {
+          addToArray(array, base + i + j, doubles[j]);
+        }
+      }
+      i += n;
+    }
+  }
+
   private Object pruneArray(Object object) {
-    if (object instanceof GenericArray<?>) {
+    // with an arena, arrays keep their spare elements for later reads
+    if (object instanceof GenericArray<?> && arena == null) {
       ((GenericArray<?>) object).prune();
     }
     return object;
@@ -341,17 +446,20 @@ public class GenericDatumReader<D> implements DatumReader<D> {
     long l = in.readMapStart();
     LogicalType logicalType = eValue.getLogicalType();
     Conversion<?> conversion = getData().getConversionFor(logicalType);
+    if (arena != null && old instanceof Map) {
+      arena.releaseEntries((Map<?, ?>) old);
+    }
     Object map = newMap(old, (int) l);
     if (l > 0) {
       do {
         if (logicalType != null && conversion != null) {
           for (int i = 0; i < l; i++) {
-            addToMap(map, readMapKey(null, expected, in),
+            addToMap(map, readRecycledMapKey(expected, in),
                 readWithConversion(null, eValue, logicalType, conversion, in));
           }
         } else {
           for (int i = 0; i < l; i++) {
-            addToMap(map, readMapKey(null, expected, in), readWithoutConversion(null, eValue, in));
+            addToMap(map, readRecycledMapKey(expected, in), readWithoutConversion(null, eValue, in));
           }
         }
       } while ((l = in.mapNext()) > 0);
@@ -359,6 +467,18 @@ public class GenericDatumReader<D> implements DatumReader<D> {
     return map;
   }
 
+  private Object readRecycledMapKey(Schema expected, Decoder in) throws IOException {
+    if (arena == null) {
+      return readMapKey(null, expected, in);
+    }
+    Object reuse = arena.takeString();
+    Object key = readMapKey(reuse, expected, in);
+    if (reuse != null && key != reuse) {
+      arena.release(reuse);
+    }
+    return key;
+  }
+
   /**
    * Called by the default implementation of {@link #readMap} to read a key value.
    * The default implementation returns delegates to
@@ -560,66 +680,13 @@ public class GenericDatumReader<D> implements DatumReader<D> {
     return ByteBuffer.wrap(value);
   }
 
-  /** Skip an instance of a schema. */
+  /**
+   * Skip an instance of a schema.
+   *
+   * @see BinaryData#skip(Schema, Decoder)
+   */
   public static void skip(Schema schema, Decoder in) throws IOException {
-    switch (schema.getType()) {
-    case RECORD:
-      for (Field field : schema.getFields())
-        skip(field.schema(), in);
-      break;
-    case ENUM:
-      in.readEnum();
-      break;
-    case ARRAY:
-      Schema elementType = schema.getElementType();
-      for (long l = in.skipArray(); l > 0; l = in.skipArray()) {
-        for (long i = 0; i < l; i++) {
-          skip(elementType, in);
-        }
-      }
-      break;
-    case MAP:
-      Schema value = schema.getValueType();
-      for (long l = in.skipMap(); l > 0; l = in.skipMap()) {
-        for (long i = 0; i < l; i++) {
-          in.skipString();
-          skip(value, in);
-        }
-      }
-      break;
-    case UNION:
-      skip(schema.getTypes().get(in.readIndex()), in);
-      break;
-    case FIXED:
-      in.skipFixed(schema.getFixedSize());
-      break;
-    case STRING:
-      in.skipString();
-      break;
-    case BYTES:
-      in.skipBytes();
-      break;
-    case INT:
-      in.readInt();
-      break;
-    case LONG:
-      in.readLong();
-      break;
-    case FLOAT:
-      in.readFloat();
-      break;
-    case DOUBLE:
-      in.readDouble();
-      break;
-    case BOOLEAN:
-      in.readBoolean();
-      break;
-    case NULL:
-      in.readNull();
-      break;
-    default:
-      throw new RuntimeException("Unknown type: " + schema);
-    }
+    BinaryData.skip(schema, in);
   }
 
 }
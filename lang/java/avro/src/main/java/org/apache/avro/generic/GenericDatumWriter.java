@@ -33,13 +33,18 @@ import org.apache.avro.LogicalType;
 import org.apache.avro.Schema;
 import org.apache.avro.Schema.Field;
 import org.apache.avro.UnresolvedUnionException;
+import org.apache.avro.io.BinaryEncoder;
 import org.apache.avro.io.DatumWriter;
 import org.apache.avro.io.Encoder;
+import org.apache.avro.io.FastWriterBuilder;
 
 /** {@link DatumWriter} for generic Java objects. */
 public class GenericDatumWriter<D> implements DatumWriter<D> {
   private final GenericData data;
   private Schema root;
+  private DatumWriter<D> fastDatumWriter = null;
+  // the last pair of distinct but equal schemas, written and of a lazy record
+  private volatile Schema[] equalLazySchemas;
 
   public GenericDatumWriter() {
     this(GenericData.get());
@@ -66,10 +71,18 @@ public class GenericDatumWriter<D> implements DatumWriter<D> {
 
   public void setSchema(Schema root) {
     this.root = root;
+    this.fastDatumWriter = null;
   }
 
   public void write(D datum, Encoder out) throws IOException {
     Objects.requireNonNull(out, "Encoder cannot be null");
+    if (data.isFastWriterEnabled() && FastWriterBuilder.isSupportedWriter(this)) {
+      if (this.fastDatumWriter == null) {
+        this.fastDatumWriter = data.getFastWriterBuilder().createDatumWriter(root);
+      }
+      fastDatumWriter.write(datum, out);
+      return;
+    }
     write(root, datum, out);
   }
 
@@ -205,12 +218,36 @@ public class GenericDatumWriter<D> implements DatumWriter<D> {
    * representations.
    */
   protected void writeRecord(Schema schema, Object datum, Encoder out) throws IOException {
+    if (datum instanceof LazyGenericRecord && out instanceof BinaryEncoder) {
+      // an unchanged lazy record is written by copying its encoding
+      LazyGenericRecord lazy = (LazyGenericRecord) datum;
+      ByteBuffer encoded = lazy.getEncoded();
+      if (encoded != null && isLazySchema(schema, lazy.getSchema())) {
+        out.writeFixed(encoded);
+        return;
+      }
+    }
     Object state = data.getRecordState(datum, schema);
     for (Field f : schema.getFields()) {
       writeField(datum, f, out, state);
     }
   }
 
+  private boolean isLazySchema(Schema schema, Schema lazySchema) {
+    if (schema == lazySchema) {
+      return true;
+    }
+    Schema[] equal = equalLazySchemas;
+    if (equal != null && equal[0] == schema && equal[1] == lazySchema) {
+      return true;
+    }
+    if (schema.equals(lazySchema)) {
+      equalLazySchemas = new Schema[] { schema, lazySchema };
+      return true;
+    }
+    return false;
+  }
+
   /**
    * Called to write a single field of a record. May be overridden for more
    * efficient or alternate implementations.
@@ -252,10 +289,19 @@ public class GenericDatumWriter<D> implements DatumWriter<D> {
     long actualSize = 0;
     out.writeArrayStart();
     out.setItemCount(size);
-    for (Iterator<? extends Object> it = getArrayElements(datum); it.hasNext();) {
-      out.startItem();
-      write(element, it.next(), out);
-      actualSize++;
+    if (isPrimitiveArrayOf(datum, element)) {
+      PrimitivesArrays.PrimitiveArray<?> array = (PrimitivesArrays.PrimitiveArray<?>) datum;
+      array.writeItems(out);
+      actualSize = array.size();
+    } else if (isBulkType(element)) {
+      actualSize = writeBulkItems(element, getArrayElements(datum), size, out);
+    } else {
+      Iterator<? extends Object> it = getArrayElements(datum);
+      while (it.hasNext()) {
+        out.startItem();
+        write(element, it.next(), out);
+        actualSize++;
+      }
     }
     out.writeArrayEnd();
     if (actualSize != size) {
@@ -264,6 +310,85 @@ public class GenericDatumWriter<D> implements DatumWriter<D> {
     }
   }
 
+  private static boolean isPrimitiveArrayOf(Object datum, Schema element) {
+    return datum instanceof PrimitivesArrays.PrimitiveArray && element.getLogicalType() == null
+        && ((GenericArray<?>) datum).getSchema().getElementType().getType() == element.getType()
+        && !((PrimitivesArrays.PrimitiveArray<?>) datum).hasNulls(); // nulls fail with their position below
+  }
+
+  private static boolean isBulkType(Schema element) {
+    switch (element.getType()) {
+    case INT:
+    case LONG:
+    case FLOAT:
+    case DOUBLE:
+      return element.getLogicalType() == null;
+    default:
+      return false;
+    }
+  }
+
+  private static final int BULK_CHUNK_SIZE = 512;
+
+  /**
+   * Writes the items of an array of ints, longs, floats or doubles in chunks with
+   * the encoder's bulk methods. Items that are not of the matching boxed type are
+   * handed to {@link #write(Schema, Object, Encoder)} one at a time. Returns the
+   * number of items written.
+   */
+  private long writeBulkItems(Schema element, Iterator<? extends Object> it, long size, Encoder out)
+      throws IOException {
+    Schema.Type type = element.getType();
+    int chunk = (int) Math.max(1, Math.min(size, BULK_CHUNK_SIZE));
+    int[] ints = type == Schema.Type.INT ? new int[chunk] : null;
+    long[] longs = type == Schema.Type.LONG ? new long[chunk] : null;
+    float[] floats = type == Schema.Type.FLOAT ? new float[chunk] : null;
+    double[] doubles = type == Schema.Type.DOUBLE ? new double[chunk] : null;
+    long count = 0;
+    int n = 0;
+    while (it.hasNext()) {
+      Object item = it.next();
+      count++;
+      if (type == Schema.Type.INT && item instanceof Integer) {
+        ints[n++] = (Integer) item;
+      } else if (type == Schema.Type.LONG && item instanceof Long) {
+        longs[n++] = (Long) item;
+      } else if (type == Schema.Type.FLOAT && item instanceof Float) {
+        floats[n++] = (Float) item;
+      } else if (type == Schema.Type.DOUBLE && item instanceof Double) {
+        doubles[n++] = (Double) item;
+      } else {
+        n = flushBulkItems(type, ints, longs, floats, doubles, n, out);
+        out.startItem();
+        write(element, item, out);
+        continue;
+      }
+      if (n == chunk) {
+        n = flushBulkItems(type, ints, longs, floats, doubles, n, out);
+      }
+    }
+    flushBulkItems(type, ints, longs, floats, doubles, n, out);
+    return count;
+  }
+
+  private static int flushBulkItems(Schema.Type type, int[] ints, long[] longs, float[] floats, double[] doubles, int n,
+      Encoder out) throws IOException {
+    switch (type) {
+    case INT:
+      out.writeInts(ints, 0, n);
+      break;
+    case LONG:
+      out.writeLongs(longs, 0, n);
+      break;
+    case FLOAT:
+      out.writeFloats(floats, 0, n);
+      break;
+    default:
+      out.writeDoubles(doubles, 0, n);
+    }
+    return 0;
+  }
+
   /**
    * Called to find the index for a datum within a union. By default calls
    * {@link GenericData#resolveUnion(Schema,Object)}.
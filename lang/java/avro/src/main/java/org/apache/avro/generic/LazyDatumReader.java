@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.generic;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.avro.Schema;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.Decoder;
+
+/**
+ * {@link DatumReader} for {@link LazyGenericRecord}s, which are read without
+ * decoding any field. Records are read with the schema they were written with;
+ * there is no schema resolution.
+ * <p/>
+ * The encoding of a record can only be captured when the decoder reads from a
+ * byte array, e.g. in {@link org.apache.avro.file.DataFileStream} or
+ * {@link org.apache.avro.message.RawMessageDecoder}; from other decoders, the
+ * record is decoded as a whole.
+ */
+public class LazyDatumReader implements DatumReader<LazyGenericRecord> {
+  private final GenericData data;
+  private LazyGenericRecord.Layout layout;
+
+  public LazyDatumReader() {
+    this(null, GenericData.get());
+  }
+
+  /** Construct for reading records of the given schema. */
+  public LazyDatumReader(Schema schema) {
+    this(schema, GenericData.get());
+  }
+
+  /**
+   * Construct for reading records of the given schema, with fields decoded using
+   * the given data model.
+   */
+  public LazyDatumReader(Schema schema, GenericData data) {
+    this.data = data;
+    if (schema != null) {
+      setSchema(schema);
+    }
+  }
+
+  @Override
+  public void setSchema(Schema schema) {
+    this.layout = new LazyGenericRecord.Layout(schema, data);
+  }
+
+  @Override
+  public LazyGenericRecord read(LazyGenericRecord reuse, Decoder in) throws IOException {
+    if (in instanceof BinaryDecoder) {
+      ByteBuffer encoded = ((BinaryDecoder) in).skipEncoded(layout.schema);
+      if (encoded != null) {
+        // the input may be reused once this returns
+        byte[] bytes = new byte[encoded.remaining()];
+        encoded.get(bytes);
+        return new LazyGenericRecord(layout, bytes);
+      }
+    }
+    return new LazyGenericRecord(layout, (IndexedRecord) layout.recordReader.read(null, in));
+  }
+}
@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.generic;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.Schema;
+import org.apache.avro.Schema.Field;
+import org.apache.avro.Schema.Type;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DecoderFactory;
+
+/**
+ * A {@link GenericRecord} backed by its binary encoding, which decodes each
+ * field only when it is first read.
+ * <p/>
+ * Fields are located by skipping the ones before them, and the offsets found
+ * are kept, so that reading a few fields of a wide record costs little more
+ * than skipping over it. As long as no field is {@link #put(int, Object) put},
+ * the record can be written back by copying its encoding, see
+ * {@link #getEncoded()}; {@link GenericDatumWriter} does so for binary
+ * encoders. Values changed in place, e.g. by adding to a list that was read
+ * from the record, are not tracked: put them back to have them written.
+ * <p/>
+ * Instances are usually created by a {@link LazyDatumReader}. They are not
+ * thread-safe.
+ */
+public class LazyGenericRecord implements GenericRecord, Comparable<LazyGenericRecord> {
+  private static final ThreadLocal<BinaryDecoder> DECODER = new ThreadLocal<>();
+
+  private final Layout layout;
+  private final byte[] encoded;
+  private final Object[] values;
+  private final boolean[] decoded;
+  // offsets[i] is the start of field i in encoded, for i <= located
+  private final int[] offsets;
+  private int located = 0;
+  private boolean modified = false;
+
+  /**
+   * Creates a record over the binary encoding of a record of the layout's schema.
+   * The array is not copied and must not be changed afterwards.
+   */
+  public LazyGenericRecord(Layout layout, byte[] encoded) {
+    this.layout = layout;
+    this.encoded = encoded;
+    int fields = layout.fieldSchemas.length;
+    this.values = new Object[fields];
+    this.decoded = new boolean[fields];
+    this.offsets = new int[fields];
+  }
+
+  /** Creates a record with the values of a record that was decoded as a whole. */
+  LazyGenericRecord(Layout layout, IndexedRecord record) {
+    this.layout = layout;
+    this.encoded = null;
+    int fields = layout.fieldSchemas.length;
+    this.values = new Object[fields];
+    this.decoded = new boolean[fields];
+    this.offsets = null;
+    for (int i = 0; i < fields; i++) {
+      values[i] = record.get(i);
+      decoded[i] = true;
+    }
+  }
+
+  @Override
+  public Schema getSchema() {
+    return layout.schema;
+  }
+
+  /**
+   * Returns the binary encoding of this record, or null if it was not read from
+   * one or if a field was put since. The returned buffer is read-only.
+   */
+  public ByteBuffer getEncoded() {
+    return encoded == null || modified ? null : ByteBuffer.wrap(encoded).asReadOnlyBuffer();
+  }
+
+  @Override
+  public void put(String key, Object value) {
+    put(field(key).pos(), value);
+  }
+
+  @Override
+  public void put(int i, Object v) {
+    values[i] = v;
+    decoded[i] = true;
+    modified = true;
+  }
+
+  @Override
+  public Object get(String key) {
+    return get(field(key).pos());
+  }
+
+  @Override
+  public Object get(int i) {
+    if (!decoded[i]) {
+      values[i] = decode(i);
+      decoded[i] = true;
+    }
+    return values[i];
+  }
+
+  private Field field(String key) {
+    Field field = layout.schema.getField(key);
+    if (field == null) {
+      throw new AvroRuntimeException("Not a valid schema field: " + key);
+    }
+    return field;
+  }
+
+  private Object decode(int i) {
+    try {
+      BinaryDecoder in;
+      if (located < i) {
+        // skip from the last field located, keeping the offsets of the ones passed
+        int offset = offsets[located];
+        in = decoder(offset);
+        while (located < i) {
+          offset += in.skipEncoded(layout.fieldSchemas[located]).remaining();
+          offsets[++located] = offset;
+        }
+      } else {
+        in = decoder(offsets[i]);
+      }
+      return layout.readers.get(i).read(null, in);
+    } catch (IOException e) {
+      throw new AvroRuntimeException("Decoding field " + layout.schema.getFields().get(i).name() + " failed", e);
+    }
+  }
+
+  private BinaryDecoder decoder(int offset) {
+    BinaryDecoder decoder = DecoderFactory.get().binaryDecoder(encoded, offset, encoded.length - offset, DECODER.get());
+    DECODER.set(decoder);
+    return decoder;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o == this)
+      return true; // identical object
+    if (!(o instanceof LazyGenericRecord))
+      return false; // not a lazy record
+    LazyGenericRecord that = (LazyGenericRecord) o;
+    if (!this.getSchema().equals(that.getSchema()))
+      return false; // not the same schema
+    return layout.data.compare(this, that, getSchema(), true) == 0;
+  }
+
+  @Override
+  public int hashCode() {
+    return layout.data.hashCode(this, getSchema());
+  }
+
+  @Override
+  public int compareTo(LazyGenericRecord that) {
+    return layout.data.compare(this, that, getSchema());
+  }
+
+  @Override
+  public String toString() {
+    return layout.data.toString(this);
+  }
+
+  /**
+   * What the records of a schema share: the data model, the field schemas and a
+   * reader for each field. Create one per schema and reuse it for all records.
+   */
+  public static final class Layout {
+    final GenericData data;
+    final Schema schema;
+    final Schema[] fieldSchemas;
+    final List<DatumReader<Object>> readers;
+    final DatumReader<Object> recordReader;
+
+    /** Creates the layout of records of a schema, read with a data model. */
+    @SuppressWarnings("unchecked")
+    public Layout(Schema schema, GenericData data) {
+      if (schema == null || !Type.RECORD.equals(schema.getType()))
+        throw new AvroRuntimeException("Not a record schema: " + schema);
+      this.data = data;
+      this.schema = schema;
+      List<Field> fields = schema.getFields();
+      this.fieldSchemas = new Schema[fields.size()];
+      this.readers = new ArrayList<>(fields.size());
+      for (int i = 0; i < fieldSchemas.length; i++) {
+        fieldSchemas[i] = fields.get(i).schema();
+        readers.add(data.createDatumReader(fieldSchemas[i]));
+      }
+      this.recordReader = data.createDatumReader(schema);
+    }
+  }
+}
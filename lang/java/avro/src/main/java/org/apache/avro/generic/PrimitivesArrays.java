@@ -0,0 +1,745 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.generic;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.Schema;
+import org.apache.avro.io.Decoder;
+import org.apache.avro.io.Encoder;
+
+/**
+ * {@link GenericArray} implementations for arrays of ints, longs, floats,
+ * doubles and booleans, that keep their elements unboxed in a primitive array.
+ * {@link GenericData#newArray} picks them for arrays of these types that have
+ * no logical type conversion, so that reading such arrays allocates no boxed
+ * values.
+ */
+public class PrimitivesArrays {
+
+  private PrimitivesArrays() {
+  }
+
+  /**
+   * Base class of the primitive arrays, which can be read from a {@link Decoder}
+   * and written to an {@link Encoder} without boxing. Like
+   * {@link GenericData.Array}, they accept null elements, which are tracked apart
+   * from the primitive values.
+   */
+  public static abstract class PrimitiveArray<T> extends GenericData.AbstractArray<T> {
+    private BitSet nulls; // positions of null elements, allocated for the first
+
+    protected PrimitiveArray(Schema schema, Schema.Type type) {
+      super(schema);
+      if (schema.getElementType().getType() != type)
+        throw new AvroRuntimeException("Not an array of " + type.getName() + ": " + schema);
+    }
+
+    /**
+     * Reads <tt>count</tt> items from <tt>in</tt> and appends them to this array.
+     */
+    public abstract void readItems(Decoder in, long count) throws IOException;
+
+    /**
+     * Writes the items of this array to <tt>out</tt>. The caller is responsible for
+     * the array start, the item count and the array end. Throws a
+     * {@link NullPointerException} if the array holds nulls.
+     */
+    public abstract void writeItems(Encoder out) throws IOException;
+
+    /** Returns the size of this array after <tt>count</tt> more items. */
+    protected int grownSize(long count) {
+      long newSize = size + count;
+      if (count < 0 || newSize > Integer.MAX_VALUE - 8)
+        throw new AvroRuntimeException("Cannot add " + count + " items to an array of " + size);
+      return (int) newSize;
+    }
+
+    @Override
+    public T peek() {
+      return null; // values are not reused
+    }
+
+    @Override
+    public void clear() {
+      reset();
+    }
+
+    @Override
+    public void reset() {
+      size = 0;
+      if (nulls != null)
+        nulls.clear();
+    }
+
+    /** Returns whether any element of this array is null. */
+    public boolean hasNulls() {
+      return nulls != null && !nulls.isEmpty();
+    }
+
+    protected boolean isNull(int i) {
+      return nulls != null && nulls.get(i);
+    }
+
+    protected void markNull(int i, boolean isNull) {
+      if (isNull) {
+        if (nulls == null)
+          nulls = new BitSet();
+        nulls.set(i);
+      } else if (nulls != null) {
+        nulls.clear(i);
+      }
+    }
+
+    /** Shifts the null marks up for an element inserted at <tt>location</tt>. */
+    protected void insertNull(int location) {
+      if (nulls != null) {
+        for (int i = size; i > location; i--)
+          nulls.set(i, nulls.get(i - 1));
+        nulls.clear(location);
+      }
+    }
+
+    /** Shifts the null marks down once the element at <tt>i</tt> is removed. */
+    protected void removeNull(int i) {
+      if (nulls != null) {
+        for (int j = i; j < size; j++)
+          nulls.set(j, nulls.get(j + 1));
+        nulls.clear(size);
+      }
+    }
+
+    protected void swapNulls(int index1, int index2) {
+      if (nulls != null) {
+        boolean tmp = nulls.get(index1);
+        nulls.set(index1, nulls.get(index2));
+        nulls.set(index2, tmp);
+      }
+    }
+
+    protected void checkNoNulls() {
+      if (hasNulls())
+        throw new NullPointerException("null value for (non-nullable) " + getSchema().getElementType().getName()
+            + " at index " + nulls.nextSetBit(0));
+    }
+
+    protected void checkIndex(int i) {
+      if (i >= size || i < 0)
+        throw new IndexOutOfBoundsException("Index " + i + " out of bounds.");
+    }
+
+    protected void checkLocation(int location) {
+      if (location > size || location < 0)
+        throw new IndexOutOfBoundsException("Index " + location + " out of bounds.");
+    }
+  }
+
+  /** An array of ints. */
+  public static class IntArray extends PrimitiveArray<Integer> {
+    private static final int[] EMPTY = new int[0];
+    private int[] elements = EMPTY;
+
+    public IntArray(int capacity, Schema schema) {
+      super(schema, Schema.Type.INT);
+      if (capacity != 0)
+        elements = new int[capacity];
+    }
+
+    public IntArray(Schema schema, Collection<Integer> c) {
+      this(c == null ? 0 : c.size(), schema);
+      if (c != null)
+        addAll(c);
+    }
+
+    /**
+     * Returns the backing array. Only the first {@link #size()} elements are part
+     * of this array, and the backing array is replaced when it grows. Null elements
+     * are stored as 0.
+     */
+    public int[] elements() {
+      return elements;
+    }
+
+    @Override
+    public Integer get(int i) {
+      int value = getInt(i);
+      return isNull(i) ? null : value;
+    }
+
+    /** Returns the element at position <tt>i</tt> without boxing it. */
+    public int getInt(int i) {
+      checkIndex(i);
+      return elements[i];
+    }
+
+    @Override
+    public Integer set(int i, Integer o) {
+      Integer previous = get(i);
+      setInt(i, o == null ? 0 : o);
+      markNull(i, o == null);
+      return previous;
+    }
+
+    /** Replaces the element at position <tt>i</tt> and returns the previous one. */
+    public int setInt(int i, int value) {
+      checkIndex(i);
+      int response = elements[i];
+      elements[i] = value;
+      markNull(i, false);
+      return response;
+    }
+
+    @Override
+    public void add(int location, Integer o) {
+      addInt(location, o == null ? 0 : o);
+      markNull(location, o == null);
+    }
+
+    /** Appends an int value to this array. */
+    public void addInt(int value) {
+      addInt(size, value);
+    }
+
+    /** Inserts an int value into this array at position <tt>location</tt>. */
+    public void addInt(int location, int value) {
+      checkLocation(location);
+      if (size == elements.length) {
+        elements = Arrays.copyOf(elements, newCapacity(size, 0));
+      }
+      System.arraycopy(elements, location, elements, location + 1, size - location);
+      elements[location] = value;
+      insertNull(location);
+      size++;
+    }
+
+    @Override
+    public Integer remove(int i) {
+      checkIndex(i);
+      Integer result = get(i);
+      --size;
+      System.arraycopy(elements, i + 1, elements, i, (size - i));
+      removeNull(i);
+      return result;
+    }
+
+    @Override
+    public void readItems(Decoder in, long count) throws IOException {
+      int newSize = grownSize(count);
+      ensureCapacity(newSize);
+      in.readInts(elements, size, (int) count);
+      size = newSize;
+    }
+
+    @Override
+    public void writeItems(Encoder out) throws IOException {
+      checkNoNulls();
+      out.writeInts(elements, 0, size);
+    }
+
+    private void ensureCapacity(int capacity) {
+      if (capacity > elements.length) {
+        elements = Arrays.copyOf(elements, newCapacity(elements.length, capacity));
+      }
+    }
+
+    @Override
+    protected void swap(int index1, int index2) {
+      int tmp = elements[index1];
+      elements[index1] = elements[index2];
+      elements[index2] = tmp;
+      swapNulls(index1, index2);
+    }
+  }
+
+  /** An array of longs. */
+  public static class LongArray extends PrimitiveArray<Long> {
+    private static final long[] EMPTY = new long[0];
+    private long[] elements = EMPTY;
+
+    public LongArray(int capacity, Schema schema) {
+      super(schema, Schema.Type.LONG);
+      if (capacity != 0)
+        elements = new long[capacity];
+    }
+
+    public LongArray(Schema schema, Collection<Long> c) {
+      this(c == null ? 0 : c.size(), schema);
+      if (c != null)
+        addAll(c);
+    }
+
+    /**
+     * Returns the backing array. Only the first {@link #size()} elements are part
+     * of this array, and the backing array is replaced when it grows. Null elements
+     * are stored as 0.
+     */
+    public long[] elements() {
+      return elements;
+    }
+
+    @Override
+    public Long get(int i) {
+      long value = getLong(i);
+      return isNull(i) ? null : value;
+    }
+
+    /** Returns the element at position <tt>i</tt> without boxing it. */
+    public long getLong(int i) {
+      checkIndex(i);
+      return elements[i];
+    }
+
+    @Override
+    public Long set(int i, Long o) {
+      Long previous = get(i);
+      setLong(i, o == null ? 0L : o);
+      markNull(i, o == null);
+      return previous;
+    }
+
+    /** Replaces the element at position <tt>i</tt> and returns the previous one. */
+    public long setLong(int i, long value) {
+      checkIndex(i);
+      long response = elements[i];
+      elements[i] = value;
+      markNull(i, false);
+      return response;
+    }
+
+    @Override
+    public void add(int location, Long o) {
+      addLong(location, o == null ? 0L : o);
+      markNull(location, o == null);
+    }
+
+    /** Appends a long value to this array. */
+    public void addLong(long value) {
+      addLong(size, value);
+    }
+
+    /** Inserts a long value into this array at position <tt>location</tt>. */
+    public void addLong(int location, long value) {
+      checkLocation(location);
+      if (size == elements.length) {
+        elements = Arrays.copyOf(elements, newCapacity(size, 0));
+      }
+      System.arraycopy(elements, location, elements, location + 1, size - location);
+      elements[location] = value;
+      insertNull(location);
+      size++;
+    }
+
+    @Override
+    public Long remove(int i) {
+      checkIndex(i);
+      Long result = get(i);
+      --size;
+      System.arraycopy(elements, i + 1, elements, i, (size - i));
+      removeNull(i);
+      return result;
+    }
+
+    @Override
+    public void readItems(Decoder in, long count) throws IOException {
+      int newSize = grownSize(count);
+      ensureCapacity(newSize);
+      in.readLongs(elements, size, (int) count);
+      size = newSize;
+    }
+
+    @Override
+    public void writeItems(Encoder out) throws IOException {
+      checkNoNulls();
+      out.writeLongs(elements, 0, size);
+    }
+
+    private void ensureCapacity(int capacity) {
+      if (capacity > elements.length) {
+        elements = Arrays.copyOf(elements, newCapacity(elements.length, capacity));
+      }
+    }
+
+    @Override
+    protected void swap(int index1, int index2) {
+      long tmp = elements[index1];
+      elements[index1] = elements[index2];
+      elements[index2] = tmp;
+      swapNulls(index1, index2);
+    }
+  }
+
+  /** An array of floats. */
+  public static class FloatArray extends PrimitiveArray<Float> {
+    private static final float[] EMPTY = new float[0];
+    private float[] elements = EMPTY;
+
+    public FloatArray(int capacity, Schema schema) {
+      super(schema, Schema.Type.FLOAT);
+      if (capacity != 0)
+        elements = new float[capacity];
+    }
+
+    public FloatArray(Schema schema, Collection<Float> c) {
+      this(c == null ? 0 : c.size(), schema);
+      if (c != null)
+        addAll(c);
+    }
+
+    /**
+     * Returns the backing array. Only the first {@link #size()} elements are part
+     * of this array, and the backing array is replaced when it grows. Null elements
+     * are stored as 0.
+     */
+    public float[] elements() {
+      return elements;
+    }
+
+    @Override
+    public Float get(int i) {
+      float value = getFloat(i);
+      return isNull(i) ? null : value;
+    }
+
+    /** Returns the element at position <tt>i</tt> without boxing it. */
+    public float getFloat(int i) {
+      checkIndex(i);
+      return elements[i];
+    }
+
+    @Override
+    public Float set(int i, Float o) {
+      Float previous = get(i);
+      setFloat(i, o == null ? 0f : o);
+      markNull(i, o == null);
+      return previous;
+    }
+
+    /** Replaces the element at position <tt>i</tt> and returns the previous one. */
+    public float setFloat(int i, float value) {
+      checkIndex(i);
+      float response = elements[i];
+      elements[i] = value;
+      markNull(i, false);
+      return response;
+    }
+
+    @Override
+    public void add(int location, Float o) {
+      addFloat(location, o == null ? 0f : o);
+      markNull(location, o == null);
+    }
+
+    /** Appends a float value to this array. */
+    public void addFloat(float value) {
+      addFloat(size, value);
+    }
+
+    /** Inserts a float value into this array at position <tt>location</tt>. */
+    public void addFloat(int location, float value) {
+      checkLocation(location);
+      if (size == elements.length) {
+        elements = Arrays.copyOf(elements, newCapacity(size, 0));
+      }
+      System.arraycopy(elements, location, elements, location + 1, size - location);
+      elements[location] = value;
+      insertNull(location);
+      size++;
+    }
+
+    @Override
+    public Float remove(int i) {
+      checkIndex(i);
+      Float result = get(i);
+      --size;
+      System.arraycopy(elements, i + 1, elements, i, (size - i));
+      removeNull(i);
+      return result;
+    }
+
+    @Override
+    public void readItems(Decoder in, long count) throws IOException {
+      int newSize = grownSize(count);
+      ensureCapacity(newSize);
+      in.readFloats(elements, size, (int) count);
+      size = newSize;
+    }
+
+    @Override
+    public void writeItems(Encoder out) throws IOException {
+      checkNoNulls();
+      out.writeFloats(elements, 0, size);
+    }
+
+    private void ensureCapacity(int capacity) {
+      if (capacity > elements.length) {
+        elements = Arrays.copyOf(elements, newCapacity(elements.length, capacity));
+      }
+    }
+
+    @Override
+    protected void swap(int index1, int index2) {
+      float tmp = elements[index1];
+      elements[index1] = elements[index2];
+      elements[index2] = tmp;
+      swapNulls(index1, index2);
+    }
+  }
+
+  /** An array of doubles. */
+  public static class DoubleArray extends PrimitiveArray<Double> {
+    private static final double[] EMPTY = new double[0];
+    private double[] elements = EMPTY;
+
+    public DoubleArray(int capacity, Schema schema) {
+      super(schema, Schema.Type.DOUBLE);
+      if (capacity != 0)
+        elements = new double[capacity];
+    }
+
+    public DoubleArray(Schema schema, Collection<Double> c) {
+      this(c == null ? 0 : c.size(), schema);
+      if (c != null)
+        addAll(c);
+    }
+
+    /**
+     * Returns the backing array. Only the first {@link #size()} elements are part
+     * of this array, and the backing array is replaced when it grows. Null elements
+     * are stored as 0.
+     */
+    public double[] elements() {
+      return elements;
+    }
+
+    @Override
+    public Double get(int i) {
+      double value = getDouble(i);
+      return isNull(i) ? null : value;
+    }
+
+    /** Returns the element at position <tt>i</tt> without boxing it. */
+    public double getDouble(int i) {
+      checkIndex(i);
+      return elements[i];
+    }
+
+    @Override
+    public Double set(int i, Double o) {
+      Double previous = get(i);
+      setDouble(i, o == null ? 0d : o);
+      markNull(i, o == null);
+      return previous;
+    }
+
+    /** Replaces the element at position <tt>i</tt> and returns the previous one. */
+    public double setDouble(int i, double value) {
+      checkIndex(i);
+      double response = elements[i];
+      elements[i] = value;
+      markNull(i, false);
+      return response;
+    }
+
+    @Override
+    public void add(int location, Double o) {
+      addDouble(location, o == null ? 0d : o);
+      markNull(location, o == null);
+    }
+
+    /** Appends a double value to this array. */
+    public void addDouble(double value) {
+      addDouble(size, value);
+    }
+
+    /** Inserts a double value into this array at position <tt>location</tt>. */
+    public void addDouble(int location, double value) {
+      checkLocation(location);
+      if (size == elements.length) {
+        elements = Arrays.copyOf(elements, newCapacity(size, 0));
+      }
+      System.arraycopy(elements, location, elements, location + 1, size - location);
+      elements[location] = value;
+      insertNull(location);
+      size++;
+    }
+
+    @Override
+    public Double remove(int i) {
+      checkIndex(i);
+      Double result = get(i);
+      --size;
+      System.arraycopy(elements, i + 1, elements, i, (size - i));
+      removeNull(i);
+      return result;
+    }
+
+    @Override
+    public void readItems(Decoder in, long count) throws IOException {
+      int newSize = grownSize(count);
+      ensureCapacity(newSize);
+      in.readDoubles(elements, size, (int) count);
+      size = newSize;
+    }
+
+    @Override
+    public void writeItems(Encoder out) throws IOException {
+      checkNoNulls();
+      out.writeDoubles(elements, 0, size);
+    }
+
+    private void ensureCapacity(int capacity) {
+      if (capacity > elements.length) {
+        elements = Arrays.copyOf(elements, newCapacity(elements.length, capacity));
+      }
+    }
+
+    @Override
+    protected void swap(int index1, int index2) {
+      double tmp = elements[index1];
+      elements[index1] = elements[index2];
+      elements[index2] = tmp;
+      swapNulls(index1, index2);
+    }
+  }
+
+  /** An array of booleans. */
+  public static class BooleanArray extends PrimitiveArray<Boolean> {
+    private static final boolean[] EMPTY = new boolean[0];
+    private boolean[] elements = EMPTY;
+
+    public BooleanArray(int capacity, Schema schema) {
+      super(schema, Schema.Type.BOOLEAN);
+      if (capacity != 0)
+        elements = new boolean[capacity];
+    }
+
+    public BooleanArray(Schema schema, Collection<Boolean> c) {
+      this(c == null ? 0 : c.size(), schema);
+      if (c != null)
+        addAll(c);
+    }
+
+    /**
+     * Returns the backing array. Only the first {@link #size()} elements are part
+     * of this array, and the backing array is replaced when it grows. Null elements
+     * are stored as false.
+     */
+    public boolean[] elements() {
+      return elements;
+    }
+
+    @Override
+    public Boolean get(int i) {
+      boolean value = getBoolean(i);
+      return isNull(i) ? null : value;
+    }
+
+    /** Returns the element at position <tt>i</tt> without boxing it. */
+    public boolean getBoolean(int i) {
+      checkIndex(i);
+      return elements[i];
+    }
+
+    @Override
+    public Boolean set(int i, Boolean o) {
+      Boolean previous = get(i);
+      setBoolean(i, o == null ? false : o);
+      markNull(i, o == null);
+      return previous;
+    }
+
+    /** Replaces the element at position <tt>i</tt> and returns the previous one. */
+    public boolean setBoolean(int i, boolean value) {
+      checkIndex(i);
+      boolean response = elements[i];
+      elements[i] = value;
+      markNull(i, false);
+      return response;
+    }
+
+    @Override
+    public void add(int location, Boolean o) {
+      addBoolean(location, o == null ? false : o);
+      markNull(location, o == null);
+    }
+
+    /** Appends a boolean value to this array. */
+    public void addBoolean(boolean value) {
+      addBoolean(size, value);
+    }
+
+    /** Inserts a boolean value into this array at position <tt>location</tt>. */
+    public void addBoolean(int location, boolean value) {
+      checkLocation(location);
+      if (size == elements.length) {
+        elements = Arrays.copyOf(elements, newCapacity(size, 0));
+      }
+      System.arraycopy(elements, location, elements, location + 1, size - location);
+      elements[location] = value;
+      insertNull(location);
+      size++;
+    }
+
+    @Override
+    public Boolean remove(int i) {
+      checkIndex(i);
+      Boolean result = get(i);
+      --size;
+      System.arraycopy(elements, i + 1, elements, i, (size - i));
+      removeNull(i);
+      return result;
+    }
+
+    @Override
+    public void readItems(Decoder in, long count) throws IOException {
+      int newSize = grownSize(count);
+      ensureCapacity(newSize);
+      for (int i = size; i < newSize; i++) {
+        elements[i] = in.readBoolean();
+      }
+      size = newSize;
+    }
+
+    @Override
+    public void writeItems(Encoder out) throws IOException {
+      checkNoNulls();
+      for (int i = 0; i < size; i++) {
+        out.startItem();
+        out.writeBoolean(elements[i]);
+      }
+    }
+
+    private void ensureCapacity(int capacity) {
+      if (capacity > elements.length) {
+        elements = Arrays.copyOf(elements, newCapacity(elements.length, capacity));
+      }
+    }
+
+    @Override
+    protected void swap(int index1, int index2) {
+      boolean tmp = elements[index1];
+      elements[index1] = elements[index2];
+      elements[index2] = tmp;
+      swapNulls(index1, index2);
+    }
+  }
+}
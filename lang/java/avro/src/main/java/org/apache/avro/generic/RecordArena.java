@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.generic;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.avro.Schema;
+import org.apache.avro.util.Utf8;
+
+/**
+ * Keeps the records, arrays, maps, fixed values, {@link Utf8}s and
+ * {@link ByteBuffer}s that a {@link GenericDatumReader} no longer needs, to
+ * hand them out again instead of allocating new ones. Set it with
+ * {@link GenericDatumReader#setArena(RecordArena)}; it is used by the fast
+ * reader too.
+ * <p/>
+ * Datum reuse without an arena is shallow: a value is only reused in place,
+ * from the datum passed back to the reader. Whatever does not fit there, such
+ * as a union value that switches branches, a record behind a field that was
+ * null, or the values of a map, is allocated anew, and the value it replaces is
+ * left to the garbage collector. With an arena, the replaced values are given
+ * to the arena and recycled wherever a later datum needs such a value. A loop
+ * like
+ *
+ * <pre>
+ * reader.setArena(new RecordArena());
+ * GenericRecord datum = null;
+ * while (stream.hasNext()) {
+ *   datum = stream.next(datum);
+ *   ...
+ * }
+ * </pre>
+ *
+ * then only allocates to grow past the largest datum seen so far, for the
+ * values above. Boxed numbers in records and the entries of maps are still
+ * allocated.
+ * <p/>
+ * <b>Lifetime</b>: a datum passed back to the reader, and every value it refers
+ * to, belongs to the reader from then on; any part of it may be overwritten, or
+ * moved to another place in this or a later datum. References to parts of a
+ * datum must not be kept past the next read that is given the datum to reuse,
+ * nor past {@link #release(Object)}. Data read without passing anything to
+ * reuse are not recycled until they are handed back.
+ * <p/>
+ * An arena keeps at most a given number of values of each kind, records and
+ * fixed values by name, arrays by schema; values released beyond that are left
+ * to the garbage collector. A value released again before it was taken back is
+ * ignored.
+ * <p/>
+ * An arena is not thread-safe, and may be shared by readers only when they are
+ * used by the same thread.
+ */
+public class RecordArena {
+  /** The number of values of each kind kept by default. */
+  public static final int DEFAULT_CAPACITY = 1024;
+
+  private final int capacity;
+  private final Map<String, ArrayDeque<Object>> records = new HashMap<>();
+  private final Map<String, ArrayDeque<Object>> fixeds = new HashMap<>();
+  private final Map<Schema, ArrayDeque<Object>> arrays = new HashMap<>();
+  private final ArrayDeque<Object> maps = new ArrayDeque<>();
+  private final ArrayDeque<Object> strings = new ArrayDeque<>();
+  private final ArrayDeque<Object> bytes = new ArrayDeque<>();
+  // the values in the free lists, to ignore those released twice
+  private final Set<Object> released = Collections.newSetFromMap(new IdentityHashMap<>());
+
+  /**
+   * Creates an arena that keeps up to {@value #DEFAULT_CAPACITY} values of each
+   * kind.
+   */
+  public RecordArena() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates an arena that keeps up to the given number of values of each kind.
+   */
+  public RecordArena(int capacity) {
+    if (capacity < 0)
+      throw new IllegalArgumentException("Negative capacity: " + capacity);
+    this.capacity = capacity;
+  }
+
+  /**
+   * Gives a datum back to this arena, to be recycled by later reads. The datum,
+   * and every value it refers to, must not be used afterwards. Values that are
+   * not recycled, like numbers or enum symbols, are ignored.
+   */
+  public void release(Object datum) {
+    ArrayDeque<Object> free = freeListOf(datum);
+    if (free != null && free.size() < capacity && released.add(datum)) {
+      free.push(datum);
+    }
+  }
+
+  /** Drops all the values kept by this arena. */
+  public void clear() {
+    records.clear();
+    fixeds.clear();
+    arrays.clear();
+    maps.clear();
+    strings.clear();
+    bytes.clear();
+    released.clear();
+  }
+
+  /**
+   * Expert: releases the keys and values of a map that is about to be cleared.
+   */
+  public void releaseEntries(Map<?, ?> map) {
+    for (Map.Entry<?, ?> entry : map.entrySet()) {
+      release(entry.getKey());
+      release(entry.getValue());
+    }
+  }
+
+  /**
+   * Expert: returns true if <tt>old</tt> is of the kind of value that is read for
+   * the given schema, so that the reader may try to reuse it in place.
+   */
+  public static boolean fits(Object old, Schema schema) {
+    switch (schema.getType()) {
+    case RECORD:
+      return old instanceof IndexedRecord;
+    case FIXED:
+      return old instanceof GenericFixed;
+    case ARRAY:
+      return old instanceof Collection;
+    case MAP:
+      return old instanceof Map;
+    case STRING:
+      return old instanceof Utf8;
+    case BYTES:
+      return old instanceof ByteBuffer;
+    default:
+      return false;
+    }
+  }
+
+  /**
+   * Expert: returns a released value that is likely to be reusable for the given
+   * schema, or null if there is none.
+   */
+  public Object take(Schema schema) {
+    ArrayDeque<Object> free;
+    switch (schema.getType()) {
+    case RECORD:
+      free = records.get(schema.getFullName());
+      break;
+    case FIXED:
+      free = fixeds.get(schema.getFullName());
+      break;
+    case ARRAY:
+      free = arrays.get(schema);
+      break;
+    case MAP:
+      free = maps;
+      break;
+    case STRING:
+      free = strings;
+      break;
+    case BYTES:
+      free = bytes;
+      break;
+    default:
+      return null;
+    }
+    return free == null ? null : taken(free.poll());
+  }
+
+  /** Expert: returns a released {@link Utf8}, or null if there is none. */
+  public Object takeString() {
+    return taken(strings.poll());
+  }
+
+  private Object taken(Object datum) {
+    if (datum != null) {
+      released.remove(datum);
+    }
+    return datum;
+  }
+
+  private ArrayDeque<Object> freeListOf(Object datum) {
+    if (datum instanceof IndexedRecord) {
+      return records.computeIfAbsent(((IndexedRecord) datum).getSchema().getFullName(), k -> new ArrayDeque<>());
+    } else if (datum instanceof GenericFixed) {
+      return fixeds.computeIfAbsent(((GenericFixed) datum).getSchema().getFullName(), k -> new ArrayDeque<>());
+    } else if (datum instanceof GenericArray) {
+      return arrays.computeIfAbsent(((GenericArray<?>) datum).getSchema(), k -> new ArrayDeque<>());
+    } else if (datum instanceof Map) {
+      return maps;
+    } else if (datum instanceof Utf8) {
+      return strings;
+    } else if (datum instanceof ByteBuffer && ((ByteBuffer) datum).hasArray()) {
+      // read-only and direct buffers are never filled by decoders
+      return bytes;
+    }
+    return null;
+  }
+}
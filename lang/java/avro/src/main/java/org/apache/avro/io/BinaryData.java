@@ -22,7 +22,6 @@ import java.io.IOException;
 import org.apache.avro.Schema;
 import org.apache.avro.Schema.Field;
 import org.apache.avro.AvroRuntimeException;
-import org.apache.avro.generic.GenericDatumReader;
 
 /** Utilities for binary-encoded data. */
 public class BinaryData {
@@ -88,8 +87,8 @@ public class BinaryData {
     case RECORD: {
       for (Field field : schema.getFields()) {
         if (field.order() == Field.Order.IGNORE) {
-          GenericDatumReader.skip(field.schema(), d1);
-          GenericDatumReader.skip(field.schema(), d2);
+          skip(field.schema(), d1);
+          skip(field.schema(), d2);
           continue;
         }
         int c = compare(d, field.schema());
@@ -227,7 +226,7 @@ public class BinaryData {
       int hashCode = 1;
       for (Field field : schema.getFields()) {
         if (field.order() == Field.Order.IGNORE) {
-          GenericDatumReader.skip(field.schema(), decoder);
+          skip(field.schema(), decoder);
           continue;
         }
         hashCode = hashCode * 31 + hashCode(data, field.schema());
@@ -287,6 +286,68 @@ public class BinaryData {
     return hashCode;
   }
 
+  /** Skip an instance of a schema from a decoder. */
+  public static void skip(Schema schema, Decoder in) throws IOException {
+    switch (schema.getType()) {
+    case RECORD:
+      for (Field field : schema.getFields())
+        skip(field.schema(), in);
+      break;
+    case ENUM:
+      in.readEnum();
+      break;
+    case ARRAY:
+      Schema elementType = schema.getElementType();
+      for (long l = in.skipArray(); l > 0; l = in.skipArray()) {
+        for (long i = 0; i < l; i++) {
+          skip(elementType, in);
+        }
+      }
+      break;
+    case MAP:
+      Schema value = schema.getValueType();
+      for (long l = in.skipMap(); l > 0; l = in.skipMap()) {
+        for (long i = 0; i < l; i++) {
+          in.skipString();
+          skip(value, in);
+        }
+      }
+      break;
+    case UNION:
+      skip(schema.getTypes().get(in.readIndex()), in);
+      break;
+    case FIXED:
+      in.skipFixed(schema.getFixedSize());
+      break;
+    case STRING:
+      in.skipString();
+      break;
+    case BYTES:
+      in.skipBytes();
+      break;
+    case INT:
+      in.readInt();
+      break;
+    case LONG:
+      in.readLong();
+      break;
+    case FLOAT:
+      in.readFloat();
+      break;
+    case DOUBLE:
+      in.readDouble();
+      break;
+    case BOOLEAN:
+      in.readBoolean();
+      break;
+    case NULL:
+      in.readNull();
+      break;
+    default:
+      throw new RuntimeException("Unknown type: " + schema);
+    }
+  }
+
   /** Skip a binary-encoded long, returning the position after it. */
   public static int skipLong(final byte[] bytes, int start) {
     while ((bytes[start++] & 0x80) != 0) {
@@ -26,6 +26,7 @@ import java.util.Arrays;
 
 import org.apache.avro.AvroRuntimeException;
 import org.apache.avro.InvalidNumberEncodingException;
+import org.apache.avro.Schema;
 import org.apache.avro.util.Utf8;
 
 /**
@@ -59,9 +60,12 @@ public class BinaryDecoder extends Decoder {
   // "detach source" code and source access to the buffer, but
   // hurts performance.
   private byte[] buf = null;
+  // buffer kept across reconfigurations by sources that do not own a byte[]
+  private byte[] scratchBuf = null;
   private int minPos = 0;
   private int pos = 0;
   private int limit = 0;
+  private boolean borrowedReads = false;
 
   byte[] getBuf() {
     return buf;
@@ -104,11 +108,82 @@ public class BinaryDecoder extends Decoder {
     return this;
   }
 
+  BinaryDecoder(ByteBuffer data, int bufferSize) {
+    super();
+    configure(data, bufferSize);
+  }
+
   BinaryDecoder configure(byte[] data, int offset, int length) {
     configureSource(DecoderFactory.DEFAULT_BUFFER_SIZE, new ByteArrayByteSource(data, offset, length));
     return this;
   }
 
+  BinaryDecoder configure(ByteBuffer data, int bufferSize) {
+    if (data.hasArray()) {
+      // heap buffers are decoded straight out of their backing array
+      return configure(data.array(), data.arrayOffset() + data.position(), data.remaining());
+    }
+    configureSource(bufferSize, new ByteBufferByteSource(data));
+    return this;
+  }
+
+  /**
+   * Expert: enables or disables borrowed reads. When enabled,
+   * {@link #readString(Utf8)} and {@link #readBytes(ByteBuffer)} return values
+   * that refer to this decoder's buffer instead of copying from it, whenever the
+   * decoder reads from a byte array that it does not refill in place, as it does
+   * for {@link DecoderFactory#binaryDecoder(byte[], int, int, BinaryDecoder)}.
+   * Otherwise these methods copy as usual.
+   * <p/>
+   * Borrowed values are only valid as long as the array the decoder was
+   * configured with is left unchanged. Values that must outlive it have to be
+   * copied, e.g. with {@link org.apache.avro.generic.GenericData#deepCopy}.
+   * Borrowed values are never written to by this decoder, even when passed back
+   * as a reuse instance while borrowed reads are enabled.
+   * <p/>
+   * Borrowed reads are disabled by default and the setting is kept when the
+   * decoder is reinitialized through {@link DecoderFactory}.
+   */
+  public void setBorrowedReads(boolean borrowedReads) {
+    this.borrowedReads = borrowedReads;
+  }
+
+  /**
+   * Returns true if borrowed reads are enabled, see {@link #setBorrowedReads}.
+   */
+  public boolean isBorrowedReads() {
+    return borrowedReads;
+  }
+
+  /**
+   * Expert: skips the next value, described by <i>schema</i>, and returns its
+   * encoded bytes as a read-only buffer over this decoder's input, without
+   * copying them. This is only possible when the decoder reads from a byte array
+   * that it does not refill in place, as it does for
+   * {@link DecoderFactory#binaryDecoder(byte[], int, int, BinaryDecoder)}; for
+   * other inputs, this method returns null and leaves the value unread.
+   * <p/>
+   * The returned buffer is valid as long as the array the decoder was configured
+   * with is left unchanged.
+   */
+  public ByteBuffer skipEncoded(Schema schema) throws IOException {
+    if (source == null || !source.isBufferStable()) {
+      return null;
+    }
+    byte[] bytes = buf;
+    int start = pos;
+    int end = limit;
+    BinaryData.skip(schema, this);
+    // near its end, the source may copy the unread bytes into a new buffer: the
+    // value ends as many bytes before the end of the original one as are unread
+    end -= limit - pos;
+    return ByteBuffer.wrap(bytes, start, end - start).slice().asReadOnlyBuffer();
+  }
+
+  private boolean canBorrow(long length) {
+    return borrowedReads && length <= limit - pos && source != null && source.isBufferStable();
+  }
+
   /**
    * Initializes this decoder with a new ByteSource. Detaches the old source (if
    * it exists) from this Decoder. The old source's state no longer depends on
@@ -275,6 +350,52 @@ public class BinaryDecoder extends Decoder {
     return Double.longBitsToDouble((((long) n1) & 0xffffffffL) | (((long) n2) << 32));
   }
 
+  @Override
+  public void readFloats(float[] items, int start, int len) throws IOException {
+    final int end = start + len;
+    while (start < end) {
+      // decode straight out of the buffer as many items as it holds
+      int n = Math.min(end - start, (limit - pos) >> 2);
+      if (n == 0) {
+        items[start++] = readFloat(); // refills the buffer
+        continue;
+      }
+      final byte[] buf = this.buf;
+      int p = pos;
+      for (int i = start, stop = start + n; i < stop; i++) {
+        items[i] = Float.intBitsToFloat(
+            (buf[p] & 0xff) | ((buf[p + 1] & 0xff) << 8) | ((buf[p + 2] & 0xff) << 16) | ((buf[p + 3] & 0xff) << 24));
+        p += 4;
+      }
+      pos = p;
+      start += n;
+    }
+  }
+
+  @Override
+  public void readDoubles(double[] items, int start, int len) throws IOException {
+    final int end = start + len;
+    while (start < end) {
+      int n = Math.min(end - start, (limit - pos) >> 3);
+      if (n == 0) {
+        items[start++] = readDouble(); // refills the buffer
+        continue;
+      }
+      final byte[] buf = this.buf;
+      int p = pos;
+      for (int i = start, stop = start + n; i < stop; i++) {
+        int n1 = (buf[p] & 0xff) | ((buf[p + 1] & 0xff) << 8) | ((buf[p + 2] & 0xff) << 16)
+            | ((buf[p + 3] & 0xff) << 24);
+        int n2 = (buf[p + 4] & 0xff) | ((buf[p + 5] & 0xff) << 8) | ((buf[p + 6] & 0xff) << 16)
+            | ((buf[p + 7] & 0xff) << 24);
+        items[i] = Double.longBitsToDouble((((long) n1) & 0xffffffffL) | (((long) n2) << 32));
+        p += 8;
+      }
+      pos = p;
+      start += n;
+    }
+  }
+
   @Override
   public Utf8 readString(Utf8 old) throws IOException {
     long length = readLong();
@@ -285,6 +406,11 @@ public class BinaryDecoder extends Decoder {
       throw new AvroRuntimeException("Malformed data. Length is negative: " + length);
     }
     Utf8 result = (old != null ? old : new Utf8());
+    if (canBorrow(length)) {
+      result.setBorrowed(buf, pos, (int) length);
+      pos += (int) length;
+      return result;
+    }
     result.setByteLength((int) length);
     if (0L != length) {
       doReadBytes(result.getBytes(), 0, (int) length);
@@ -308,7 +434,12 @@ public class BinaryDecoder extends Decoder {
   public ByteBuffer readBytes(ByteBuffer old) throws IOException {
     int length = readInt();
     final ByteBuffer result;
-    if (old != null && length <= old.capacity()) {
+    if (canBorrow(length)) {
+      result = ByteBuffer.wrap(buf, pos, length).slice();
+      pos += length;
+      return result;
+    }
+    if (old != null && length <= old.capacity() && !borrowedReads) {
       result = old;
       ((Buffer) result).clear();
     } else {
@@ -645,6 +776,14 @@ public class BinaryDecoder extends Decoder {
 
     abstract boolean isEof();
 
+    /**
+     * Returns true if bytes in the decoder's buffer are never overwritten while
+     * this source is attached, so that values can borrow them.
+     */
+    boolean isBufferStable() {
+      return false;
+    }
+
     protected void attach(int bufferSize, BinaryDecoder decoder) {
       decoder.buf = new byte[bufferSize];
       decoder.pos = 0;
@@ -1010,5 +1149,107 @@ public class BinaryDecoder extends Decoder {
       int remaining = ba.getLim() - ba.getPos();
       return (remaining == 0);
     }
+
+    @Override
+    boolean isBufferStable() {
+      // the buffer is either the client's array or a private copy of its tail,
+      // neither is ever refilled, though the decoder may switch from the first to
+      // the second
+      return true;
+    }
+  }
+
+  /**
+   * A byte source that reads from a {@link ByteBuffer} without a backing array,
+   * such as a direct or memory-mapped buffer. The buffer's content is not copied
+   * as a whole: the decoder's buffer is refilled from it in chunks, and large
+   * reads and skips go to or past the ByteBuffer directly. The decoder's buffer
+   * is kept across reconfigurations, so decoding many small off-heap messages
+   * with a reused decoder does not allocate.
+   * <p/>
+   * The position and limit of the ByteBuffer passed by the client are not
+   * modified.
+   */
+  private static class ByteBufferByteSource extends ByteSource {
+    private static final int MIN_SIZE = 16;
+    private final ByteBuffer data;
+
+    private ByteBufferByteSource(ByteBuffer data) {
+      super();
+      this.data = data.duplicate();
+    }
+
+    @Override
+    protected void attach(int bufferSize, BinaryDecoder decoder) {
+      // no point buffering more than the source holds
+      int size = Math.max(MIN_SIZE, Math.min(bufferSize, data.remaining()));
+      byte[] scratch = decoder.scratchBuf;
+      if (scratch == null || scratch.length < size) {
+        scratch = new byte[size];
+        decoder.scratchBuf = scratch;
+      }
+      decoder.buf = scratch;
+      decoder.pos = 0;
+      decoder.minPos = 0;
+      decoder.limit = 0;
+      this.ba = new BufferAccessor(decoder);
+    }
+
+    @Override
+    protected void detach() {
+      super.detach();
+      // the buffer is recycled by the decoder: keep the unread bytes for any
+      // client still reading through inputStream()
+      int pos = ba.getPos();
+      int remaining = ba.getLim() - pos;
+      ba.setBuf(Arrays.copyOfRange(ba.getBuf(), pos, pos + remaining), 0, remaining);
+    }
+
+    @Override
+    protected void skipSourceBytes(long length) throws IOException {
+      long skipped = trySkipBytes(length);
+      if (skipped < length) {
+        throw new EOFException();
+      }
+    }
+
+    @Override
+    protected long trySkipBytes(long length) throws IOException {
+      int n = (int) Math.min(length, data.remaining());
+      ((Buffer) data).position(data.position() + n);
+      return n;
+    }
+
+    @Override
+    protected void readRaw(byte[] data, int off, int len) throws IOException {
+      int read = tryReadRaw(data, off, len);
+      if (read < len) {
+        throw new EOFException();
+      }
+    }
+
+    @Override
+    protected int tryReadRaw(byte[] data, int off, int len) throws IOException {
+      int n = Math.min(len, this.data.remaining());
+      this.data.get(data, off, n);
+      return n;
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (ba.getLim() - ba.getPos() == 0) {
+        return data.hasRemaining() ? data.get() & 0xff : -1;
+      } else {
+        int position = ba.getPos();
+        int result = ba.getBuf()[position] & 0xff;
+        ba.setPos(position + 1);
+        return result;
+      }
+    }
+
+    @Override
+    public boolean isEof() {
+      return !data.hasRemaining();
+    }
   }
 }
@@ -339,6 +339,41 @@ public class BlockingBinaryEncoder extends BufferedBinaryEncoder {
     assert check();
   }
 
+  // the bulk writes of the superclass do not track items, so every item must go
+  // through startItem() here
+
+  @Override
+  public void writeInts(int[] items, int start, int len) throws IOException {
+    for (int i = start, end = start + len; i < end; i++) {
+      startItem();
+      writeInt(items[i]);
+    }
+  }
+
+  @Override
+  public void writeLongs(long[] items, int start, int len) throws IOException {
+    for (int i = start, end = start + len; i < end; i++) {
+      startItem();
+      writeLong(items[i]);
+    }
+  }
+
+  @Override
+  public void writeFloats(float[] items, int start, int len) throws IOException {
+    for (int i = start, end = start + len; i < end; i++) {
+      startItem();
+      writeFloat(items[i]);
+    }
+  }
+
+  @Override
+  public void writeDoubles(double[] items, int start, int len) throws IOException {
+    for (int i = start, end = start + len; i < end; i++) {
+      startItem();
+      writeDouble(items[i]);
+    }
+  }
+
   @Override
   public void writeArrayEnd() throws IOException {
     BlockedValue top = blockStack[stackTop];
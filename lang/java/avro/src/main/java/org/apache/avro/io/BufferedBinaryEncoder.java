@@ -149,6 +149,57 @@ public class BufferedBinaryEncoder extends BinaryEncoder {
     pos += BinaryData.encodeDouble(d, buf, pos);
   }
 
+  @Override
+  public void writeInts(int[] items, int start, int len) throws IOException {
+    for (int i = start, end = start + len; i < end; i++) {
+      if (buf.length - pos < 5) {
+        flushBuffer();
+      }
+      pos += BinaryData.encodeInt(items[i], buf, pos);
+    }
+  }
+
+  @Override
+  public void writeLongs(long[] items, int start, int len) throws IOException {
+    for (int i = start, end = start + len; i < end; i++) {
+      if (buf.length - pos < 10) {
+        flushBuffer();
+      }
+      pos += BinaryData.encodeLong(items[i], buf, pos);
+    }
+  }
+
+  @Override
+  public void writeFloats(float[] items, int start, int len) throws IOException {
+    final int end = start + len;
+    while (start < end) {
+      // encode as many items as the buffer can take in one go
+      int n = Math.min(end - start, (buf.length - pos) >> 2);
+      if (n == 0) {
+        flushBuffer();
+        continue;
+      }
+      for (int stop = start + n; start < stop; start++) {
+        pos += BinaryData.encodeFloat(items[start], buf, pos);
+      }
+    }
+  }
+
+  @Override
+  public void writeDoubles(double[] items, int start, int len) throws IOException {
+    final int end = start + len;
+    while (start < end) {
+      int n = Math.min(end - start, (buf.length - pos) >> 3);
+      if (n == 0) {
+        flushBuffer();
+        continue;
+      }
+      for (int stop = start + n; start < stop; start++) {
+        pos += BinaryData.encodeDouble(items[start], buf, pos);
+      }
+    }
+  }
+
   @Override
   public void writeFixed(byte[] bytes, int start, int len) throws IOException {
     if (len > bulkLimit) {
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.avro.io;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+
+import org.apache.avro.AvroRuntimeException;
+
+/**
+ * Fuses the steps of a record reader or writer into a single method handle.
+ * <p/>
+ * Looping over an array of steps makes the call in the loop megamorphic, so the
+ * JIT compiles it as a virtual call and cannot inline any step. The fused
+ * handle is a balanced tree of {@link MethodHandles#foldArguments} with each
+ * step bound as a constant; once it gets hot, the JVM generates code for this
+ * particular tree, in which the steps are called, and can be inlined, as
+ * straight-line code. The tree is balanced to stay within the JIT's inlining
+ * depth.
+ */
+final class CompiledSteps {
+
+  private CompiledSteps() {
+  }
+
+  /**
+   * Returns a handle that calls each of the <tt>steps</tt> in order with the same
+   * arguments, or null if there are none. All steps must be of the same type,
+   * returning void.
+   */
+  static MethodHandle sequence(MethodHandle[] steps) {
+    return steps.length == 0 ? null : sequence(steps, 0, steps.length);
+  }
+
+  private static MethodHandle sequence(MethodHandle[] steps, int from, int to) {
+    if (to - from == 1) {
+      return steps[from];
+    }
+    int mid = (from + to) >>> 1;
+    // runs the first half, then the second one
+    return MethodHandles.foldArguments(sequence(steps, mid, to), sequence(steps, from, mid));
+  }
+
+  /** Rethrows what a fused handle threw, as invokeExact declares Throwable. */
+  static IOException rethrow(Throwable t) {
+    if (t instanceof IOException) {
+      return (IOException) t;
+    } else if (t instanceof RuntimeException) {
+      throw (RuntimeException) t;
+    } else if (t instanceof Error) {
+      throw (Error) t;
+    }
+    throw new AvroRuntimeException(t);
+  }
+}
@@ -207,6 +207,61 @@ public abstract class Decoder {
    */
   public abstract long arrayNext() throws IOException;
 
+  /**
+   * Reads <tt>len</tt> items of an array of ints into <tt>items</tt>, starting at
+   * index <tt>start</tt>. This is equivalent to, but may be faster than, calling
+   * {@link #readInt()} <tt>len</tt> times. <tt>len</tt> must not exceed the
+   * number of items left in the current block, as returned by
+   * {@link #readArrayStart} or {@link #arrayNext}.
+   *
+   * @throws AvroTypeException If this is a stateful reader and int is not the
+   *                           type of the next value to be read
+   */
+  public void readInts(int[] items, int start, int len) throws IOException {
+    for (int i = start, end = start + len; i < end; i++) {
+      items[i] = readInt();
+    }
+  }
+
+  /**
+   * Reads <tt>len</tt> items of an array of longs into <tt>items</tt>. See
+   * {@link #readInts(int[], int, int)}.
+   *
+   * @throws AvroTypeException If this is a stateful reader and long is not the
+   *                           type of the next value to be read
+   */
+  public void readLongs(long[] items, int start, int len) throws IOException {
+    for (int i = start, end = start + len; i < end; i++) {
+      items[i] = readLong();
+    }
+  }
+
+  /**
+   * Reads <tt>len</tt> items of an array of floats into <tt>items</tt>. See
+   * {@link #readInts(int[], int, int)}.
+   *
+   * @throws AvroTypeException If this is a stateful reader and float is not the
+   *                           type of the next value to be read
+   */
+  public void readFloats(float[] items, int start, int len) throws IOException {
+    for (int i = start, end = start + len; i < end; i++) {
+      items[i] = readFloat();
+    }
+  }
+
+  /**
+   * Reads <tt>len</tt> items of an array of doubles into <tt>items</tt>. See
+   * {@link #readInts(int[], int, int)}.
+   *
+   * @throws AvroTypeException If this is a stateful reader and double is not the
+   *                           type of the next value to be read
+   */
+  public void readDoubles(double[] items, int start, int len) throws IOException {
+    for (int i = start, end = start + len; i < end; i++) {
+      items[i] = readDouble();
+    }
+  }
+
   /**
    * Used for quickly skipping through an array. Note you can either skip the
    * entire array, or read the entire array (with {@link #readArrayStart}), but
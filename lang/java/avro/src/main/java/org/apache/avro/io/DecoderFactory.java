@@ -19,6 +19,7 @@ package org.apache.avro.io;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 import org.apache.avro.Schema;
 
@@ -238,6 +239,38 @@ public class DecoderFactory {
     return binaryDecoder(bytes, 0, bytes.length, reuse);
   }
 
+  /**
+   * Creates or reinitializes a {@link BinaryDecoder} with the ByteBuffer provided
+   * as the source of data, reading the bytes between its position and its limit.
+   * If <i>reuse</i> is provided, it will attempt to reinitialize <i>reuse</i> to
+   * the new buffer.
+   * <p/>
+   * Heap buffers are decoded in place from their backing array, like
+   * {@link #binaryDecoder(byte[], int, int, BinaryDecoder)}. Direct and other
+   * array-less buffers are not copied to the heap as a whole; the decoder reads
+   * them in chunks of at most {@link #getConfiguredBufferSize()} bytes into a
+   * buffer it keeps across reinitializations.
+   * <p/>
+   * The position and limit of <i>bytes</i> are not modified. Its content must not
+   * change while the decoder is in use.
+   *
+   * @param bytes The ByteBuffer to initialize to
+   * @param reuse The BinaryDecoder to attempt to reinitialize. if null a new
+   *              BinaryDecoder is created.
+   * @return A BinaryDecoder that uses <i>bytes</i> as its source of data. If
+   *         <i>reuse</i> is null, this will be a new instance. <i>reuse</i> may
+   *         be reinitialized if appropriate, otherwise a new instance is
+   *         returned. Clients must not assume that <i>reuse</i> is reinitialized
+   *         and returned.
+   */
+  public BinaryDecoder binaryDecoder(ByteBuffer bytes, BinaryDecoder reuse) {
+    if (null == reuse || !reuse.getClass().equals(BinaryDecoder.class)) {
+      return new BinaryDecoder(bytes, binaryDecoderBufferSize);
+    } else {
+      return reuse.configure(bytes, binaryDecoderBufferSize);
+    }
+  }
+
   /**
    * Creates a {@link JsonDecoder} using the InputStream provided for reading data
    * that conforms to the Schema provided.
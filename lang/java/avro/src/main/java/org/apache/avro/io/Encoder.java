@@ -253,6 +253,65 @@ public abstract class Encoder implements Flushable {
    */
   public abstract void startItem() throws IOException;
 
+  /**
+   * Writes <tt>len</tt> items of an array of ints, taken from <tt>items</tt>
+   * starting at index <tt>start</tt>. This is equivalent to, but may be faster
+   * than, calling {@link #startItem()} followed by {@link #writeInt(int)} for
+   * each of them. The items count towards the count given to
+   * {@link #setItemCount}.
+   *
+   * @throws AvroTypeException If this is a stateful writer and an array of ints
+   *                           is not expected
+   */
+  public void writeInts(int[] items, int start, int len) throws IOException {
+    for (int i = start, end = start + len; i < end; i++) {
+      startItem();
+      writeInt(items[i]);
+    }
+  }
+
+  /**
+   * Writes <tt>len</tt> items of an array of longs. See
+   * {@link #writeInts(int[], int, int)}.
+   *
+   * @throws AvroTypeException If this is a stateful writer and an array of longs
+   *                           is not expected
+   */
+  public void writeLongs(long[] items, int start, int len) throws IOException {
+    for (int i = start, end = start + len; i < end; i++) {
+      startItem();
+      writeLong(items[i]);
+    }
+  }
+
+  /**
+   * Writes <tt>len</tt> items of an array of floats. See
+   * {@link #writeInts(int[], int, int)}.
+   *
+   * @throws AvroTypeException If this is a stateful writer and an array of floats
+   *                           is not expected
+   */
+  public void writeFloats(float[] items, int start, int len) throws IOException {
+    for (int i = start, end = start + len; i < end; i++) {
+      startItem();
+      writeFloat(items[i]);
+    }
+  }
+
+  /**
+   * Writes <tt>len</tt> items of an array of doubles. See
+   * {@link #writeInts(int[], int, int)}.
+   *
+   * @throws AvroTypeException If this is a stateful writer and an array of
+   *                           doubles is not expected
+   */
+  public void writeDoubles(double[] items, int start, int len) throws IOException {
+    for (int i = start, end = start + len; i < end; i++) {
+      startItem();
+      writeDouble(items[i]);
+    }
+  }
+
   /**
    * Call this method to finish writing an array. See {@link #writeArrayStart} for
    * usage information.
@@ -16,6 +16,9 @@ package org.apache.avro.io;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
@@ -29,7 +32,6 @@ import java.util.function.IntFunction;
 import org.apache.avro.AvroTypeException;
 import org.apache.avro.Conversion;
 import org.apache.avro.Conversions;
-import org.apache.avro.Resolver;
 import org.apache.avro.Resolver.Action;
 import org.apache.avro.Resolver.Container;
 import org.apache.avro.Resolver.EnumAdjust;
@@ -47,6 +49,8 @@ import org.apache.avro.generic.GenericDatumReader;
 import org.apache.avro.generic.GenericEnumSymbol;
 import org.apache.avro.generic.GenericFixed;
 import org.apache.avro.generic.IndexedRecord;
+import org.apache.avro.generic.PrimitivesArrays;
+import org.apache.avro.generic.RecordArena;
 import org.apache.avro.io.FastReaderBuilder.RecordReader.Stage;
 import org.apache.avro.io.parsing.ResolvingGrammarGenerator;
 import org.apache.avro.reflect.ReflectionUtil;
@@ -72,6 +76,12 @@ public class FastReaderBuilder {
 
   private boolean classPropEnabled = true;
 
+  public static final String COMPILED_RECORDS_PROP = "org.apache.avro.fastcompile";
+
+  private boolean compiledRecordsEnabled = "true".equalsIgnoreCase(System.getProperty(COMPILED_RECORDS_PROP));
+
+  private RecordArena arena = null;
+
   public static FastReaderBuilder get() {
     return new FastReaderBuilder(GenericData.get());
   }
@@ -106,26 +116,76 @@ public class FastReaderBuilder {
     return this.classPropEnabled;
   }
 
+  /**
+   * Whether the steps of each record reader are fused into one method handle that
+   * the JVM compiles into straight-line code per record schema (see
+   * {@link CompiledSteps}), instead of being called in a loop.
+   */
+  public FastReaderBuilder withCompiledRecordsEnabled(boolean enabled) {
+    this.compiledRecordsEnabled = enabled;
+    return this;
+  }
+
+  public boolean isCompiledRecordsEnabled() {
+    return this.compiledRecordsEnabled;
+  }
+
+  /**
+   * Returns a new builder with the settings of this one, whose readers recycle
+   * the values they no longer need through an arena, as
+   * {@link GenericDatumReader#setArena(RecordArena)} describes. The readers of
+   * the returned builder are bound to the arena, and are not shared with other
+   * builders.
+   */
+  public FastReaderBuilder forArena(RecordArena arena) {
+    FastReaderBuilder builder = new FastReaderBuilder(data).withKeyClassEnabled(keyClassEnabled)
+        .withClassPropEnabled(classPropEnabled).withCompiledRecordsEnabled(compiledRecordsEnabled);
+    builder.arena = arena;
+    return builder;
+  }
+
   public <D> DatumReader<D> createDatumReader(Schema schema) throws IOException {
     return createDatumReader(schema, schema);
   }
 
   @SuppressWarnings("unchecked")
   public <D> DatumReader<D> createDatumReader(Schema writerSchema, Schema readerSchema) throws IOException {
-    Schema resolvedWriterSchema = Schema.applyAliases(writerSchema, readerSchema);
-    return (DatumReader<D>) getReaderFor(readerSchema, resolvedWriterSchema);
-  }
-
-  private FieldReader getReaderFor(Schema readerSchema, Schema writerSchema) throws IOException {
-    Action resolvedAction = Resolver.resolve(writerSchema, readerSchema, data);
-    return getReaderFor(resolvedAction, null);
+    if (arena != null) {
+      // bound to the arena, so not worth caching beyond the reader built
+      return (DatumReader<D>) getReaderFor(ResolverCache.get().resolve(writerSchema, readerSchema, data), null);
+    }
+    // the readers are shared through the resolver cache, for this builder only
+    return (DatumReader<D>) ResolverCache.get().get(writerSchema, readerSchema, this,
+        () -> getReaderFor(ResolverCache.get().resolve(writerSchema, readerSchema, data), null));
   }
 
   private FieldReader getReaderFor(Action action, Conversion<?> explicitConversion) throws IOException {
-    final FieldReader baseReader = getNonConvertedReader(action);
+    FieldReader baseReader = getNonConvertedReader(action);
+    if (arena != null && action.reader.getType() != Schema.Type.UNION) {
+      baseReader = recyclingReader(action.reader, baseReader);
+    }
     return applyConversions(action.reader, baseReader, explicitConversion);
   }
 
+  /**
+   * Wraps a reader so that the value in the place of the one read is either
+   * reused by the reader or given to the arena, as the generic reader does.
+   */
+  private FieldReader recyclingReader(Schema readerSchema, FieldReader reader) {
+    return reusingReader((old, decoder) -> {
+      Object reuse = old;
+      if (!RecordArena.fits(old, readerSchema)) {
+        arena.release(old);
+        reuse = arena.take(readerSchema);
+      }
+      Object datum = reader.read(reuse, decoder);
+      if (reuse != null && datum != reuse) {
+        arena.release(reuse);
+      }
+      return datum;
+    });
+  }
+
   private RecordReader createRecordReader(RecordAdjust action) throws IOException {
     // record readers are created in a two-step process, first registering it, then
     // initializing it,
@@ -170,13 +230,33 @@ public class FastReaderBuilder {
       readSteps[i] = getDefaultingStep(action.readerOrder[fieldCounter++]);
     }
 
-    recordReader.finishInitialization(readSteps, action.reader, action.instanceSupplier);
+    MethodHandle compiledSteps = compiledRecordsEnabled ? compileSteps(readSteps) : null;
+    recordReader.finishInitialization(readSteps, action.reader, action.instanceSupplier, compiledSteps);
     return recordReader;
   }
 
+  private static final MethodHandle EXECUTE_STEP;
+  static {
+    try {
+      EXECUTE_STEP = MethodHandles.lookup().findVirtual(ExecutionStep.class, "execute",
+          MethodType.methodType(void.class, Object.class, Decoder.class));
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  private static MethodHandle compileSteps(ExecutionStep[] readSteps) {
+    MethodHandle[] steps = new MethodHandle[readSteps.length];
+    for (int i = 0; i < steps.length; i++) {
+      steps[i] = EXECUTE_STEP.bindTo(readSteps[i]);
+    }
+    return CompiledSteps.sequence(steps);
+  }
+
   private ExecutionStep createFieldSetter(Field field, FieldReader reader) {
     int pos = field.pos();
-    if (reader.canReuse()) {
+    // with an arena, the old value is always passed on, to be recycled
+    if (reader.canReuse() || arena != null) {
       return (object, decoder) -> {
         IndexedRecord record = (IndexedRecord) object;
         record.put(pos, reader.read(record.get(pos), decoder));
@@ -410,7 +490,7 @@ public class FastReaderBuilder {
   private FieldReader createUnionReader(FieldReader[] unionReaders) {
     return reusingReader((reuse, decoder) -> {
       final int selection = decoder.readIndex();
-      return unionReaders[selection].read(null, decoder);
+      return unionReaders[selection].read(arena == null ? null : reuse, decoder);
     });
 
   }
@@ -418,7 +498,7 @@ public class FastReaderBuilder {
   private FieldReader createMapReader(Schema readerSchema, Container action) throws IOException {
     FieldReader keyReader = createMapKeyReader(readerSchema);
     FieldReader valueReader = getReaderFor(action.elementAction, null);
-    return new MapReader(keyReader, valueReader);
+    return new MapReader(keyReader, valueReader, arena);
   }
 
   private FieldReader createMapKeyReader(Schema readerSchema) {
@@ -455,13 +535,23 @@ public class FastReaderBuilder {
 
   @SuppressWarnings("unchecked")
   private FieldReader createArrayReader(Schema readerSchema, Container action) throws IOException {
+    if (isBulkReadable(action.elementAction)) {
+      return createBulkArrayReader(readerSchema, action.elementAction.reader.getType());
+    }
     FieldReader elementReader = getReaderFor(action.elementAction, null);
 
     return reusingReader((reuse, decoder) -> {
+      if (reuse instanceof PrimitivesArrays.PrimitiveArray) {
+        reuse = data.newArray(reuse, 0, readerSchema); // replaced if it cannot hold the elements
+      }
       if (reuse instanceof GenericArray) {
         GenericArray<Object> reuseArray = (GenericArray<Object>) reuse;
         long l = decoder.readArrayStart();
-        reuseArray.clear();
+        if (arena == null) {
+          reuseArray.clear();
+        } else {
+          reuseArray.reset(); // keeps the elements, to be reused
+        }
 
         while (l > 0) {
           for (long i = 0; i < l; i++) {
@@ -486,6 +576,103 @@ public class FastReaderBuilder {
     });
   }
 
+  private static final int BULK_CHUNK_SIZE = 512;
+
+  private boolean isBulkReadable(Action elementAction) {
+    if (elementAction.type != Action.Type.DO_NOTHING || elementAction.reader.getLogicalType() != null) {
+      return false;
+    }
+    switch (elementAction.reader.getType()) {
+    case BOOLEAN:
+    case INT:
+    case LONG:
+    case FLOAT:
+    case DOUBLE:
+      return true;
+    default:
+      return false;
+    }
+  }
+
+  /**
+   * Creates a reader for arrays of booleans, ints, longs, floats or doubles. New
+   * arrays are the {@link PrimitivesArrays} picked by
+   * {@link GenericData#newArray}, which are filled directly by the decoder's bulk
+   * methods. Other reused lists get the items in chunks.
+   */
+  @SuppressWarnings("unchecked")
+  private FieldReader createBulkArrayReader(Schema readerSchema, Schema.Type type) {
+    return reusingReader((reuse, decoder) -> {
+      long l = decoder.readArrayStart();
+      Object array = data.newArray((reuse instanceof List) ? reuse : null, (int) l, readerSchema);
+      if (array instanceof PrimitivesArrays.PrimitiveArray) {
+        PrimitivesArrays.PrimitiveArray<?> primitiveArray = (PrimitivesArrays.PrimitiveArray<?>) array;
+        while (l > 0) {
+          primitiveArray.readItems(decoder, l);
+          l = decoder.arrayNext();
+        }
+        return primitiveArray;
+      }
+      List<Object> list = (List<Object>) array;
+      list.clear();
+      while (l > 0) {
+        readBulkItems(list, l, type, decoder);
+        l = decoder.arrayNext();
+      }
+      return list;
+    });
+  }
+
+  private static void readBulkItems(List<Object> array, long l, Schema.Type type, Decoder decoder) throws IOException {
+    int chunk = (int) Math.min(l, BULK_CHUNK_SIZE);
+    switch (type) {
+    case BOOLEAN:
+      for (long i = 0; i < l; i++) {
+        array.add(decoder.readBoolean());
+      }
+      break;
+    case INT:
+      int[] ints = new int[chunk];
+      for (long i = 0; i < l; i += chunk) {
+        int n = (int) Math.min(chunk, l - i);
+        decoder.readInts(ints, 0, n);
+        for (int j = 0; j < n; j++) {
+          array.add(ints[j]);
+        }
+      }
+      break;
+    case LONG:
+      long[] longs = new long[chunk];
+      for (long i = 0; i < l; i += chunk) {
+        int n = (int) Math.min(chunk, l - i);
+        decoder.readLongs(longs, 0, n);
+        for (int j = 0; j < n; j++) {
+          array.add(longs[j]);
+        }
+      }
+      break;
+    case FLOAT:
+      float[] floats = new float[chunk];
+      for (long i = 0; i < l; i += chunk) {
+        int n = (int) Math.min(chunk, l - i);
+        decoder.readFloats(floats, 0, n);
+        for (int j = 0; j < n; j++) {
+          array.add(floats[j]);
+        }
+      }
+      break;
+    default:
+      double[] doubles = new double[chunk];
+      for (long i = 0; i < l; i += chunk) {
+        int n = (int) Math.min(chunk, l - i);
+        decoder.readDoubles(doubles, 0, n);
+        for (int j = 0; j < n; j++) {
+          array.add(doubles[j]);
+        }
+      }
+    }
+  }
+
   private FieldReader createEnumReader(EnumAdjust action) {
     return reusingReader((reuse, decoder) -> {
       int index = decoder.readEnum();
@@ -541,6 +728,7 @@ public class FastReaderBuilder {
     }
 
     private ExecutionStep[] readSteps;
+    private MethodHandle compiledSteps;
     private InstanceSupplier supplier;
     private Schema schema;
     private Stage stage = Stage.NEW;
@@ -558,7 +746,18 @@ public class FastReaderBuilder {
     }
 
     public void finishInitialization(ExecutionStep[] readSteps, Schema schema, InstanceSupplier supp) {
+      finishInitialization(readSteps, schema, supp, null);
+    }
+
+    /**
+     * As {@link #finishInitialization(ExecutionStep[], Schema, InstanceSupplier)},
+     * with a handle of type <tt>(Object, Decoder)void</tt> that runs all the read
+     * steps, used instead of them if not null.
+     */
+    public void finishInitialization(ExecutionStep[] readSteps, Schema schema, InstanceSupplier supp,
+        MethodHandle compiledSteps) {
       this.readSteps = readSteps;
+      this.compiledSteps = compiledSteps;
       this.schema = schema;
       this.supplier = supp;
       this.stage = Stage.INITIALIZED;
@@ -572,6 +771,14 @@ public class FastReaderBuilder {
     @Override
     public Object read(Object reuse, Decoder decoder) throws IOException {
       Object object = supplier.newInstance(reuse, schema);
+      if (compiledSteps != null) {
+        try {
+          compiledSteps.invokeExact(object, decoder);
+        } catch (Throwable t) {
+          throw CompiledSteps.rethrow(t);
+        }
+        return object;
+      }
       for (ExecutionStep thisStep : readSteps) {
         thisStep.execute(object, decoder);
       }
@@ -583,20 +790,43 @@ public class FastReaderBuilder {
 
     private final FieldReader keyReader;
     private final FieldReader valueReader;
+    private final RecordArena arena;
 
     public MapReader(FieldReader keyReader, FieldReader valueReader) {
+      this(keyReader, valueReader, null);
+    }
+
+    /**
+     * Creates a reader of maps that, if the arena is not null, reuses the map given
+     * and recycles its keys and values through the arena.
+     */
+    public MapReader(FieldReader keyReader, FieldReader valueReader, RecordArena arena) {
       this.keyReader = keyReader;
       this.valueReader = valueReader;
+      this.arena = arena;
+    }
+
+    @Override
+    public boolean canReuse() {
+      return arena != null;
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public Object read(Object reuse, Decoder decoder) throws IOException {
       long l = decoder.readMapStart();
-      Map<Object, Object> targetMap = new HashMap<>();
+      Map<Object, Object> targetMap;
+      if (arena != null && reuse instanceof Map) {
+        targetMap = (Map<Object, Object>) reuse;
+        arena.releaseEntries(targetMap);
+        targetMap.clear();
+      } else {
+        targetMap = new HashMap<>();
+      }
 
       while (l > 0) {
         for (int i = 0; i < l; i++) {
-          Object key = keyReader.read(null, decoder);
+          Object key = readKey(decoder);
           Object value = valueReader.read(null, decoder);
           targetMap.put(key, value);
         }
@@ -605,6 +835,18 @@ public class FastReaderBuilder {
 
       return targetMap;
     }
+
+    private Object readKey(Decoder decoder) throws IOException {
+      if (arena == null) {
+        return keyReader.read(null, decoder);
+      }
+      Object reuse = arena.takeString();
+      Object key = keyReader.read(reuse, decoder);
+      if (reuse != null && key != reuse) {
+        arena.release(reuse);
+      }
+      return key;
+    }
   }
 
   public interface ExecutionStep {
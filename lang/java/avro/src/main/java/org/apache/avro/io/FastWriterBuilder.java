@@ -0,0 +1,584 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.avro.io;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import org.apache.avro.AvroTypeException;
+import org.apache.avro.Conversion;
+import org.apache.avro.Conversions;
+import org.apache.avro.JsonProperties;
+import org.apache.avro.LogicalType;
+import org.apache.avro.Schema;
+import org.apache.avro.Schema.Field;
+import org.apache.avro.UnresolvedUnionException;
+import org.apache.avro.generic.GenericArray;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericEnumSymbol;
+import org.apache.avro.generic.GenericFixed;
+import org.apache.avro.generic.IndexedRecord;
+import org.apache.avro.generic.LazyGenericRecord;
+import org.apache.avro.generic.PrimitivesArrays;
+import org.apache.avro.io.FastReaderBuilder.RecordReader.Stage;
+import org.apache.avro.specific.SpecificData;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.avro.util.Utf8;
+import org.apache.avro.util.WeakIdentityHashMap;
+
+/**
+ * Write-side counterpart of {@link FastReaderBuilder}: compiles a schema once
+ * into a tree of {@link FieldWriter}s, with conversions, union branches and
+ * primitive writers resolved up front, instead of switching on the schema for
+ * every value written.
+ */
+public class FastWriterBuilder {
+
+  /**
+   * Generic/SpecificData instance that contains basic functionalities like access
+   * to fields and conversions
+   */
+  private final GenericData data;
+
+  private final boolean specific;
+
+  private final Map<Schema, RecordWriter> writerCache = Collections.synchronizedMap(new WeakIdentityHashMap<>());
+
+  private boolean compiledRecordsEnabled = "true"
+      .equalsIgnoreCase(System.getProperty(FastReaderBuilder.COMPILED_RECORDS_PROP));
+
+  public static FastWriterBuilder get() {
+    return new FastWriterBuilder(GenericData.get());
+  }
+
+  public static FastWriterBuilder getSpecific() {
+    return new FastWriterBuilder(SpecificData.get());
+  }
+
+  public static boolean isSupportedData(GenericData data) {
+    return FastReaderBuilder.isSupportedData(data);
+  }
+
+  /**
+   * Only the plain generic and specific writers use a plan, as it bypasses the
+   * methods that subclasses may override.
+   */
+  public static boolean isSupportedWriter(GenericDatumWriter<?> writer) {
+    return writer.getClass() == GenericDatumWriter.class || writer.getClass() == SpecificDatumWriter.class;
+  }
+
+  public FastWriterBuilder(GenericData parentData) {
+    this.data = parentData;
+    this.specific = parentData instanceof SpecificData;
+  }
+
+  /**
+   * Whether the field writes of each record writer are fused into one method
+   * handle that the JVM compiles into straight-line code per record schema (see
+   * {@link CompiledSteps}), instead of being called in a loop.
+   */
+  public FastWriterBuilder withCompiledRecordsEnabled(boolean enabled) {
+    this.compiledRecordsEnabled = enabled;
+    return this;
+  }
+
+  public boolean isCompiledRecordsEnabled() {
+    return this.compiledRecordsEnabled;
+  }
+
+  @SuppressWarnings("unchecked")
+  public <D> DatumWriter<D> createDatumWriter(Schema schema) throws IOException {
+    return (DatumWriter<D>) getWriterFor(schema, null);
+  }
+
+  private FieldWriter getWriterFor(Schema schema, Conversion<?> explicitConversion) throws IOException {
+    final FieldWriter baseWriter = getNonConvertedWriter(schema);
+    return applyConversions(schema, baseWriter, explicitConversion);
+  }
+
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private FieldWriter applyConversions(Schema schema, FieldWriter writer, Conversion<?> explicitConversion) {
+    LogicalType logicalType = schema.getLogicalType();
+    if (logicalType == null) {
+      return writer;
+    }
+    if (explicitConversion != null) {
+      Conversion conversion = explicitConversion;
+      return (datum, out) -> writer
+          .write(datum == null ? null : Conversions.convertToRawType(datum, schema, logicalType, conversion), out);
+    }
+    // as in GenericDatumWriter, the conversion depends on the class of the value
+    return (datum, out) -> {
+      if (datum != null) {
+        Conversion conversion = data.getConversionByClass(datum.getClass(), logicalType);
+        if (conversion != null) {
+          datum = Conversions.convertToRawType(datum, schema, logicalType, conversion);
+        }
+      }
+      writer.write(datum, out);
+    };
+  }
+
+  private FieldWriter getNonConvertedWriter(Schema schema) throws IOException {
+    FieldWriter writer = createNonConvertedWriter(schema);
+    if (schema.getType() == Schema.Type.RECORD) {
+      return writer; // adds its own name to null pointer exceptions
+    }
+    // as in GenericDatumWriter, null pointer exceptions tell the schema written
+    String suffix = " of " + schema.getFullName();
+    return (datum, out) -> {
+      try {
+        writer.write(datum, out);
+      } catch (NullPointerException e) {
+        throw npe(e, suffix);
+      }
+    };
+  }
+
+  private FieldWriter createNonConvertedWriter(Schema schema) throws IOException {
+    switch (schema.getType()) {
+    case RECORD:
+      return createRecordWriter(schema);
+    case ENUM:
+      return createEnumWriter(schema);
+    case ARRAY:
+      return createArrayWriter(schema);
+    case MAP:
+      return createMapWriter(schema);
+    case UNION:
+      return createUnionWriter(schema);
+    case FIXED:
+      int size = schema.getFixedSize();
+      return (datum, out) -> out.writeFixed(((GenericFixed) datum).bytes(), 0, size);
+    case STRING:
+      return createStringWriter(schema);
+    case BYTES:
+      return (datum, out) -> out.writeBytes((ByteBuffer) datum);
+    case INT:
+      return (datum, out) -> out.writeInt(((Number) datum).intValue());
+    case LONG:
+      return (datum, out) -> out.writeLong(((Number) datum).longValue());
+    case FLOAT:
+      return (datum, out) -> out.writeFloat(((Number) datum).floatValue());
+    case DOUBLE:
+      return (datum, out) -> out.writeDouble(((Number) datum).doubleValue());
+    case BOOLEAN:
+      return (datum, out) -> out.writeBoolean((Boolean) datum);
+    case NULL:
+      return (datum, out) -> out.writeNull();
+    default:
+      throw new IllegalStateException("Error getting writer for schema " + schema);
+    }
+  }
+
+  private RecordWriter createRecordWriter(Schema schema) throws IOException {
+    // record writers are created in a two-step process, first registering it,
+    // then initializing it, to prevent endless loops on recursive types
+    RecordWriter recordWriter = writerCache.computeIfAbsent(schema, k -> new RecordWriter());
+    synchronized (recordWriter) {
+      // only need to initialize once
+      if (recordWriter.getInitializationStage() == Stage.NEW) {
+        initializeRecordWriter(recordWriter, schema);
+      }
+    }
+    return recordWriter;
+  }
+
+  private void initializeRecordWriter(RecordWriter recordWriter, Schema schema) throws IOException {
+    recordWriter.startInitialization();
+
+    List<Field> fields = schema.getFields();
+    FieldWriter[] fieldWriters = new FieldWriter[fields.size()];
+    for (Field field : fields) {
+      fieldWriters[field.pos()] = getWriterFor(field.schema(), null);
+    }
+
+    // generated classes carry their own conversions, which are applied without
+    // looking at the class of the value
+    FieldWriter[] specificWriters = null;
+    DatumWriter<Object> customWriter = null;
+    if (specific) {
+      Object testInstance = data.newRecord(null, schema);
+      if (testInstance instanceof SpecificRecordBase) {
+        IntFunction<Conversion<?>> conversions = ((SpecificRecordBase) testInstance)::getConversion;
+        specificWriters = new FieldWriter[fields.size()];
+        for (Field field : fields) {
+          Conversion<?> conversion = conversions.apply(field.pos());
+          FieldWriter writer = getNonConvertedWriter(field.schema());
+          specificWriters[field.pos()] = conversion == null ? writer
+              : applyConversions(field.schema(), writer, conversion);
+        }
+        if (((SpecificData) data).useCustomCoders()) {
+          // whether a class has custom coders is only known to the specific
+          // writer, which then uses them
+          customWriter = new SpecificFallbackWriter(schema, (SpecificData) data);
+        }
+      }
+    }
+
+    recordWriter.finishInitialization(schema, data, fieldWriters, specificWriters, customWriter,
+        compiledRecordsEnabled);
+  }
+
+  private FieldWriter createEnumWriter(Schema schema) {
+    return (datum, out) -> {
+      if (specific && datum instanceof Enum) {
+        out.writeEnum(((Enum<?>) datum).ordinal());
+        return;
+      }
+      if (!(datum instanceof GenericEnumSymbol))
+        throw new AvroTypeException("Not an enum: " + datum + " for schema: " + schema);
+      out.writeEnum(schema.getEnumOrdinal(datum.toString()));
+    };
+  }
+
+  private FieldWriter createStringWriter(Schema schema) {
+    if (!specific) {
+      return (datum, out) -> out.writeString((CharSequence) datum);
+    }
+    // stringable classes are handled by the specific writer
+    SpecificDatumWriter<Object> fallback = new SpecificFallbackWriter(schema, (SpecificData) data);
+    return (datum, out) -> {
+      if (datum instanceof CharSequence) {
+        out.writeString((CharSequence) datum);
+      } else {
+        fallback.write(datum, out);
+      }
+    };
+  }
+
+  @SuppressWarnings("unchecked")
+  private FieldWriter createArrayWriter(Schema schema) throws IOException {
+    Schema elementSchema = schema.getElementType();
+    FieldWriter elementWriter = getWriterFor(elementSchema, null);
+    boolean primitive = elementSchema.getLogicalType() == null;
+
+    return (datum, out) -> {
+      Collection<Object> array = (Collection<Object>) datum;
+      long size = array.size();
+      long actualSize = 0;
+      out.writeArrayStart();
+      out.setItemCount(size);
+      if (primitive && array instanceof PrimitivesArrays.PrimitiveArray
+          && ((GenericArray<?>) array).getSchema().getElementType().getType() == elementSchema.getType()
+          && !((PrimitivesArrays.PrimitiveArray<?>) array).hasNulls()) {
+        ((PrimitivesArrays.PrimitiveArray<?>) array).writeItems(out);
+        actualSize = size;
+      } else {
+        for (Object element : array) {
+          out.startItem();
+          elementWriter.write(element, out);
+          actualSize++;
+        }
+      }
+      out.writeArrayEnd();
+      if (actualSize != size) {
+        throw new ConcurrentModificationException(
+            "Size of array written was " + size + ", but number of elements written was " + actualSize + ". ");
+      }
+    };
+  }
+
+  @SuppressWarnings("unchecked")
+  private FieldWriter createMapWriter(Schema schema) throws IOException {
+    FieldWriter valueWriter = getWriterFor(schema.getValueType(), null);
+    // other keys are strings only if the data model can write them as such
+    FieldWriter keyWriter = createStringWriter(Schema.create(Schema.Type.STRING));
+
+    return (datum, out) -> {
+      Map<Object, Object> map = (Map<Object, Object>) datum;
+      int size = map.size();
+      int actualSize = 0;
+      out.writeMapStart();
+      out.setItemCount(size);
+      for (Map.Entry<Object, Object> entry : map.entrySet()) {
+        out.startItem();
+        Object key = entry.getKey();
+        if (key instanceof Utf8) {
+          out.writeString((Utf8) key);
+        } else if (key instanceof CharSequence) {
+          out.writeString(key.toString());
+        } else {
+          keyWriter.write(key, out);
+        }
+        valueWriter.write(entry.getValue(), out);
+        actualSize++;
+      }
+      out.writeMapEnd();
+      if (actualSize != size) {
+        throw new ConcurrentModificationException(
+            "Size of map written was " + size + ", but number of entries written was " + actualSize + ". ");
+      }
+    };
+  }
+
+  private FieldWriter createUnionWriter(Schema schema) throws IOException {
+    List<Schema> branches = schema.getTypes();
+    FieldWriter[] branchWriters = new FieldWriter[branches.size()];
+    for (int i = 0; i < branchWriters.length; i++) {
+      branchWriters[i] = getWriterFor(branches.get(i), null);
+    }
+
+    // Values of a type that maps to exactly one branch are dispatched here. The
+    // others, and all values of unions with logical types (whose conversions
+    // take precedence), are resolved by the data model.
+    boolean hasLogicalTypes = branches.stream().anyMatch(s -> s.getLogicalType() != null);
+    Schema.Type[] directTypes = new Schema.Type[hasLogicalTypes ? 0 : branches.size()];
+    int nullIndex = -1;
+    for (int i = 0; i < directTypes.length; i++) {
+      directTypes[i] = branches.get(i).getType();
+      if (directTypes[i] == Schema.Type.NULL) {
+        nullIndex = i;
+      }
+    }
+    int nullBranch = nullIndex;
+
+    return (datum, out) -> {
+      int index = -1;
+      if (datum == null || datum == JsonProperties.NULL_VALUE) {
+        index = nullBranch;
+      } else {
+        for (int i = 0; i < directTypes.length; i++) {
+          if (isDirectValue(directTypes[i], datum)) {
+            index = i;
+            break;
+          }
+        }
+      }
+      if (index < 0) {
+        index = data.resolveUnion(schema, datum);
+      }
+      out.writeIndex(index);
+      branchWriters[index].write(datum, out);
+    };
+  }
+
+  /**
+   * Whether a value resolves to a union branch of the type, with the same result
+   * as {@link GenericData#resolveUnion}.
+   */
+  private static boolean isDirectValue(Schema.Type type, Object datum) {
+    switch (type) {
+    case STRING:
+      return datum instanceof CharSequence;
+    case BYTES:
+      return datum instanceof ByteBuffer;
+    case INT:
+      return datum instanceof Integer;
+    case LONG:
+      return datum instanceof Long;
+    case FLOAT:
+      return datum instanceof Float;
+    case DOUBLE:
+      return datum instanceof Double;
+    case BOOLEAN:
+      return datum instanceof Boolean;
+    default:
+      return false;
+    }
+  }
+
+  @FunctionalInterface
+  public interface FieldWriter extends DatumWriter<Object> {
+    @Override
+    void write(Object datum, Encoder out) throws IOException;
+
+    @Override
+    default void setSchema(Schema schema) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  public static class RecordWriter implements FieldWriter {
+    private Stage stage = Stage.NEW;
+    private Schema schema;
+    private GenericData data;
+    private Field[] fields;
+    private FieldWriter[] fieldWriters;
+    private FieldWriter[] specificWriters;
+    private DatumWriter<Object> customWriter;
+    private MethodHandle compiledFieldSteps;
+    private MethodHandle compiledSpecificSteps;
+    private volatile Schema equalLazySchema;
+
+    public Stage getInitializationStage() {
+      return this.stage;
+    }
+
+    public void reset() {
+      this.stage = Stage.NEW;
+    }
+
+    public void startInitialization() {
+      this.stage = Stage.INITIALIZING;
+    }
+
+    /**
+     * Completes this writer. If <tt>compile</tt> is set, the field writes for
+     * {@link IndexedRecord}s are fused into one method handle that the JVM compiles
+     * into straight-line code (see {@link CompiledSteps}).
+     */
+    public void finishInitialization(Schema schema, GenericData data, FieldWriter[] fieldWriters,
+        FieldWriter[] specificWriters, DatumWriter<Object> customWriter, boolean compile) {
+      this.schema = schema;
+      this.data = data;
+      this.fields = schema.getFields().toArray(new Field[0]);
+      this.fieldWriters = fieldWriters;
+      this.specificWriters = specificWriters;
+      this.customWriter = customWriter;
+      if (compile) {
+        this.compiledFieldSteps = compileSteps(fieldWriters);
+        this.compiledSpecificSteps = specificWriters == null ? null : compileSteps(specificWriters);
+      }
+      this.stage = Stage.INITIALIZED;
+    }
+
+    private MethodHandle compileSteps(FieldWriter[] writers) {
+      MethodHandle[] steps = new MethodHandle[writers.length];
+      for (int i = 0; i < steps.length; i++) {
+        steps[i] = WRITE_FIELD_STEP.bindTo(new FieldStep(this, writers[i], i));
+      }
+      return CompiledSteps.sequence(steps);
+    }
+
+    @Override
+    public void write(Object datum, Encoder out) throws IOException {
+      if (datum instanceof LazyGenericRecord && out instanceof BinaryEncoder) {
+        // an unchanged lazy record is written by copying its encoding
+        LazyGenericRecord lazy = (LazyGenericRecord) datum;
+        ByteBuffer encoded = lazy.getEncoded();
+        if (encoded != null && isLazySchema(lazy.getSchema())) {
+          out.writeFixed(encoded);
+          return;
+        }
+      }
+      try {
+        FieldWriter[] writers = fieldWriters;
+        MethodHandle compiledSteps = compiledFieldSteps;
+        if (specificWriters != null && datum instanceof SpecificRecordBase) {
+          if (customWriter != null) {
+            customWriter.write(datum, out);
+            return;
+          }
+          writers = specificWriters;
+          compiledSteps = compiledSpecificSteps;
+        }
+        if (compiledSteps != null && datum instanceof IndexedRecord) {
+          try {
+            compiledSteps.invokeExact(datum, out);
+          } catch (Throwable t) {
+            throw CompiledSteps.rethrow(t);
+          }
+        } else if (datum instanceof IndexedRecord) {
+          IndexedRecord record = (IndexedRecord) datum;
+          for (int i = 0; i < writers.length; i++) {
+            writeField(writers[i], record.get(i), i, out);
+          }
+        } else {
+          for (int i = 0; i < writers.length; i++) {
+            writeField(writers[i], data.getField(datum, fields[i].name(), i), i, out);
+          }
+        }
+      } catch (NullPointerException e) {
+        throw npe(e, " of " + schema.getFullName());
+      }
+    }
+
+    private boolean isLazySchema(Schema lazySchema) {
+      if (lazySchema == schema || lazySchema == equalLazySchema) {
+        return true;
+      }
+      if (schema.equals(lazySchema)) {
+        equalLazySchema = lazySchema; // distinct but equal, remembered for the next records
+        return true;
+      }
+      return false;
+    }
+
+    private void writeField(FieldWriter writer, Object value, int pos, Encoder out) throws IOException {
+      try {
+        writer.write(value, out);
+      } catch (final UnresolvedUnionException uue) { // recreate it with the right field info
+        Field f = fields[pos];
+        final UnresolvedUnionException unresolvedUnionException = new UnresolvedUnionException(f.schema(), f, value);
+        unresolvedUnionException.addSuppressed(uue);
+        throw unresolvedUnionException;
+      } catch (NullPointerException e) {
+        throw npe(e, " in field " + fields[pos].name());
+      } catch (ClassCastException cce) {
+        ClassCastException result = new ClassCastException(cce.getMessage() + " in field " + fields[pos].name());
+        result.initCause(cce.getCause() == null ? cce : cce.getCause());
+        throw result;
+      } catch (AvroTypeException ate) {
+        AvroTypeException result = new AvroTypeException(ate.getMessage() + " in field " + fields[pos].name());
+        result.initCause(ate.getCause() == null ? ate : ate.getCause());
+        throw result;
+      }
+    }
+  }
+
+  private static NullPointerException npe(NullPointerException e, String s) {
+    NullPointerException result = new NullPointerException(e.getMessage() + s);
+    result.initCause(e.getCause() == null ? e : e.getCause());
+    return result;
+  }
+
+  private static final MethodHandle WRITE_FIELD_STEP;
+  static {
+    try {
+      WRITE_FIELD_STEP = MethodHandles.lookup().findVirtual(FieldStep.class, "write",
+          MethodType.methodType(void.class, Object.class, Encoder.class));
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  /** Writes one field of an {@link IndexedRecord}, as a compiled step. */
+  private static final class FieldStep {
+    private final RecordWriter recordWriter;
+    private final FieldWriter writer;
+    private final int pos;
+
+    FieldStep(RecordWriter recordWriter, FieldWriter writer, int pos) {
+      this.recordWriter = recordWriter;
+      this.writer = writer;
+      this.pos = pos;
+    }
+
+    void write(Object record, Encoder out) throws IOException {
+      recordWriter.writeField(writer, ((IndexedRecord) record).get(pos), pos, out);
+    }
+  }
+
+  /**
+   * A specific writer that never uses the fast path, for values it can't handle.
+   */
+  private static class SpecificFallbackWriter extends SpecificDatumWriter<Object> {
+    SpecificFallbackWriter(Schema schema, SpecificData data) {
+      super(schema, data);
+    }
+  }
+}
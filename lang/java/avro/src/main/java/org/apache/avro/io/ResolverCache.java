@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.io;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.avro.Resolver;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+
+/**
+ * A cache of what it takes to read data of a writer schema as a reader schema:
+ * the grammars of {@link ResolvingDecoder}s, {@link Resolver.Action} trees and
+ * the readers built by {@link FastReaderBuilder}. Entries are keyed by the
+ * identity of both schemas and of the data model they are for, so that they are
+ * shared by all threads, and data read through them refer to the schema
+ * instances given. Equal schemas that are parsed with
+ * {@link Schema.Parser#setIntern(boolean) interning} are the same instance, and
+ * so share their entries.
+ * <p/>
+ * The cache holds at most a given number of entries, evicting the least
+ * recently used ones, and keeps the schemas of its entries in use.
+ * <p/>
+ * This class is thread-safe. The values are computed without holding its lock,
+ * so that threads may resolve other schemas meanwhile; two threads may then
+ * compute the same value, of which one is kept.
+ */
+public final class ResolverCache {
+  /** The system property with the size of the {@link #get() shared} cache. */
+  public static final String SIZE_PROP = "org.apache.avro.resolvercache.size";
+
+  private static final ResolverCache SHARED = new ResolverCache(Integer.getInteger(SIZE_PROP, 1024));
+
+  /** The model of the entries that do not depend on a data model. */
+  private static final Object GRAMMAR = new Object();
+
+  private final Map<Key, Object> entries;
+
+  /** Returns the cache shared by the datum readers. */
+  public static ResolverCache get() {
+    return SHARED;
+  }
+
+  /** Creates a cache of at most the given number of entries. */
+  public ResolverCache(final int maxEntries) {
+    this.entries = new LinkedHashMap<Key, Object>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  /**
+   * Returns a {@link ResolvingDecoder} from data of the writer schema to the
+   * reader schema, after applying the reader's aliases to the writer schema. Only
+   * its grammar is cached; the decoder is new.
+   */
+  public ResolvingDecoder resolvingDecoder(Schema writer, Schema reader, Decoder in) throws IOException {
+    Object resolver = get(writer, reader, GRAMMAR,
+        () -> ResolvingDecoder.resolve(Schema.applyAliases(writer, reader), reader));
+    return new ResolvingDecoder(resolver, in);
+  }
+
+  /**
+   * Returns the cached result of
+   * {@link Resolver#resolve(Schema, Schema, GenericData)}.
+   */
+  public Resolver.Action resolve(Schema writer, Schema reader, GenericData data) {
+    try {
+      return get(writer, reader, data, () -> Resolver.resolve(writer, reader, data));
+    } catch (IOException e) {
+      throw new IllegalStateException(e); // not thrown by the resolver
+    }
+  }
+
+  /** Returns the number of entries in this cache. */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /** Removes all the entries of this cache. */
+  public synchronized void clear() {
+    entries.clear();
+  }
+
+  /** Computes a value to cache. */
+  interface Loader<T> {
+    T load() throws IOException;
+  }
+
+  /**
+   * Returns the value cached for the given schemas and model, or loads and caches
+   * it. Schemas and models are compared by identity.
+   */
+  @SuppressWarnings("unchecked")
+  <T> T get(Schema writer, Schema reader, Object model, Loader<T> loader) throws IOException {
+    Key key = new Key(writer, reader, model);
+    Object value;
+    synchronized (this) {
+      value = entries.get(key);
+    }
+    if (value != null) {
+      return (T) value;
+    }
+    T loaded = loader.load();
+    synchronized (this) {
+      value = entries.putIfAbsent(key, loaded);
+    }
+    return value != null ? (T) value : loaded;
+  }
+
+  private static final class Key {
+    private final Schema writer;
+    private final Schema reader;
+    private final Object model;
+
+    Key(Schema writer, Schema reader, Object model) {
+      this.writer = writer;
+      this.reader = reader;
+      this.model = model;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key))
+        return false;
+      Key that = (Key) o;
+      return writer == that.writer && reader == that.reader && model == that.model;
+    }
+
+    @Override
+    public int hashCode() {
+      return (System.identityHashCode(writer) * 31 + System.identityHashCode(reader)) * 31
+          + System.identityHashCode(model);
+    }
+  }
+}
@@ -189,6 +189,42 @@ public class ValidatingDecoder extends ParsingDecoder implements Parser.ActionHa
     return result;
   }
 
+  @Override
+  public void readInts(int[] items, int start, int len) throws IOException {
+    if (parser.isRepeaterOf(Symbol.INT)) {
+      in.readInts(items, start, len);
+    } else {
+      super.readInts(items, start, len);
+    }
+  }
+
+  @Override
+  public void readLongs(long[] items, int start, int len) throws IOException {
+    if (parser.isRepeaterOf(Symbol.LONG)) {
+      in.readLongs(items, start, len);
+    } else {
+      super.readLongs(items, start, len);
+    }
+  }
+
+  @Override
+  public void readFloats(float[] items, int start, int len) throws IOException {
+    if (parser.isRepeaterOf(Symbol.FLOAT)) {
+      in.readFloats(items, start, len);
+    } else {
+      super.readFloats(items, start, len);
+    }
+  }
+
+  @Override
+  public void readDoubles(double[] items, int start, int len) throws IOException {
+    if (parser.isRepeaterOf(Symbol.DOUBLE)) {
+      in.readDoubles(items, start, len);
+    } else {
+      super.readDoubles(items, start, len);
+    }
+  }
+
   @Override
   public long skipArray() throws IOException {
     parser.advance(Symbol.ARRAY_START);
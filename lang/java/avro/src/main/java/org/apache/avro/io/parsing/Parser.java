@@ -150,6 +150,21 @@ public class Parser {
     pos += p.length;
   }
 
+  /**
+   * Returns true if the top of the stack is a repeater that repeats nothing but
+   * the terminal <tt>sym</tt>, for instance while processing the items of an
+   * array of a primitive type that needs no resolution. Each such item can be
+   * consumed without changing the stack.
+   */
+  public final boolean isRepeaterOf(Symbol sym) {
+    Symbol top = stack[pos - 1];
+    if (top.kind != Symbol.Kind.REPEATER) {
+      return false;
+    }
+    Symbol[] p = top.production;
+    return p.length == 2 && p[1] == sym;
+  }
+
   /**
    * Pops and returns the top symbol from the stack.
    */
@@ -27,6 +27,7 @@ import org.apache.avro.io.DatumReader;
 import org.apache.avro.io.DecoderFactory;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 /**
  * A {@link MessageDecoder} that deserializes from raw datum bytes.
@@ -44,6 +45,7 @@ import java.io.InputStream;
 public class RawMessageDecoder<D> extends MessageDecoder.BaseDecoder<D> {
 
   private static final ThreadLocal<BinaryDecoder> DECODER = new ThreadLocal<>();
+  private static final ThreadLocal<BinaryDecoder> ARRAY_DECODER = new ThreadLocal<>();
 
   private final DatumReader<D> reader;
 
@@ -83,6 +85,40 @@ public class RawMessageDecoder<D> extends MessageDecoder.BaseDecoder<D> {
     this.reader = model.createDatumReader(writeSchema1, readSchema1);
   }
 
+  /**
+   * Creates a new {@link RawMessageDecoder} that uses the given
+   * {@link DatumReader} to read datum instances, e.g. a
+   * {@link org.apache.avro.generic.LazyDatumReader}.
+   * <p>
+   * The reader's schema must be the schema that was used to encode all buffers
+   * decoded by this class.
+   *
+   * @param reader the {@link DatumReader} for datum instances
+   */
+  public RawMessageDecoder(DatumReader<D> reader) {
+    this.reader = reader;
+  }
+
+  @Override
+  public D decode(ByteBuffer encoded, D reuse) {
+    // decoded in place rather than through an InputStream
+    return read(DecoderFactory.get().binaryDecoder(encoded, ARRAY_DECODER.get()), reuse);
+  }
+
+  @Override
+  public D decode(byte[] encoded, D reuse) {
+    return read(DecoderFactory.get().binaryDecoder(encoded, ARRAY_DECODER.get()), reuse);
+  }
+
+  private D read(BinaryDecoder decoder, D reuse) {
+    ARRAY_DECODER.set(decoder);
+    try {
+      return reader.read(reuse, decoder);
+    } catch (IOException e) {
+      throw new AvroRuntimeException("Decoding datum failed", e);
+    }
+  }
+
   @Override
   public D decode(InputStream stream, D reuse) {
     BinaryDecoder decoder = DecoderFactory.get().directBinaryDecoder(stream, DECODER.get());
@@ -474,6 +474,17 @@ public class ReflectData extends SpecificData {
     return (datum instanceof Map) && !isNonStringMap(datum);
   }
 
+  @Override
+  protected boolean isUnionBranchCacheable(Class<?> c) {
+    // maps are arrays when their keys are not strings
+    return super.isUnionBranchCacheable(c) && !Map.class.isAssignableFrom(c);
+  }
+
+  @Override
+  protected boolean cachesUnionBranches() {
+    return getClass() == ReflectData.class;
+  }
+
   /*
    * Without the Field or Schema corresponding to the datum, it is not possible to
    * accurately find out the non-stringable nature of the key. So we check the
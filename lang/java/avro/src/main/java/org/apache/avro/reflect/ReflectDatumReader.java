@@ -29,6 +29,7 @@ import org.apache.avro.Conversion;
 import org.apache.avro.LogicalType;
 import org.apache.avro.Schema;
 import org.apache.avro.Schema.Field;
+import org.apache.avro.generic.GenericData;
 import org.apache.avro.generic.IndexedRecord;
 import org.apache.avro.io.Decoder;
 import org.apache.avro.io.ResolvingDecoder;
@@ -84,8 +85,14 @@ public class ReflectDatumReader<T> extends SpecificDatumReader<T> {
       }
     }
 
-    if (collectionClass == null && elementClass == null)
+    if (collectionClass == null && elementClass == null) {
+      if (!(old instanceof Collection) && schema.getElementType().getProp(SpecificData.CLASS_PROP) != null) {
+        // readInt() may return a Byte, Short or Character, which the primitive
+        // arrays of generic cannot hold
+        return new GenericData.Array<Object>(size, schema);
+      }
       return super.newArray(old, size, schema); // use specific/generic
+    }
 
     if (collectionClass != null && !collectionClass.isArray()) {
       if (old instanceof Collection) {
@@ -30,6 +30,7 @@ import org.apache.avro.io.DatumWriter;
 import org.apache.avro.io.DecoderFactory;
 import org.apache.avro.io.EncoderFactory;
 import org.apache.avro.util.ClassUtils;
+import org.apache.avro.util.Utf8;
 
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
@@ -37,6 +38,7 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -44,9 +46,11 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.ServiceLoader;
 import java.util.Set;
 import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 /** Utilities for generated Java classes and interfaces. */
 public class SpecificData extends GenericData {
@@ -69,6 +73,21 @@ public class SpecificData extends GenericData {
     }
 
   };
+  private static final ClassValue<SpecificData> MODEL_CACHE = new ClassValue<SpecificData>() {
+    @Override
+    protected SpecificData computeValue(Class<?> c) {
+      try {
+        Field specificDataField = c.getDeclaredField("MODEL$");
+        specificDataField.setAccessible(true);
+        return (SpecificData) specificDataField.get(null);
+      } catch (NoSuchFieldException e) {
+        // Return default instance
+        return SpecificData.get();
+      } catch (IllegalAccessException e) {
+        throw new AvroRuntimeException(e);
+      }
+    }
+  };
 
   public static final String CLASS_PROP = "java-class";
   public static final String KEY_CLASS_PROP = "java-key-class";
@@ -140,6 +159,9 @@ public class SpecificData extends GenericData {
    */
   public static SpecificData getForSchema(Schema reader) {
     if (reader != null && reader.getType() == Type.RECORD) {
+      Class<?> indexed = INSTANCE.getIndexedClass(reader.getFullName());
+      if (indexed != null)
+        return getForClass(indexed);
       final String className = getClassName(reader);
       if (className != null) {
         final Class<?> clazz;
@@ -159,7 +181,8 @@ public class SpecificData extends GenericData {
    * returns the SpecificData instance from the field {@code MODEL$}, in order to
    * get the correct {@link org.apache.avro.Conversion} instances for the class.
    * Falls back to the default instance {@link SpecificData#get()} for other
-   * classes or if the field is not found.
+   * classes or if the field is not found. The field is read once per class, once
+   * it is set.
    *
    * @param c A class
    * @param   <T> .
@@ -168,17 +191,12 @@ public class SpecificData extends GenericData {
    */
   public static <T> SpecificData getForClass(Class<T> c) {
     if (SpecificRecordBase.class.isAssignableFrom(c)) {
-      final Field specificDataField;
-      try {
-        specificDataField = c.getDeclaredField("MODEL$");
-        specificDataField.setAccessible(true);
-        return (SpecificData) specificDataField.get(null);
-      } catch (NoSuchFieldException e) {
-        // Return default instance
-        return SpecificData.get();
-      } catch (IllegalAccessException e) {
-        throw new AvroRuntimeException(e);
+      SpecificData model = MODEL_CACHE.get(c);
+      if (model == null) {
+        // MODEL$ is read before it is set while the class initializes: retry later
+        MODEL_CACHE.remove(c);
       }
+      return model;
     }
     return SpecificData.get();
   }
@@ -227,6 +245,8 @@ public class SpecificData extends GenericData {
   }
 
   private Map<String, Class> classCache = new ConcurrentHashMap<>();
+  private final Map<Class<?>, Supplier<?>> indexedSuppliers = new ConcurrentHashMap<>();
+  private volatile List<ClassIndex> classIndexes;
 
   private static final Class NO_CLASS = new Object() {
   }.getClass();
@@ -242,6 +262,9 @@ public class SpecificData extends GenericData {
       if (name == null)
         return null;
       Class<?> c = classCache.computeIfAbsent(name, n -> {
+        Class<?> indexed = getIndexedClass(n);
+        if (indexed != null)
+          return indexed;
         try {
           return ClassUtils.forName(getClassLoader(), getClassName(schema));
         } catch (ClassNotFoundException e) {
@@ -311,6 +334,32 @@ public class SpecificData extends GenericData {
     }
   }
 
+  /**
+   * Returns the class that a {@link ClassIndex} registered with the class loader
+   * of this has for a schema full name, or null if none has.
+   */
+  private Class<?> getIndexedClass(String fullName) {
+    if (fullName == null)
+      return null;
+    List<ClassIndex> indexes = classIndexes;
+    if (indexes == null) {
+      indexes = new ArrayList<>();
+      for (ClassIndex index : ServiceLoader.load(ClassIndex.class, getClassLoader()))
+        indexes.add(index);
+      classIndexes = indexes;
+    }
+    for (ClassIndex index : indexes) {
+      Class<?> c = index.forName(fullName);
+      if (c != null) {
+        Supplier<?> supplier = index.instanceSupplier(fullName);
+        if (supplier != null)
+          indexedSuppliers.put(c, supplier);
+        return c;
+      }
+    }
+    return null;
+  }
+
   /** Returns the Java class name indicated by a schema's name and namespace. */
   public static String getClassName(Schema schema) {
     String namespace = schema.getNamespace();
@@ -414,6 +463,18 @@ public class SpecificData extends GenericData {
     return super.getSchemaName(datum);
   }
 
+  @Override
+  protected boolean isUnionBranchCacheable(Class<?> c) {
+    // generated records and enums have a single schema per class
+    return super.isUnionBranchCacheable(c) || SpecificRecordBase.class.isAssignableFrom(c) || c.isEnum()
+        || isStringable(c);
+  }
+
+  @Override
+  protected boolean cachesUnionBranches() {
+    return getClass() == SpecificData.class;
+  }
+
   /** True if a class should be serialized with toString(). */
   protected boolean isStringable(Class<?> c) {
     return stringableClasses.contains(c);
@@ -451,6 +512,89 @@ public class SpecificData extends GenericData {
     }
   }
 
+  /**
+   * Runtime utility used by generated classes. Compares values of a schema for
+   * equality only, as {@link SpecificRecordBase#equals(Object)} compares records.
+   */
+  public boolean equal(Object o1, Object o2, Schema s) {
+    return compare(o1, o2, s, true) == 0;
+  }
+
+  /**
+   * Runtime utility used by generated classes. Returns the hash code of a string
+   * as {@link #hashCode(Object, Schema)} computes it, without converting it to
+   * {@link Utf8}.
+   */
+  public static int hashCodeString(CharSequence s) {
+    if (s == null)
+      return 0;
+    if (s instanceof Utf8)
+      return s.hashCode();
+    String string = s.toString();
+    int hashCode = 0;
+    for (int i = 0; i < string.length();) {
+      int c = utf8CodePoint(string, i);
+      i += Character.charCount(c);
+      // the hash code of Utf8 adds its bytes, signed
+      if (c < 0x80) {
+        hashCode = 31 * hashCode + c;
+      } else if (c < 0x800) {
+        hashCode = 31 * hashCode + (byte) (0xC0 | (c >> 6));
+        hashCode = 31 * hashCode + (byte) (0x80 | (c & 0x3F));
+      } else if (c < 0x10000) {
+        hashCode = 31 * hashCode + (byte) (0xE0 | (c >> 12));
+        hashCode = 31 * hashCode + (byte) (0x80 | ((c >> 6) & 0x3F));
+        hashCode = 31 * hashCode + (byte) (0x80 | (c & 0x3F));
+      } else {
+        hashCode = 31 * hashCode + (byte) (0xF0 | (c >> 18));
+        hashCode = 31 * hashCode + (byte) (0x80 | ((c >> 12) & 0x3F));
+        hashCode = 31 * hashCode + (byte) (0x80 | ((c >> 6) & 0x3F));
+        hashCode = 31 * hashCode + (byte) (0x80 | (c & 0x3F));
+      }
+    }
+    return hashCode;
+  }
+
+  /**
+   * Runtime utility used by generated classes. Compares strings in the order of
+   * {@link #compare(Object, Object, Schema)}, that of their UTF-8 bytes, without
+   * converting them to {@link Utf8}.
+   */
+  public static int compareStrings(CharSequence s1, CharSequence s2) {
+    if (s1 instanceof Utf8 || s2 instanceof Utf8) {
+      Utf8 u1 = s1 instanceof Utf8 ? (Utf8) s1 : new Utf8(s1.toString());
+      Utf8 u2 = s2 instanceof Utf8 ? (Utf8) s2 : new Utf8(s2.toString());
+      return u1.compareTo(u2);
+    }
+    String string1 = s1.toString();
+    String string2 = s2.toString();
+    int i = 0;
+    int j = 0;
+    while (i < string1.length() && j < string2.length()) {
+      // the order of code points is that of their UTF-8 bytes
+      int c1 = utf8CodePoint(string1, i);
+      int c2 = utf8CodePoint(string2, j);
+      if (c1 != c2)
+        return c1 - c2;
+      i += Character.charCount(c1);
+      j += Character.charCount(c2);
+    }
+    return (string1.length() - i) - (string2.length() - j);
+  }
+
+  /**
+   * Returns the code point at an index of a string as encoded in UTF-8, where
+   * unpaired surrogates are replaced by '?'.
+   */
+  private static int utf8CodePoint(String s, int i) {
+    char c = s.charAt(i);
+    if (!Character.isSurrogate(c))
+      return c;
+    if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1)))
+      return Character.toCodePoint(c, s.charAt(i + 1));
+    return '?';
+  }
+
   /**
    * Create an instance of a class. If the class implements
    * {@link SchemaConstructable}, call a constructor with a
@@ -474,7 +618,7 @@ public class SpecificData extends GenericData {
     Class c = getClass(schema);
     if (c == null)
       return super.createFixed(old, schema); // punt to generic
-    return c.isInstance(old) ? old : newInstance(c, schema);
+    return c.isInstance(old) ? old : instantiate(c, schema);
   }
 
   @Override
@@ -482,7 +626,16 @@ public class SpecificData extends GenericData {
     Class c = getClass(schema);
     if (c == null)
       return super.newRecord(old, schema); // punt to generic
-    return (c.isInstance(old) ? old : newInstance(c, schema));
+    return (c.isInstance(old) ? old : instantiate(c, schema));
+  }
+
+  /**
+   * Create an instance of a class of a schema, with no reflection if the class is
+   * in a {@link ClassIndex}.
+   */
+  private Object instantiate(Class<?> c, Schema schema) {
+    Supplier<?> supplier = indexedSuppliers.get(c);
+    return supplier != null ? supplier.get() : newInstance(c, schema);
   }
 
   @SuppressWarnings("rawtypes")
@@ -498,6 +651,11 @@ public class SpecificData extends GenericData {
       return super.getNewRecordSupplier(schema);
     }
 
+    Supplier<?> supplier = indexedSuppliers.get(c);
+    if (supplier != null) {
+      return (old, sch) -> c.isInstance(old) ? old : supplier.get();
+    }
+
     boolean useSchema = SchemaConstructable.class.isAssignableFrom(c);
     Constructor meth = (Constructor) CTOR_CACHE.get(c);
     Object[] params = useSchema ? new Object[] { schema } : (Object[]) null;
@@ -520,6 +678,24 @@ public class SpecificData extends GenericData {
   public interface SchemaConstructable {
   }
 
+  /**
+   * An index of generated classes by the full names of their schemas, that
+   * creates instances of them without reflection. The compiler generates one on
+   * request, registered as a {@link ServiceLoader service} of this interface, and
+   * {@link SpecificData} consults those registered with its class loader before
+   * looking classes up by name.
+   */
+  public interface ClassIndex {
+    /** Returns the class of the named schema, or null if it is not indexed. */
+    Class<?> forName(String fullName);
+
+    /**
+     * Returns what creates new instances of the class of the named record or fixed
+     * schema, or null if it is not indexed. It is asked once per class.
+     */
+    Supplier<?> instanceSupplier(String fullName);
+  }
+
   /** Runtime utility used by generated classes. */
   public static BinaryDecoder getDecoder(ObjectInput in) {
     return DecoderFactory.get().directBinaryDecoder(new ExternalizableInput(in), null);
@@ -142,4 +142,9 @@ public class SpecificDatumReader<T> extends GenericDatumReader<T> {
       super.readField(record, field, oldDatum, in, state);
     }
   }
+
+  @Override
+  protected boolean readsPrimitiveArraysDirectly() {
+    return getClass() == SpecificDatumReader.class;
+  }
 }
@@ -48,6 +48,8 @@ public class Utf8 implements Comparable<Utf8>, CharSequence {
   }
 
   private byte[] bytes;
+  private int offset;
+  private boolean borrowed;
   private int hash;
   private int length;
   private String string;
@@ -67,7 +69,7 @@ public class Utf8 implements Comparable<Utf8>, CharSequence {
 
   public Utf8(Utf8 other) {
     this.length = other.length;
-    this.bytes = Arrays.copyOf(other.bytes, other.length);
+    this.bytes = Arrays.copyOfRange(other.bytes, other.offset, other.offset + other.length);
     this.string = other.string;
     this.hash = other.hash;
   }
@@ -81,8 +83,16 @@ public class Utf8 implements Comparable<Utf8>, CharSequence {
 
   /**
    * Return UTF-8 encoded bytes. Only valid through {@link #getByteLength()}.
+   * <p/>
+   * If this instance borrows its bytes (see {@link #setBorrowed}), they are first
+   * copied into an array owned by this instance.
    */
   public byte[] getBytes() {
+    if (borrowed) {
+      this.bytes = Arrays.copyOfRange(bytes, offset, offset + length);
+      this.offset = 0;
+      this.borrowed = false;
+    }
     return bytes;
   }
 
@@ -118,7 +128,11 @@ public class Utf8 implements Comparable<Utf8>, CharSequence {
    */
   public Utf8 setByteLength(int newLength) {
     checkLength(newLength);
-    if (this.bytes.length < newLength) {
+    if (borrowed) {
+      this.bytes = Arrays.copyOfRange(this.bytes, offset, offset + Math.max(length, newLength));
+      this.offset = 0;
+      this.borrowed = false;
+    } else if (this.bytes.length < newLength) {
       this.bytes = Arrays.copyOf(this.bytes, newLength);
     }
     this.length = newLength;
@@ -133,6 +147,8 @@ public class Utf8 implements Comparable<Utf8>, CharSequence {
     int length = bytes.length;
     checkLength(length);
     this.bytes = bytes;
+    this.offset = 0;
+    this.borrowed = false;
     this.length = length;
     this.string = string;
     this.hash = 0;
@@ -140,22 +156,49 @@ public class Utf8 implements Comparable<Utf8>, CharSequence {
   }
 
   public Utf8 set(Utf8 other) {
-    if (this.bytes.length < other.length) {
+    if (borrowed || this.bytes.length < other.length) {
       this.bytes = new byte[other.length];
+      this.offset = 0;
+      this.borrowed = false;
     }
     this.length = other.length;
-    System.arraycopy(other.bytes, 0, bytes, 0, length);
+    System.arraycopy(other.bytes, other.offset, bytes, 0, length);
     this.string = other.string;
     this.hash = other.hash;
     return this;
   }
 
+  /**
+   * Points this instance at <i>length</i> bytes of <i>bytes</i> starting at
+   * <i>offset</i>, without copying them. The bytes are borrowed: they are never
+   * written through this instance, and they are copied into an array owned by
+   * this instance by {@link #getBytes()} or when the content is changed. The
+   * caller must not modify the borrowed range while this instance refers to it.
+   */
+  public Utf8 setBorrowed(byte[] bytes, int offset, int length) {
+    checkLength(length);
+    this.bytes = bytes;
+    this.offset = offset;
+    this.borrowed = true;
+    this.length = length;
+    this.string = null;
+    this.hash = 0;
+    return this;
+  }
+
+  /**
+   * Returns true if this instance borrows its bytes, see {@link #setBorrowed}.
+   */
+  public boolean isBorrowed() {
+    return borrowed;
+  }
+
   @Override
   public String toString() {
     if (this.length == 0)
       return "";
     if (this.string == null) {
-      this.string = new String(bytes, 0, length, StandardCharsets.UTF_8);
+      this.string = new String(bytes, offset, length, StandardCharsets.UTF_8);
     }
     return this.string;
   }
@@ -170,8 +213,9 @@ public class Utf8 implements Comparable<Utf8>, CharSequence {
     if (!(this.length == that.length))
       return false;
     byte[] thatBytes = that.bytes;
+    int thatOffset = that.offset;
     for (int i = 0; i < this.length; i++)
-      if (bytes[i] != thatBytes[i])
+      if (bytes[offset + i] != thatBytes[thatOffset + i])
         return false;
     return true;
   }
@@ -181,8 +225,8 @@ public class Utf8 implements Comparable<Utf8>, CharSequence {
     int h = hash;
     if (h == 0) {
       byte[] bytes = this.bytes;
-      int length = this.length;
-      for (int i = 0; i < length; i++) {
+      int end = this.offset + this.length;
+      for (int i = this.offset; i < end; i++) {
         h = h * 31 + bytes[i];
       }
       this.hash = h;
@@ -192,7 +236,7 @@ public class Utf8 implements Comparable<Utf8>, CharSequence {
 
   @Override
   public int compareTo(Utf8 that) {
-    return BinaryData.compareBytes(this.bytes, 0, this.length, that.bytes, 0, that.length);
+    return BinaryData.compareBytes(this.bytes, this.offset, this.length, that.bytes, that.offset, that.length);
   }
 
   // CharSequence implementation
@@ -93,6 +93,7 @@ public class TestDataFile {
   public void runTestsInOrder() throws Exception {
     testGenericWrite();
     testGenericRead();
+    testBorrowedRead();
     testSplits();
     testSyncDiscovery();
     testGenericAppend();
@@ -160,6 +161,17 @@ public class TestDataFile {
     }
   }
 
+  private void testBorrowedRead() throws IOException {
+    try (DataFileReader<Object> reader = new DataFileReader<>(makeFile(), new GenericDatumReader<>())) {
+      reader.setBorrowedReads(true);
+      Object datum = null;
+      for (Object expected : new RandomData(SCHEMA, COUNT, SEED)) {
+        datum = reader.next(datum);
+        assertEquals(expected, datum);
+      }
+    }
+  }
+
   private void testSplits() throws IOException {
     File file = makeFile();
     try (DataFileReader<Object> reader = new DataFileReader<>(file, new GenericDatumReader<>())) {
@@ -26,7 +26,9 @@ import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 
 import org.apache.avro.Schema.Field;
@@ -355,4 +357,196 @@ public class TestSchema {
     assertEquals(1.0f, field.defaultVal());
     assertEquals(1.0f, GenericData.get().getDefaultValue(field));
   }
+
+  private static final String INTERNED = "{\"type\":\"record\",\"name\":\"Interned\",\"fields\":["
+      + "{\"name\":\"f\",\"type\":{\"type\":\"array\",\"items\":\"string\"}}]}";
+
+  @Test
+  public void testIntern() {
+    Schema first = new Schema.Parser().setIntern(true).parse(INTERNED);
+    assertSame(first, new Schema.Parser().setIntern(true).parse(INTERNED));
+    assertNotSame(first, new Schema.Parser().parse(INTERNED));
+
+    // the JSON must match, including docs and properties
+    Schema withDoc = new Schema.Parser().setIntern(true)
+        .parse(INTERNED.replace("\"fields\"", "\"doc\":\"d\",\"fields\""));
+    assertNotSame(first, withDoc);
+    assertEquals(first, withDoc);
+    Schema withProp = new Schema.Parser().setIntern(true).parse(INTERNED.replace("\"fields\"", "\"p\":1,\"fields\""));
+    assertNotSame(first, withProp);
+    assertNotSame(withProp,
+        new Schema.Parser().setIntern(true).parse(INTERNED.replace("\"fields\"", "\"p\":2,\"fields\"")));
+  }
+
+  @Test
+  public void testInternedSchemasAreFrozen() {
+    Schema first = new Schema.Parser().setIntern(true).parse(INTERNED);
+    Schema items = first.getFields().get(0).schema().getElementType();
+    try {
+      first.addProp("p", "v");
+      fail("Expected AvroRuntimeException");
+    } catch (AvroRuntimeException expected) {
+    }
+    try {
+      first.getFields().get(0).addProp("p", "v");
+      fail("Expected AvroRuntimeException");
+    } catch (AvroRuntimeException expected) {
+    }
+    try {
+      first.addAlias("other");
+      fail("Expected AvroRuntimeException");
+    } catch (AvroRuntimeException expected) {
+    }
+    try {
+      LogicalTypes.uuid().addToSchema(items);
+      fail("Expected AvroRuntimeException");
+    } catch (AvroRuntimeException expected) {
+    }
+
+    // schemas that are not interned may still be changed
+    Schema parsed = new Schema.Parser().parse(INTERNED);
+    parsed.addProp("p", "v");
+    parsed.getFields().get(0).addProp("p", "v");
+  }
+
+  @Test
+  public void testInternedNames() {
+    Schema first = new Schema.Parser().setIntern(true).parse(INTERNED);
+    Schema.Parser parser = new Schema.Parser().setIntern(true);
+    assertSame(first, parser.parse(INTERNED));
+    // the names known to the parser are the interned instances
+    for (Schema named : parser.getTypes().values()) {
+      assertTrue(named.isFrozen());
+    }
+    assertSame(first, parser.getTypes().get(first.getFullName()));
+  }
+
+  @Test
+  public void testApplyAliasesKeepsUnaliasedParts() {
+    Schema writer = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"a.b\",\"fields\":["
+        + "{\"name\":\"f\",\"type\":{\"type\":\"record\",\"name\":\"a.Inner\",\"fields\":["
+        + "{\"name\":\"i\",\"type\":\"int\"}]}},{\"name\":\"h\",\"type\":\"long\"}]}");
+    Schema reader = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"x.y\",\"aliases\":[\"a.b\"],"
+        + "\"fields\":[{\"name\":\"f\",\"type\":{\"type\":\"record\",\"name\":\"a.Inner\",\"fields\":["
+        + "{\"name\":\"i\",\"type\":\"int\"}]}},{\"name\":\"g\",\"type\":\"long\",\"aliases\":[\"h\"]}]}");
+
+    Schema aliased = Schema.applyAliases(writer, reader);
+    assertEquals(reader, aliased);
+    // the inner record, which no alias applies to, is not copied
+    assertSame(writer.getField("f").schema(), aliased.getField("f").schema());
+    // the result is cached for the pair
+    assertSame(aliased, Schema.applyAliases(writer, reader));
+
+    // if no alias applies, the writer's schema is returned
+    Schema inner = writer.getField("f").schema();
+    assertSame(inner, Schema.applyAliases(inner, reader));
+    assertSame(writer, Schema.applyAliases(writer, inner));
+  }
+
+  @Test
+  public void testCompact() {
+    String json = "{\"type\":\"record\",\"name\":\"R\",\"namespace\":\"com.example\",\"fields\":["
+        + "{\"name\":\"s\",\"type\":{\"type\":\"string\",\"avro.java.string\":\"String\"}},"
+        + "{\"name\":\"t\",\"type\":{\"type\":\"long\",\"logicalType\":\"timestamp-millis\"},\"p\":[1]}]}";
+    Schema a = new Schema.Parser().setCompact(true).parse(json);
+    Schema b = new Schema.Parser().setCompact(true).parse(json);
+    assertEquals(new Schema.Parser().parse(json), a);
+    assertEquals(new Schema.Parser().parse(json).toString(), a.toString());
+
+    // equal names and scalar values are shared by compact schemas
+    assertSame(a.getName(), b.getName());
+    assertSame(a.getNamespace(), b.getNamespace());
+    assertSame(a.getFullName(), b.getFullName());
+    assertSame(a.getFields().get(1).name(), b.getFields().get(1).name());
+    assertSame(a.getField("s").schema().getProp("avro.java.string"),
+        b.getField("s").schema().getProp("avro.java.string"));
+    assertSame(a.getField("t").schema().getProp("logicalType"), b.getField("t").schema().getProp("logicalType"));
+    assertEquals(LogicalTypes.timestampMillis(), b.getField("t").schema().getLogicalType());
+    assertEquals(Collections.singletonList(1), b.getField("t").getObjectProp("p"));
+  }
+
+  @Test
+  public void testFieldLookup() {
+    List<Field> fields = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      fields.add(new Field("f" + i, Schema.create(Type.INT), null, null));
+    }
+    Schema record = Schema.createRecord("R", null, null, false, fields);
+    for (int i = 0; i < 100; i++) {
+      assertEquals(i, record.getField("f" + i).pos());
+    }
+    assertNull(record.getField("f100"));
+    assertNull(record.getField(null));
+    assertNull(Schema.createRecord("E", null, null, false, new ArrayList<>()).getField("f"));
+  }
+
+  @Test
+  public void testPropsOrder() {
+    Schema a = Schema.create(Type.INT);
+    a.addProp("x", "1");
+    a.addProp("y", 2);
+    Schema b = Schema.create(Type.INT);
+    b.addProp("y", 2);
+    b.addProp("x", "1");
+    // properties are written in order, but compared regardless of it
+    assertEquals("{\"type\":\"int\",\"x\":\"1\",\"y\":2}", a.toString());
+    assertEquals(a, b);
+    assertEquals(a.hashCode(), b.hashCode());
+    b.addProp("x", "1");
+    try {
+      b.addProp("x", "2");
+      fail("Overwrote a property");
+    } catch (AvroRuntimeException e) {
+      assertEquals("Can't overwrite property: x", e.getMessage());
+    }
+    assertEquals(2, b.getObjectProps().size());
+  }
+
+  @Test
+  public void testManyProps() {
+    Schema a = Schema.create(Type.INT);
+    Schema b = Schema.create(Type.INT);
+    for (int i = 0; i < 100; i++) {
+      a.addProp("p" + i, i);
+      b.addProp("p" + (99 - i), 99 - i);
+      // looked up in the array and then in the index
+      for (int j = 0; j <= i; j++)
+        assertEquals(j, a.getObjectProp("p" + j));
+      assertNull(a.getObjectProp("q"));
+    }
+    assertEquals(new ArrayList<>(a.getObjectProps().keySet()).subList(0, 3), Arrays.asList("p0", "p1", "p2"));
+    assertEquals(a, b);
+    assertEquals(a.hashCode(), b.hashCode());
+    a.addProp("p50", 50);
+    assertEquals(100, a.getObjectProps().size());
+  }
+
+  @Test
+  public void testNoAliases() {
+    Schema a = Schema.createFixed("F", null, null, 1);
+    assertSame(Collections.emptySet(), a.getAliases());
+    a.addAlias("G");
+    assertEquals(Collections.singleton("G"), a.getAliases());
+    try {
+      a.getAliases().add("H");
+      fail("Changed the aliases");
+    } catch (UnsupportedOperationException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testHashOfRecursiveCopies() {
+    // the IDL parser makes copies of records referred to before being defined
+    Schema a = Schema.createRecord("A", null, "ns", false);
+    Schema b = Schema.createRecord("B", null, "ns", false);
+    Schema copy = Schema.createRecord("A", null, "ns", false);
+    b.setFields(Collections.singletonList(new Field("a", Schema.createUnion(Schema.create(Type.NULL), copy))));
+    a.setFields(Collections.singletonList(new Field("b", b)));
+    copy.setFields(Collections.singletonList(new Field("b", b)));
+    assertEquals(a, copy);
+    assertEquals(a.hashCode(), copy.hashCode());
+    assertTrue(new HashSet<>(Collections.singletonList(a)).contains(copy));
+    assertEquals(a.toString(), copy.toString());
+  }
 }
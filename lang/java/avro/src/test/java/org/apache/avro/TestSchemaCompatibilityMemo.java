@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro;
+
+import static org.apache.avro.TestSchemaCompatibility.COMPATIBLE_READER_WRITER_TEST_CASES;
+import static org.apache.avro.TestSchemas.INT_LIST_RECORD;
+import static org.apache.avro.TestSchemas.LONG_LIST_RECORD;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.avro.SchemaCompatibility.Incompatibility;
+import org.apache.avro.SchemaCompatibility.SchemaCompatibilityType;
+import org.apache.avro.SchemaCompatibility.SchemaPairCompatibility;
+import org.apache.avro.TestSchemas.ReaderWriter;
+import org.junit.Test;
+
+public class TestSchemaCompatibilityMemo {
+  private static final Schema SUB_READER = SchemaBuilder.record("Sub").fields().requiredInt("a").requiredString("b")
+      .endRecord();
+  private static final Schema SUB_WRITER = SchemaBuilder.record("Sub").fields().requiredLong("a").endRecord();
+
+  private static Schema copy(Schema schema) {
+    return new Schema.Parser().parse(schema.toString());
+  }
+
+  /** Describes a result by its type and the details of its incompatibilities. */
+  private static List<String> describe(SchemaPairCompatibility result) {
+    List<String> description = new ArrayList<>();
+    description.add(result.getType().toString());
+    for (Incompatibility incompatibility : result.getResult().getIncompatibilities()) {
+      description.add(
+          incompatibility.getType() + " at " + incompatibility.getLocation() + ": " + incompatibility.getMessage());
+    }
+    return description;
+  }
+
+  private static void assertSameResults(SchemaCompatibility.Memo memo, Schema reader, Schema writer) {
+    List<String> expected = describe(SchemaCompatibility.checkReaderWriterCompatibility(reader, writer));
+    assertEquals(expected, describe(memo.checkReaderWriterCompatibility(reader, writer)));
+    // checked again from the memo
+    assertEquals(expected, describe(memo.checkReaderWriterCompatibility(reader, writer)));
+    // equal schemas that are not the same are checked anew
+    assertEquals(expected, describe(memo.checkReaderWriterCompatibility(copy(reader), copy(writer))));
+  }
+
+  @Test
+  public void testSameResults() {
+    SchemaCompatibility.Memo memo = new SchemaCompatibility.Memo();
+    for (ReaderWriter readerWriter : COMPATIBLE_READER_WRITER_TEST_CASES) {
+      assertSameResults(memo, readerWriter.getReader(), readerWriter.getWriter());
+    }
+    assertSameResults(memo, INT_LIST_RECORD, LONG_LIST_RECORD);
+    assertSameResults(memo, LONG_LIST_RECORD, INT_LIST_RECORD);
+    assertSameResults(memo, SUB_READER, SUB_WRITER);
+  }
+
+  @Test
+  public void testLocationOfMemoizedParts() {
+    SchemaCompatibility.Memo memo = new SchemaCompatibility.Memo();
+    // the sub-records are first checked alone, then in a record and a union
+    assertEquals(SchemaCompatibilityType.INCOMPATIBLE,
+        memo.checkReaderWriterCompatibility(SUB_READER, SUB_WRITER).getType());
+    Schema reader = SchemaBuilder.record("R").fields().name("x").type().intType().noDefault().name("sub")
+        .type(SUB_READER).noDefault().name("subs").type().array().items(SUB_READER).noDefault().endRecord();
+    Schema writer = SchemaBuilder.record("R").fields().name("x").type().intType().noDefault().name("sub")
+        .type(SUB_WRITER).noDefault().name("subs").type().array().items(SUB_WRITER).noDefault().endRecord();
+    assertSameResults(memo, reader, writer);
+    assertSameResults(memo, Schema.createUnion(Schema.create(Schema.Type.NULL), SUB_READER),
+        Schema.createUnion(Schema.create(Schema.Type.NULL), SUB_WRITER));
+  }
+
+  @Test
+  public void testBatch() {
+    List<Schema> versions = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      // every version adds a field, and the one of the fourth lacks a default
+      SchemaBuilder.FieldAssembler<Schema> fields = SchemaBuilder.record("R").fields();
+      for (int j = 0; j <= i; j++) {
+        fields = j == 3 ? fields.requiredString("f" + j) : fields.optionalString("f" + j);
+      }
+      versions.add(fields.endRecord());
+    }
+    Schema latest = versions.get(versions.size() - 1);
+    SchemaCompatibility.Memo memo = new SchemaCompatibility.Memo();
+    List<SchemaPairCompatibility> sequential = memo.checkReaderAgainstWriters(latest, versions, false);
+    List<SchemaPairCompatibility> parallel = new SchemaCompatibility.Memo().checkReaderAgainstWriters(latest, versions,
+        true);
+    assertEquals(versions.size(), sequential.size());
+    for (int i = 0; i < versions.size(); i++) {
+      List<String> expected = describe(SchemaCompatibility.checkReaderWriterCompatibility(latest, versions.get(i)));
+      assertEquals(i < 3 ? SchemaCompatibilityType.INCOMPATIBLE : SchemaCompatibilityType.COMPATIBLE,
+          sequential.get(i).getType());
+      assertEquals(expected, describe(sequential.get(i)));
+      assertEquals(expected, describe(parallel.get(i)));
+      assertEquals(versions.get(i), sequential.get(i).getWriter());
+    }
+
+    List<SchemaPairCompatibility> asWriter = memo.checkWriterAgainstReaders(versions.get(0),
+        Arrays.asList(latest, versions.get(0)), true);
+    assertEquals(SchemaCompatibilityType.INCOMPATIBLE, asWriter.get(0).getType());
+    assertEquals(SchemaCompatibilityType.COMPATIBLE, asWriter.get(1).getType());
+  }
+
+  private static Schema recursive(String zType) {
+    return new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"A\",\"fields\":[{\"name\":\"z\",\"type\":\""
+        + zType + "\"},{\"name\":\"b\",\"type\":{\"type\":\"record\",\"name\":\"B\",\"fields\":["
+        + "{\"name\":\"a\",\"type\":[\"null\",\"A\"]},{\"name\":\"y\",\"type\":\"int\"}]}},"
+        + "{\"name\":\"w\",\"type\":{\"type\":\"record\",\"name\":\"C\",\"fields\":[{\"name\":\"b2\",\"type\":\"B\"}]}}]}");
+  }
+
+  @Test
+  public void testPartsRelyingOnRecursion() {
+    // B is compatible only while A is assumed to be, and C holds a B: neither
+    // is kept from the check of A, as C on its own is incompatible
+    Schema reader = recursive("string");
+    Schema writer = recursive("int");
+    Schema readerC = reader.getField("w").schema();
+    Schema writerC = writer.getField("w").schema();
+    SchemaCompatibility.Memo memo = new SchemaCompatibility.Memo();
+    assertSameResults(memo, reader, writer);
+    assertEquals(SchemaCompatibilityType.INCOMPATIBLE, memo.checkReaderWriterCompatibility(readerC, writerC).getType());
+    assertSameResults(memo, readerC, writerC);
+    assertSameResults(new SchemaCompatibility.Memo(), readerC, writerC);
+  }
+
+  @Test
+  public void testBounded() {
+    SchemaCompatibility.Memo memo = new SchemaCompatibility.Memo(2);
+    for (ReaderWriter readerWriter : COMPATIBLE_READER_WRITER_TEST_CASES) {
+      memo.checkReaderWriterCompatibility(readerWriter.getReader(), readerWriter.getWriter());
+      assertTrue(memo.size() <= 2);
+    }
+    assertSameResults(memo, SUB_READER, SUB_WRITER);
+  }
+
+  @Test
+  public void testInternedSchemas() {
+    SchemaCompatibility.Memo memo = new SchemaCompatibility.Memo();
+    Schema.Parser parser = new Schema.Parser().setIntern(true);
+    memo.checkReaderWriterCompatibility(parser.parse(SUB_READER.toString()), SUB_WRITER);
+    int size = memo.size();
+    // equal schemas parsed with interning are the same instance, and share results
+    memo.checkReaderWriterCompatibility(new Schema.Parser().setIntern(true).parse(SUB_READER.toString()), SUB_WRITER);
+    assertEquals(size, memo.size());
+  }
+}
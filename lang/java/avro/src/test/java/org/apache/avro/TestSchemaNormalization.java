@@ -18,7 +18,9 @@
 package org.apache.avro;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.BufferedReader;
@@ -110,6 +112,34 @@ public class TestSchemaNormalization {
     }
   }
 
+  public static class TestCached {
+    private static final String SCHEMA = "{\"type\":\"record\",\"name\":\"R\",\"doc\":\"d\",\"fields\":["
+        + "{\"name\":\"a\",\"type\":{\"type\":\"fixed\",\"name\":\"F\",\"size\":4}}]}";
+
+    @Test
+    public void testCached() throws Exception {
+      Schema s = new Schema.Parser().parse(SCHEMA);
+      String form = SchemaNormalization.toParsingForm(s);
+      assertEquals("{\"name\":\"R\",\"type\":\"record\",\"fields\":[{\"name\":\"a\","
+          + "\"type\":{\"name\":\"F\",\"type\":\"fixed\",\"size\":4}}]}", form);
+      assertSame(form, s.getParsingForm());
+
+      // properties are not part of the form, so adding one keeps the fingerprints
+      s.addProp("p", "v");
+      assertSame(form, SchemaNormalization.toParsingForm(s));
+      byte[] bytes = form.getBytes(UTF_8);
+      assertEquals(SchemaNormalization.fingerprint64(bytes), s.getParsingFingerprint64());
+      for (String fpName : new String[] { "CRC-64-AVRO", "MD5", "SHA-256", "SHA-1" }) {
+        byte[] expected = SchemaNormalization.fingerprint(fpName, bytes);
+        byte[] fingerprint = SchemaNormalization.parsingFingerprint(fpName, s);
+        assertArrayEquals(expected, fingerprint);
+        // each caller gets an array of its own
+        fingerprint[0]++;
+        assertArrayEquals(expected, s.getParsingFingerprint(fpName));
+      }
+    }
+  }
+
   private static String DATA_FILE = (System.getProperty("share.dir", "../../../share") + "/test/data/schema-tests.txt");
 
   private static BufferedReader data() throws IOException {
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TestSchemaParserStreaming {
+  private static final List<String> SCHEMAS = Arrays.asList("\"int\"",
+      "{\"type\":\"string\",\"avro.java.string\":\"String\"}",
+      "[\"null\",{\"type\":\"map\",\"values\":{\"type\":\"array\",\"items\":\"long\"},\"p\":[1,{\"q\":null}]}]",
+      "{\"type\":\"bytes\",\"logicalType\":\"decimal\",\"precision\":9,\"scale\":2}",
+      "{\"type\":\"record\",\"name\":\"Node\",\"namespace\":\"a.b\",\"doc\":\"A tree\",\"aliases\":[\"Tree\"],"
+          + "\"fields\":[{\"name\":\"value\",\"type\":\"double\",\"default\":\"NaN\",\"doc\":\"the value\"},"
+          + "{\"name\":\"children\",\"type\":{\"type\":\"array\",\"items\":\"Node\"},\"default\":[],"
+          + "\"order\":\"ignore\",\"aliases\":[\"kids\"],\"fp\":\"x\"},"
+          + "{\"name\":\"kind\",\"type\":{\"type\":\"enum\",\"name\":\"Kind\",\"namespace\":\"c\","
+          + "\"symbols\":[\"LEAF\",\"BRANCH\"],\"default\":\"LEAF\",\"ep\":true}},"
+          + "{\"name\":\"id\",\"type\":[\"null\",{\"type\":\"fixed\",\"name\":\"Id\",\"size\":16}],\"default\":null},"
+          + "{\"name\":\"kind2\",\"type\":\"c.Kind\"},{\"name\":\"parent\",\"type\":[\"null\",{\"type\":\"Node\"}]},"
+          + "{\"name\":\"at\",\"type\":{\"type\":\"long\",\"logicalType\":\"timestamp-millis\"}}],\"rp\":{\"k\":1}}",
+      "{\"type\":\"error\",\"name\":\"Oops\",\"fields\":[]}");
+
+  private static Schema parse(boolean streaming, String json) {
+    return new Schema.Parser().setStreaming(streaming).parse(json);
+  }
+
+  private static void assertSameSchema(Schema expected, Schema actual) {
+    assertEquals(expected, actual);
+    assertEquals(expected.toString(true), actual.toString(true));
+    assertEquals(expected.getLogicalType(), actual.getLogicalType());
+  }
+
+  @Test
+  public void testSameSchemas() {
+    for (String json : SCHEMAS) {
+      Schema expected = parse(false, json);
+      assertSameSchema(expected, parse(true, json));
+      // as written, the keys are in the order the parser streams
+      assertSameSchema(expected, parse(true, expected.toString()));
+    }
+  }
+
+  @Test
+  public void testLogicalTypes() {
+    Schema node = parse(true, SCHEMAS.get(4));
+    assertEquals(LogicalTypes.timestampMillis(), node.getField("at").schema().getLogicalType());
+    assertEquals(LogicalTypes.decimal(9, 2), parse(true, SCHEMAS.get(3)).getLogicalType());
+    assertEquals(Double.NaN, node.getField("value").defaultVal());
+    assertTrue(node.getField("children").schema().getElementType() == node);
+  }
+
+  @Test
+  public void testOutOfOrderKeys() {
+    // nested schemas before the type or name of what they are in are kept as
+    // trees until the end of their object
+    for (String json : Arrays.asList(
+        "{\"fields\":[{\"name\":\"f\",\"type\":\"int\"}],\"name\":\"R\",\"type\":\"record\",\"namespace\":\"n\"}",
+        "{\"type\":\"record\",\"name\":\"R\",\"fields\":[],\"doc\":\"late\"}",
+        "{\"items\":{\"type\":\"fixed\",\"size\":2,\"name\":\"F\"},\"type\":\"array\"}",
+        "{\"type\":\"record\",\"fields\":[],\"name\":\"R\",\"aliases\":[\"R2\"]}",
+        "{\"type\":\"record\",\"name\":\"R\",\"fields\":[{\"type\":\"int\",\"name\":\"f\"}],\"p\":1,\"p\":2}",
+        "{\"name\":\"R\",\"type\":\"record\",\"fields\":[{\"type\":{\"type\":\"fixed\",\"size\":1,\"name\":\"F\"},"
+            + "\"name\":\"f\",\"default\":\"a\"},{\"type\":\"F\",\"name\":\"g\"}],\"namespace\":\"\"}",
+        "{\"type\":\"map\",\"values\":\"int\",\"values\":\"long\"}")) {
+      Schema.Parser tree = new Schema.Parser();
+      Schema.Parser parser = new Schema.Parser().setStreaming(true);
+      assertSameSchema(tree.parse(json), parser.parse(json));
+      assertEquals(tree.getTypes().keySet(), parser.getTypes().keySet());
+    }
+  }
+
+  @Test
+  public void testLateRecordName() {
+    for (String json : Arrays.asList(
+        "{\"type\":\"record\",\"name\":\"R\",\"fields\":[{\"name\":\"f\",\"type\":\"int\"}],\"namespace\":\"n\"}",
+        "{\"type\":\"record\",\"name\":\"R\",\"fields\":[],\"name\":\"S\"}",
+        "{\"type\":\"record\",\"name\":\"R\",\"fields\":[],\"type\":\"error\"}")) {
+      try {
+        new Schema.Parser().setStreaming(true).parse(json);
+        fail("Streamed " + json);
+      } catch (SchemaParseException e) {
+        assertTrue(e.getMessage(), e.getMessage().contains("must precede its fields"));
+      }
+    }
+    // a namespace that does not change the name may follow the fields
+    assertEquals("n.R", new Schema.Parser().setStreaming(true)
+        .parse("{\"type\":\"record\",\"name\":\"n.R\",\"fields\":[],\"namespace\":\"m\"}").getFullName());
+  }
+
+  @Test
+  public void testNamesAcrossParses() {
+    Schema.Parser parser = new Schema.Parser().setStreaming(true);
+    Schema kind = parser.parse("{\"type\":\"enum\",\"name\":\"Kind\",\"namespace\":\"n\",\"symbols\":[\"A\"]}");
+    Schema record = parser.parse("{\"type\":\"record\",\"name\":\"R\",\"namespace\":\"n\","
+        + "\"fields\":[{\"name\":\"k\",\"type\":\"Kind\"}],\"doc\":\"late\"}");
+    assertTrue(record.getField("k").schema() == kind);
+    assertEquals(2, parser.getTypes().size());
+  }
+
+  private static String error(boolean streaming, String json) {
+    Schema.Parser parser = new Schema.Parser().setStreaming(streaming);
+    parser.parse("{\"type\":\"fixed\",\"name\":\"F\",\"size\":1}");
+    try {
+      parser.parse(json);
+    } catch (RuntimeException e) {
+      return e.getClass().getName() + ": " + e.getMessage() + " " + parser.getTypes().keySet();
+    }
+    fail("Parsed " + json);
+    return null;
+  }
+
+  @Test
+  public void testSameErrors() {
+    for (String json : Arrays.asList(
+        "{\"type\":\"record\",\"name\":\"R\",\"fields\":[{\"name\":\"f\",\"type\":\"G\"}]}",
+        "{\"type\":\"record\",\"name\":\"R\",\"fields\":[{\"name\":\"f\",\"type\":{\"type\":\"fixed\",\"name\":\"F\","
+            + "\"size\":2}}]}",
+        "{\"type\":\"fixed\",\"name\":\"G\",\"size\":2.0}", "{\"type\":\"array\"}",
+        "{\"type\":\"record\",\"name\":\"R\"", "{\"type\":\"fixed\",\"name\":\"1G\",\"size\":2}",
+        "{\"type\":\"record\",\"name\":\"R\",\"fields\":["
+            + "{\"name\":\"Defined\",\"type\":\"int\",\"default\":\"x\"}]}")) {
+      assertEquals(error(false, json), error(true, json));
+    }
+  }
+
+  @Test
+  public void testFileAndStream() throws IOException {
+    File file = new File("../../../share/test/schemas/interop.avsc");
+    Schema expected = new Schema.Parser().parse(file);
+    assertSameSchema(expected, new Schema.Parser().setStreaming(true).parse(file));
+
+    byte[] bytes = expected.toString().getBytes(StandardCharsets.UTF_8);
+    InputStream in = new ByteArrayInputStream(bytes);
+    assertSameSchema(expected, new Schema.Parser().setStreaming(true).parse(in));
+    assertEquals(-1, in.read());
+  }
+}
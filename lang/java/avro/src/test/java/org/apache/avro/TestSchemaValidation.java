@@ -217,6 +217,30 @@ public class TestSchemaValidation {
     testValidatorFails(builder.mutualReadStrategy().validateAll(), rec, rec4, rec3, rec2);
   }
 
+  @Test
+  public void testMemo() throws SchemaValidationException {
+    SchemaCompatibility.Memo memo = new SchemaCompatibility.Memo();
+    builder.memo(memo);
+    testValidatorPasses(builder.canReadStrategy().validateAll(), rec3, rec, rec2);
+    testValidatorFails(builder.canReadStrategy().validateAll(), rec4, rec, rec2, rec3);
+    testValidatorPasses(builder.canBeReadStrategy().validateAll(), rec, rec3, rec2);
+    testValidatorFails(builder.canBeReadStrategy().validateAll(), rec, rec4, rec3, rec2);
+    testValidatorPasses(builder.mutualReadStrategy().validateAll(), rec, rec3, rec2);
+    testValidatorFails(builder.mutualReadStrategy().validateAll(), rec, rec4, rec3, rec2);
+    for (ReaderWriter tc : COMPATIBLE_READER_WRITER_TEST_CASES) {
+      testValidatorPasses(builder.canReadStrategy().validateAll(), tc.getReader(), tc.getWriter());
+    }
+    for (ReaderWriter tc : INCOMPATIBLE_READER_WRITER_TEST_CASES) {
+      testValidatorFails(builder.canReadStrategy().validateAll(), tc.getReader(), tc.getWriter());
+    }
+    Assert.assertTrue(memo.size() > 0);
+
+    // the results are kept
+    int size = memo.size();
+    testValidatorPasses(builder.canReadStrategy().validateAll(), rec3, rec, rec2);
+    Assert.assertEquals(size, memo.size());
+  }
+
   @Test(expected = AvroRuntimeException.class)
   public void testInvalidBuild() {
     builder.strategy(null).validateAll();
@@ -0,0 +1,263 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.file;
+
+import static org.apache.avro.file.TestDataFiles.SCHEMA;
+import static org.apache.avro.file.TestDataFiles.newWriter;
+import static org.apache.avro.file.TestDataFiles.readAll;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DecoderFactory;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestBlockIndex {
+  @Rule
+  public TemporaryFolder DIR = new TemporaryFolder();
+
+  private static List<Object> data() {
+    List<Object> data = new ArrayList<>();
+    TestDataFiles.data().forEach(data::add);
+    return data;
+  }
+
+  private File write(DataFileWriter<Object> writer, List<Object> data) throws IOException {
+    return TestDataFiles.write(writer, DIR.newFile(), data);
+  }
+
+  private static void checkSeeks(File file, List<Object> data) throws IOException {
+    try (DataFileReader<Object> reader = new DataFileReader<>(file, new GenericDatumReader<>())) {
+      assertEquals(data, readAll(reader));
+      assertEquals(data.size(), reader.getRecordCount());
+      for (int record : new int[] { 0, 1, 17, data.size() / 2, data.size() - 1, 999, 3 }) {
+        reader.seekToRecord(record);
+        assertEquals(data.get(record), reader.next());
+        if (record + 1 < data.size()) {
+          assertEquals(data.get(record + 1), reader.next());
+        }
+      }
+      reader.seekToRecord(data.size());
+      assertFalse(reader.hasNext());
+      reader.seekToRecord(data.size() - 5);
+      assertEquals(data.subList(data.size() - 5, data.size()), readAll(reader));
+    }
+  }
+
+  @Test
+  public void testIndex() throws IOException {
+    List<Object> data = data();
+    for (CodecFactory codec : Arrays.asList(CodecFactory.nullCodec(), CodecFactory.deflateCodec(6),
+        CodecFactory.xzCodec(1), CodecFactory.zstandardCodec(3), CodecFactory.bzip2Codec(),
+        CodecFactory.snappyCodec())) {
+      File file = write(newWriter(codec).setBlockIndex(true), data);
+      File scanned = write(newWriter(codec), data);
+      assertEquals(2, emptyBlocks(file));
+      assertEquals(0, emptyBlocks(scanned));
+      // the index stored is that found by reading every block
+      try (DataFileReader<Object> reader = new DataFileReader<>(file, new GenericDatumReader<>());
+          DataFileReader<Object> other = new DataFileReader<>(scanned, new GenericDatumReader<>())) {
+        BlockIndex index = reader.getBlockIndex();
+        BlockIndex expected = other.getBlockIndex();
+        assertTrue(index.size() > 1);
+        assertEquals(expected.size(), index.size());
+        for (int i = 0; i < index.size(); i++) {
+          assertEquals(expected.getPosition(i), index.getPosition(i));
+          assertEquals(expected.getFirstRecord(i), index.getFirstRecord(i));
+        }
+      }
+      checkSeeks(file, data);
+    }
+  }
+
+  private static int emptyBlocks(File file) throws IOException {
+    int empty = 0;
+    try (DataFileStream<Object> in = new DataFileStream<>(new FileInputStream(file), new GenericDatumReader<>())) {
+      DataFileStream.DataBlock block = null;
+      while (in.hasNextBlock()) {
+        block = in.nextRawBlock(block);
+        if (block.getNumEntries() == 0) {
+          empty++;
+        }
+      }
+    }
+    return empty;
+  }
+
+  @Test
+  public void testWithoutIndex() throws IOException {
+    List<Object> data = data();
+    checkSeeks(write(newWriter(CodecFactory.nullCodec()), data), data);
+  }
+
+  @Test
+  public void testCompressionExecutor() throws IOException {
+    List<Object> data = data();
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      File file = write(newWriter(CodecFactory.deflateCodec(1)).setBlockIndex(true).setCompressionExecutor(executor, 4),
+          data);
+      checkSeeks(file, data);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testReadAhead() throws IOException {
+    List<Object> data = data();
+    File file = write(newWriter(CodecFactory.nullCodec()).setBlockIndex(true), data);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try (DataFileReader<Object> reader = new DataFileReader<>(file, new GenericDatumReader<>())) {
+      reader.setReadAhead(executor, 4);
+      assertEquals(data.get(0), reader.next());
+      reader.seekToRecord(1500);
+      assertEquals(data.subList(1500, data.size()), readAll(reader));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testAppend() throws IOException {
+    List<Object> data = data();
+    File file = write(newWriter(CodecFactory.nullCodec()).setBlockIndex(true), data.subList(0, 1200));
+    try (DataFileWriter<Object> writer = new DataFileWriter<>(new GenericDatumWriter<>()).setBlockIndex(true)) {
+      writer.appendTo(file);
+      for (Object datum : data.subList(1200, data.size())) {
+        writer.append(datum);
+      }
+    }
+    // the first index is left before the appended blocks, which readers without
+    // indexes do not reach
+    assertEquals(4, emptyBlocks(file));
+    assertEquals(data.subList(0, 1200), readAsBefore(file));
+    checkSeeks(file, data);
+
+    // also when the appended file has no index
+    File plain = write(newWriter(CodecFactory.nullCodec()).setBlockIndex(true), data.subList(0, 1200));
+    try (DataFileWriter<Object> writer = new DataFileWriter<>(new GenericDatumWriter<>())) {
+      writer.appendTo(plain);
+      for (Object datum : data.subList(1200, data.size())) {
+        writer.append(datum);
+      }
+    }
+    assertEquals(2, emptyBlocks(plain));
+    assertEquals(data.subList(0, 1200), readAsBefore(plain));
+    checkSeeks(plain, data);
+
+    // blocks without entries are dropped when appending whole files
+    File other = DIR.newFile();
+    try (DataFileWriter<Object> writer = new DataFileWriter<>(new GenericDatumWriter<>()).setBlockIndex(true)) {
+      writer.create(SCHEMA, other);
+      try (DataFileStream<Object> in = new DataFileStream<>(new FileInputStream(file), new GenericDatumReader<>())) {
+        writer.appendAllFrom(in, false);
+      }
+    }
+    assertEquals(2, emptyBlocks(other));
+    assertEquals(data, readAsBefore(other));
+    checkSeeks(other, data);
+  }
+
+  @Test
+  public void testAppendToStream() throws IOException {
+    List<Object> data = data();
+    File file = write(newWriter(CodecFactory.deflateCodec(1)).setBlockIndex(true), data.subList(0, 1200));
+    ByteArrayOutputStream appended = new ByteArrayOutputStream();
+    try (SeekableInput in = new SeekableFileInput(file);
+        DataFileWriter<Object> writer = new DataFileWriter<>(new GenericDatumWriter<>()).setBlockIndex(true)) {
+      writer.appendTo(in, appended);
+      for (Object datum : data.subList(1200, data.size())) {
+        writer.append(datum);
+      }
+    }
+    try (FileOutputStream out = new FileOutputStream(file, true)) {
+      appended.writeTo(out);
+    }
+    // as when appending to the file
+    assertEquals(4, emptyBlocks(file));
+    checkSeeks(file, data);
+  }
+
+  /**
+   * Reads a file as readers of releases without block indexes do, which end their
+   * iteration at the first block without entries.
+   */
+  private static List<Object> readAsBefore(File file) throws IOException {
+    List<Object> read = new ArrayList<>();
+    try (DataFileStream<Object> in = new DataFileStream<>(new FileInputStream(file), new GenericDatumReader<>())) {
+      Codec codec = in.resolveCodec();
+      GenericDatumReader<Object> reader = new GenericDatumReader<>(in.getSchema());
+      DataFileStream.DataBlock block = null;
+      while (in.hasNextBlock()) {
+        block = in.nextRawBlock(block);
+        if (block.getNumEntries() == 0) {
+          break;
+        }
+        block.decompressUsing(codec);
+        BinaryDecoder decoder = DecoderFactory.get().binaryDecoder(block.getAsByteBuffer(), null);
+        for (long i = 0; i < block.getNumEntries(); i++) {
+          read.add(reader.read(null, decoder));
+        }
+      }
+    }
+    return read;
+  }
+
+  @Test
+  public void testStream() throws IOException {
+    List<Object> data = data();
+    File file = write(newWriter(CodecFactory.nullCodec()).setBlockIndex(true), data);
+    List<Object> read = new ArrayList<>();
+    try (InputStream in = new FileInputStream(file);
+        DataFileStream<Object> stream = new DataFileStream<>(in, new GenericDatumReader<>())) {
+      stream.forEach(read::add);
+    }
+    assertEquals(data, read);
+  }
+
+  @Test
+  public void testGetBlock() {
+    BlockIndex index = new BlockIndex();
+    index.add(10, 3);
+    index.add(20, 0);
+    index.add(30, 2);
+    assertEquals(0, index.getBlock(0));
+    assertEquals(0, index.getBlock(2));
+    assertEquals(2, index.getBlock(3));
+    assertEquals(2, index.getBlock(4));
+    assertEquals(5, index.getRecordCount());
+  }
+}
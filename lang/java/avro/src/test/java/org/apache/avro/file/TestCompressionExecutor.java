@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.file;
+
+import static org.apache.avro.file.TestDataFiles.COUNT;
+import static org.apache.avro.file.TestDataFiles.SCHEMA;
+import static org.apache.avro.file.TestDataFiles.data;
+import static org.apache.avro.file.TestDataFiles.newWriter;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.avro.generic.GenericDatumReader;
+import org.junit.After;
+import org.junit.Test;
+
+public class TestCompressionExecutor {
+  private static final byte[] SYNC = new byte[16];
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+  @After
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private static byte[] write(CodecFactory codec, ExecutorService executor, int maxInFlightBlocks, List<Long> positions)
+      throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (DataFileWriter<Object> writer = newWriter(codec)) {
+      if (executor != null) {
+        writer.setCompressionExecutor(executor, maxInFlightBlocks);
+      }
+      writer.create(SCHEMA, out, SYNC);
+      int i = 0;
+      for (Object datum : data()) {
+        writer.append(datum);
+        if (++i % 500 == 0) {
+          positions.add(writer.sync());
+        }
+      }
+    }
+    return out.toByteArray();
+  }
+
+  @Test
+  public void testSameFile() throws IOException {
+    for (CodecFactory codec : Arrays.asList(CodecFactory.nullCodec(), CodecFactory.deflateCodec(9),
+        CodecFactory.xzCodec(1), CodecFactory.zstandardCodec(9), CodecFactory.bzip2Codec())) {
+      List<Long> expectedPositions = new ArrayList<>();
+      byte[] expected = write(codec, null, 0, expectedPositions);
+      for (int maxInFlightBlocks : new int[] { 1, 3, 16 }) {
+        List<Long> positions = new ArrayList<>();
+        assertArrayEquals(codec.toString(), expected, write(codec, executor, maxInFlightBlocks, positions));
+        assertEquals(expectedPositions, positions);
+      }
+    }
+
+    byte[] bytes = write(CodecFactory.deflateCodec(9), executor, 4, new ArrayList<>());
+    int count = 0;
+    try (DataFileReader<Object> reader = new DataFileReader<>(new SeekableByteArrayInput(bytes),
+        new GenericDatumReader<>())) {
+      for (Object datum : reader) {
+        count++;
+      }
+    }
+    assertEquals(COUNT, count);
+  }
+
+  @Test
+  public void testBoundedInFlightBlocks() throws IOException {
+    // each block in flight takes an instance of the codec
+    AtomicInteger instances = new AtomicInteger();
+    CodecFactory counting = new CodecFactory() {
+      @Override
+      protected Codec createInstance() {
+        instances.incrementAndGet();
+        return new DeflateCodec(9);
+      }
+    };
+    write(counting, executor, 3, new ArrayList<>());
+    assertTrue(instances.get() > 1);
+    assertTrue(instances.get() <= 3 + 1); // and one for the writer
+  }
+
+  private static class FailingCodecFactory extends CodecFactory {
+    @Override
+    protected Codec createInstance() {
+      return new Codec() {
+        @Override
+        public String getName() {
+          return "failing";
+        }
+
+        @Override
+        public ByteBuffer compress(ByteBuffer buffer) throws IOException {
+          throw new IOException("Artificial failure from FailingCodec");
+        }
+
+        @Override
+        public ByteBuffer decompress(ByteBuffer buffer) {
+          return buffer;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+          return this == other;
+        }
+
+        @Override
+        public int hashCode() {
+          return System.identityHashCode(this);
+        }
+      };
+    }
+  }
+
+  @Test
+  public void testCompressionFailure() throws IOException {
+    try (DataFileWriter<Object> writer = newWriter(new FailingCodecFactory())) {
+      writer.setCompressionExecutor(executor, 2);
+      writer.create(SCHEMA, new ByteArrayOutputStream());
+      for (Object datum : data()) {
+        writer.append(datum);
+      }
+      writer.sync();
+    } catch (IOException e) {
+      assertEquals("Artificial failure from FailingCodec", e.getMessage());
+      return;
+    }
+    fail("IOException should have been thrown");
+  }
+
+  @Test
+  public void testRejectedBlock() throws IOException {
+    AtomicInteger instances = new AtomicInteger();
+    CodecFactory counting = new CodecFactory() {
+      @Override
+      protected Codec createInstance() {
+        instances.incrementAndGet();
+        return new DeflateCodec(6);
+      }
+    };
+    AtomicBoolean reject = new AtomicBoolean();
+    Executor rejecting = command -> {
+      if (reject.get()) {
+        throw new RejectedExecutionException("Artificial rejection");
+      }
+      command.run();
+    };
+    List<Object> datums = new ArrayList<>();
+    data().forEach(datums::add);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (DataFileWriter<Object> writer = newWriter(counting)) {
+      writer.setCompressionExecutor(rejecting, 2);
+      writer.create(SCHEMA, out);
+      for (Object datum : datums.subList(0, 10)) {
+        writer.append(datum);
+      }
+      writer.sync();
+      for (Object datum : datums.subList(10, 20)) {
+        writer.append(datum);
+      }
+      reject.set(true);
+      try {
+        writer.sync();
+        fail("IOException should have been thrown");
+      } catch (IOException e) {
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+      }
+      reject.set(false);
+      for (Object datum : datums.subList(20, 30)) {
+        writer.append(datum);
+      }
+    }
+    // the rejected block is dropped, and its codec reused
+    assertEquals(2, instances.get());
+    List<Object> read = new ArrayList<>();
+    try (DataFileReader<Object> reader = new DataFileReader<>(new SeekableByteArrayInput(out.toByteArray()),
+        new GenericDatumReader<>())) {
+      reader.forEach(read::add);
+    }
+    List<Object> expected = new ArrayList<>(datums.subList(0, 10));
+    expected.addAll(datums.subList(20, 30));
+    assertEquals(expected, read);
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.file;
+
+import static org.apache.avro.file.TestDataFiles.COUNT;
+import static org.apache.avro.file.TestDataFiles.newWriter;
+import static org.apache.avro.file.TestDataFiles.readAll;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.avro.generic.GenericDatumReader;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestDataFileSpliterator {
+  @Rule
+  public TemporaryFolder DIR = new TemporaryFolder();
+
+  private File write() throws IOException {
+    return TestDataFiles.write(newWriter(CodecFactory.deflateCodec(1)), DIR.newFile("test.avro"));
+  }
+
+  private static void split(Spliterator<Object> spliterator, List<Spliterator<Object>> splits) {
+    Spliterator<Object> prefix = spliterator.trySplit();
+    if (prefix != null) {
+      split(prefix, splits);
+      split(spliterator, splits);
+    } else {
+      splits.add(spliterator);
+    }
+  }
+
+  @Test
+  public void testSplits() throws IOException {
+    File file = write();
+    List<Object> expected = readAll(file);
+    for (long minSplitSize : new long[] { 100, 4096, file.length() }) {
+      List<Spliterator<Object>> splits = new ArrayList<>();
+      split(DataFileReader.spliterator(() -> new SeekableFileInput(file), GenericDatumReader::new, minSplitSize),
+          splits);
+      assertEquals(minSplitSize < file.length(), splits.size() > 1);
+
+      // the splits hold all the datums, once and in order
+      List<Object> read = new ArrayList<>();
+      for (Spliterator<Object> split : splits) {
+        split.forEachRemaining(read::add);
+        assertNull(split.trySplit());
+      }
+      assertEquals(expected, read);
+    }
+  }
+
+  @Test
+  public void testEstimateSize() throws IOException {
+    // counted with the block index
+    File indexed = TestDataFiles.write(newWriter(CodecFactory.deflateCodec(1)).setBlockIndex(true),
+        DIR.newFile("indexed.avro"));
+    Spliterator<Object> whole = DataFileReader.spliterator(() -> new SeekableFileInput(indexed),
+        GenericDatumReader::new, 100);
+    assertEquals(COUNT, whole.estimateSize());
+    List<Spliterator<Object>> splits = new ArrayList<>();
+    split(whole, splits);
+    assertTrue(splits.size() > 1);
+    long total = 0;
+    for (Spliterator<Object> split : splits) {
+      long estimate = split.estimateSize();
+      total += estimate;
+      AtomicInteger read = new AtomicInteger();
+      if (split.tryAdvance(datum -> read.incrementAndGet())) {
+        assertEquals(estimate - 1, split.estimateSize());
+      }
+      split.forEachRemaining(datum -> read.incrementAndGet());
+      assertEquals(estimate, read.get());
+      assertEquals(0, split.estimateSize());
+    }
+    assertEquals(COUNT, total);
+
+    // estimated from the first block
+    File file = write();
+    long estimate = DataFileReader.spliterator(() -> new SeekableFileInput(file), GenericDatumReader::new, 100)
+        .estimateSize();
+    assertTrue("Estimated " + estimate, estimate > COUNT / 2 && estimate < COUNT * 2);
+
+    File empty = TestDataFiles.write(newWriter(CodecFactory.nullCodec()), DIR.newFile("empty.avro"), new ArrayList<>());
+    assertEquals(0,
+        DataFileReader.spliterator(() -> new SeekableFileInput(empty), GenericDatumReader::new, 100).estimateSize());
+  }
+
+  @Test
+  public void testStream() throws IOException {
+    File file = write();
+    List<Object> expected = readAll(file);
+    try (Stream<Object> stream = DataFileReader.stream(file, GenericDatumReader::new, false)) {
+      assertEquals(expected, stream.collect(Collectors.toList()));
+    }
+    try (Stream<Object> stream = DataFileReader.stream(file, GenericDatumReader::new, true)) {
+      assertEquals(expected, stream.collect(Collectors.toList()));
+    }
+  }
+
+  @Test
+  public void testInputsClosed() throws IOException {
+    byte[] bytes = Files.readAllBytes(write().toPath());
+    AtomicInteger opened = new AtomicInteger();
+    AtomicInteger closed = new AtomicInteger();
+    DataFileReader.InputOpener inputs = () -> {
+      opened.incrementAndGet();
+      return new SeekableByteArrayInput(bytes) {
+        @Override
+        public void close() throws IOException {
+          closed.incrementAndGet();
+          super.close();
+        }
+      };
+    };
+    try (Stream<Object> stream = DataFileReader.stream(inputs, GenericDatumReader::new, true)) {
+      assertTrue(stream.skip(COUNT / 2).findFirst().isPresent());
+    }
+    // one for the header, and the one of the split left unfinished
+    assertEquals(2, opened.get());
+    assertEquals(2, closed.get());
+  }
+}
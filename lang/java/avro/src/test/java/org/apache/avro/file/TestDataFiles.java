@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.file;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.util.RandomData;
+
+/**
+ * Data files written and read by other tests in this package. Therefore package
+ * protected.
+ */
+public class TestDataFiles {
+
+  static final Schema SCHEMA = new Schema.Parser()
+      .parse("{\"type\":\"record\",\"name\":\"R\",\"fields\":[{\"name\":\"s\",\"type\":\"string\"},"
+          + "{\"name\":\"l\",\"type\":{\"type\":\"array\",\"items\":\"long\"}}]}");
+  static final int COUNT = 2000;
+
+  /** The datums of the files, the same on each call. */
+  static Iterable<Object> data() {
+    return new RandomData(SCHEMA, COUNT, 42);
+  }
+
+  /** Returns a writer with the given codec, that writes blocks of about 1kB. */
+  static DataFileWriter<Object> newWriter(CodecFactory codec) {
+    return new DataFileWriter<>(new GenericDatumWriter<>()).setCodec(codec).setSyncInterval(1024);
+  }
+
+  /** Writes the datums in memory with a new writer. */
+  static byte[] write(CodecFactory codec) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (DataFileWriter<Object> writer = newWriter(codec).create(SCHEMA, out)) {
+      for (Object datum : data()) {
+        writer.append(datum);
+      }
+    }
+    return out.toByteArray();
+  }
+
+  /** Writes the datums to a file with a writer that is not created yet. */
+  static File write(DataFileWriter<Object> writer, File file) throws IOException {
+    return write(writer, file, data());
+  }
+
+  /** Writes some datums to a file with a writer that is not created yet. */
+  static File write(DataFileWriter<Object> writer, File file, Iterable<Object> data) throws IOException {
+    try (DataFileWriter<Object> created = writer.create(SCHEMA, file)) {
+      for (Object datum : data) {
+        created.append(datum);
+      }
+    }
+    return file;
+  }
+
+  /** Reads all the datums of a file. */
+  static List<Object> readAll(File file) throws IOException {
+    try (DataFileReader<Object> reader = new DataFileReader<>(file, new GenericDatumReader<>())) {
+      return readAll(reader);
+    }
+  }
+
+  /** Reads the datums left to a reader. */
+  static List<Object> readAll(DataFileReader<Object> reader) {
+    List<Object> read = new ArrayList<>();
+    reader.forEach(read::add);
+    return read;
+  }
+
+  /** Reads all the datums, and the sync point before each. */
+  static List<Object> readWithSyncs(DataFileReader<Object> reader) {
+    List<Object> read = new ArrayList<>();
+    while (reader.hasNext()) {
+      read.add(reader.previousSync());
+      read.add(reader.next());
+    }
+    return read;
+  }
+}
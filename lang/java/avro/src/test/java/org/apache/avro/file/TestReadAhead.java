@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.file;
+
+import static org.apache.avro.file.TestDataFiles.COUNT;
+import static org.apache.avro.file.TestDataFiles.data;
+import static org.apache.avro.file.TestDataFiles.readWithSyncs;
+import static org.apache.avro.file.TestDataFiles.write;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.generic.GenericDatumReader;
+import org.junit.After;
+import org.junit.Test;
+
+public class TestReadAhead {
+  private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+  @After
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testSameDatums() throws IOException {
+    for (CodecFactory codec : Arrays.asList(CodecFactory.nullCodec(), CodecFactory.deflateCodec(6),
+        CodecFactory.xzCodec(1), CodecFactory.zstandardCodec(3), CodecFactory.bzip2Codec())) {
+      byte[] bytes = write(codec);
+      List<Object> expected;
+      try (DataFileReader<Object> reader = new DataFileReader<>(new SeekableByteArrayInput(bytes),
+          new GenericDatumReader<>())) {
+        expected = readWithSyncs(reader);
+      }
+      for (int maxBlocks : new int[] { 1, 3, 16 }) {
+        try (DataFileReader<Object> reader = new DataFileReader<>(new SeekableByteArrayInput(bytes),
+            new GenericDatumReader<>())) {
+          reader.setReadAhead(executor, maxBlocks);
+          assertEquals(codec.toString(), expected, readWithSyncs(reader));
+        }
+        try (DataFileStream<Object> stream = new DataFileStream<>(new ByteArrayInputStream(bytes),
+            new GenericDatumReader<>())) {
+          stream.setReadAhead(executor, maxBlocks);
+          int i = 1;
+          for (Object datum : stream) {
+            assertEquals(expected.get(i), datum);
+            i += 2;
+          }
+          assertEquals(expected.size() + 1, i);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testSeekAndSync() throws IOException {
+    byte[] bytes = write(CodecFactory.deflateCodec(6));
+    try (DataFileReader<Object> reader = new DataFileReader<>(new SeekableByteArrayInput(bytes),
+        new GenericDatumReader<>())) {
+      List<Object> expected = readWithSyncs(reader);
+      long middle = bytes.length / 2;
+
+      reader.sync(middle);
+      List<Object> tail = readWithSyncs(reader);
+
+      reader.setReadAhead(executor, 4);
+      reader.sync(0);
+      assertEquals(expected, readWithSyncs(reader));
+
+      // stop reading ahead part way, while blocks are being read
+      reader.sync(0);
+      for (int i = 0; i < COUNT / 3; i++) {
+        reader.next();
+      }
+      reader.sync(middle);
+      assertEquals(tail, readWithSyncs(reader));
+
+      // a split ends past its last sync point
+      reader.sync(0);
+      int count = 0;
+      while (reader.hasNext() && !reader.pastSync(middle)) {
+        reader.next();
+        count++;
+      }
+      assertEquals(expected.indexOf(tail.get(1)) / 2, count);
+    }
+  }
+
+  @Test
+  public void testResetWhileReading() throws IOException {
+    List<Object> expected = new ArrayList<>();
+    data().forEach(expected::add);
+    byte[] bytes = write(CodecFactory.deflateCodec(6));
+    // the blocks read ahead would be lost
+    for (Executor other : Arrays.asList(executor, null)) {
+      try (DataFileStream<Object> stream = new DataFileStream<>(new ByteArrayInputStream(bytes),
+          new GenericDatumReader<>())) {
+        stream.setReadAhead(executor, 4);
+        List<Object> read = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+          read.add(stream.next());
+        }
+        try {
+          stream.setReadAhead(other, 4);
+          fail("Expected an IllegalStateException");
+        } catch (IllegalStateException e) {
+          assertEquals("Blocks are already read ahead", e.getMessage());
+        }
+        stream.forEach(read::add);
+        assertEquals(expected, read);
+      }
+    }
+    // but reading ahead may start part way
+    try (DataFileStream<Object> stream = new DataFileStream<>(new ByteArrayInputStream(bytes),
+        new GenericDatumReader<>())) {
+      List<Object> read = new ArrayList<>();
+      for (int i = 0; i < 100; i++) {
+        read.add(stream.next());
+      }
+      stream.setReadAhead(executor, 4);
+      stream.forEach(read::add);
+      assertEquals(expected, read);
+    }
+  }
+
+  @Test
+  public void testCorruptSync() throws IOException {
+    byte[] bytes = write(CodecFactory.nullCodec());
+    byte[] sync;
+    try (DataFileReader<Object> reader = new DataFileReader<>(new SeekableByteArrayInput(bytes),
+        new GenericDatumReader<>())) {
+      sync = reader.getHeader().sync;
+    }
+    // corrupt the sync marker after the second block
+    int first = indexOf(bytes, sync, 0);
+    int corrupted = indexOf(bytes, sync, indexOf(bytes, sync, first + 1) + 1);
+    bytes[corrupted]++;
+    try (DataFileReader<Object> reader = new DataFileReader<>(new SeekableByteArrayInput(bytes),
+        new GenericDatumReader<>())) {
+      reader.setReadAhead(executor, 8);
+      try {
+        while (reader.hasNext()) {
+          reader.next();
+        }
+        fail("Expected an invalid sync");
+      } catch (AvroRuntimeException e) {
+        assertEquals("Invalid sync!", e.getCause().getMessage());
+      }
+      // the failure is not taken for the end of the file
+      try {
+        reader.hasNext();
+        fail("Expected the invalid sync again");
+      } catch (AvroRuntimeException e) {
+        assertEquals("Invalid sync!", e.getCause().getMessage());
+      }
+      try {
+        reader.next();
+        fail("Expected the invalid sync again");
+      } catch (AvroRuntimeException e) {
+        assertEquals("Invalid sync!", e.getCause().getMessage());
+      }
+      // until the reader is positioned anew
+      reader.sync(0);
+      assertTrue(reader.hasNext());
+    }
+  }
+
+  private static int indexOf(byte[] bytes, byte[] pattern, int from) {
+    for (int i = from; i <= bytes.length - pattern.length; i++) {
+      if (Arrays.equals(pattern, Arrays.copyOfRange(bytes, i, i + pattern.length))) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
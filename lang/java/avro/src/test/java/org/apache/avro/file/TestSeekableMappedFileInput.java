@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.file;
+
+import static org.apache.avro.file.TestDataFiles.newWriter;
+import static org.apache.avro.file.TestDataFiles.readWithSyncs;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.avro.generic.GenericDatumReader;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestSeekableMappedFileInput {
+  @Rule
+  public TemporaryFolder DIR = new TemporaryFolder();
+
+  private static SeekableMappedFileInput map(File file, int chunkSize) throws IOException {
+    return new SeekableMappedFileInput(FileChannel.open(file.toPath(), StandardOpenOption.READ), chunkSize);
+  }
+
+  @Test
+  public void testReadAcrossChunks() throws IOException {
+    byte[] bytes = new byte[10000];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) (i * 31);
+    }
+    File file = DIR.newFile();
+    Files.write(file.toPath(), bytes);
+    try (SeekableMappedFileInput in = map(file, 1024)) {
+      assertEquals(bytes.length, in.length());
+      byte[] read = new byte[3000];
+      in.seek(1000);
+      assertEquals(read.length, in.read(read, 0, read.length));
+      assertArrayEquals(Arrays.copyOfRange(bytes, 1000, 4000), read);
+      assertEquals(4000, in.tell());
+
+      in.seek(9000);
+      assertEquals(1000, in.read(read, 0, read.length));
+      assertEquals(-1, in.read(read, 0, read.length));
+
+      ByteBuffer slice = in.slice(2048, 1024);
+      byte[] sliced = new byte[slice.remaining()];
+      slice.get(sliced);
+      assertArrayEquals(Arrays.copyOfRange(bytes, 2048, 3072), sliced);
+      assertNull(in.slice(2047, 2));
+      assertEquals(10000, in.tell());
+    }
+  }
+
+  private File write(CodecFactory codec) throws IOException {
+    return TestDataFiles.write(newWriter(codec), DIR.newFile());
+  }
+
+  @Test
+  public void testDataFile() throws IOException {
+    for (CodecFactory codec : Arrays.asList(CodecFactory.nullCodec(), CodecFactory.deflateCodec(6),
+        CodecFactory.xzCodec(1), CodecFactory.zstandardCodec(3), CodecFactory.bzip2Codec(),
+        CodecFactory.snappyCodec())) {
+      File file = write(codec);
+      List<Object> expected;
+      try (DataFileReader<Object> reader = new DataFileReader<>(file, new GenericDatumReader<>())) {
+        expected = readWithSyncs(reader);
+      }
+      // with small chunks, some blocks span two and are copied
+      for (int chunkSize : new int[] { SeekableMappedFileInput.CHUNK_SIZE, 8192 }) {
+        try (DataFileReader<Object> reader = new DataFileReader<>(map(file, chunkSize), new GenericDatumReader<>())) {
+          assertEquals(codec.toString(), expected, readWithSyncs(reader));
+          reader.sync(file.length() / 2);
+          List<Object> tail = readWithSyncs(reader);
+          assertEquals(expected.subList(expected.size() - tail.size(), expected.size()), tail);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testDirectDecompression() throws IOException {
+    ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(write(CodecFactory.nullCodec()).toPath()));
+    for (CodecFactory factory : Arrays.asList(CodecFactory.nullCodec(), CodecFactory.deflateCodec(6),
+        CodecFactory.xzCodec(1), CodecFactory.zstandardCodec(3), CodecFactory.bzip2Codec())) {
+      Codec codec = factory.createInstance();
+      ByteBuffer compressed = codec.compress(data);
+      ByteBuffer direct = ByteBuffer.allocateDirect(compressed.remaining());
+      direct.put(compressed.duplicate());
+      direct.flip();
+      assertEquals(codec.toString(), codec.decompress(compressed), codec.decompress(direct));
+      assertEquals(0, direct.position());
+    }
+  }
+}
@@ -25,6 +25,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonParseException;
@@ -35,6 +36,7 @@ import org.apache.avro.Schema;
 import org.apache.avro.Schema.Field;
 import org.apache.avro.Schema.Type;
 import org.apache.avro.SchemaBuilder;
+import org.apache.avro.UnresolvedUnionException;
 import org.apache.avro.TestCircularReferences.ReferenceManager;
 import org.apache.avro.generic.GenericData.Record;
 import org.apache.avro.io.BinaryData;
@@ -723,4 +725,72 @@ public class TestGenericData {
     assertNull(list.peek());
   }
 
+  @Test
+  public void testResolveUnionCachedByClass() {
+    Schema a = SchemaBuilder.record("A").fields().requiredInt("x").endRecord();
+    Schema b = SchemaBuilder.record("B").fields().requiredInt("x").endRecord();
+    Schema e = SchemaBuilder.enumeration("E").symbols("S");
+    Schema union = Schema.createUnion(Schema.create(Type.NULL), Schema.create(Type.STRING), Schema.create(Type.LONG), a,
+        b, e, Schema.createMap(Schema.create(Type.INT)));
+    GenericData data = new GenericData();
+    // twice, to hit the cache the second time
+    for (int i = 0; i < 2; i++) {
+      assertEquals(0, data.resolveUnion(union, null));
+      assertEquals(1, data.resolveUnion(union, "s"));
+      assertEquals(1, data.resolveUnion(union, new Utf8("s")));
+      assertEquals(2, data.resolveUnion(union, 1L));
+      // records and enums of the same class are told apart by their schema
+      assertEquals(3, data.resolveUnion(union, new GenericData.Record(a)));
+      assertEquals(4, data.resolveUnion(union, new GenericData.Record(b)));
+      assertEquals(5, data.resolveUnion(union, new GenericData.EnumSymbol(e, "S")));
+      assertEquals(6, data.resolveUnion(union, new HashMap<>()));
+    }
+
+    // the same class resolves per union
+    Schema other = Schema.createUnion(Schema.create(Type.LONG), Schema.create(Type.STRING));
+    assertEquals(1, data.resolveUnion(other, "s"));
+    assertEquals(1, data.resolveUnion(union, "s"));
+    try {
+      data.resolveUnion(other, 1);
+      fail("Expected UnresolvedUnionException");
+    } catch (UnresolvedUnionException expected) {
+    }
+  }
+
+  @Test
+  public void testResolveUnionOfSubclass() {
+    Schema union = Schema.createUnion(Schema.create(Type.STRING), Schema.create(Type.LONG));
+    // strings of digits resolve to the long branch: instances of the same class
+    // resolve differently, so the branches must not be cached
+    GenericData digits = new GenericData() {
+      @Override
+      protected String getSchemaName(Object datum) {
+        if (datum instanceof String && ((String) datum).matches("[0-9]+"))
+          return Type.LONG.getName();
+        return super.getSchemaName(datum);
+      }
+    };
+    assertEquals(0, digits.resolveUnion(union, "s"));
+    assertEquals(1, digits.resolveUnion(union, "42"));
+    assertEquals(0, digits.resolveUnion(union, "s"));
+
+    // subclasses may opt in
+    AtomicInteger resolved = new AtomicInteger();
+    GenericData optIn = new GenericData() {
+      @Override
+      protected boolean cachesUnionBranches() {
+        return true;
+      }
+
+      @Override
+      protected String getSchemaName(Object datum) {
+        resolved.incrementAndGet();
+        return super.getSchemaName(datum);
+      }
+    };
+    assertEquals(0, optIn.resolveUnion(union, "s"));
+    assertEquals(0, optIn.resolveUnion(union, "t"));
+    assertEquals(1, resolved.get());
+  }
+
 }
@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.generic;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.Encoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.message.RawMessageDecoder;
+import org.apache.avro.util.Utf8;
+import org.junit.Test;
+
+public class TestLazyGenericRecord {
+  private static final Schema SCHEMA = new Schema.Parser()
+      .parse("{\"type\":\"record\",\"name\":\"Event\",\"fields\":[" + "{\"name\":\"id\",\"type\":\"long\"},"
+          + "{\"name\":\"tags\",\"type\":{\"type\":\"array\",\"items\":\"string\"}},"
+          + "{\"name\":\"attrs\",\"type\":{\"type\":\"map\",\"values\":\"int\"}},"
+          + "{\"name\":\"payload\",\"type\":\"bytes\"}," + "{\"name\":\"route\",\"type\":[\"null\",\"string\"]},"
+          + "{\"name\":\"score\",\"type\":\"double\"}]}");
+
+  private static GenericData.Record event(long id, String route) {
+    GenericData.Record record = new GenericData.Record(SCHEMA);
+    record.put("id", id);
+    record.put("tags", Arrays.asList(new Utf8("a"), new Utf8("bc")));
+    record.put("attrs", Collections.singletonMap(new Utf8("k"), 7));
+    record.put("payload", ByteBuffer.wrap(new byte[] { 1, 2, 3 }));
+    record.put("route", route == null ? null : new Utf8(route));
+    record.put("score", 0.5d);
+    return record;
+  }
+
+  private static byte[] write(GenericData data, Object datum) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Encoder e = EncoderFactory.get().binaryEncoder(out, null);
+    new GenericDatumWriter<>(SCHEMA, data).write(datum, e);
+    e.flush();
+    return out.toByteArray();
+  }
+
+  private static void assertSameFields(IndexedRecord expected, IndexedRecord actual) {
+    assertEquals(0, GenericData.get().compare(expected, actual, SCHEMA, true));
+  }
+
+  @Test
+  public void testFieldsInAnyOrder() throws IOException {
+    GenericData.Record expected = event(42, "eu");
+    byte[] bytes = write(GenericData.get(), expected);
+    LazyGenericRecord lazy = new LazyDatumReader(SCHEMA).read(null, DecoderFactory.get().binaryDecoder(bytes, null));
+
+    assertEquals(new Utf8("eu"), lazy.get("route"));
+    assertEquals(42L, lazy.get(0));
+    assertEquals(0.5d, lazy.get("score"));
+    assertEquals(expected.get("tags"), lazy.get("tags"));
+    assertSameFields(expected, lazy);
+    assertEquals(expected.toString(), lazy.toString());
+    assertEquals(new LazyGenericRecord(new LazyGenericRecord.Layout(SCHEMA, GenericData.get()), bytes), lazy);
+  }
+
+  @Test
+  public void testWriteBack() throws IOException {
+    byte[] bytes = write(GenericData.get(), event(1, "us"));
+    GenericData fastData = new GenericData().setFastWriterEnabled(true);
+    for (GenericData data : Arrays.asList(GenericData.get(), fastData)) {
+      LazyGenericRecord.Layout layout = new LazyGenericRecord.Layout(SCHEMA, data);
+      LazyGenericRecord lazy = new LazyGenericRecord(layout, bytes);
+      assertEquals(new Utf8("us"), lazy.get("route"));
+      assertArrayEquals(bytes, write(data, lazy));
+
+      // also when its schema is equal, but not the same
+      Schema equal = new Schema.Parser().parse(SCHEMA.toString());
+      LazyGenericRecord other = new LazyGenericRecord(new LazyGenericRecord.Layout(equal, data), bytes);
+      assertArrayEquals(bytes, write(data, other));
+      assertArrayEquals(bytes, write(data, other));
+
+      // once a field is put, the record is written field by field
+      lazy.put("route", new Utf8("ap"));
+      assertNull(lazy.getEncoded());
+      assertArrayEquals(write(GenericData.get(), event(1, "ap")), write(data, lazy));
+    }
+  }
+
+  @Test
+  public void testOwnModel() throws IOException {
+    // a model that ignores strings when comparing and hashing records
+    GenericData data = new GenericData() {
+      @Override
+      protected int compare(Object o1, Object o2, Schema s, boolean equals) {
+        return s.getType() == Schema.Type.STRING ? 0 : super.compare(o1, o2, s, equals);
+      }
+
+      @Override
+      public int hashCode(Object o, Schema s) {
+        return s.getType() == Schema.Type.STRING ? 0 : super.hashCode(o, s);
+      }
+    };
+    LazyGenericRecord.Layout layout = new LazyGenericRecord.Layout(SCHEMA, data);
+    LazyGenericRecord eu = new LazyGenericRecord(layout, write(data, event(1, "eu")));
+    LazyGenericRecord us = new LazyGenericRecord(layout, write(data, event(1, "us")));
+    assertEquals(eu, us);
+    assertEquals(eu.hashCode(), us.hashCode());
+
+    LazyGenericRecord.Layout defaultLayout = new LazyGenericRecord.Layout(SCHEMA, GenericData.get());
+    LazyGenericRecord euDefault = new LazyGenericRecord(defaultLayout, write(data, event(1, "eu")));
+    LazyGenericRecord usDefault = new LazyGenericRecord(defaultLayout, write(data, event(1, "us")));
+    assertNotEquals(euDefault, usDefault);
+  }
+
+  @Test
+  public void testDataFileStream() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (DataFileWriter<Object> writer = new DataFileWriter<>(new GenericDatumWriter<>(SCHEMA))) {
+      writer.create(SCHEMA, out);
+      for (int i = 0; i < 100; i++) {
+        writer.append(event(i, i % 3 == 0 ? null : "r" + i));
+      }
+    }
+    long id = 0;
+    try (DataFileStream<LazyGenericRecord> in = new DataFileStream<>(new ByteArrayInputStream(out.toByteArray()),
+        new LazyDatumReader())) {
+      for (LazyGenericRecord lazy : in) {
+        assertEquals(id, lazy.get("id"));
+        assertNotNull(lazy.getEncoded());
+        assertSameFields(event(id, id % 3 == 0 ? null : "r" + id), lazy);
+        id++;
+      }
+    }
+    assertEquals(100, id);
+  }
+
+  @Test
+  public void testRawMessageDecoder() throws IOException {
+    GenericData.Record expected = event(3, null);
+    byte[] bytes = write(GenericData.get(), expected);
+    RawMessageDecoder<LazyGenericRecord> decoder = new RawMessageDecoder<>(new LazyDatumReader(SCHEMA));
+
+    LazyGenericRecord fromArray = decoder.decode(bytes);
+    assertNotNull(fromArray.getEncoded());
+    assertSameFields(expected, fromArray);
+    assertSameFields(expected, decoder.decode(ByteBuffer.wrap(bytes)));
+
+    // the encoding cannot be captured from a stream: the record is decoded whole
+    LazyGenericRecord fromStream = decoder.decode(new ByteArrayInputStream(bytes));
+    assertNull(fromStream.getEncoded());
+    assertSameFields(expected, fromStream);
+    assertArrayEquals(bytes, write(GenericData.get(), fromStream));
+  }
+
+  @Test
+  public void testRecordAtEndOfBuffer() throws IOException {
+    // skipping the last bytes of the array makes the decoder copy them into a
+    // buffer of its own, the captured bytes must still be the whole record
+    Schema schema = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"User\",\"fields\":["
+        + "{\"name\":\"name\",\"type\":\"string\"},{\"name\":\"id\",\"type\":\"long\"}]}");
+    GenericData.Record expected = new GenericData.Record(schema);
+    expected.put("id", 1234567L);
+    expected.put("name", new Utf8("a name of some length"));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Encoder e = EncoderFactory.get().binaryEncoder(out, null);
+    new GenericDatumWriter<>(schema).write(expected, e);
+    e.flush();
+    byte[] bytes = out.toByteArray();
+
+    RawMessageDecoder<LazyGenericRecord> decoder = new RawMessageDecoder<>(new LazyDatumReader(schema));
+    LazyGenericRecord lazy = decoder.decode(bytes);
+    assertEquals(bytes.length, lazy.getEncoded().remaining());
+    assertEquals(new Utf8("a name of some length"), lazy.get("name"));
+    assertEquals(1234567L, lazy.get("id"));
+
+    byte[] padded = Arrays.copyOf(bytes, bytes.length + 5);
+    lazy = new LazyDatumReader(schema).read(null, DecoderFactory.get().binaryDecoder(padded, 0, bytes.length, null));
+    assertEquals(bytes.length, lazy.getEncoded().remaining());
+    assertEquals(new Utf8("a name of some length"), lazy.get("name"));
+  }
+}
@@ -0,0 +1,269 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.generic;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.LogicalTypes;
+import org.apache.avro.Schema;
+import org.apache.avro.data.TimeConversions;
+import org.apache.avro.io.Decoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.Encoder;
+import org.apache.avro.io.EncoderFactory;
+import org.junit.Test;
+
+public class TestPrimitivesArrays {
+  private static Schema arrayOf(Schema.Type type) {
+    return Schema.createArray(Schema.create(type));
+  }
+
+  @Test
+  public void testListOperations() {
+    PrimitivesArrays.IntArray array = new PrimitivesArrays.IntArray(1, arrayOf(Schema.Type.INT));
+    for (int i = 0; i < 10; i++) {
+      array.addInt(i);
+    }
+    array.add(0, -1);
+    assertEquals(11, array.size());
+    assertEquals(Integer.valueOf(-1), array.get(0));
+    assertEquals(9, array.getInt(10));
+    assertEquals(Integer.valueOf(0), array.remove(1));
+    assertEquals(Integer.valueOf(1), array.set(1, 42));
+    assertEquals(Arrays.asList(-1, 42, 2, 3, 4, 5, 6, 7, 8, 9), array);
+    assertEquals(Arrays.asList(-1, 42, 2, 3, 4, 5, 6, 7, 8, 9).hashCode(), array.hashCode());
+    array.reverse();
+    assertEquals(Arrays.asList(9, 8, 7, 6, 5, 4, 3, 2, 42, -1), array);
+    array.reset();
+    assertEquals(0, array.size());
+    try {
+      array.get(0);
+      throw new AssertionError("Expected IndexOutOfBoundsException");
+    } catch (IndexOutOfBoundsException e) {
+    }
+  }
+
+  @Test
+  public void testNulls() throws IOException {
+    Schema schema = arrayOf(Schema.Type.LONG);
+    PrimitivesArrays.LongArray array = new PrimitivesArrays.LongArray(0, schema);
+    array.addAll(Arrays.asList(1L, null, 3L));
+    assertTrue(array.hasNulls());
+    assertEquals(Arrays.asList(1L, null, 3L), array);
+    assertEquals(0L, array.getLong(1));
+    array.add(0, null);
+    assertEquals(Arrays.asList(null, 1L, null, 3L), array);
+    array.reverse();
+    assertEquals(Arrays.asList(3L, null, 1L, null), array);
+    assertNull(array.remove(1));
+    assertNull(array.set(2, 4L));
+    assertEquals(Arrays.asList(3L, 1L, 4L), array);
+    assertFalse(array.hasNulls());
+    array.set(1, null);
+    array.setLong(1, 2L);
+    assertEquals(Arrays.asList(3L, 2L, 4L), array);
+    array.add(null);
+    array.reset();
+    assertFalse(array.hasNulls());
+    array.addLong(5L);
+    assertEquals(Arrays.asList(5L), array);
+
+    // nulls are rejected when written, as in other arrays
+    array.add(null);
+    Encoder e = EncoderFactory.get().binaryEncoder(new ByteArrayOutputStream(), null);
+    try {
+      new GenericDatumWriter<Object>(schema).write(array, e);
+      throw new AssertionError("Expected NullPointerException");
+    } catch (NullPointerException expected) {
+    }
+  }
+
+  @Test(expected = AvroRuntimeException.class)
+  public void testWrongElementType() {
+    new PrimitivesArrays.LongArray(0, arrayOf(Schema.Type.INT));
+  }
+
+  @Test
+  public void testNewArray() {
+    GenericData data = new GenericData();
+    assertTrue(data.newArray(null, 0, arrayOf(Schema.Type.INT)) instanceof PrimitivesArrays.IntArray);
+    assertTrue(data.newArray(null, 0, arrayOf(Schema.Type.LONG)) instanceof PrimitivesArrays.LongArray);
+    assertTrue(data.newArray(null, 0, arrayOf(Schema.Type.FLOAT)) instanceof PrimitivesArrays.FloatArray);
+    assertTrue(data.newArray(null, 0, arrayOf(Schema.Type.DOUBLE)) instanceof PrimitivesArrays.DoubleArray);
+    assertTrue(data.newArray(null, 0, arrayOf(Schema.Type.BOOLEAN)) instanceof PrimitivesArrays.BooleanArray);
+    assertTrue(data.newArray(null, 0, arrayOf(Schema.Type.STRING)) instanceof GenericData.Array);
+
+    // converted logical types need the boxed elements
+    Schema dates = Schema.createArray(LogicalTypes.date().addToSchema(Schema.create(Schema.Type.INT)));
+    assertTrue(data.newArray(null, 0, dates) instanceof PrimitivesArrays.IntArray);
+    data.addLogicalTypeConversion(new TimeConversions.DateConversion());
+    assertTrue(data.newArray(null, 0, dates) instanceof GenericData.Array);
+  }
+
+  private static final Schema SCHEMA = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"R\",\"fields\":["
+      + "{\"name\":\"b\",\"type\":{\"type\":\"array\",\"items\":\"boolean\"}},"
+      + "{\"name\":\"i\",\"type\":{\"type\":\"array\",\"items\":\"int\"}},"
+      + "{\"name\":\"l\",\"type\":{\"type\":\"array\",\"items\":\"long\"}},"
+      + "{\"name\":\"f\",\"type\":{\"type\":\"array\",\"items\":\"float\"}},"
+      + "{\"name\":\"d\",\"type\":{\"type\":\"array\",\"items\":\"double\"}}]}");
+
+  private static byte[] write(GenericData.Record record) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Encoder e = EncoderFactory.get().binaryEncoder(out, null);
+    new GenericDatumWriter<>(SCHEMA).write(record, e);
+    e.flush();
+    return out.toByteArray();
+  }
+
+  private static void checkRoundTrip(GenericData data) throws IOException {
+    GenericData.Record record = new GenericData.Record(SCHEMA);
+    record.put("b", Arrays.asList(true, false, true));
+    record.put("i", Arrays.asList(1, -2, 3));
+    record.put("l", Arrays.asList(4L, Long.MIN_VALUE));
+    record.put("f", Arrays.asList(1.5f));
+    record.put("d", Arrays.asList(2.5d, -0.0d));
+    byte[] bytes = write(record);
+
+    GenericDatumReader<GenericData.Record> reader = new GenericDatumReader<>(SCHEMA, SCHEMA, data);
+    GenericData.Record read = reader.read(null, DecoderFactory.get().binaryDecoder(bytes, null));
+    assertEquals(record, read);
+    assertTrue(read.get("b") instanceof PrimitivesArrays.BooleanArray);
+    assertTrue(read.get("i") instanceof PrimitivesArrays.IntArray);
+    assertTrue(read.get("l") instanceof PrimitivesArrays.LongArray);
+    assertTrue(read.get("f") instanceof PrimitivesArrays.FloatArray);
+    assertTrue(read.get("d") instanceof PrimitivesArrays.DoubleArray);
+    assertArrayEquals(new int[] { 1, -2, 3 }, Arrays.copyOf(((PrimitivesArrays.IntArray) read.get("i")).elements(), 3));
+
+    // the primitive arrays are written directly, and reused when read again
+    assertArrayEquals(bytes, write(read));
+    Object longs = read.get("l");
+    record.put("l", Arrays.asList(7L, 8L, 9L, 10L));
+    bytes = write(record);
+    GenericData.Record again = reader.read(read, DecoderFactory.get().binaryDecoder(bytes, null));
+    assertSame(longs, again.get("l"));
+    assertEquals(record, again);
+  }
+
+  @Test
+  public void testGenericDatumIO() throws IOException {
+    checkRoundTrip(new GenericData());
+  }
+
+  @Test
+  public void testFastReader() throws IOException {
+    GenericData data = new GenericData();
+    data.setFastReaderEnabled(true);
+    checkRoundTrip(data);
+  }
+
+  @Test
+  public void testListOfDifferentType() throws IOException {
+    // a primitive array of another type is not reused
+    Schema longs = arrayOf(Schema.Type.LONG);
+    PrimitivesArrays.IntArray ints = new PrimitivesArrays.IntArray(0, arrayOf(Schema.Type.INT));
+    ints.addInt(5);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Encoder e = EncoderFactory.get().binaryEncoder(out, null);
+    new GenericDatumWriter<List<Long>>(longs).write(Arrays.asList(5L), e);
+    e.flush();
+    GenericDatumReader<Object> reader = new GenericDatumReader<>(longs);
+    Object read = reader.read(ints, DecoderFactory.get().binaryDecoder(out.toByteArray(), null));
+    assertEquals(Arrays.asList(5L), read);
+    assertTrue(read instanceof PrimitivesArrays.LongArray);
+  }
+
+  @Test
+  public void testReuseAfterConversion() throws IOException {
+    // a primitive array is not reused once its elements are converted
+    Schema dates = Schema.createArray(LogicalTypes.date().addToSchema(Schema.create(Schema.Type.INT)));
+    GenericData data = new GenericData();
+    Object ints = data.newArray(null, 1, dates);
+    assertTrue(ints instanceof PrimitivesArrays.IntArray);
+    data.addLogicalTypeConversion(new TimeConversions.DateConversion());
+    assertNotSame(ints, data.newArray(ints, 1, dates));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Encoder e = EncoderFactory.get().binaryEncoder(out, null);
+    new GenericDatumWriter<List<Integer>>(arrayOf(Schema.Type.INT)).write(Arrays.asList(1), e);
+    e.flush();
+    GenericDatumReader<Object> reader = new GenericDatumReader<>(dates, dates, data);
+    Object read = reader.read(ints, DecoderFactory.get().binaryDecoder(out.toByteArray(), null));
+    assertEquals(Arrays.asList(LocalDate.ofEpochDay(1)), read);
+  }
+
+  @Test
+  public void testOverriddenHooks() throws IOException {
+    // subclasses overriding the hooks see every item of primitive arrays, unless
+    // the fast reader, which does not call them, is enabled
+    GenericData data = new GenericData();
+    data.setFastReaderEnabled(false);
+    Schema ints = arrayOf(Schema.Type.INT);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Encoder e = EncoderFactory.get().binaryEncoder(out, null);
+    new GenericDatumWriter<List<Integer>>(ints).write(Arrays.asList(1, 2, 3), e);
+    e.flush();
+
+    GenericDatumReader<Object> readInt = new GenericDatumReader<Object>(ints, ints, data) {
+      @Override
+      protected Object readInt(Object old, Schema expected, Decoder in) throws IOException {
+        return in.readInt() * 10;
+      }
+    };
+    assertEquals(Arrays.asList(10, 20, 30),
+        readInt.read(null, DecoderFactory.get().binaryDecoder(out.toByteArray(), null)));
+
+    GenericDatumReader<Object> addToArray = new GenericDatumReader<Object>(ints, ints, data) {
+      @Override
+      protected void addToArray(Object array, long pos, Object e) {
+        super.addToArray(array, pos, (Integer) e + 1);
+      }
+    };
+    assertEquals(Arrays.asList(2, 3, 4),
+        addToArray.read(null, DecoderFactory.get().binaryDecoder(out.toByteArray(), null)));
+
+    // unless they opt in to primitive arrays filled by the decoder
+    GenericDatumReader<Object> optIn = new GenericDatumReader<Object>(ints, ints, data) {
+      @Override
+      protected Object readInt(Object old, Schema expected, Decoder in) throws IOException {
+        return in.readInt() * 10;
+      }
+
+      @Override
+      protected boolean readsPrimitiveArraysDirectly() {
+        return true;
+      }
+    };
+    Object read = optIn.read(new PrimitivesArrays.IntArray(0, ints),
+        DecoderFactory.get().binaryDecoder(out.toByteArray(), null));
+    assertEquals(Arrays.asList(1, 2, 3), read);
+    assertTrue(read instanceof PrimitivesArrays.IntArray);
+  }
+}
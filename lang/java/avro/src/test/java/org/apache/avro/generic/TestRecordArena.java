@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.generic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.util.Utf8;
+import org.junit.Test;
+
+public class TestRecordArena {
+  private static final Schema SCHEMA = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"Outer\",\"fields\":["
+      + "{\"name\":\"inner\",\"type\":[\"null\",{\"type\":\"record\",\"name\":\"Inner\",\"fields\":["
+      + "{\"name\":\"name\",\"type\":\"string\"}]}]},"
+      + "{\"name\":\"value\",\"type\":[\"string\",{\"type\":\"array\",\"items\":\"Inner\"}]},"
+      + "{\"name\":\"attrs\",\"type\":{\"type\":\"map\",\"values\":\"Inner\"}}]}");
+  private static final Schema INNER = SCHEMA.getField("inner").schema().getTypes().get(1);
+
+  private static GenericData.Record inner(String name) {
+    GenericData.Record record = new GenericData.Record(INNER);
+    record.put("name", new Utf8(name));
+    return record;
+  }
+
+  private static GenericData.Record outer(int i) {
+    GenericData.Record record = new GenericData.Record(SCHEMA);
+    // the nested record is null in every other datum, and the union switches
+    record.put("inner", i % 2 == 0 ? inner("in" + i) : null);
+    record.put("value", i % 3 == 0 ? new Utf8("v" + i) : Arrays.asList(inner("a" + i), inner("b" + i)));
+    Map<Utf8, Object> attrs = new HashMap<>();
+    for (int j = 0; j < i % 4; j++) {
+      attrs.put(new Utf8("k" + j), inner("m" + i + j));
+    }
+    record.put("attrs", attrs);
+    return record;
+  }
+
+  private static byte[] file(int count) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (DataFileWriter<Object> writer = new DataFileWriter<>(new GenericDatumWriter<>(SCHEMA))) {
+      writer.create(SCHEMA, out);
+      for (int i = 0; i < count; i++) {
+        writer.append(outer(i));
+      }
+    }
+    return out.toByteArray();
+  }
+
+  private static GenericDatumReader<GenericRecord> reader(boolean fast) {
+    GenericData data = new GenericData().setFastReaderEnabled(fast);
+    GenericDatumReader<GenericRecord> reader = new GenericDatumReader<>(null, null, data);
+    reader.setArena(new RecordArena());
+    return reader;
+  }
+
+  @Test
+  public void testDataFileStream() throws IOException {
+    checkDataFileStream(reader(false));
+  }
+
+  @Test
+  public void testDataFileStreamFastReader() throws IOException {
+    checkDataFileStream(reader(true));
+  }
+
+  private void checkDataFileStream(GenericDatumReader<GenericRecord> reader) throws IOException {
+    int i = 0;
+    try (DataFileStream<GenericRecord> in = new DataFileStream<>(new ByteArrayInputStream(file(100)), reader)) {
+      GenericRecord datum = null;
+      while (in.hasNext()) {
+        datum = in.next(datum);
+        assertEquals(outer(i++), datum);
+      }
+    }
+    assertEquals(100, i);
+  }
+
+  /** Adds the records and strings of a datum to the given set. */
+  private static void collect(Object datum, Set<Object> seen) {
+    if (datum instanceof IndexedRecord) {
+      seen.add(datum);
+      IndexedRecord record = (IndexedRecord) datum;
+      for (int i = 0; i < record.getSchema().getFields().size(); i++) {
+        collect(record.get(i), seen);
+      }
+    } else if (datum instanceof Collection) {
+      seen.add(datum);
+      for (Object element : (Collection<?>) datum) {
+        collect(element, seen);
+      }
+    } else if (datum instanceof Map) {
+      seen.add(datum);
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) datum).entrySet()) {
+        collect(entry.getKey(), seen);
+        collect(entry.getValue(), seen);
+      }
+    } else if (datum instanceof Utf8) {
+      seen.add(datum);
+    }
+  }
+
+  @Test
+  public void testDeepReuse() throws IOException {
+    checkDeepReuse(reader(false));
+  }
+
+  @Test
+  public void testDeepReuseFastReader() throws IOException {
+    checkDeepReuse(reader(true));
+  }
+
+  private void checkDeepReuse(GenericDatumReader<GenericRecord> reader) throws IOException {
+    Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+    try (DataFileStream<GenericRecord> in = new DataFileStream<>(new ByteArrayInputStream(file(48)), reader)) {
+      GenericRecord first = in.next(null);
+      GenericRecord datum = first;
+      // the datums repeat their shapes every 12, after which all are recycled
+      for (int i = 1; i < 12; i++) {
+        datum = in.next(datum);
+        assertSame(first, datum);
+        collect(datum, seen);
+      }
+      int allocated = seen.size();
+      for (int i = 12; i < 48; i++) {
+        datum = in.next(datum);
+        assertEquals(outer(i), datum);
+        collect(datum, seen);
+      }
+      assertEquals(allocated, seen.size());
+    }
+  }
+
+  @Test
+  public void testWithoutArena() throws IOException {
+    // without an arena, nested values that do not fit in place are allocated
+    Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+    try (DataFileStream<GenericRecord> in = new DataFileStream<>(new ByteArrayInputStream(file(24)),
+        new GenericDatumReader<>())) {
+      GenericRecord datum = null;
+      for (int i = 0; i < 12; i++) {
+        collect(datum = in.next(datum), seen);
+      }
+      int allocated = seen.size();
+      for (int i = 12; i < 24; i++) {
+        collect(datum = in.next(datum), seen);
+      }
+      assertNotEquals(allocated, seen.size());
+    }
+  }
+
+  @Test
+  public void testReleaseTwice() {
+    RecordArena arena = new RecordArena();
+    Utf8 string = new Utf8("s");
+    arena.release(string);
+    arena.release(string);
+    assertSame(string, arena.takeString());
+    assertNull(arena.takeString());
+
+    // once taken, it may be released again
+    arena.release(string);
+    assertSame(string, arena.takeString());
+  }
+
+  @Test
+  public void testCapacity() {
+    RecordArena arena = new RecordArena(2);
+    for (int i = 0; i < 3; i++) {
+      arena.release(new Utf8("s" + i));
+    }
+    assertNotNull(arena.takeString());
+    assertNotNull(arena.takeString());
+    assertNull(arena.takeString());
+  }
+
+  @Test
+  public void testArraysBySchema() {
+    Schema strings = Schema.createArray(Schema.create(Schema.Type.STRING));
+    Schema inners = Schema.createArray(INNER);
+    Schema others = Schema.createArray(SchemaBuilder.record("Other").fields().requiredInt("x").endRecord());
+    RecordArena arena = new RecordArena();
+    GenericData.Array<Object> array = new GenericData.Array<>(1, inners);
+    arena.release(array);
+    // arrays of records of another schema, or of strings, do not take it
+    assertNull(arena.take(others));
+    assertNull(arena.take(strings));
+    assertSame(array, arena.take(Schema.createArray(new Schema.Parser().parse(INNER.toString()))));
+  }
+}
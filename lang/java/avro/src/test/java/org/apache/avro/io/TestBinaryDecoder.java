@@ -18,6 +18,7 @@
 package org.apache.avro.io;
 
 import java.io.*;
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -212,6 +213,115 @@ public class TestBinaryDecoder {
     }
   }
 
+  @Test
+  public void testDecodeFromByteBuffers() throws IOException {
+    GenericDatumReader<Object> reader = new GenericDatumReader<>();
+    reader.setSchema(schema);
+
+    ByteBuffer heap = ByteBuffer.allocate(data.length + 30);
+    ((Buffer) heap).position(15);
+    heap.put(data);
+    ((Buffer) heap).flip();
+    ((Buffer) heap).position(15);
+    ByteBuffer direct = ByteBuffer.allocateDirect(data.length);
+    direct.put(data);
+    ((Buffer) direct).flip();
+
+    Decoder fromHeap = factory.binaryDecoder(heap, null);
+    Decoder fromDirect = factory.binaryDecoder(direct, null);
+    BinaryDecoder initOnInputStream = factory.binaryDecoder(new ByteArrayInputStream(data), null);
+    initOnInputStream = factory.binaryDecoder(direct, initOnInputStream);
+
+    for (Object datum : records) {
+      Assert.assertEquals("heap ByteBuffer based BinaryDecoder result does not match", datum,
+          reader.read(null, fromHeap));
+      Assert.assertEquals("direct ByteBuffer based BinaryDecoder result does not match", datum,
+          reader.read(null, fromDirect));
+      Assert.assertEquals("ByteBuffer initialized BinaryDecoder result does not match", datum,
+          reader.read(null, initOnInputStream));
+    }
+    Assert.assertEquals(15, heap.position());
+    Assert.assertEquals(0, direct.position());
+  }
+
+  @Test
+  public void testDirectByteBufferReuse() throws IOException {
+    BinaryDecoder d = null;
+    for (int i = 0; i < 100; i++) {
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      Encoder e = e_factory.binaryEncoder(baos, null);
+      e.writeString("message " + i);
+      e.writeLong(i);
+      e.flush();
+      ByteBuffer direct = ByteBuffer.allocateDirect(baos.size());
+      direct.put(baos.toByteArray());
+      ((Buffer) direct).flip();
+      d = factory.binaryDecoder(direct, d);
+      Assert.assertEquals("message " + i, d.readString());
+      Assert.assertEquals(i, d.readLong());
+      Assert.assertTrue(d.isEnd());
+    }
+  }
+
+  @Test
+  public void testDirectByteBufferProxy() throws IOException {
+    ByteBuffer direct = ByteBuffer.allocateDirect(data.length);
+    direct.put(data);
+    ((Buffer) direct).flip();
+    BinaryDecoder bd = factory.binaryDecoder(direct, null);
+    validateInputStreamReads(bd.inputStream(), new ByteArrayInputStream(data));
+    bd = factory.binaryDecoder(direct, bd);
+    validateInputStreamSkips(bd.inputStream(), new ByteArrayInputStream(data));
+
+    // a detached stream keeps the bytes buffered before the decoder was reused
+    bd = factory.binaryDecoder(direct, bd);
+    bd.readInt();
+    InputStream test = bd.inputStream();
+    BinaryDecoder check = factory.binaryDecoder(data, null);
+    check.readInt();
+    factory.binaryDecoder(ByteBuffer.allocateDirect(64), bd);
+    validateInputStreamReads(test, check.inputStream());
+  }
+
+  @Test
+  public void testBorrowedReads() throws IOException {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    Encoder e = e_factory.binaryEncoder(baos, null);
+    e.writeString("borrowed string");
+    e.writeBytes(new byte[] { 1, 2, 3 });
+    e.writeString("x");
+    e.flush();
+    byte[] bytes = baos.toByteArray();
+
+    BinaryDecoder d = factory.binaryDecoder(bytes, null);
+    d.setBorrowedReads(true);
+    Utf8 s = d.readString(null);
+    Assert.assertTrue(s.isBorrowed());
+    Assert.assertEquals("borrowed string", s.toString());
+    ByteBuffer old = ByteBuffer.allocate(10);
+    ByteBuffer b = d.readBytes(old);
+    Assert.assertNotSame(old, b);
+    Assert.assertSame(bytes, b.array());
+    Assert.assertEquals(ByteBuffer.wrap(new byte[] { 1, 2, 3 }), b);
+    // reusing a borrowed instance must not write into the decoder's buffer
+    Utf8 x = d.readString(s);
+    Assert.assertSame(s, x);
+    Assert.assertEquals("x", x.toString());
+
+    d = factory.binaryDecoder(bytes, d);
+    Assert.assertTrue(d.isBorrowedReads());
+    d.setBorrowedReads(false);
+    Utf8 copied = d.readString(x);
+    Assert.assertFalse(copied.isBorrowed());
+    Assert.assertEquals("borrowed string", copied.toString());
+    Assert.assertArrayEquals(baos.toByteArray(), bytes);
+
+    // sources that refill their buffer fall back to copying
+    d = factory.binaryDecoder(new ByteArrayInputStream(bytes), null);
+    d.setBorrowedReads(true);
+    Assert.assertFalse(d.readString(null).isBorrowed());
+  }
+
   @Test
   public void testInputStreamProxy() throws IOException {
     Decoder d = newDecoder(data);
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.util.Utf8;
+import org.junit.Test;
+
+public class TestBlockedCollections {
+  private static final Schema WRITER = new Schema.Parser()
+      .parse("{\"type\":\"record\",\"name\":\"R\",\"fields\":[{\"name\":\"id\",\"type\":\"int\"},"
+          + "{\"name\":\"tags\",\"type\":{\"type\":\"array\",\"items\":\"string\"}},"
+          + "{\"name\":\"attrs\",\"type\":{\"type\":\"map\",\"values\":\"string\"}}]}");
+  private static final Schema READER = new Schema.Parser()
+      .parse("{\"type\":\"record\",\"name\":\"R\",\"fields\":[{\"name\":\"id\",\"type\":\"int\"}]}");
+
+  private static GenericData.Record record(int id, int tags) {
+    GenericData.Record record = new GenericData.Record(WRITER);
+    record.put("id", id);
+    List<Object> list = new ArrayList<>();
+    for (int i = 0; i < tags; i++) {
+      list.add("tag" + i);
+    }
+    record.put("tags", list);
+    record.put("attrs", Collections.singletonMap(new Utf8("k"), new Utf8("v")));
+    return record;
+  }
+
+  /** Counts the strings read or skipped one by one. */
+  private static class CountingDecoder extends BinaryDecoder {
+    private int strings = 0;
+
+    CountingDecoder(byte[] bytes) {
+      configure(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public Utf8 readString(Utf8 old) throws IOException {
+      strings++;
+      return super.readString(old);
+    }
+
+    @Override
+    public void skipString() throws IOException {
+      strings++;
+      super.skipString();
+    }
+  }
+
+  private static int stringsWalked(boolean blocked, GenericData data) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryEncoder e = blocked ? EncoderFactory.get().blockingBinaryEncoder(out, null)
+        : EncoderFactory.get().binaryEncoder(out, null);
+    new GenericDatumWriter<>(WRITER).write(record(7, 100), e);
+    e.flush();
+    CountingDecoder in = new CountingDecoder(out.toByteArray());
+    GenericData.Record read = new GenericDatumReader<GenericData.Record>(WRITER, READER, data).read(null, in);
+    assertEquals(7, read.get("id"));
+    return in.strings;
+  }
+
+  @Test
+  public void testResolvingDecoderSkipsBlocks() throws IOException {
+    assertEquals(102, stringsWalked(false, new GenericData()));
+    assertEquals(0, stringsWalked(true, new GenericData()));
+  }
+
+  @Test
+  public void testFastReaderSkipsBlocks() throws IOException {
+    assertEquals(102, stringsWalked(false, new GenericData().setFastReaderEnabled(true)));
+    assertEquals(0, stringsWalked(true, new GenericData().setFastReaderEnabled(true)));
+  }
+
+  @Test
+  public void testDataFile() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (DataFileWriter<Object> writer = new DataFileWriter<>(new GenericDatumWriter<>(WRITER))) {
+      writer.setBlockedCollections(true).create(WRITER, out);
+      writer.append(record(0, 0));
+      try {
+        GenericData.Record bad = record(1, 0);
+        bad.put("tags", Arrays.asList("a", null));
+        writer.append(bad);
+        fail("Expected AppendWriteException");
+      } catch (DataFileWriter.AppendWriteException e) {
+        // the failed record is dropped, and the writer is left usable
+      }
+      for (int i = 1; i < 1000; i++) {
+        writer.append(record(i, i % 50));
+      }
+    }
+
+    int id = 0;
+    try (DataFileStream<GenericData.Record> in = new DataFileStream<>(new ByteArrayInputStream(out.toByteArray()),
+        new GenericDatumReader<>())) {
+      for (GenericData.Record read : in) {
+        assertEquals(record(id, id % 50), read);
+        id++;
+      }
+    }
+    assertEquals(1000, id);
+
+    id = 0;
+    try (DataFileStream<GenericData.Record> in = new DataFileStream<>(new ByteArrayInputStream(out.toByteArray()),
+        new GenericDatumReader<>(null, READER))) {
+      for (GenericData.Record read : in) {
+        assertEquals(id++, read.get("id"));
+      }
+    }
+    assertEquals(1000, id);
+  }
+}
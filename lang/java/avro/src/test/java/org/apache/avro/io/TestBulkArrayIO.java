@@ -0,0 +1,277 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.junit.Test;
+
+public class TestBulkArrayIO {
+  private static final int COUNT = 1000;
+  // small buffers, so that bulk operations cross buffer boundaries
+  private static final EncoderFactory ENCODERS = new EncoderFactory().configureBufferSize(32).configureBlockSize(64);
+  private static final DecoderFactory DECODERS = new DecoderFactory().configureDecoderBufferSize(32);
+
+  private final Random random = new Random(1234);
+  private final int[] ints = new int[COUNT];
+  private final long[] longs = new long[COUNT];
+  private final float[] floats = new float[COUNT];
+  private final double[] doubles = new double[COUNT];
+
+  public TestBulkArrayIO() {
+    for (int i = 0; i < COUNT; i++) {
+      ints[i] = random.nextInt() >> random.nextInt(32);
+      longs[i] = random.nextLong() >> random.nextInt(64);
+      floats[i] = random.nextFloat();
+      doubles[i] = random.nextDouble();
+    }
+  }
+
+  /** Writes the test arrays one item at a time. */
+  private byte[] writeItemByItem() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Encoder e = EncoderFactory.get().binaryEncoder(out, null);
+    e.writeArrayStart();
+    e.setItemCount(COUNT);
+    for (int i : ints) {
+      e.startItem();
+      e.writeInt(i);
+    }
+    e.writeArrayEnd();
+    e.writeArrayStart();
+    e.setItemCount(COUNT);
+    for (long l : longs) {
+      e.startItem();
+      e.writeLong(l);
+    }
+    e.writeArrayEnd();
+    e.writeArrayStart();
+    e.setItemCount(COUNT);
+    for (float f : floats) {
+      e.startItem();
+      e.writeFloat(f);
+    }
+    e.writeArrayEnd();
+    e.writeArrayStart();
+    e.setItemCount(COUNT);
+    for (double d : doubles) {
+      e.startItem();
+      e.writeDouble(d);
+    }
+    e.writeArrayEnd();
+    e.flush();
+    return out.toByteArray();
+  }
+
+  private void writeBulk(Encoder e) throws IOException {
+    e.writeArrayStart();
+    e.setItemCount(COUNT);
+    e.writeInts(ints, 0, COUNT);
+    e.writeArrayEnd();
+    e.writeArrayStart();
+    e.setItemCount(COUNT);
+    e.writeLongs(longs, 0, 7);
+    e.writeLongs(longs, 7, COUNT - 7);
+    e.writeArrayEnd();
+    e.writeArrayStart();
+    e.setItemCount(COUNT);
+    e.writeFloats(floats, 0, COUNT);
+    e.writeArrayEnd();
+    e.writeArrayStart();
+    e.setItemCount(COUNT);
+    e.writeDoubles(doubles, 0, COUNT);
+    e.writeArrayEnd();
+    e.flush();
+  }
+
+  private void readBulk(Decoder d) throws IOException {
+    int[] ints = new int[COUNT];
+    int n = 0;
+    for (long l = d.readArrayStart(); l > 0; l = d.arrayNext()) {
+      d.readInts(ints, n, (int) l);
+      n += l;
+    }
+    assertArrayEquals(this.ints, ints);
+    long[] longs = new long[COUNT];
+    n = 0;
+    for (long l = d.readArrayStart(); l > 0; l = d.arrayNext()) {
+      d.readLongs(longs, n, (int) l);
+      n += l;
+    }
+    assertArrayEquals(this.longs, longs);
+    float[] floats = new float[COUNT];
+    n = 0;
+    for (long l = d.readArrayStart(); l > 0; l = d.arrayNext()) {
+      int split = (int) Math.min(3, l);
+      d.readFloats(floats, n, split);
+      d.readFloats(floats, n + split, (int) l - split);
+      n += l;
+    }
+    assertArrayEquals(this.floats, floats, 0f);
+    double[] doubles = new double[COUNT];
+    n = 0;
+    for (long l = d.readArrayStart(); l > 0; l = d.arrayNext()) {
+      d.readDoubles(doubles, n, (int) l);
+      n += l;
+    }
+    assertArrayEquals(this.doubles, doubles, 0d);
+  }
+
+  @Test
+  public void testBinaryEncoders() throws IOException {
+    byte[] expected = writeItemByItem();
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    writeBulk(ENCODERS.binaryEncoder(out, null));
+    assertArrayEquals(expected, out.toByteArray());
+
+    out = new ByteArrayOutputStream();
+    writeBulk(ENCODERS.directBinaryEncoder(out, null));
+    assertArrayEquals(expected, out.toByteArray());
+
+    // blocking encoders write different bytes, but the same values
+    out = new ByteArrayOutputStream();
+    writeBulk(ENCODERS.blockingBinaryEncoder(out, null));
+    readBulk(DECODERS.binaryDecoder(out.toByteArray(), null));
+  }
+
+  @Test
+  public void testBinaryDecoders() throws IOException {
+    byte[] data = writeItemByItem();
+    readBulk(DECODERS.binaryDecoder(data, null));
+    readBulk(DECODERS.binaryDecoder(new ByteArrayInputStream(data), null));
+    readBulk(DECODERS.directBinaryDecoder(new ByteArrayInputStream(data), null));
+    ByteBuffer direct = ByteBuffer.allocateDirect(data.length);
+    direct.put(data);
+    ((Buffer) direct).flip();
+    readBulk(DECODERS.binaryDecoder(direct, null));
+  }
+
+  private static final Schema SCHEMA = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"R\",\"fields\":["
+      + "{\"name\":\"i\",\"type\":{\"type\":\"array\",\"items\":\"int\"}},"
+      + "{\"name\":\"l\",\"type\":{\"type\":\"array\",\"items\":\"long\"}},"
+      + "{\"name\":\"f\",\"type\":{\"type\":\"array\",\"items\":\"float\"}},"
+      + "{\"name\":\"d\",\"type\":{\"type\":\"array\",\"items\":\"double\"}}]}");
+
+  @Test
+  public void testValidatingIO() throws IOException {
+    byte[] expected = writeItemByItem();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Encoder e = ENCODERS.validatingEncoder(SCHEMA, ENCODERS.binaryEncoder(out, null));
+    writeBulk(e);
+    assertArrayEquals(expected, out.toByteArray());
+
+    readBulk(DECODERS.validatingDecoder(SCHEMA, DECODERS.binaryDecoder(expected, null)));
+    readBulk(DECODERS.resolvingDecoder(SCHEMA, SCHEMA, DECODERS.binaryDecoder(expected, null)));
+  }
+
+  @Test
+  public void testResolvingPromotion() throws IOException {
+    // all arrays are read as array<double>, so the bulk reads need resolution
+    Schema allDoubles = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"R\",\"fields\":["
+        + "{\"name\":\"i\",\"type\":{\"type\":\"array\",\"items\":\"double\"}},"
+        + "{\"name\":\"l\",\"type\":{\"type\":\"array\",\"items\":\"double\"}},"
+        + "{\"name\":\"f\",\"type\":{\"type\":\"array\",\"items\":\"double\"}},"
+        + "{\"name\":\"d\",\"type\":{\"type\":\"array\",\"items\":\"double\"}}]}");
+    Decoder d = DECODERS.resolvingDecoder(SCHEMA, allDoubles, DECODERS.binaryDecoder(writeItemByItem(), null));
+    double[] expected = new double[COUNT];
+    double[] actual = new double[COUNT];
+    for (int i = 0; i < COUNT; i++) {
+      expected[i] = ints[i];
+    }
+    d.readArrayStart();
+    d.readDoubles(actual, 0, COUNT);
+    assertEquals(0, d.arrayNext());
+    assertArrayEquals(expected, actual, 0d);
+    for (int i = 0; i < COUNT; i++) {
+      expected[i] = longs[i];
+    }
+    d.readArrayStart();
+    d.readDoubles(actual, 0, COUNT);
+    assertEquals(0, d.arrayNext());
+    assertArrayEquals(expected, actual, 0d);
+    for (int i = 0; i < COUNT; i++) {
+      expected[i] = floats[i];
+    }
+    d.readArrayStart();
+    d.readDoubles(actual, 0, COUNT);
+    assertEquals(0, d.arrayNext());
+    assertArrayEquals(expected, actual, 0d);
+    d.readArrayStart();
+    d.readDoubles(actual, 0, COUNT);
+    assertEquals(0, d.arrayNext());
+    assertArrayEquals(doubles, actual, 0d);
+  }
+
+  private GenericData.Record newRecord() {
+    GenericData.Record record = new GenericData.Record(SCHEMA);
+    List<Integer> i = new ArrayList<>();
+    List<Long> l = new ArrayList<>();
+    List<Float> f = new ArrayList<>();
+    List<Double> d = new ArrayList<>();
+    for (int j = 0; j < COUNT; j++) {
+      i.add(ints[j]);
+      l.add(longs[j]);
+      f.add(floats[j]);
+      d.add(doubles[j]);
+    }
+    record.put("i", i);
+    record.put("l", l);
+    record.put("f", f);
+    record.put("d", d);
+    return record;
+  }
+
+  @Test
+  public void testGenericDatumIO() throws IOException {
+    GenericData.Record record = newRecord();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Encoder e = ENCODERS.binaryEncoder(out, null);
+    new GenericDatumWriter<>(SCHEMA).write(record, e);
+    e.flush();
+    byte[] data = out.toByteArray();
+    assertArrayEquals(writeItemByItem(), data);
+
+    GenericDatumReader<Object> reader = new GenericDatumReader<>(SCHEMA);
+    assertEquals(record, reader.read(null, DECODERS.binaryDecoder(data, null)));
+    // and with reuse
+    Object reuse = reader.read(null, DECODERS.binaryDecoder(data, null));
+    assertEquals(record, reader.read(reuse, DECODERS.binaryDecoder(data, null)));
+
+    GenericData fastData = new GenericData();
+    fastData.setFastReaderEnabled(true);
+    GenericDatumReader<Object> fastReader = new GenericDatumReader<>(SCHEMA, SCHEMA, fastData);
+    reuse = fastReader.read(null, DECODERS.binaryDecoder(data, null));
+    assertEquals(record, reuse);
+    assertEquals(record, fastReader.read(reuse, DECODERS.binaryDecoder(data, null)));
+  }
+}
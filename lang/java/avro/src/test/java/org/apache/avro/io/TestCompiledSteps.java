@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.junit.Test;
+
+public class TestCompiledSteps {
+  private static final int FIELDS = 37;
+
+  /** A wide record, with a recursive field and a field added by the reader. */
+  private static Schema schema(boolean withDefault) {
+    SchemaBuilder.FieldAssembler<Schema> fields = SchemaBuilder.record("Wide").fields();
+    for (int i = 0; i < FIELDS; i++) {
+      fields = i % 2 == 0 ? fields.requiredLong("l" + i) : fields.requiredString("s" + i);
+    }
+    fields = fields.name("next").type().optional().type("Wide");
+    if (withDefault) {
+      fields = fields.name("added").type().intType().intDefault(42);
+    }
+    return fields.endRecord();
+  }
+
+  private static GenericData.Record record(Schema schema, GenericData.Record next) {
+    GenericData.Record record = new GenericData.Record(schema);
+    for (int i = 0; i < FIELDS; i++) {
+      record.put(i, i % 2 == 0 ? (Object) (long) i : "value" + i);
+    }
+    record.put("next", next);
+    return record;
+  }
+
+  private static byte[] write(Schema schema, Object datum, GenericData data) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Encoder e = EncoderFactory.get().binaryEncoder(out, null);
+    new GenericDatumWriter<>(schema, data).write(datum, e);
+    e.flush();
+    return out.toByteArray();
+  }
+
+  @Test
+  public void testReadAndWrite() throws IOException {
+    Schema writer = schema(false);
+    Schema reader = schema(true);
+    GenericData.Record datum = record(writer, record(writer, null));
+    byte[] expected = write(writer, datum, new GenericData());
+
+    GenericData data = new GenericData().setFastWriterEnabled(true).setFastReaderEnabled(true);
+    data.getFastWriterBuilder().withCompiledRecordsEnabled(true);
+    data.getFastReaderBuilder().withCompiledRecordsEnabled(true);
+    DatumReader<GenericData.Record> datumReader = data.createDatumReader(writer, reader);
+    // often enough for the handles to be customized by the JVM
+    for (int i = 0; i < 1000; i++) {
+      assertArrayEquals(expected, write(writer, datum, data));
+      GenericData.Record read = datumReader.read(null, DecoderFactory.get().binaryDecoder(expected, null));
+      assertEquals(42, read.get("added"));
+      assertEquals(42, ((GenericData.Record) read.get("next")).get("added"));
+      assertEquals("value35", read.get("s35").toString());
+    }
+  }
+
+  @Test(expected = EOFException.class)
+  public void testExceptionsPassThrough() throws IOException {
+    Schema schema = schema(false);
+    byte[] bytes = write(schema, record(schema, null), new GenericData());
+    GenericData data = new GenericData().setFastReaderEnabled(true);
+    data.getFastReaderBuilder().withCompiledRecordsEnabled(true);
+    data.createDatumReader(schema).read(null,
+        DecoderFactory.get().binaryDecoder(Arrays.copyOf(bytes, bytes.length - 2), null));
+  }
+}
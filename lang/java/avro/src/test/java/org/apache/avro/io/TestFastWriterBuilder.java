@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.avro.Schema;
+import org.apache.avro.UnresolvedUnionException;
+import org.apache.avro.data.TimeConversions;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.util.Utf8;
+import org.junit.Test;
+
+public class TestFastWriterBuilder {
+  private static final Schema SCHEMA = new Schema.Parser()
+      .parse("{\"type\":\"record\",\"name\":\"Node\",\"fields\":[{\"name\":\"name\",\"type\":\"string\"},"
+          + "{\"name\":\"kind\",\"type\":{\"type\":\"enum\",\"name\":\"Kind\",\"symbols\":[\"A\",\"B\"]}},"
+          + "{\"name\":\"id\",\"type\":{\"type\":\"fixed\",\"name\":\"Id\",\"size\":2}},"
+          + "{\"name\":\"day\",\"type\":[\"null\",{\"type\":\"int\",\"logicalType\":\"date\"}]},"
+          + "{\"name\":\"value\",\"type\":[\"null\",\"int\",\"long\",\"string\",\"bytes\",\"double\"]},"
+          + "{\"name\":\"tags\",\"type\":{\"type\":\"map\",\"values\":\"boolean\"}},"
+          + "{\"name\":\"weights\",\"type\":{\"type\":\"array\",\"items\":\"float\"}},"
+          + "{\"name\":\"children\",\"type\":{\"type\":\"array\",\"items\":\"Node\"}}]}");
+
+  private static GenericData newData() {
+    GenericData data = new GenericData();
+    data.addLogicalTypeConversion(new TimeConversions.DateConversion());
+    return data;
+  }
+
+  private static GenericData.Record node(GenericData data, String name, Object value, GenericData.Record... children) {
+    GenericData.Record record = new GenericData.Record(SCHEMA);
+    record.put("name", name.length() % 2 == 0 ? name : new Utf8(name));
+    record.put("kind", data.createEnum("B", SCHEMA.getField("kind").schema()));
+    record.put("id", data.createFixed(null, new byte[] { 1, 2 }, SCHEMA.getField("id").schema()));
+    record.put("day", name.length() % 2 == 0 ? null : LocalDate.of(2020, 2, 29));
+    record.put("value", value);
+    record.put("tags", Collections.singletonMap(new Utf8(name), true));
+    record.put("weights", Arrays.asList(1.5f, -2f));
+    record.put("children", Arrays.asList(children));
+    return record;
+  }
+
+  private static byte[] write(GenericData data, Object datum) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Encoder e = EncoderFactory.get().binaryEncoder(out, null);
+    new GenericDatumWriter<>(SCHEMA, data).write(datum, e);
+    e.flush();
+    return out.toByteArray();
+  }
+
+  @Test
+  public void testSameBytes() throws IOException {
+    GenericData data = newData();
+    GenericData fastData = newData().setFastWriterEnabled(true);
+    GenericData.Record datum = node(data, "root", null, node(data, "a", 1), node(data, "bb", 2L),
+        node(data, "ccc", "s", node(data, "dddd", ByteBuffer.wrap(new byte[] { 3 }))), node(data, "e", 4.5d));
+
+    assertArrayEquals(write(data, datum), write(fastData, datum));
+  }
+
+  @Test
+  public void testUnresolvedUnion() throws IOException {
+    GenericData fastData = newData().setFastWriterEnabled(true);
+    try {
+      write(fastData, node(fastData, "a", 1.5f));
+      fail("Expected UnresolvedUnionException");
+    } catch (UnresolvedUnionException e) {
+      assertEquals("Not in union [\"null\",\"int\",\"long\",\"string\",\"bytes\",\"double\"]: 1.5 (field=value)",
+          e.getMessage());
+    }
+  }
+
+  private static String nullMessage(GenericData data, GenericData.Record datum) throws IOException {
+    try {
+      write(data, datum);
+      throw new AssertionError("Expected NullPointerException");
+    } catch (NullPointerException e) {
+      return e.getMessage();
+    }
+  }
+
+  @Test
+  public void testNullMessages() throws IOException {
+    GenericData data = newData();
+    GenericData fastData = newData().setFastWriterEnabled(true);
+    GenericData.Record datum = node(data, "a", 1);
+    datum.put("name", null);
+    assertTrue(nullMessage(data, datum).endsWith(" of string in field name of Node"));
+    assertTrue(nullMessage(fastData, datum).endsWith(" of string in field name of Node"));
+
+    datum = node(data, "a", 1);
+    datum.put("weights", Arrays.asList(1.5f, null));
+    assertTrue(nullMessage(data, datum).endsWith(" of float of array in field weights of Node"));
+    assertTrue(nullMessage(fastData, datum).endsWith(" of float of array in field weights of Node"));
+  }
+
+  @Test(expected = ClassCastException.class)
+  public void testMapKeyNotString() throws IOException {
+    GenericData fastData = newData().setFastWriterEnabled(true);
+    GenericData.Record datum = node(fastData, "a", 1);
+    datum.put("tags", Collections.singletonMap(1, true));
+    write(fastData, datum);
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.avro.Resolver;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.junit.Test;
+
+public class TestResolverCache {
+  private static final String WRITER = "{\"type\":\"record\",\"name\":\"R\",\"fields\":["
+      + "{\"name\":\"a\",\"type\":\"int\"},{\"name\":\"b\",\"type\":\"string\"}]}";
+  private static final String READER = "{\"type\":\"record\",\"name\":\"R\",\"fields\":["
+      + "{\"name\":\"b\",\"type\":\"string\"},{\"name\":\"c\",\"type\":\"long\",\"default\":3}]}";
+
+  private static Schema parse(String json) {
+    return new Schema.Parser().parse(json);
+  }
+
+  @Test
+  public void testKeyedByIdentity() throws IOException {
+    ResolverCache cache = new ResolverCache(10);
+    AtomicInteger loads = new AtomicInteger();
+    Object model = new Object();
+    Schema writer = parse(WRITER);
+    Schema reader = parse(READER);
+    Object first = cache.get(writer, reader, model, loads::incrementAndGet);
+    assertSame(first, cache.get(writer, reader, model, loads::incrementAndGet));
+    assertEquals(1, loads.get());
+
+    // other models, and other instances of equal schemas, have entries of their own
+    cache.get(writer, reader, new Object(), loads::incrementAndGet);
+    cache.get(parse(WRITER), reader, model, loads::incrementAndGet);
+    assertEquals(3, loads.get());
+    assertEquals(3, cache.size());
+
+    // unless they are interned
+    Schema interned = new Schema.Parser().setIntern(true).parse(WRITER);
+    Object shared = cache.get(interned, reader, model, loads::incrementAndGet);
+    assertSame(shared, cache.get(new Schema.Parser().setIntern(true).parse(WRITER), reader, model, Object::new));
+
+    GenericData data = new GenericData();
+    Resolver.Action action = cache.resolve(writer, reader, data);
+    assertSame(action, cache.resolve(writer, reader, data));
+    assertNotSame(action, cache.resolve(writer, reader, new GenericData()));
+  }
+
+  @Test
+  public void testCallersSchema() throws IOException {
+    Schema writer = parse(WRITER);
+    GenericData.Record record = new GenericData.Record(writer);
+    record.put("a", 1);
+    record.put("b", "x");
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Encoder e = EncoderFactory.get().binaryEncoder(out, null);
+    new GenericDatumWriter<>(writer).write(record, e);
+    e.flush();
+
+    // data read with equal schemas carry the instance they were read with
+    GenericData data = new GenericData().setFastReaderEnabled(true);
+    for (int i = 0; i < 2; i++) {
+      Schema reader = parse(READER);
+      GenericRecord read = new GenericDatumReader<GenericRecord>(parse(WRITER), reader, data).read(null,
+          DecoderFactory.get().binaryDecoder(out.toByteArray(), null));
+      assertSame(reader, read.getSchema());
+    }
+  }
+
+  @Test
+  public void testBounded() throws IOException {
+    ResolverCache cache = new ResolverCache(2);
+    Schema reader = parse(READER);
+    List<Schema> writers = new ArrayList<>();
+    List<Object> values = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      Object value = new Object();
+      writers.add(parse(WRITER));
+      values.add(value);
+      cache.get(writers.get(i), reader, reader, () -> value);
+    }
+    assertEquals(2, cache.size());
+
+    // the least recently used entry was evicted
+    Object reloaded = new Object();
+    assertSame(reloaded, cache.get(writers.get(0), reader, reader, () -> reloaded));
+    assertSame(values.get(2), cache.get(writers.get(2), reader, reader, Object::new));
+  }
+
+  @Test
+  public void testAcrossThreads() throws Exception {
+    Schema writer = parse(WRITER);
+    GenericData.Record record = new GenericData.Record(writer);
+    record.put("a", 1);
+    record.put("b", "x");
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Encoder e = EncoderFactory.get().binaryEncoder(out, null);
+    new GenericDatumWriter<>(writer).write(record, e);
+    e.flush();
+    byte[] bytes = out.toByteArray();
+
+    List<Thread> threads = new ArrayList<>();
+    List<Object> read = new ArrayList<>();
+    for (GenericData data : new GenericData[] { new GenericData(), new GenericData().setFastReaderEnabled(true) }) {
+      for (int i = 0; i < 4; i++) {
+        Thread thread = new Thread(() -> {
+          try {
+            GenericDatumReader<Object> reader = new GenericDatumReader<>(parse(WRITER), parse(READER), data);
+            Object datum = reader.read(null, DecoderFactory.get().binaryDecoder(bytes, null));
+            synchronized (read) {
+              read.add(datum.toString());
+            }
+          } catch (IOException ex) {
+            throw new RuntimeException(ex);
+          }
+        });
+        thread.start();
+        threads.add(thread);
+      }
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(8, read.size());
+    for (Object datum : read) {
+      assertEquals("{\"b\": \"x\", \"c\": 3}", datum);
+    }
+  }
+}
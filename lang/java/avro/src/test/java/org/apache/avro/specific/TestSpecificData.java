@@ -22,11 +22,20 @@ import static org.junit.Assert.*;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import org.apache.avro.Schema;
 import org.apache.avro.Schema.Field;
@@ -35,8 +44,11 @@ import org.apache.avro.generic.GenericData;
 import org.apache.avro.io.DatumWriter;
 import org.apache.avro.io.Encoder;
 import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.util.Utf8;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 /*
  * If integerClass is primitive, reflection to find method will
@@ -44,6 +56,9 @@ import org.junit.Test;
  */
 public class TestSpecificData {
 
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   private Class<?> intClass;
   private Class<?> integerClass;
 
@@ -160,6 +175,105 @@ public class TestSpecificData {
     assertEquals(before, after);
   }
 
+  public static class LateModel extends SpecificRecordBase {
+    static SpecificData MODEL$;
+
+    @Override
+    public Schema getSchema() {
+      return TestRecord.SCHEMA;
+    }
+
+    @Override
+    public Object get(int field) {
+      return null;
+    }
+
+    @Override
+    public void put(int field, Object value) {
+    }
+  }
+
+  @Test
+  public void testModelSetLate() {
+    // a null MODEL$ is not kept, as it is read before being set
+    assertNull(SpecificData.getForClass(LateModel.class));
+    SpecificData model = new SpecificData();
+    LateModel.MODEL$ = model;
+    assertSame(model, SpecificData.getForClass(LateModel.class));
+    LateModel.MODEL$ = null;
+    assertSame(model, SpecificData.getForClass(LateModel.class));
+  }
+
+  public static class TestClassIndex implements SpecificData.ClassIndex {
+    static final AtomicInteger SUPPLIERS = new AtomicInteger();
+    static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    @Override
+    public Class<?> forName(String fullName) {
+      return "TestRecord".equals(fullName) ? TestRecord.class : null;
+    }
+
+    @Override
+    public Supplier<?> instanceSupplier(String fullName) {
+      if (!"TestRecord".equals(fullName))
+        return null;
+      SUPPLIERS.incrementAndGet();
+      return () -> {
+        INSTANCES.incrementAndGet();
+        return new TestRecord();
+      };
+    }
+  }
+
+  @Test
+  public void testClassIndex() throws IOException {
+    // TestRecord is nested, so it is not found by the name of its schema
+    assertNull(new SpecificData().getClass(TestRecord.SCHEMA));
+
+    File services = temporaryFolder.newFile();
+    Files.write(services.toPath(), TestClassIndex.class.getName().getBytes(StandardCharsets.UTF_8));
+    ClassLoader loader = new ClassLoader(getClass().getClassLoader()) {
+      @Override
+      public Enumeration<URL> getResources(String name) throws IOException {
+        if (name.equals("META-INF/services/" + SpecificData.ClassIndex.class.getName()))
+          return Collections.enumeration(Collections.singletonList(services.toURI().toURL()));
+        return super.getResources(name);
+      }
+    };
+    int suppliers = TestClassIndex.SUPPLIERS.get();
+    SpecificData data = new SpecificData(loader);
+    assertEquals(TestRecord.class, data.getClass(TestRecord.SCHEMA));
+
+    int instances = TestClassIndex.INSTANCES.get();
+    Object record = data.newRecord(null, TestRecord.SCHEMA);
+    assertTrue(record instanceof TestRecord);
+    assertSame(record, data.newRecord(record, TestRecord.SCHEMA));
+    GenericData.InstanceSupplier supplier = data.getNewRecordSupplier(TestRecord.SCHEMA);
+    assertTrue(supplier.newInstance(null, TestRecord.SCHEMA) instanceof TestRecord);
+    assertSame(record, supplier.newInstance(record, TestRecord.SCHEMA));
+    assertEquals(instances + 2, TestClassIndex.INSTANCES.get());
+    // the supplier is looked up once, with the class
+    assertEquals(suppliers + 1, TestClassIndex.SUPPLIERS.get());
+  }
+
+  @Test
+  public void testStringHelpers() {
+    Schema string = Schema.create(Type.STRING);
+    List<String> strings = Arrays.asList("", "a", "ab", "b", "\u00e9", "\u0800x", "\uffff", "\ud83d\ude00", "\ud83d",
+        "\ude00a", "?", "a\ud83d");
+    SpecificData data = SpecificData.get();
+    for (String s1 : strings) {
+      assertEquals(s1, data.hashCode(s1, string), SpecificData.hashCodeString(s1));
+      for (String s2 : strings) {
+        int expected = Integer.signum(data.compare(s1, s2, string));
+        assertEquals(s1 + " " + s2, expected, Integer.signum(SpecificData.compareStrings(s1, s2)));
+        assertEquals(expected, Integer.signum(SpecificData.compareStrings(new Utf8(s1), s2)));
+        assertEquals(expected == 0, data.equal(s1, new Utf8(s2), string));
+      }
+    }
+    assertEquals(0, SpecificData.hashCodeString(null));
+  }
+
   /** Tests that non Stringable datum are rejected by specific writers. */
   @Test
   public void testNonStringable() throws Exception {
@@ -17,9 +17,12 @@
  */
 package org.apache.avro.util;
 
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.nio.charset.StandardCharsets;
 
@@ -90,4 +93,32 @@ public class TestUtf8 {
     u.setByteLength(4);
     assertEquals(3198781, u.hashCode());
   }
+
+  @Test
+  public void testBorrowed() {
+    byte[] buf = "xxhelloyy".getBytes(StandardCharsets.UTF_8);
+    Utf8 u = new Utf8().setBorrowed(buf, 2, 5);
+    assertTrue(u.isBorrowed());
+    assertEquals(5, u.getByteLength());
+    assertEquals("hello", u.toString());
+    assertEquals(new Utf8("hello"), u);
+    assertEquals(u, new Utf8("hello"));
+    assertEquals(new Utf8("hello").hashCode(), u.hashCode());
+    assertEquals(0, u.compareTo(new Utf8("hello")));
+    assertEquals(new Utf8("hello"), new Utf8(u));
+    assertEquals(new Utf8("hello"), new Utf8().set(u));
+
+    // the borrowed bytes are copied out before being exposed or changed
+    byte[] bytes = u.getBytes();
+    assertFalse(u.isBorrowed());
+    assertNotSame(buf, bytes);
+    assertEquals("hello", new String(bytes, 0, u.getByteLength(), StandardCharsets.UTF_8));
+
+    u.setBorrowed(buf, 2, 5);
+    u.setByteLength(3);
+    assertFalse(u.isBorrowed());
+    u.getBytes()[0] = 'j';
+    assertEquals("jel", u.toString());
+    assertEquals("xxhelloyy", new String(buf, StandardCharsets.UTF_8));
+  }
 }
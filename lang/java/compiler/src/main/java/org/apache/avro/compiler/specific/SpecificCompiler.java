@@ -32,10 +32,13 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 import org.apache.avro.Conversion;
 import org.apache.avro.Conversions;
@@ -58,6 +61,12 @@ import org.apache.velocity.app.VelocityEngine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.apache.avro.specific.SpecificData.RESERVED_WORDS;
 
@@ -119,6 +128,7 @@ public class SpecificCompiler {
   private boolean gettersReturnOptional = false;
   private boolean optionalGettersForNullableFieldsOnly = false;
   private boolean createSetters = true;
+  private boolean createComparisonMethods = false;
   private boolean createAllArgsConstructor = true;
   private String outputCharacterEncoding;
   private boolean enableDecimalLogicalType = false;
@@ -238,6 +248,19 @@ public class SpecificCompiler {
     this.createSetters = createSetters;
   }
 
+  public boolean isCreateComparisonMethods() {
+    return this.createComparisonMethods;
+  }
+
+  /**
+   * Set to true to create equals, hashCode and compareTo methods that compare the
+   * fields of records one by one, in the order of {@link SpecificData}, rather
+   * than through the schema.
+   */
+  public void setCreateComparisonMethods(boolean createComparisonMethods) {
+    this.createComparisonMethods = createComparisonMethods;
+  }
+
   public boolean isCreateOptionalGetters() {
     return this.createOptionalGetters;
   }
@@ -347,6 +370,247 @@ public class SpecificCompiler {
     }
   }
 
+  /**
+   * Utility for template use. Returns the named schemas nested in a schema that
+   * its class gets from their generated classes, instead of parsing them again:
+   * those that do not refer back to the schema, so that their classes do not
+   * depend on its class in turn, and that are not in the default package unless
+   * the schema is.
+   */
+  public List<Schema> getClassSchemaReferences(Schema schema) {
+    List<Schema> result = new ArrayList<>();
+    getClassSchemaReferences(schema, schema, result, new HashSet<>());
+    return result;
+  }
+
+  /**
+   * Named schemas are visited once per full name: a schema may hold copies of a
+   * named one, as the IDL parser makes for forward references.
+   */
+  private void getClassSchemaReferences(Schema schema, Schema root, List<Schema> result, Set<String> seenNames) {
+    switch (schema.getType()) {
+    case RECORD:
+    case ENUM:
+    case FIXED:
+      if (!seenNames.add(schema.getFullName())) {
+        return;
+      }
+      if (schema != root && (schema.getNamespace() != null || root.getNamespace() == null)
+          && !refersTo(schema, root, Collections.newSetFromMap(new IdentityHashMap<>()))) {
+        result.add(schema);
+      } else if (schema.getType() == Schema.Type.RECORD) {
+        for (Schema.Field field : schema.getFields()) {
+          getClassSchemaReferences(field.schema(), root, result, seenNames);
+        }
+      }
+      break;
+    case MAP:
+      getClassSchemaReferences(schema.getValueType(), root, result, seenNames);
+      break;
+    case ARRAY:
+      getClassSchemaReferences(schema.getElementType(), root, result, seenNames);
+      break;
+    case UNION:
+      for (Schema s : schema.getTypes())
+        getClassSchemaReferences(s, root, result, seenNames);
+      break;
+    default:
+      break;
+    }
+  }
+
+  /**
+   * Returns true if a schema is or contains the given named one, or a copy of it
+   * with the same full name.
+   */
+  private static boolean refersTo(Schema schema, Schema target, Set<Schema> seenSchemas) {
+    if (!seenSchemas.add(schema)) {
+      return false;
+    }
+    switch (schema.getType()) {
+    case ENUM:
+    case FIXED:
+      return schema.getFullName().equals(target.getFullName());
+    case RECORD:
+      if (schema.getFullName().equals(target.getFullName()))
+        return true;
+      for (Schema.Field field : schema.getFields()) {
+        if (refersTo(field.schema(), target, seenSchemas))
+          return true;
+      }
+      return false;
+    case MAP:
+      return refersTo(schema.getValueType(), target, seenSchemas);
+    case ARRAY:
+      return refersTo(schema.getElementType(), target, seenSchemas);
+    case UNION:
+      for (Schema s : schema.getTypes()) {
+        if (refersTo(s, target, seenSchemas))
+          return true;
+      }
+      return false;
+    default:
+      return false;
+    }
+  }
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  /**
+   * Utility for template use. Returns the JSON of a schema that refers to the
+   * given named schemas by name, instead of defining them.
+   */
+  public String schemaJson(Schema schema, Collection<Schema> references) {
+    if (references.isEmpty()) {
+      return schema.toString();
+    }
+    try {
+      return new SchemaReferences(references).refer(MAPPER.readTree(schema.toString()), null).toString();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Rewrites the JSON of a schema so that it refers to some named types by name.
+   * The types first defined within these are defined where they are next used
+   * instead, so that the JSON is that of
+   * {@link Schema#toString(Collection, boolean)}.
+   */
+  private static class SchemaReferences {
+    private final Set<String> references = new HashSet<>();
+    private final Map<String, ObjectNode> hidden = new HashMap<>();
+    private final Set<String> defined = new HashSet<>();
+
+    SchemaReferences(Collection<Schema> references) {
+      for (Schema reference : references) {
+        this.references.add(reference.getFullName());
+      }
+    }
+
+    JsonNode refer(JsonNode json, String space) {
+      if (json.isTextual()) {
+        String fullName = hiddenName(json.textValue(), space);
+        return fullName == null ? json : refer(moveTo(hidden.remove(fullName), fullName, space), space);
+      }
+      if (json.isArray()) { // a union
+        ArrayNode union = (ArrayNode) json;
+        for (int i = 0; i < union.size(); i++) {
+          union.set(i, refer(union.get(i), space));
+        }
+        return union;
+      }
+      if (!json.isObject() || !json.get("type").isTextual()) {
+        return json;
+      }
+      ObjectNode node = (ObjectNode) json;
+      switch (node.get("type").textValue()) {
+      case "record":
+      case "error":
+      case "enum":
+      case "fixed":
+        String namespace = namespace(node, space);
+        String fullName = fullName(node.get("name").textValue(), namespace);
+        if (references.contains(fullName) || !defined.add(fullName)) {
+          hide(node, space);
+          return TextNode
+              .valueOf(namespace == null || namespace.equals(space) ? node.get("name").textValue() : fullName);
+        }
+        hidden.remove(fullName);
+        if (node.has("fields")) {
+          for (JsonNode field : node.get("fields")) {
+            ((ObjectNode) field).set("type", refer(field.get("type"), namespace));
+          }
+        }
+        return node;
+      case "array":
+        node.set("items", refer(node.get("items"), space));
+        return node;
+      case "map":
+        node.set("values", refer(node.get("values"), space));
+        return node;
+      default:
+        return node;
+      }
+    }
+
+    /** Keeps the definitions of the named types in JSON that is not written. */
+    private void hide(JsonNode json, String space) {
+      if (json.isArray()) {
+        for (JsonNode branch : json) {
+          hide(branch, space);
+        }
+      } else if (json.isObject() && json.get("type").isTextual()) {
+        switch (json.get("type").textValue()) {
+        case "record":
+        case "error":
+        case "enum":
+        case "fixed":
+          String namespace = namespace(json, space);
+          String fullName = fullName(json.get("name").textValue(), namespace);
+          if (!references.contains(fullName) && !defined.contains(fullName)) {
+            hidden.putIfAbsent(fullName, (ObjectNode) json);
+          }
+          if (json.has("fields")) {
+            for (JsonNode field : json.get("fields")) {
+              hide(field.get("type"), namespace);
+            }
+          }
+          break;
+        case "array":
+          hide(json.get("items"), space);
+          break;
+        case "map":
+          hide(json.get("values"), space);
+          break;
+        default:
+          break;
+        }
+      }
+    }
+
+    /** Returns the full name of a hidden type the given name refers to. */
+    private String hiddenName(String name, String space) {
+      if (name.indexOf('.') < 0 && space != null && hidden.containsKey(space + "." + name)) {
+        return space + "." + name;
+      }
+      return hidden.containsKey(name) ? name : null;
+    }
+
+    /** Returns the definition of a type, with its namespace set for a new place. */
+    private static ObjectNode moveTo(ObjectNode definition, String fullName, String space) {
+      int dot = fullName.lastIndexOf('.');
+      String namespace = dot < 0 ? null : fullName.substring(0, dot);
+      ObjectNode moved = MAPPER.createObjectNode();
+      for (Iterator<Map.Entry<String, JsonNode>> i = definition.fields(); i.hasNext();) {
+        Map.Entry<String, JsonNode> entry = i.next();
+        if (!entry.getKey().equals("namespace")) {
+          moved.set(entry.getKey(), entry.getValue());
+        }
+        if (entry.getKey().equals("name")) {
+          if (namespace != null && !namespace.equals(space)) {
+            moved.put("namespace", namespace);
+          } else if (namespace == null && space != null) {
+            moved.put("namespace", "");
+          }
+        }
+      }
+      return moved;
+    }
+
+    private static String namespace(JsonNode node, String space) {
+      if (!node.has("namespace")) {
+        return space;
+      }
+      String namespace = node.get("namespace").textValue();
+      return namespace.isEmpty() ? null : namespace;
+    }
+
+    private static String fullName(String name, String namespace) {
+      return namespace == null ? name : namespace + "." + name;
+    }
+  }
+
   private void initializeVelocity() {
     this.velocityEngine = new VelocityEngine();
 
@@ -498,6 +762,48 @@ public class SpecificCompiler {
     return out;
   }
 
+  /** Returns the schemas that classes are generated for. */
+  public Collection<Schema> getClassSchemas() {
+    return Collections.unmodifiableSet(queue);
+  }
+
+  /**
+   * Generates under dst a {@link SpecificData.ClassIndex} of the classes
+   * generated for the given schemas, named className, and the service file that
+   * registers it. Classes in the default package are only indexed by an index in
+   * the default package.
+   */
+  public void compileClassIndexToDestination(String className, Collection<Schema> schemas, File dst)
+      throws IOException {
+    compileClassIndex(className, schemas).writeToDestination(null, dst);
+    File services = new File(dst, "META-INF/services/" + SpecificData.ClassIndex.class.getName());
+    services.getParentFile().mkdirs();
+    Files.write(services.toPath(), (className + "\n").getBytes(UTF_8));
+  }
+
+  OutputFile compileClassIndex(String className, Collection<Schema> schemas) {
+    int dot = className.lastIndexOf('.');
+    String space = dot < 0 ? null : className.substring(0, dot);
+    Map<String, Schema> indexed = new TreeMap<>();
+    for (Schema schema : schemas) {
+      String namespace = schema.getNamespace();
+      if (space == null || (namespace != null && !namespace.isEmpty()))
+        indexed.put(schema.getFullName(), schema);
+    }
+    VelocityContext context = new VelocityContext();
+    context.put("this", this);
+    if (space != null)
+      context.put("package", space);
+    context.put("name", className.substring(dot + 1));
+    context.put("schemas", indexed.values());
+
+    OutputFile outputFile = new OutputFile();
+    outputFile.path = makePath(className.substring(dot + 1), space);
+    outputFile.contents = renderTemplate(templateDir + "classindex.vm", context);
+    outputFile.outputCharacterEncoding = outputCharacterEncoding;
+    return outputFile;
+  }
+
   /** Generate output under dst, unless existing file is newer than src. */
   public void compileToDestination(File src, File dst) throws IOException {
     for (Schema schema : queue) {
@@ -820,6 +1126,137 @@ public class SpecificCompiler {
     return "this." + name + " = " + pname + ";";
   }
 
+  /**
+   * Utility for template use. Returns an expression that is true if a field of a
+   * record is equal in this and in another instance, as
+   * {@link org.apache.avro.specific.SpecificRecordBase#equals(Object)} compares
+   * it.
+   */
+  public String generateEquals(Schema record, Field field, String other) {
+    String a = "this." + mangle(field.name(), record.isError());
+    String b = other + "." + mangle(field.name(), record.isError());
+    String direct = comparison(field.schema(), a, b, Comparison.EQUALS, false);
+    return direct != null ? direct : "MODEL$.equal(" + a + ", " + b + ", " + fieldSchema(field) + ")";
+  }
+
+  /**
+   * Utility for template use. Returns an expression that compares a field of a
+   * record in this and in another instance, as
+   * {@link SpecificData#compare(Object, Object, Schema)} does, ignoring the order
+   * of the field.
+   */
+  public String generateCompare(Schema record, Field field, String other) {
+    String a = "this." + mangle(field.name(), record.isError());
+    String b = other + "." + mangle(field.name(), record.isError());
+    String direct = comparison(field.schema(), a, b, Comparison.COMPARE, false);
+    return direct != null ? direct : "MODEL$.compare(" + a + ", " + b + ", " + fieldSchema(field) + ")";
+  }
+
+  /**
+   * Utility for template use. Returns an expression of the hash code of a field
+   * of a record, as {@link SpecificData#hashCode(Object, Schema)} computes it.
+   */
+  public String generateHashCode(Schema record, Field field) {
+    String a = "this." + mangle(field.name(), record.isError());
+    String direct = comparison(field.schema(), a, null, Comparison.HASH_CODE, false);
+    return direct != null ? direct : "MODEL$.hashCode(" + a + ", " + fieldSchema(field) + ")";
+  }
+
+  private enum Comparison {
+    EQUALS, COMPARE, HASH_CODE
+  }
+
+  private static String fieldSchema(Field field) {
+    return "SCHEMA$.getFields().get(" + field.pos() + ").schema()";
+  }
+
+  /**
+   * Returns the expression of a comparison of values of a schema, or null if it
+   * is left to SpecificData: for converted logical types, stringable classes,
+   * arrays, maps and unions other than those of null and one other type. Values
+   * in a union are boxed, and compared once known not to be null.
+   */
+  private String comparison(Schema schema, String a, String b, Comparison comparison, boolean inUnion) {
+    if (getConvertedLogicalType(schema) != null)
+      return null;
+    String nullCheck = inUnion ? "" : a + " == " + b + " ? 0 : ";
+    switch (schema.getType()) {
+    case INT:
+    case LONG:
+    case FLOAT:
+    case DOUBLE:
+    case BOOLEAN:
+      String type = javaType(schema, false);
+      switch (comparison) {
+      case EQUALS:
+        if (schema.getType() == Schema.Type.FLOAT || schema.getType() == Schema.Type.DOUBLE)
+          return type + ".compare(" + a + ", " + b + ") == 0"; // as Float.compareTo, NaN is equal to itself
+        return inUnion ? a + ".equals(" + b + ")" : a + " == " + b;
+      case COMPARE:
+        return type + ".compare(" + a + ", " + b + ")";
+      default:
+        return type + ".hashCode(" + a + ")";
+      }
+    case NULL:
+      return comparison == Comparison.EQUALS ? "true" : "0";
+    case STRING:
+      if (isStringable(schema))
+        return null;
+      String compareStrings = "org.apache.avro.specific.SpecificData.compareStrings(" + a + ", " + b + ")";
+      switch (comparison) {
+      case EQUALS:
+        return inUnion ? compareStrings + " == 0"
+            : "(" + a + " == " + b + " || " + a + " != null && " + b + " != null && " + compareStrings + " == 0)";
+      case COMPARE:
+        return inUnion ? compareStrings : "(" + nullCheck + compareStrings + ")";
+      default:
+        return "org.apache.avro.specific.SpecificData.hashCodeString(" + a + ")";
+      }
+    case ENUM:
+      switch (comparison) {
+      case EQUALS:
+        return a + " == " + b;
+      case COMPARE:
+        return inUnion ? a + ".ordinal() - " + b + ".ordinal()"
+            : "(" + nullCheck + a + ".ordinal() - " + b + ".ordinal())";
+      default:
+        return inUnion ? a + ".ordinal()" : "(" + a + " == null ? 0 : " + a + ".ordinal())";
+      }
+    case BYTES:
+    case FIXED:
+    case RECORD:
+      switch (comparison) {
+      case EQUALS:
+        return inUnion ? a + ".equals(" + b + ")" : "java.util.Objects.equals(" + a + ", " + b + ")";
+      case COMPARE:
+        return inUnion ? a + ".compareTo(" + b + ")" : "(" + nullCheck + a + ".compareTo(" + b + "))";
+      default:
+        return inUnion ? a + ".hashCode()" : "java.util.Objects.hashCode(" + a + ")";
+      }
+    case UNION:
+      List<Schema> types = schema.getTypes();
+      if (inUnion || types.size() != 2 || !types.contains(NULL_SCHEMA))
+        return null;
+      int nullIndex = types.indexOf(NULL_SCHEMA);
+      String value = comparison(types.get(1 - nullIndex), a, b, comparison, true);
+      if (value == null)
+        return null;
+      switch (comparison) {
+      case EQUALS:
+        return "(" + a + " == null ? " + b + " == null : " + b + " != null && " + value + ")";
+      case COMPARE:
+        // as branches, null is before the other type if it is first
+        int nullOrder = nullIndex == 0 ? -1 : 1;
+        return "(" + nullCheck + a + " == null ? " + nullOrder + " : " + b + " == null ? " + -nullOrder + " : " + value
+            + ")";
+      default:
+        return "(" + a + " == null ? 0 : " + value + ")";
+      }
+    default:
+      return null;
+    }
+  }
+
   /**
    * Utility for template use. Returns the unboxed java type for a Schema.
    *
@@ -29,16 +29,24 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import org.apache.avro.LogicalTypes;
 import org.apache.avro.Schema;
 import org.apache.avro.SchemaBuilder;
 import org.apache.avro.generic.GenericData.StringType;
+import org.apache.avro.specific.SpecificData;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.avro.util.Utf8;
 import org.junit.*;
 import org.junit.rules.TemporaryFolder;
 import org.junit.rules.TestName;
@@ -306,6 +314,109 @@ public class TestSpecificCompiler {
     }
   }
 
+  @Test
+  public void testComparisonMethods() throws Exception {
+    Schema schema = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"K\",\"namespace\":\"cmp\",\"fields\":["
+        + "{\"name\":\"i\",\"type\":\"int\"},{\"name\":\"l\",\"type\":\"long\",\"order\":\"descending\"},"
+        + "{\"name\":\"s\",\"type\":\"string\",\"order\":\"ignore\"},"
+        + "{\"name\":\"e\",\"type\":[{\"type\":\"enum\",\"name\":\"E\",\"symbols\":[\"A\"]},\"null\"]},"
+        + "{\"name\":\"a\",\"type\":{\"type\":\"array\",\"items\":\"string\"}}]}");
+    SpecificCompiler compiler = new SpecificCompiler(schema);
+    assertFalse(compiler.isCreateComparisonMethods());
+    for (SpecificCompiler.OutputFile output : compiler.compile()) {
+      assertFalse(output.contents, output.contents.contains("public int hashCode()"));
+    }
+
+    compiler.setCreateComparisonMethods(true);
+    Collection<SpecificCompiler.OutputFile> outputs = compiler.compile();
+    for (SpecificCompiler.OutputFile output : outputs) {
+      if (output.path.endsWith("K.java")) {
+        String contents = output.contents;
+        assertTrue(contents, contents.contains("result = 31 * result + java.lang.Integer.hashCode(this.i);"));
+        assertTrue(contents,
+            contents.contains("c = java.lang.Long.compare(this.l, that.l);\n    if (c != 0) return -c;"));
+        // the ignored field is not compared
+        assertFalse(contents, contents.contains("that.s"));
+        // null is after the enum, in the order of the union
+        assertTrue(contents, contents.contains(
+            "c = (this.e == that.e ? 0 : this.e == null ? 1 : that.e == null ? -1 : this.e.ordinal() - that.e.ordinal());"));
+        // arrays are compared through the schema
+        assertTrue(contents, contents
+            .contains("if (!(MODEL$.equal(this.a, that.a, SCHEMA$.getFields().get(4).schema()))) return false;"));
+      }
+    }
+    assertCompilesWithJavaCompiler(new File(OUTPUT_DIR.getRoot(), name.getMethodName()), outputs);
+  }
+
+  @Test
+  public void testComparisonMethodsAtRuntime() throws Exception {
+    Schema schema = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"R\",\"namespace\":\"rt\",\"fields\":["
+        + "{\"name\":\"i\",\"type\":\"int\"},{\"name\":\"l\",\"type\":\"long\",\"order\":\"descending\"},"
+        + "{\"name\":\"s\",\"type\":\"string\",\"order\":\"ignore\"},"
+        + "{\"name\":\"e\",\"type\":[{\"type\":\"enum\",\"name\":\"E\",\"symbols\":[\"A\",\"B\"]},\"null\"]},"
+        + "{\"name\":\"n\",\"type\":[\"null\",\"string\"]},{\"name\":\"f\",\"type\":\"float\"},"
+        + "{\"name\":\"d\",\"type\":\"double\"},{\"name\":\"nd\",\"type\":[\"null\",\"double\"]},"
+        + "{\"name\":\"u\",\"type\":\"string\"},{\"name\":\"a\",\"type\":{\"type\":\"array\",\"items\":\"string\"}}]}");
+    SpecificCompiler compiler = new SpecificCompiler(schema);
+    compiler.setCreateComparisonMethods(true);
+    File dst = new File(OUTPUT_DIR.getRoot(), name.getMethodName());
+    assertCompilesWithJavaCompiler(dst, compiler.compile());
+
+    try (URLClassLoader loader = new URLClassLoader(new URL[] { dst.toURI().toURL() }, getClass().getClassLoader())) {
+      Class<?> recordClass = loader.loadClass("rt.R");
+      Object[] symbols = loader.loadClass("rt.E").getEnumConstants();
+      Object[][] values = { { 0, 1, -1 }, { 0L, 5L }, { "a", new Utf8("z") }, { null, symbols[0], symbols[1] },
+          { null, "", new Utf8("b"), "b" }, { 0f, -0f, Float.NaN, 1.5f }, { 0d, -0d, Double.NaN, -1d },
+          { null, Double.NaN, -0d, 0d }, { "\u00e9", new Utf8("\u00e9"), "\ud83d\ude00", "a" },
+          { Collections.singletonList("x"), Arrays.asList(new Utf8("x"), "y"), Collections.emptyList() } };
+      Random random = new Random(42);
+      List<SpecificRecordBase> records = new ArrayList<>();
+      for (int r = 0; r < 100; r++) {
+        SpecificRecordBase record = (SpecificRecordBase) recordClass.getConstructor().newInstance();
+        SpecificRecordBase twin = (SpecificRecordBase) recordClass.getConstructor().newInstance();
+        for (int f = 0; f < values.length; f++) {
+          Object value = values[f][random.nextInt(values[f].length)];
+          record.put(f, value);
+          // the twin holds the same strings as Utf8 or String, and another
+          // value of the ignored field
+          twin.put(f, f == 2 ? "ignored" : otherStrings(value));
+        }
+        records.add(record);
+        records.add(twin);
+      }
+
+      SpecificData model = SpecificData.getForClass(recordClass);
+      int equal = 0;
+      for (SpecificRecordBase r1 : records) {
+        assertEquals(model.hashCode(r1, schema), r1.hashCode());
+        for (SpecificRecordBase r2 : records) {
+          String pair = r1 + " and " + r2;
+          boolean expected = model.equal(r1, r2, schema);
+          assertEquals(pair, expected, r1.equals(r2));
+          assertEquals(pair, Integer.signum(model.compare(r1, r2, schema)), Integer.signum(r1.compareTo(r2)));
+          if (expected && r1 != r2)
+            equal++;
+        }
+      }
+      assertTrue(equal >= records.size());
+    }
+  }
+
+  /** Returns a value with its strings as Utf8 if they are String, and back. */
+  private static Object otherStrings(Object value) {
+    if (value instanceof Utf8)
+      return value.toString();
+    if (value instanceof String)
+      return new Utf8((String) value);
+    if (value instanceof List) {
+      List<Object> list = new ArrayList<>();
+      for (Object element : (List<?>) value)
+        list.add(otherStrings(element));
+      return list;
+    }
+    return value;
+  }
+
   @Test
   public void testSettingOutputCharacterEncoding() throws Exception {
     SpecificCompiler compiler = createCompiler();
@@ -801,4 +912,100 @@ public class TestSpecificCompiler {
     assertEquals(1, itWorksFound);
   }
 
+  @Test
+  public void testClassIndex() throws Exception {
+    Schema schema = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"A\",\"namespace\":\"index\",\"fields\":["
+        + "{\"name\":\"c\",\"type\":{\"type\":\"enum\",\"name\":\"C\",\"symbols\":[\"X\"]}},"
+        + "{\"name\":\"d\",\"type\":{\"type\":\"fixed\",\"name\":\"D\",\"namespace\":\"index.d\",\"size\":2}}]}");
+    SpecificCompiler compiler = new SpecificCompiler(schema);
+    Collection<SpecificCompiler.OutputFile> outputs = new ArrayList<>(compiler.compile());
+    SpecificCompiler.OutputFile index = compiler.compileClassIndex("index.Index", compiler.getClassSchemas());
+    assertEquals("index" + File.separator + "Index.java", index.path);
+    assertTrue(index.contents, index.contents.contains("case \"index.d.D\":\n      return index.d.D::new;"));
+    // enums are looked up, but not instantiated
+    assertTrue(index.contents, index.contents.contains("case \"index.C\":\n      return index.C.class;"));
+    assertFalse(index.contents, index.contents.contains("index.C::new"));
+    outputs.add(index);
+    assertCompilesWithJavaCompiler(new File(OUTPUT_DIR.getRoot(), name.getMethodName()), outputs);
+
+    File dst = new File(OUTPUT_DIR.getRoot(), name.getMethodName() + "-dst");
+    compiler.compileClassIndexToDestination("index.Index", compiler.getClassSchemas(), dst);
+    assertTrue(new File(dst, index.path).exists());
+    assertEquals(Collections.singletonList("index.Index"), Files
+        .readAllLines(new File(dst, "META-INF/services/org.apache.avro.specific.SpecificData$ClassIndex").toPath()));
+  }
+
+  @Test
+  public void testClassSchemaReferences() throws Exception {
+    Schema schema = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"A\",\"namespace\":\"refs\",\"fields\":["
+        + "{\"name\":\"b\",\"type\":{\"type\":\"record\",\"name\":\"B\",\"fields\":["
+        + "{\"name\":\"a\",\"type\":[\"null\",\"A\"]},"
+        + "{\"name\":\"c\",\"type\":{\"type\":\"enum\",\"name\":\"C\",\"symbols\":[\"X\"]}}]}},"
+        + "{\"name\":\"d\",\"type\":{\"type\":\"map\",\"values\":{\"type\":\"fixed\",\"name\":\"D\",\"size\":2}}}]}");
+    SpecificCompiler compiler = new SpecificCompiler(schema);
+    // B refers back to A, so its schema is parsed by the class of A, and the
+    // schema of B holds that of A, in which D is referred to
+    Schema b = schema.getField("b").schema();
+    Schema c = b.getField("c").schema();
+    Schema d = schema.getField("d").schema().getValueType();
+    assertEquals(Arrays.asList(c, d), compiler.getClassSchemaReferences(schema));
+    assertEquals(Arrays.asList(d, c), compiler.getClassSchemaReferences(b));
+    assertEquals(Collections.emptyList(), compiler.getClassSchemaReferences(c));
+    // nor can a class in a package refer to one in the default package
+    Schema e = Schema.createEnum("E", null, null, Collections.singletonList("Y"));
+    Schema f = SchemaBuilder.record("F").namespace("refs").fields().name("e").type(e).noDefault().endRecord();
+    assertEquals(Collections.emptyList(), compiler.getClassSchemaReferences(f));
+    assertEquals(Collections.singletonList(f), compiler
+        .getClassSchemaReferences(SchemaBuilder.record("G").fields().name("f").type(f).noDefault().endRecord()));
+    // copies of a record, as the IDL parser makes, refer back to it too
+    Schema copyOfA = Schema.createRecord("A", null, "refs", false);
+    Schema h = SchemaBuilder.record("H").namespace("refs").fields().name("a").type(copyOfA).noDefault().endRecord();
+    copyOfA.setFields(Collections.singletonList(new Schema.Field("h", h)));
+    Schema a = Schema.createRecord("A", null, "refs", false);
+    a.setFields(Arrays.asList(new Schema.Field("h", h), new Schema.Field("i", SchemaBuilder.record("I")
+        .namespace("refs").fields().name("h").type(h).noDefault().name("d").type(d).noDefault().endRecord())));
+    assertEquals(Collections.singletonList(d), compiler.getClassSchemaReferences(a));
+
+    // the generated classes compile and get the same schemas
+    Collection<SpecificCompiler.OutputFile> outputs = compiler.compile();
+    for (SpecificCompiler.OutputFile output : outputs) {
+      if (output.path.endsWith("A.java")) {
+        assertTrue(output.contents, output.contents
+            .contains(".addTypes(java.util.Arrays.asList(refs.C.getClassSchema(), refs.D.getClassSchema())).parse("));
+      }
+    }
+    assertCompilesWithJavaCompiler(new File(OUTPUT_DIR.getRoot(), name.getMethodName()), outputs);
+    assertEquals(schema, new Schema.Parser().addTypes(Arrays.asList(c, d))
+        .parse(compiler.schemaJson(schema, compiler.getClassSchemaReferences(schema))));
+  }
+
+  @Test
+  @SuppressWarnings("deprecation")
+  public void testSchemaJson() {
+    // references are written as Schema.toString(Collection, boolean) writes them,
+    // qualified in the namespace they are in, and the types first defined in them
+    // are defined where they are next used
+    Schema schema = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"A\",\"namespace\":\"x\",\"fields\":["
+        + "{\"name\":\"b\",\"type\":{\"type\":\"record\",\"name\":\"B\",\"namespace\":\"y\",\"fields\":["
+        + "{\"name\":\"c\",\"type\":{\"type\":\"enum\",\"name\":\"C\",\"namespace\":\"x\",\"symbols\":[\"X\"]}},"
+        + "{\"name\":\"d\",\"type\":{\"type\":\"fixed\",\"name\":\"D\",\"size\":2}},"
+        + "{\"name\":\"cs\",\"type\":{\"type\":\"array\",\"items\":\"x.C\"}},"
+        + "{\"name\":\"g\",\"type\":{\"type\":\"record\",\"name\":\"G\",\"fields\":["
+        + "{\"name\":\"h\",\"type\":{\"type\":\"enum\",\"name\":\"H\",\"symbols\":[\"Y\"]}}]}}]}},"
+        + "{\"name\":\"e\",\"type\":[\"null\",{\"type\":\"map\",\"values\":{\"type\":\"record\",\"name\":\"E\","
+        + "\"fields\":[{\"name\":\"d\",\"type\":\"y.D\",\"default\":\"ab\"},{\"name\":\"h\",\"type\":\"y.H\"},"
+        + "{\"name\":\"g\",\"type\":[\"y.G\",\"null\"]},"
+        + "{\"name\":\"n\",\"type\":{\"type\":\"record\",\"name\":\"N\",\"namespace\":\"\",\"fields\":[]}}]}}]},"
+        + "{\"name\":\"l\",\"type\":{\"type\":\"long\",\"logicalType\":\"timestamp-millis\"}}]}");
+    Schema b = schema.getField("b").schema();
+    Schema c = b.getField("c").schema();
+    Schema d = b.getField("d").schema();
+    Schema e = schema.getField("e").schema().getTypes().get(1).getValueType();
+    Schema n = e.getField("n").schema();
+    SpecificCompiler compiler = new SpecificCompiler(schema);
+    for (List<Schema> references : Arrays.asList(Collections.<Schema>emptyList(), Arrays.asList(b), Arrays.asList(c, d),
+        Arrays.asList(d), Arrays.asList(e, n), Arrays.asList(c, e))) {
+      assertEquals(schema.toString(references, false), compiler.schemaJson(schema, references));
+    }
+  }
 }
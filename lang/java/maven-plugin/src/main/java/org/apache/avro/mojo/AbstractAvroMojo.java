@@ -26,11 +26,15 @@ import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.avro.LogicalTypes;
+import org.apache.avro.Schema;
 import org.apache.avro.compiler.specific.SpecificCompiler;
 import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.model.Resource;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.project.MavenProject;
@@ -165,6 +169,15 @@ public abstract class AbstractAvroMojo extends AbstractMojo {
    */
   protected boolean createSetters;
 
+  /**
+   * Determines whether or not to create equals, hashCode and compareTo methods
+   * that compare the fields of records one by one. The default is to compare
+   * records through their schema.
+   *
+   * @parameter default-value="false"
+   */
+  protected boolean createComparisonMethods;
+
   /**
    * A set of fully qualified class names of custom
    * {@link org.apache.avro.Conversion} implementations to add to the compiler.
@@ -192,6 +205,21 @@ public abstract class AbstractAvroMojo extends AbstractMojo {
    */
   protected boolean enableDecimalLogicalType;
 
+  /**
+   * The full name of a class to generate that indexes the generated classes, and
+   * that is registered as a service, so that
+   * {@link org.apache.avro.specific.SpecificData} finds and creates instances of
+   * them without reflection. By default there is none. The classes generated from
+   * the test sources are indexed apart, by a class of this name with a
+   * {@code Test} suffix, so that neither index hides the other.
+   *
+   * @parameter property="classIndex"
+   */
+  protected String classIndex;
+
+  private final Set<Schema> classIndexSchemas = new LinkedHashSet<>();
+  private SpecificCompiler classIndexCompiler;
+
   /**
    * The current Maven project.
    *
@@ -233,15 +261,55 @@ public abstract class AbstractAvroMojo extends AbstractMojo {
 
     if (hasImports || hasSourceDir) {
       project.addCompileSourceRoot(outputDirectory.getAbsolutePath());
+      if (compileClassIndex(classIndex, outputDirectory)) {
+        project.addResource(classIndexResource(outputDirectory));
+      }
     }
 
     if (hasTestDir) {
       String[] includedFiles = getIncludedFiles(testSourceDirectory.getAbsolutePath(), testExcludes, getTestIncludes());
       compileFiles(includedFiles, testSourceDirectory, testOutputDirectory);
       project.addTestCompileSourceRoot(testOutputDirectory.getAbsolutePath());
+      if (compileClassIndex(classIndex + "Test", testOutputDirectory)) {
+        project.addTestResource(classIndexResource(testOutputDirectory));
+      }
     }
   }
 
+  /** Adds the classes generated by a compiler to the class index, if any. */
+  protected void addToClassIndex(SpecificCompiler compiler) {
+    if (classIndex != null) {
+      classIndexSchemas.addAll(compiler.getClassSchemas());
+      classIndexCompiler = compiler;
+    }
+  }
+
+  /**
+   * Generates a class index of the classes generated since the last one, if any.
+   * Returns whether it did.
+   */
+  private boolean compileClassIndex(String className, File outDir) throws MojoExecutionException {
+    if (classIndexCompiler == null) {
+      return false;
+    }
+    try {
+      classIndexCompiler.compileClassIndexToDestination(className, classIndexSchemas, outDir);
+    } catch (IOException e) {
+      throw new MojoExecutionException("Error compiling class index " + className + " to " + outDir, e);
+    }
+    classIndexSchemas.clear();
+    classIndexCompiler = null;
+    return true;
+  }
+
+  /** The resource of the service file that registers a class index. */
+  private static Resource classIndexResource(File outDir) {
+    Resource resource = new Resource();
+    resource.setDirectory(outDir.getAbsolutePath());
+    resource.addInclude("META-INF/services/**");
+    return resource;
+  }
+
   private String[] getIncludedFiles(String absPath, String[] excludes, String[] includes) {
     final FileSetManager fileSetManager = new FileSetManager();
     final FileSet fs = new FileSet();
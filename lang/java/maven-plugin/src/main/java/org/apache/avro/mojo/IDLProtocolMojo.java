@@ -95,6 +95,7 @@ public class IDLProtocolMojo extends AbstractAvroMojo {
         compiler.setGettersReturnOptional(gettersReturnOptional);
         compiler.setOptionalGettersForNullableFieldsOnly(optionalGettersForNullableFieldsOnly);
         compiler.setCreateSetters(createSetters);
+        compiler.setCreateComparisonMethods(createComparisonMethods);
         compiler.setAdditionalVelocityTools(instantiateAdditionalVelocityTools());
         compiler.setEnableDecimalLogicalType(enableDecimalLogicalType);
         for (String customConversion : customConversions) {
@@ -102,6 +103,7 @@ public class IDLProtocolMojo extends AbstractAvroMojo {
         }
         compiler.setOutputCharacterEncoding(project.getProperties().getProperty("project.build.sourceEncoding"));
         compiler.compileToDestination(null, outputDirectory);
+        addToClassIndex(compiler);
       }
     } catch (ParseException | ClassNotFoundException | DependencyResolutionRequiredException e) {
       throw new IOException(e);
@@ -67,6 +67,7 @@ public class ProtocolMojo extends AbstractAvroMojo {
     compiler.setGettersReturnOptional(gettersReturnOptional);
     compiler.setOptionalGettersForNullableFieldsOnly(optionalGettersForNullableFieldsOnly);
     compiler.setCreateSetters(createSetters);
+    compiler.setCreateComparisonMethods(createComparisonMethods);
     compiler.setAdditionalVelocityTools(instantiateAdditionalVelocityTools());
     compiler.setEnableDecimalLogicalType(enableDecimalLogicalType);
     final URLClassLoader classLoader;
@@ -80,6 +81,7 @@ public class ProtocolMojo extends AbstractAvroMojo {
     }
     compiler.setOutputCharacterEncoding(project.getProperties().getProperty("project.build.sourceEncoding"));
     compiler.compileToDestination(src, outputDirectory);
+    addToClassIndex(compiler);
   }
 
   @Override
@@ -84,6 +84,7 @@ public class SchemaMojo extends AbstractAvroMojo {
     compiler.setGettersReturnOptional(gettersReturnOptional);
     compiler.setOptionalGettersForNullableFieldsOnly(optionalGettersForNullableFieldsOnly);
     compiler.setCreateSetters(createSetters);
+    compiler.setCreateComparisonMethods(createComparisonMethods);
     compiler.setEnableDecimalLogicalType(enableDecimalLogicalType);
     try {
       final URLClassLoader classLoader = createClassLoader();
@@ -96,6 +97,7 @@ public class SchemaMojo extends AbstractAvroMojo {
     compiler.setOutputCharacterEncoding(project.getProperties().getProperty("project.build.sourceEncoding"));
     compiler.setAdditionalVelocityTools(instantiateAdditionalVelocityTools());
     compiler.compileToDestination(src, outputDirectory);
+    addToClassIndex(compiler);
   }
 
   @Override
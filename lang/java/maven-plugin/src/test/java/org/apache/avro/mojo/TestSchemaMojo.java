@@ -17,12 +17,16 @@
  */
 package org.apache.avro.mojo;
 
+import org.apache.maven.model.Resource;
+import org.apache.maven.plugin.testing.stubs.MavenProjectStub;
 import org.codehaus.plexus.util.FileUtils;
 import org.junit.Test;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -33,6 +37,7 @@ public class TestSchemaMojo extends AbstractAvroMojoTest {
   private File testPom = new File(getBasedir(), "src/test/resources/unit/schema/pom.xml");
   private File injectingVelocityToolsTestPom = new File(getBasedir(),
       "src/test/resources/unit/schema/pom-injecting-velocity-tools.xml");
+  private File classIndexTestPom = new File(getBasedir(), "src/test/resources/unit/schema/pom-class-index.xml");
 
   @Test
   public void testSchemaMojo() throws Exception {
@@ -67,4 +72,42 @@ public class TestSchemaMojo extends AbstractAvroMojoTest {
     final String schemaUserContent = FileUtils.fileRead(new File(outputDir, "SchemaUser.java"));
     assertTrue("Got " + schemaUserContent + " instead", schemaUserContent.contains("It works!"));
   }
+
+  @Test
+  public void testClassIndex() throws Exception {
+    final SchemaMojo mojo = (SchemaMojo) lookupMojo("schema", classIndexTestPom);
+
+    assertNotNull(mojo);
+    final List<Resource> resources = new ArrayList<>();
+    mojo.project = new MavenProjectStub() {
+      @Override
+      public void addResource(Resource resource) {
+        resources.add(resource);
+      }
+    };
+    mojo.execute();
+
+    final File outputDir = new File(getBasedir(), "target/test-harness/schema-index");
+    final Set<String> generatedFiles = new HashSet<>(Arrays.asList("PrivacyDirectImport.java", "PrivacyImport.java",
+        "SchemaPrivacy.java", "SchemaUser.java", "SchemaClassIndex.java"));
+
+    assertFilesExist(new File(outputDir, "test"), generatedFiles);
+
+    final String indexContent = FileUtils.fileRead(new File(outputDir, "test/SchemaClassIndex.java"));
+    assertTrue(indexContent.contains("public final class SchemaClassIndex"));
+    for (String name : Arrays.asList("PrivacyDirectImport", "PrivacyImport", "SchemaPrivacy", "SchemaUser")) {
+      assertTrue("Not indexed: " + name, indexContent.contains("case \"test." + name + "\":"));
+      assertTrue("Not indexed: " + name, indexContent.contains("return test." + name + ".class;"));
+    }
+
+    final File services = new File(outputDir, "META-INF/services/org.apache.avro.specific.SpecificData$ClassIndex");
+    assertEquals("test.SchemaClassIndex\n", FileUtils.fileRead(services));
+
+    // the services file is a resource of the project, so that it is packaged
+    boolean registered = false;
+    for (Resource resource : resources)
+      registered |= resource.getDirectory().equals(outputDir.getAbsolutePath())
+          && resource.getIncludes().contains("META-INF/services/**");
+    assertTrue("Services file not a resource", registered);
+  }
 }
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.perf.test.generic;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.Decoder;
+import org.apache.avro.io.Encoder;
+import org.apache.avro.io.FastReaderBuilder;
+import org.apache.avro.io.FastWriterBuilder;
+import org.apache.avro.perf.test.BasicState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Reads and writes records with the fast reader and writer, with the steps of
+ * each record called in a loop or fused into one method handle.
+ */
+public class GenericCompiledRecordTest {
+
+  private static final String RECORD_SCHEMA = "{ \"type\": \"record\", \"name\": \"R\", \"fields\": [\n"
+      + "{ \"name\": \"f1\", \"type\": \"double\" },\n" + "{ \"name\": \"f2\", \"type\": \"int\" },\n"
+      + "{ \"name\": \"f3\", \"type\": \"long\" },\n" + "{ \"name\": \"f4\", \"type\": \"float\" },\n"
+      + "{ \"name\": \"f5\", \"type\": \"boolean\" },\n" + "{ \"name\": \"f6\", \"type\": \"int\" },\n"
+      + "{ \"name\": \"f7\", \"type\": \"long\" },\n" + "{ \"name\": \"f8\", \"type\": \"double\" },\n"
+      + "{ \"name\": \"f9\", \"type\": { \"type\": \"record\", \"name\": \"D\", \"fields\": [\n"
+      + "{ \"name\": \"i\", \"type\": \"int\" }, { \"name\": \"l\", \"type\": \"long\" }] } },\n"
+      + "{ \"name\": \"f10\", \"type\": \"D\" },\n" + "{ \"name\": \"f11\", \"type\": \"int\" },\n"
+      + "{ \"name\": \"f12\", \"type\": \"long\" }\n" + "] }";
+
+  @Benchmark
+  @OperationsPerInvocation(BasicState.BATCH_SIZE)
+  public void encode(final TestStateEncode state) throws Exception {
+    final Encoder e = state.encoder;
+    final DatumWriter<Object> writer = state.writer;
+    for (final GenericRecord rec : state.testData) {
+      writer.write(rec, e);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BasicState.BATCH_SIZE)
+  public void decode(final Blackhole blackhole, final TestStateDecode state) throws Exception {
+    final Decoder d = state.decoder;
+    final DatumReader<Object> reader = state.reader;
+    for (int i = 0; i < state.getBatchSize(); i++) {
+      blackhole.consume(reader.read(null, d));
+    }
+  }
+
+  private static GenericRecord newRecord(Schema schema, Random r) {
+    final GenericRecord rec = new GenericData.Record(schema);
+    rec.put(0, r.nextDouble());
+    rec.put(1, r.nextInt());
+    rec.put(2, r.nextLong());
+    rec.put(3, r.nextFloat());
+    rec.put(4, r.nextBoolean());
+    rec.put(5, r.nextInt());
+    rec.put(6, r.nextLong());
+    rec.put(7, r.nextDouble());
+    for (int i = 8; i < 10; i++) {
+      GenericRecord inner = new GenericData.Record(schema.getFields().get(i).schema());
+      inner.put(0, r.nextInt());
+      inner.put(1, r.nextLong());
+      rec.put(i, inner);
+    }
+    rec.put(10, r.nextInt());
+    rec.put(11, r.nextLong());
+    return rec;
+  }
+
+  @State(Scope.Thread)
+  public static class TestStateEncode extends BasicState {
+
+    @Param({ "false", "true" })
+    public boolean compiled;
+
+    private final Schema schema;
+
+    private GenericRecord[] testData;
+    private Encoder encoder;
+    private DatumWriter<Object> writer;
+
+    public TestStateEncode() {
+      super();
+      this.schema = new Schema.Parser().parse(RECORD_SCHEMA);
+    }
+
+    /**
+     * Setup the trial data.
+     *
+     * @throws IOException Could not setup test data
+     */
+    @Setup(Level.Trial)
+    public void doSetupTrial() throws Exception {
+      this.encoder = super.newEncoder(false, getNullOutputStream());
+      this.writer = new FastWriterBuilder(new GenericData()).withCompiledRecordsEnabled(compiled)
+          .createDatumWriter(schema);
+      this.testData = new GenericRecord[getBatchSize()];
+
+      final Random r = super.getRandom();
+      for (int i = 0; i < testData.length; i++) {
+        testData[i] = newRecord(schema, r);
+      }
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class TestStateDecode extends BasicState {
+
+    @Param({ "false", "true" })
+    public boolean compiled;
+
+    private final Schema schema;
+
+    private byte[] testData;
+    private Decoder decoder;
+    private DatumReader<Object> reader;
+
+    public TestStateDecode() {
+      super();
+      this.schema = new Schema.Parser().parse(RECORD_SCHEMA);
+    }
+
+    /**
+     * Generate test data.
+     *
+     * @throws IOException Could not setup test data
+     */
+    @Setup(Level.Trial)
+    public void doSetupTrial() throws IOException {
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      Encoder encoder = super.newEncoder(true, baos);
+      DatumWriter<Object> writer = new FastWriterBuilder(new GenericData()).createDatumWriter(schema);
+
+      final Random r = super.getRandom();
+      for (int i = 0; i < getBatchSize(); i++) {
+        writer.write(newRecord(schema, r), encoder);
+      }
+
+      this.testData = baos.toByteArray();
+      this.reader = new FastReaderBuilder(new GenericData()).withCompiledRecordsEnabled(compiled)
+          .createDatumReader(schema);
+    }
+
+    @Setup(Level.Invocation)
+    public void doSetupInvocation() throws Exception {
+      this.decoder = super.newDecoder(this.testData);
+    }
+  }
+}
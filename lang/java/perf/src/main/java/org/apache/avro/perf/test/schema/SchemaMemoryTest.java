@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.avro.perf.test.schema;
+
+import org.apache.avro.Schema;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Parses many schemas, as a registry holding them does, and tracks the memory
+ * they take. The <tt>bytesPerSchema</tt> counter is the heap retained by each
+ * parsed schema, measured once per iteration; as that measurement collects
+ * garbage, the throughput of {@link #retained} is not meaningful, that of
+ * {@link #parse} is.
+ */
+public class SchemaMemoryTest {
+
+  private static final int SCHEMA_COUNT = 2000;
+
+  @Benchmark
+  @OperationsPerInvocation(SCHEMA_COUNT)
+  public Schema[] parse(final TestState state) {
+    return state.parseAll();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SCHEMA_COUNT)
+  public Schema[] retained(final TestState state, final MemoryCounters counters) {
+    if (counters.measured) {
+      return state.parseAll();
+    }
+    long before = usedMemory();
+    Schema[] schemas = state.parseAll();
+    counters.bytesPerSchema = (usedMemory() - before) / schemas.length;
+    counters.measured = true;
+    return schemas;
+  }
+
+  private static long usedMemory() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  @State(Scope.Thread)
+  public static class TestState {
+
+    @Param({ "false", "true" })
+    public boolean compact;
+
+    private String[] schemas;
+
+    /**
+     * Setup each trial: distinct records whose names, namespaces and properties
+     * recur, like those of generated protocols.
+     */
+    @Setup(Level.Trial)
+    public void doSetupTrial() {
+      this.schemas = new String[SCHEMA_COUNT];
+      for (int i = 0; i < SCHEMA_COUNT; i++) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"type\":\"record\",\"name\":\"Record").append(i)
+            .append("\",\"namespace\":\"org.apache.avro.perf.schemas\",\"fields\":[")
+            .append("{\"name\":\"id\",\"type\":\"long\"},")
+            .append("{\"name\":\"name\",\"type\":{\"type\":\"string\",\"avro.java.string\":\"String\"}},")
+            .append("{\"name\":\"created\",\"type\":{\"type\":\"long\",\"logicalType\":\"timestamp-millis\"}},")
+            .append("{\"name\":\"tags\",\"type\":{\"type\":\"array\",\"items\":\"string\"},\"default\":[]},")
+            .append("{\"name\":\"parent\",\"type\":[\"null\",\"Record").append(i).append("\"],\"default\":null},")
+            .append("{\"name\":\"value").append(i % 10).append("\",\"type\":\"double\",\"doc\":\"A value\"}]}");
+        schemas[i] = json.toString();
+      }
+    }
+
+    Schema[] parseAll() {
+      Schema[] parsed = new Schema[schemas.length];
+      for (int i = 0; i < schemas.length; i++) {
+        parsed[i] = new Schema.Parser().setCompact(compact).parse(schemas[i]);
+      }
+      return parsed;
+    }
+  }
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class MemoryCounters {
+
+    public long bytesPerSchema;
+
+    private boolean measured;
+
+    @Setup(Level.Iteration)
+    public void doSetupIteration() {
+      bytesPerSchema = 0;
+      measured = false;
+    }
+  }
+}